@@ -9,12 +9,14 @@ import java.util.Arrays;
 import java.util.List;
 
 import net.sourceforge.pmd.lang.AbstractLanguageVersionHandler;
+import net.sourceforge.pmd.lang.BatchParser;
 import net.sourceforge.pmd.lang.Parser;
 import net.sourceforge.pmd.lang.ParserOptions;
 import net.sourceforge.pmd.lang.VisitorStarter;
 import net.sourceforge.pmd.lang.XPathHandler;
 import net.sourceforge.pmd.lang.apex.ast.ASTMethod;
 import net.sourceforge.pmd.lang.apex.ast.ASTUserClassOrInterface;
+import net.sourceforge.pmd.lang.apex.ast.ApexBatchParser;
 import net.sourceforge.pmd.lang.apex.ast.ApexNode;
 import net.sourceforge.pmd.lang.apex.ast.DumpFacade;
 import net.sourceforge.pmd.lang.apex.metrics.ApexMetricsComputer;
@@ -59,6 +61,11 @@ public class ApexHandler extends AbstractLanguageVersionHandler {
         return new ApexParser(parserOptions);
     }
 
+    @Override
+    public BatchParser createBatchParser() {
+        return new ApexBatchParser();
+    }
+
     @Override
     public VisitorStarter getDumpFacade(Writer writer, String prefix, boolean recurse) {
         return rootNode -> new DumpFacade().initializeWith(writer, prefix, recurse, (ApexNode<?>) rootNode);
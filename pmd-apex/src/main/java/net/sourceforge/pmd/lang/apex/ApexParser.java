@@ -7,9 +7,11 @@ package net.sourceforge.pmd.lang.apex;
 import java.io.Reader;
 import java.util.Map;
 
+import net.sourceforge.pmd.annotation.Experimental;
 import net.sourceforge.pmd.lang.AbstractParser;
 import net.sourceforge.pmd.lang.ParserOptions;
 import net.sourceforge.pmd.lang.TokenManager;
+import net.sourceforge.pmd.lang.apex.ast.ApexBatchParser;
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.ParseException;
 
@@ -20,8 +22,16 @@ public class ApexParser extends AbstractParser {
     private net.sourceforge.pmd.lang.apex.ast.ApexParser apexParser;
 
     public ApexParser(ParserOptions parserOptions) {
+        this(parserOptions, null);
+    }
+
+    /**
+     * @since 6.13.0
+     */
+    @Experimental
+    public ApexParser(ParserOptions parserOptions, ApexBatchParser batchParser) {
         super(parserOptions);
-        apexParser = new net.sourceforge.pmd.lang.apex.ast.ApexParser((ApexParserOptions) parserOptions);
+        apexParser = new net.sourceforge.pmd.lang.apex.ast.ApexParser((ApexParserOptions) parserOptions, batchParser);
     }
 
     @Override
@@ -36,7 +46,7 @@ public class ApexParser extends AbstractParser {
 
     @Override
     public Node parse(String fileName, Reader source) throws ParseException {
-        return apexParser.parse(source);
+        return apexParser.parse(fileName, source);
     }
 
     @Override
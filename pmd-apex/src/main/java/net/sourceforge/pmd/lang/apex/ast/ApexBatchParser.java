@@ -0,0 +1,149 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.apex.ast;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.sourceforge.pmd.annotation.Experimental;
+import net.sourceforge.pmd.lang.BatchParser;
+import net.sourceforge.pmd.lang.Parser;
+import net.sourceforge.pmd.lang.ParserOptions;
+import net.sourceforge.pmd.lang.apex.ApexJorjeLogging;
+
+import apex.jorje.data.Locations;
+import apex.jorje.semantic.ast.compilation.Compilation;
+import apex.jorje.semantic.symbol.type.TypeInfo;
+
+/**
+ * Compiles the Apex files of the project in batches, each in one compiler
+ * invocation, before they're analyzed. The compiler resolves the references
+ * between the classes of a batch, and the references to the classes of the
+ * other batches through a symbol provider.
+ *
+ * <p>A batch parser is created for each analysis run, see
+ * {@link net.sourceforge.pmd.lang.apex.ApexHandler#createBatchParser()}.
+ * The types declared by all the files are collected first, so a batch
+ * resolves the classes of all the other batches, whatever their order.
+ *
+ * <p>The compiled trees are kept by file name until a parser of
+ * {@link #getParser(ParserOptions)} parses that file, or until
+ * {@link #clear()}. Each batch is compiled right before its files are
+ * analyzed, so only the trees of the files being analyzed are in memory.
+ * A file which couldn't be compiled in its batch is compiled alone by the
+ * parser.
+ *
+ * @since 6.13.0
+ */
+@Experimental
+public class ApexBatchParser implements BatchParser {
+
+    /** The number of files compiled in one compiler invocation. */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final Logger LOG = Logger.getLogger(ApexBatchParser.class.getName());
+
+    private final int batchSize;
+    private final ProjectSymbolProvider symbolProvider = new ProjectSymbolProvider();
+    private final CompilerService compilerService = new CompilerService(symbolProvider, new TestAccessEvaluator(),
+            new TestQueryValidators.Noop());
+    /** The compiled top level types, by file name. The parsers run on other threads. */
+    private final Map<String, Compilation> compiled = new ConcurrentHashMap<>();
+
+
+    public ApexBatchParser() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+
+    public ApexBatchParser(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+
+    @Override
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+
+    @Override
+    public void declareAll(Map<String, String> sources) {
+        // the declared types only depend on the batch, not on the types declared so far
+        TopLevelVisitor visitor = compile(CompilerService.INSTANCE, sources);
+        if (visitor == null) {
+            return;
+        }
+        for (Map.Entry<String, List<TypeInfo>> declared : visitor.getDeclaredTypes().entrySet()) {
+            for (TypeInfo type : declared.getValue()) {
+                symbolProvider.addType(declared.getKey(), type);
+            }
+        }
+    }
+
+
+    @Override
+    public void parseAll(Map<String, String> sources) {
+        symbolProvider.hideTypesOf(sources.keySet());
+        TopLevelVisitor visitor;
+        try {
+            visitor = compile(compilerService, sources);
+        } finally {
+            symbolProvider.hideTypesOf(Collections.<String>emptySet());
+        }
+        if (visitor == null) {
+            return;
+        }
+        for (Map.Entry<String, Compilation> topLevel : visitor.getTopLevels().entrySet()) {
+            if (sources.containsKey(topLevel.getKey())) {
+                compiled.put(topLevel.getKey(), topLevel.getValue());
+            }
+        }
+    }
+
+
+    private TopLevelVisitor compile(CompilerService service, Map<String, String> sources) {
+        ApexJorjeLogging.disableLogging();
+        Locations.useIndexFactory();
+
+        TopLevelVisitor visitor = new TopLevelVisitor();
+        try {
+            service.visitUnitsFromStrings(sources, visitor);
+        } catch (RuntimeException e) {
+            LOG.log(Level.FINE, "Couldn't compile a batch of Apex files, they're compiled one by one", e);
+            return null;
+        }
+        return visitor;
+    }
+
+
+    @Override
+    public Parser getParser(ParserOptions parserOptions) {
+        return new net.sourceforge.pmd.lang.apex.ApexParser(parserOptions, this);
+    }
+
+
+    /**
+     * Returns the compiled top level type of the file, and forgets it.
+     *
+     * @param fileName The name of the file
+     *
+     * @return The top level type, or null if the file was not compiled
+     */
+    Compilation take(String fileName) {
+        return compiled.remove(fileName);
+    }
+
+
+    @Override
+    public void clear() {
+        compiled.clear();
+        symbolProvider.clear();
+    }
+}
@@ -11,30 +11,49 @@ import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
 
+import net.sourceforge.pmd.annotation.Experimental;
 import net.sourceforge.pmd.lang.apex.ApexJorjeLogging;
 import net.sourceforge.pmd.lang.apex.ApexParserOptions;
 import net.sourceforge.pmd.lang.ast.ParseException;
 
 import apex.jorje.data.Locations;
 import apex.jorje.semantic.ast.compilation.Compilation;
-import apex.jorje.semantic.ast.compilation.UserClass;
-import apex.jorje.semantic.ast.compilation.UserEnum;
-import apex.jorje.semantic.ast.compilation.UserInterface;
-import apex.jorje.semantic.ast.compilation.UserTrigger;
-import apex.jorje.semantic.ast.visitor.AdditionalPassScope;
-import apex.jorje.semantic.ast.visitor.AstVisitor;
 
 public class ApexParser {
     protected final ApexParserOptions parserOptions;
+    private final ApexBatchParser batchParser;
 
     private Map<Integer, String> suppressMap;
 
     public ApexParser(ApexParserOptions parserOptions) {
+        this(parserOptions, null);
+    }
+
+    /**
+     * Creates a parser which returns the trees compiled by the batch parser,
+     * by file name, and compiles the other sources alone.
+     *
+     * @param parserOptions The parser options
+     * @param batchParser   The batch parser of the analysis, may be null
+     *
+     * @since 6.13.0
+     */
+    @Experimental
+    public ApexParser(ApexParserOptions parserOptions, ApexBatchParser batchParser) {
         ApexJorjeLogging.disableLogging();
         this.parserOptions = parserOptions;
+        this.batchParser = batchParser;
     }
 
     public Compilation parseApex(final String sourceCode) throws ParseException {
+        return parseApex(null, sourceCode);
+    }
+
+    Compilation parseApex(final String fileName, final String sourceCode) throws ParseException {
+        Compilation compiled = batchParser == null || fileName == null ? null : batchParser.take(fileName);
+        if (compiled != null) {
+            return compiled;
+        }
 
         TopLevelVisitor visitor = new TopLevelVisitor();
         Locations.useIndexFactory();
@@ -44,9 +63,23 @@ public class ApexParser {
     }
 
     public ApexNode<Compilation> parse(final Reader reader) {
+        return parse(null, reader);
+    }
+
+    /**
+     * Parses the source of the file. Returns the tree compiled by the batch
+     * parser for that file if any, or else compiles the source alone.
+     *
+     * @param fileName The name of the file, may be null
+     * @param reader   The source of the file
+     *
+     * @since 6.13.0
+     */
+    @Experimental
+    public ApexNode<Compilation> parse(final String fileName, final Reader reader) {
         try {
             final String sourceCode = IOUtils.toString(reader);
-            final Compilation astRoot = parseApex(sourceCode);
+            final Compilation astRoot = parseApex(fileName, sourceCode);
             final ApexTreeBuilder treeBuilder = new ApexTreeBuilder(sourceCode);
             suppressMap = new HashMap<>();
 
@@ -63,32 +96,4 @@ public class ApexParser {
     public Map<Integer, String> getSuppressMap() {
         return suppressMap;
     }
-
-    private class TopLevelVisitor extends AstVisitor<AdditionalPassScope> {
-        Compilation topLevel;
-
-        public Compilation getTopLevel() {
-            return topLevel;
-        }
-
-        @Override
-        public void visitEnd(UserClass node, AdditionalPassScope scope) {
-            topLevel = node;
-        }
-
-        @Override
-        public void visitEnd(UserEnum node, AdditionalPassScope scope) {
-            topLevel = node;
-        }
-
-        @Override
-        public void visitEnd(UserInterface node, AdditionalPassScope scope) {
-            topLevel = node;
-        }
-
-        @Override
-        public void visitEnd(UserTrigger node, AdditionalPassScope scope) {
-            topLevel = node;
-        }
-    }
 }
@@ -6,7 +6,10 @@ package net.sourceforge.pmd.lang.apex.ast;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.reflect.FieldUtils;
@@ -82,16 +85,38 @@ public class CompilerService {
 
     public ApexCompiler visitAstsFromStrings(List<String> sources, AstVisitor<AdditionalPassScope> visitor,
             CompilerStage compilerStage) {
-        List<SourceFile> sourceFiles = sources.stream().map(s -> SourceFile.builder().setBody(s).build())
-                .collect(Collectors.toList());
+        CompilationInput compilationUnit = createCompilationInput(toSourceFiles(sources), visitor);
+        return compile(compilationUnit, compilerStage, null, null);
+    }
+
+    /**
+     * Compiles the sources in one compiler invocation. The visitor finds
+     * the top level type of each unit, and is told the file name of the
+     * unit, matched by its source file.
+     *
+     * @param sources The sources by file name
+     */
+    void visitUnitsFromStrings(Map<String, String> sources, TopLevelVisitor visitor) {
+        List<SourceFile> sourceFiles = new ArrayList<>();
+        Map<SourceFile, String> fileNames = new IdentityHashMap<>();
+        for (Map.Entry<String, String> source : sources.entrySet()) {
+            SourceFile sourceFile = SourceFile.builder().setBody(source.getValue()).build();
+            sourceFiles.add(sourceFile);
+            fileNames.put(sourceFile, source.getKey());
+        }
         CompilationInput compilationUnit = createCompilationInput(sourceFiles, visitor);
-        return compile(compilationUnit, compilerStage);
+        compile(compilationUnit, CompilerStage.POST_TYPE_RESOLVE, visitor, fileNames);
+    }
+
+    private List<SourceFile> toSourceFiles(List<String> sources) {
+        return sources.stream().map(s -> SourceFile.builder().setBody(s).build()).collect(Collectors.toList());
     }
 
-    private ApexCompiler compile(CompilationInput compilationInput, CompilerStage compilerStage) {
+    private ApexCompiler compile(CompilationInput compilationInput, CompilerStage compilerStage,
+            TopLevelVisitor unitVisitor, Map<SourceFile, String> fileNames) {
         ApexCompiler compiler = ApexCompiler.builder().setInput(compilationInput).build();
         compiler.compile(compilerStage);
-        callAdditionalPassVisitor(compiler);
+        callAdditionalPassVisitor(compiler, unitVisitor, fileNames);
         return compiler;
     }
 
@@ -109,21 +134,28 @@ public class CompilerService {
      * stop all work on that, we bypass it so that we can still do useful things
      * like find all your types, find all your methods, etc.
      *
+     * <p>The unit visitor, if any, is notified of the end of each unit, with
+     * the file name of its source file.
      */
     @SuppressWarnings("unchecked")
-    private void callAdditionalPassVisitor(ApexCompiler compiler) {
+    private void callAdditionalPassVisitor(ApexCompiler compiler, TopLevelVisitor unitVisitor,
+            Map<SourceFile, String> fileNames) {
         try {
             List<CodeUnit> allUnits = (List<CodeUnit>) FieldUtils.readDeclaredField(compiler, "allUnits", true);
             CompilerContext compilerContext = (CompilerContext) FieldUtils.readDeclaredField(compiler,
                     "compilerContext", true);
 
+            Method getOperation = CompilerStage.ADDITIONAL_VALIDATE.getDeclaringClass()
+                    .getDeclaredMethod("getOperation");
+            getOperation.setAccessible(true);
+            CompilerOperation operation = (CompilerOperation) getOperation
+                    .invoke(CompilerStage.ADDITIONAL_VALIDATE);
+
             for (CodeUnit unit : allUnits) {
-                Method getOperation = CompilerStage.ADDITIONAL_VALIDATE.getDeclaringClass()
-                        .getDeclaredMethod("getOperation");
-                getOperation.setAccessible(true);
-                CompilerOperation operation = (CompilerOperation) getOperation
-                        .invoke(CompilerStage.ADDITIONAL_VALIDATE);
                 operation.invoke(compilerContext, unit);
+                if (unitVisitor != null) {
+                    unitVisitor.endUnit(fileNames.get(unit.getSourceFile()));
+                }
             }
         } catch (IllegalAccessException | InvocationTargetException | NoSuchMethodException e) {
             throw new RuntimeException(e);
@@ -0,0 +1,132 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.apex.ast;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import apex.jorje.semantic.compiler.Namespace;
+import apex.jorje.semantic.compiler.sfdc.SymbolProvider;
+import apex.jorje.semantic.symbol.resolver.SymbolResolver;
+import apex.jorje.semantic.symbol.type.TypeInfo;
+
+/**
+ * Provides the types declared by the classes of the project, so that the
+ * compiler resolves the references to the classes of the other batches.
+ * Doesn't provide any other symbols, like {@link EmptySymbolProvider}.
+ *
+ * <p>The types of all the files are added before any batch is compiled with
+ * this provider. While a batch is compiled, the types declared by its files
+ * are hidden, the compiler resolves them from the sources. If several files
+ * declare a type with the same name, the type of the first file by name is
+ * provided, whatever the order of the files. Used by a single thread.
+ */
+final class ProjectSymbolProvider implements SymbolProvider {
+
+    /** The declared types, by lower case name. */
+    private final Map<String, Declaration> types = new HashMap<>();
+    /** The lower case names of the types declared by each file. */
+    private final Map<String, List<String>> namesByFile = new HashMap<>();
+    private Set<String> hiddenNames = Collections.emptySet();
+
+    void addType(String fileName, TypeInfo type) {
+        String name = type.getApexName().toLowerCase(Locale.ROOT);
+        Declaration previous = types.get(name);
+        if (previous == null || fileName.compareTo(previous.fileName) < 0) {
+            types.put(name, new Declaration(fileName, type));
+        }
+        List<String> names = namesByFile.get(fileName);
+        if (names == null) {
+            names = new ArrayList<>();
+            namesByFile.put(fileName, names);
+        }
+        names.add(name);
+    }
+
+    /**
+     * Hides the types declared by the given files, until the next call.
+     *
+     * @param fileNames The files of the batch being compiled
+     */
+    void hideTypesOf(Collection<String> fileNames) {
+        Set<String> names = new HashSet<>();
+        for (String fileName : fileNames) {
+            List<String> declared = namesByFile.get(fileName);
+            if (declared != null) {
+                names.addAll(declared);
+            }
+        }
+        hiddenNames = names;
+    }
+
+    void clear() {
+        types.clear();
+        namesByFile.clear();
+        hiddenNames = Collections.emptySet();
+    }
+
+    @Override
+    public TypeInfo find(final SymbolResolver symbols, final TypeInfo referencingType, final String lowerCaseFullName) {
+        if (hiddenNames.contains(lowerCaseFullName)) {
+            return null;
+        }
+        Declaration declaration = types.get(lowerCaseFullName);
+        return declaration == null ? null : declaration.type;
+    }
+
+    @Override
+    public TypeInfo getVfComponentType(final SymbolResolver symbols, final TypeInfo referencingType,
+            final Namespace namespace, final String name) {
+        return EmptySymbolProvider.get().getVfComponentType(symbols, referencingType, namespace, name);
+    }
+
+    @Override
+    public TypeInfo getFlowInterviewType(final SymbolResolver symbols, final TypeInfo referencingType,
+            final Namespace namespace, final String name) {
+        return EmptySymbolProvider.get().getFlowInterviewType(symbols, referencingType, namespace, name);
+    }
+
+    @Override
+    public TypeInfo getSObjectType(final TypeInfo referencingType, final String name) {
+        return EmptySymbolProvider.get().getSObjectType(referencingType, name);
+    }
+
+    @Override
+    public String getPageReference(final TypeInfo referencingType, final String name) {
+        return EmptySymbolProvider.get().getPageReference(referencingType, name);
+    }
+
+    @Override
+    public boolean hasLabelField(final TypeInfo referencingType, final Namespace namespace, final String name) {
+        return EmptySymbolProvider.get().hasLabelField(referencingType, namespace, name);
+    }
+
+    @Override
+    public String getQuickAction(TypeInfo referencingType, String arg1, String arg2) {
+        return EmptySymbolProvider.get().getQuickAction(referencingType, arg1, arg2);
+    }
+
+    @Override
+    public TypeInfo getAggregateResultType(TypeInfo referencingType) {
+        return EmptySymbolProvider.get().getAggregateResultType(referencingType);
+    }
+
+    private static final class Declaration {
+        private final String fileName;
+        private final TypeInfo type;
+
+        Declaration(String fileName, TypeInfo type) {
+            this.fileName = fileName;
+            this.type = type;
+        }
+    }
+}
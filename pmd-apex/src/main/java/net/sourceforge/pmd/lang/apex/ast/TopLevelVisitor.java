@@ -0,0 +1,90 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.apex.ast;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import apex.jorje.semantic.ast.compilation.Compilation;
+import apex.jorje.semantic.ast.compilation.UserClass;
+import apex.jorje.semantic.ast.compilation.UserEnum;
+import apex.jorje.semantic.ast.compilation.UserInterface;
+import apex.jorje.semantic.ast.compilation.UserTrigger;
+import apex.jorje.semantic.ast.visitor.AdditionalPassScope;
+import apex.jorje.semantic.ast.visitor.AstVisitor;
+import apex.jorje.semantic.symbol.type.TypeInfo;
+
+/**
+ * Finds the top level type of the compiled units, which is the last type
+ * whose visit ends. Also collects the types declared by the units.
+ */
+class TopLevelVisitor extends AstVisitor<AdditionalPassScope> {
+
+    private Compilation topLevel;
+    private List<TypeInfo> unitTypes = new ArrayList<>();
+    private final Map<String, Compilation> topLevels = new HashMap<>();
+    private final Map<String, List<TypeInfo>> declaredTypes = new HashMap<>();
+
+    public Compilation getTopLevel() {
+        return topLevel;
+    }
+
+    /**
+     * Ends the visit of a unit, when several units are compiled together.
+     *
+     * @param fileName The file name of the unit, or null if it's unknown
+     */
+    void endUnit(String fileName) {
+        if (fileName != null) {
+            if (topLevel != null) {
+                topLevels.put(fileName, topLevel);
+            }
+            declaredTypes.put(fileName, unitTypes);
+        }
+        topLevel = null;
+        unitTypes = new ArrayList<>();
+    }
+
+    /**
+     * Returns the top level type of each unit by file name. A unit which
+     * couldn't be compiled is missing.
+     */
+    Map<String, Compilation> getTopLevels() {
+        return topLevels;
+    }
+
+    /**
+     * Returns the classes, interfaces and enums declared by each unit by
+     * file name, including the nested ones.
+     */
+    Map<String, List<TypeInfo>> getDeclaredTypes() {
+        return declaredTypes;
+    }
+
+    @Override
+    public void visitEnd(UserClass node, AdditionalPassScope scope) {
+        topLevel = node;
+        unitTypes.add(node.getDefiningType());
+    }
+
+    @Override
+    public void visitEnd(UserEnum node, AdditionalPassScope scope) {
+        topLevel = node;
+        unitTypes.add(node.getDefiningType());
+    }
+
+    @Override
+    public void visitEnd(UserInterface node, AdditionalPassScope scope) {
+        topLevel = node;
+        unitTypes.add(node.getDefiningType());
+    }
+
+    @Override
+    public void visitEnd(UserTrigger node, AdditionalPassScope scope) {
+        topLevel = node;
+    }
+}
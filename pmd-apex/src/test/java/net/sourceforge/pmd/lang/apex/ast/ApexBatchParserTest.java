@@ -0,0 +1,185 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.apex.ast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.lang.apex.ApexParserOptions;
+
+import apex.jorje.semantic.ast.compilation.Compilation;
+import apex.jorje.semantic.symbol.type.TypeInfo;
+
+public class ApexBatchParserTest {
+
+    private static final String FOO = "public class Foo {\n"
+            + "    public Bar bar() {\n"
+            + "        return new Bar();\n"
+            + "    }\n"
+            + "}";
+
+    private static final String BAR = "public class Bar {\n"
+            + "    public Integer count() {\n"
+            + "        return 1;\n"
+            + "    }\n"
+            + "}";
+
+    private static final String TRIGGER = "trigger BarTrigger on Account (before insert) {\n"
+            + "}";
+
+    @Test
+    public void testParserReturnsCompiledTrees() {
+        ApexBatchParser batchParser = new ApexBatchParser();
+        Map<String, String> sources = sources("Foo.cls", FOO, "Bar.cls", BAR, "BarTrigger.trigger", TRIGGER);
+        batchParser.declareAll(sources);
+        batchParser.parseAll(sources);
+
+        ApexParser parser = new ApexParser(new ApexParserOptions(), batchParser);
+        Compilation foo = parser.parseApex("Foo.cls", FOO);
+        assertNotNull(foo);
+        // the compiled tree is only returned once
+        assertNull(batchParser.take("Foo.cls"));
+
+        ApexNode<Compilation> bar = parser.parse("Bar.cls", new StringReader(BAR));
+        assertEquals("Bar", bar.getImage());
+        assertEquals(1, bar.findDescendantsOfType(ASTMethod.class).stream()
+                .filter(m -> "count".equals(m.getImage())).count());
+
+        ApexNode<Compilation> trigger = parser.parse("BarTrigger.trigger", new StringReader(TRIGGER));
+        assertEquals(ASTUserTrigger.class, trigger.getClass());
+    }
+
+    @Test
+    public void testFilesWithTheSameContentsHaveTheirOwnTrees() {
+        ApexBatchParser batchParser = new ApexBatchParser();
+        Map<String, String> sources = sources("a/Bar.cls", BAR, "b/Bar.cls", BAR);
+        batchParser.declareAll(sources);
+        batchParser.parseAll(sources);
+
+        Compilation first = batchParser.take("a/Bar.cls");
+        assertNotNull(first);
+        // taking the tree of a file leaves the tree of the other one
+        Compilation second = batchParser.take("b/Bar.cls");
+        assertNotNull(second);
+        assertNotSame(first, second);
+    }
+
+    @Test
+    public void testTreesAreMatchedByFileName() {
+        ApexBatchParser batchParser = new ApexBatchParser();
+        Map<String, String> sources = sources("Foo.cls", FOO, "Bar.cls", BAR);
+        batchParser.declareAll(sources);
+        batchParser.parseAll(sources);
+
+        ApexParser parser = new ApexParser(new ApexParserOptions(), batchParser);
+        assertEquals("Bar", parser.parse("Bar.cls", new StringReader(BAR)).getImage());
+        assertEquals("Foo", parser.parse("Foo.cls", new StringReader(FOO)).getImage());
+        // a file of another run is compiled alone
+        assertNull(batchParser.take("Baz.cls"));
+        assertEquals("Bar", parser.parse("Baz.cls", new StringReader(BAR)).getImage());
+    }
+
+    @Test
+    public void testBatchesBuildTheSameTrees() {
+        ApexBatchParser batchParser = new ApexBatchParser();
+        batchParser.declareAll(sources("Foo.cls", FOO));
+        batchParser.declareAll(sources("Bar.cls", BAR));
+        batchParser.parseAll(sources("Foo.cls", FOO));
+        batchParser.parseAll(sources("Bar.cls", BAR));
+
+        ApexNode<Compilation> batched = new ApexParser(new ApexParserOptions(), batchParser)
+                .parse("Foo.cls", new StringReader(FOO));
+        ApexNode<Compilation> alone = new ApexParser(new ApexParserOptions()).parse(new StringReader(FOO));
+
+        assertSame(batched.getClass(), alone.getClass());
+        assertEquals(alone.findDescendantsOfType(ASTMethod.class).size(),
+                batched.findDescendantsOfType(ASTMethod.class).size());
+        assertEquals(alone.getEndLine(), batched.getEndLine());
+        assertEquals(alone.getEndColumn(), batched.getEndColumn());
+    }
+
+    @Test
+    public void testSymbolsDontDependOnTheOrderOfTheBatches() {
+        ProjectSymbolProvider symbolProvider = new ProjectSymbolProvider();
+        TopLevelVisitor visitor = new TopLevelVisitor();
+        CompilerService.INSTANCE.visitUnitsFromStrings(sources("Foo.cls", FOO, "Bar.cls", BAR), visitor);
+        for (Map.Entry<String, List<TypeInfo>> declared : visitor.getDeclaredTypes().entrySet()) {
+            for (TypeInfo type : declared.getValue()) {
+                symbolProvider.addType(declared.getKey(), type);
+            }
+        }
+
+        // Foo is compiled first, and still resolves Bar
+        symbolProvider.hideTypesOf(Collections.singleton("Foo.cls"));
+        assertNotNull(symbolProvider.find(null, null, "bar"));
+        // the types of the batch being compiled are resolved from its sources
+        assertNull(symbolProvider.find(null, null, "foo"));
+        symbolProvider.hideTypesOf(Collections.singleton("Bar.cls"));
+        assertNotNull(symbolProvider.find(null, null, "foo"));
+        assertNull(symbolProvider.find(null, null, "bar"));
+    }
+
+    @Test
+    public void testRunsDontShareTheirTrees() throws Exception {
+        final int runs = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < runs; i++) {
+                results.add(executor.submit(() -> {
+                    // one batch parser per analysis run, all parsing the same files
+                    ApexBatchParser batchParser = new ApexBatchParser();
+                    Map<String, String> sources = sources("Foo.cls", FOO, "Bar.cls", BAR);
+                    batchParser.declareAll(sources);
+                    batchParser.parseAll(sources);
+                    boolean complete = batchParser.take("Foo.cls") != null && batchParser.take("Bar.cls") != null;
+                    batchParser.clear();
+                    return complete;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testParserCompilesAloneAfterClear() {
+        ApexBatchParser batchParser = new ApexBatchParser();
+        batchParser.parseAll(sources("Foo.cls", FOO));
+        batchParser.clear();
+
+        assertNull(batchParser.take("Foo.cls"));
+        ApexNode<Compilation> foo = new ApexParser(new ApexParserOptions(), batchParser)
+                .parse("Foo.cls", new StringReader(FOO));
+        assertEquals("Foo", foo.getImage());
+    }
+
+    private static Map<String, String> sources(String... namesAndSources) {
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndSources.length; i += 2) {
+            sources.put(namesAndSources[i], namesAndSources[i + 1]);
+        }
+        return sources;
+    }
+}
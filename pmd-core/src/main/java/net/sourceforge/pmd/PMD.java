@@ -37,11 +37,13 @@ import net.sourceforge.pmd.lang.LanguageVersionDiscoverer;
 import net.sourceforge.pmd.lang.LanguageVersionHandler;
 import net.sourceforge.pmd.lang.Parser;
 import net.sourceforge.pmd.lang.ParserOptions;
+import net.sourceforge.pmd.lang.metrics.MetricValueStore;
 import net.sourceforge.pmd.processor.MonoThreadProcessor;
 import net.sourceforge.pmd.processor.MultiThreadProcessor;
 import net.sourceforge.pmd.renderers.Renderer;
 import net.sourceforge.pmd.stat.Metric;
 import net.sourceforge.pmd.util.ClasspathClassLoader;
+import net.sourceforge.pmd.util.ClasspathSymbolIndex;
 import net.sourceforge.pmd.util.FileUtil;
 import net.sourceforge.pmd.util.IOUtil;
 import net.sourceforge.pmd.util.ResourceLoader;
@@ -323,14 +325,41 @@ public class PMD {
          * be disabled if threadCount is not positive, e.g. using the
          * "-threads 0" command line option.
          */
-        if (configuration.getThreads() > 0) {
-            new MultiThreadProcessor(configuration).processFiles(silentFactory, files, ctx, renderers);
-        } else {
-            new MonoThreadProcessor(configuration).processFiles(silentFactory, files, ctx, renderers);
+        final MetricValueStore metricValues = loadMetricValueStore(configuration);
+        final MetricValueStore previousMetricValues = ctx.getMetricValueStore();
+        ctx.setMetricValueStore(metricValues);
+        try {
+            if (configuration.getThreads() > 0) {
+                new MultiThreadProcessor(configuration).processFiles(silentFactory, files, ctx, renderers);
+            } else {
+                new MonoThreadProcessor(configuration).processFiles(silentFactory, files, ctx, renderers);
+            }
+        } finally {
+            ctx.setMetricValueStore(previousMetricValues);
         }
 
         // Persist the analysis cache
         configuration.getAnalysisCache().persist();
+        if (metricValues != null) {
+            metricValues.persist();
+        }
+    }
+
+    private static MetricValueStore loadMetricValueStore(final PMDConfiguration configuration) {
+        final File file = configuration.getMetricsCacheFile();
+        if (file == null) {
+            return null;
+        }
+
+        // metrics may depend on type resolution, so on the contents of the auxclasspath
+        long classpathChecksum = 0;
+        if (configuration.getClassLoader() instanceof ClasspathClassLoader) {
+            final ClasspathClassLoader classLoader = (ClasspathClassLoader) configuration.getClassLoader();
+            final ClasspathSymbolIndex index = classLoader.getSymbolIndex();
+            classpathChecksum = index != null ? index.getChecksum()
+                    : ClasspathSymbolIndex.computeChecksum(classLoader.getURLs());
+        }
+        return MetricValueStore.load(file, classpathChecksum);
     }
 
     private static void sortFiles(final PMDConfiguration configuration, final List<DataSource> files) {
@@ -31,12 +31,16 @@ import net.sourceforge.pmd.util.IOUtil;
  * defaults to {@link PMD#SUPPRESS_MARKER}. {@link #getSuppressMarker()}</li>
  * <li>The number of threads to create when invoking on multiple files, defaults
  * one thread per available processor. {@link #getThreads()}</li>
+ * <li>The number of threads among which the rules are split when analyzing a
+ * single large file, disabled by default. {@link #getRuleThreads()}</li>
  * <li>A ClassLoader to use when loading classes during Rule processing (e.g.
  * during type resolution), defaults to ClassLoader of the Configuration class.
  * {@link #getClassLoader()}</li>
  * <li>A means to configure a ClassLoader using a prepended classpath String,
  * instead of directly setting it programmatically.
  * {@link #prependClasspath(String)}</li>
+ * <li>A directory where the symbol index of the prepended classpath is persisted,
+ * disabled by default. {@link #getAuxClasspathIndexDirectory()}</li>
  * <li>A LanguageVersionDiscoverer instance, which defaults to using the default
  * LanguageVersion of each Language. Means are provided to change the
  * LanguageVersion for each Language.
@@ -77,13 +81,17 @@ import net.sourceforge.pmd.util.IOUtil;
  * as randomizing the order of file processing. {@link #isStressTest()}</li>
  * <li>An indicator of whether PMD should log benchmarking information.
  * {@link #isBenchmark()}</li>
+ * <li>A file where the computed metric values are persisted for incremental
+ * analysis, disabled by default. {@link #getMetricsCacheFile()}</li>
  * </ul>
  */
 public class PMDConfiguration extends AbstractConfiguration {
     // General behavior options
     private String suppressMarker = PMD.SUPPRESS_MARKER;
     private int threads = Runtime.getRuntime().availableProcessors();
+    private int ruleThreads = 0;
     private ClassLoader classLoader = getClass().getClassLoader();
+    private File auxClasspathIndexDirectory;
     private LanguageVersionDiscoverer languageVersionDiscoverer = new LanguageVersionDiscoverer();
 
     // Rule and source file options
@@ -107,6 +115,7 @@ public class PMDConfiguration extends AbstractConfiguration {
     private boolean benchmark;
     private AnalysisCache analysisCache = new NoopAnalysisCache();
     private boolean ignoreIncrementalAnalysis;
+    private File metricsCacheFile;
 
     /**
      * Get the suppress marker. This is the source level marker used to indicate
@@ -147,6 +156,31 @@ public class PMDConfiguration extends AbstractConfiguration {
         this.threads = threads;
     }
 
+    /**
+     * Get the number of threads among which the rules are split when
+     * analyzing a large file. A value lower than 2 means that all the rules
+     * are applied on the thread processing the file. The threads share the
+     * AST of the file, which is only parsed once.
+     *
+     * @return The number of threads.
+     * @see net.sourceforge.pmd.lang.rule.NotParallelizable
+     */
+    public int getRuleThreads() {
+        return ruleThreads;
+    }
+
+    /**
+     * Set the number of threads among which the rules are split when
+     * analyzing a large file. A value lower than 2 disables the parallel
+     * application of rules, which is the default.
+     *
+     * @param ruleThreads
+     *            The number of threads.
+     */
+    public void setRuleThreads(int ruleThreads) {
+        this.ruleThreads = ruleThreads;
+    }
+
     /**
      * Get the ClassLoader being used by PMD when processing Rules.
      *
@@ -194,6 +228,40 @@ public class PMDConfiguration extends AbstractConfiguration {
         }
         if (classpath != null) {
             classLoader = new ClasspathClassLoader(classpath, classLoader);
+            if (auxClasspathIndexDirectory != null) {
+                ((ClasspathClassLoader) classLoader).enableSymbolIndex(auxClasspathIndexDirectory);
+            }
+        }
+    }
+
+    /**
+     * Get the directory where the symbol index of the prepended classpath is
+     * persisted.
+     *
+     * @return The directory, or null if the index is disabled
+     * @see ClasspathClassLoader#getSymbolIndex()
+     * @since 6.13.0
+     */
+    public File getAuxClasspathIndexDirectory() {
+        return auxClasspathIndexDirectory;
+    }
+
+    /**
+     * Set the directory where the symbol index of the prepended classpath is
+     * persisted. Type resolution then looks up the classes of the classpath in
+     * the index, instead of loading them, where it can. The index of each jar
+     * is built once, and reused by later runs as long as the jar doesn't change.
+     * Setting a value of <code>null</code> disables the index.
+     *
+     * @param indexDirectory
+     *            The directory of the index
+     * @see #prependClasspath(String)
+     * @since 6.13.0
+     */
+    public void setAuxClasspathIndexDirectory(File indexDirectory) {
+        this.auxClasspathIndexDirectory = indexDirectory;
+        if (indexDirectory != null && classLoader instanceof ClasspathClassLoader) {
+            ((ClasspathClassLoader) classLoader).enableSymbolIndex(indexDirectory);
         }
     }
 
@@ -612,9 +680,21 @@ public class PMDConfiguration extends AbstractConfiguration {
      * @param cacheLocation The location of the analysis cache to be used.
      */
     public void setAnalysisCacheLocation(final String cacheLocation) {
+        setAnalysisCacheLocation(cacheLocation, false);
+    }
+
+    /**
+     * Sets the location of the analysis cache to be used. This will automatically configure
+     * and appropriate AnalysisCache implementation.
+     *
+     * @param cacheLocation The location of the analysis cache to be used.
+     * @param trustFileMetadata Whether files whose size and last modification time didn't change
+     *                          are considered up to date without comparing the checksum of their contents.
+     */
+    public void setAnalysisCacheLocation(final String cacheLocation, final boolean trustFileMetadata) {
         setAnalysisCache(cacheLocation == null
                                  ? new NoopAnalysisCache()
-                                 : new FileAnalysisCache(new File(cacheLocation)));
+                                 : new FileAnalysisCache(new File(cacheLocation), trustFileMetadata));
     }
 
 
@@ -640,4 +720,30 @@ public class PMDConfiguration extends AbstractConfiguration {
     public boolean isIgnoreIncrementalAnalysis() {
         return ignoreIncrementalAnalysis;
     }
+
+
+    /**
+     * Returns the file where the metric values are persisted, so that the
+     * next runs don't compute them again for the files that didn't change.
+     *
+     * @return The file, or null if the metric values are not persisted,
+     *     or if incremental analysis is disabled
+     * @see #isIgnoreIncrementalAnalysis()
+     * @since 6.13.0
+     */
+    public File getMetricsCacheFile() {
+        return isIgnoreIncrementalAnalysis() ? null : metricsCacheFile;
+    }
+
+
+    /**
+     * Sets the file where the metric values are persisted. Setting a value
+     * of {@code null} disables the persistence of the metric values.
+     *
+     * @param metricsCacheFile The file
+     * @since 6.13.0
+     */
+    public void setMetricsCacheFile(File metricsCacheFile) {
+        this.metricsCacheFile = metricsCacheFile;
+    }
 }
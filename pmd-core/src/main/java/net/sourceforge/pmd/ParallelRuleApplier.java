@@ -0,0 +1,174 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import net.sourceforge.pmd.Report.ProcessingError;
+import net.sourceforge.pmd.Report.SuppressedViolation;
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.lang.Language;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.processor.PmdThreadFactory;
+import net.sourceforge.pmd.stat.Metric;
+
+/**
+ * Applies the rules of a {@link RuleSets} on a single file using several
+ * threads. The rules are partitioned (see {@link RuleSets#getParallelPartitions(int)}),
+ * and each partition is applied with its own {@link Report}. The reports are merged
+ * into the report of the file once all partitions are done. Rules marked as
+ * {@link net.sourceforge.pmd.lang.rule.NotParallelizable} are applied afterwards
+ * on the calling thread.
+ *
+ * <p>All the partitions use the same AST, which is parsed once and on which
+ * the facades (symbol table, type resolution, data flow...) have already run.
+ * Rules only read it. The state computed lazily on first use is safe to
+ * compute concurrently: the data flow of a method is built under a lock, the
+ * metric memoizers are atomic, and the other lazy values (signatures, kinds)
+ * are immutable, so a race only computes them twice. Each partition has its
+ * own context, and thus its own XPath document.
+ */
+/* package */ final class ParallelRuleApplier {
+
+    private final int threads;
+    private ForkJoinPool pool;
+
+    /* package */ ParallelRuleApplier(int threads) {
+        this.threads = threads;
+    }
+
+    /* package */ void apply(final List<Node> acuList, final RuleSets ruleSets, final RuleContext ctx,
+            final Language language) {
+        final List<RuleSets> partitions = ruleSets.getParallelPartitions(threads);
+        final List<Future<Report>> futures = new ArrayList<>(partitions.size());
+        final AtomicBoolean abandoned = new AtomicBoolean();
+        for (int i = 1; i < partitions.size(); i++) {
+            final RuleSets partition = partitions.get(i);
+            futures.add(getPool().submit(new Callable<Report>() {
+                @Override
+                public Report call() {
+                    if (abandoned.get()) {
+                        return null;
+                    }
+                    return applyPartition(acuList, partition, ctx, language);
+                }
+            }));
+        }
+
+        try {
+            // the calling thread takes its share of the work too
+            if (!partitions.isEmpty()) {
+                partitions.get(0).apply(acuList, ctx, language);
+            }
+            for (Future<Report> future : futures) {
+                merge(ctx.getReport(), future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while applying rules on " + ctx.getSourceCodeFilename(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            // partitions which didn't start yet are skipped, and the file
+            // is only done once the running ones are finished
+            abandoned.set(true);
+            awaitCompletion(futures);
+        }
+
+        ruleSets.getSequentialRules().apply(acuList, ctx, language);
+    }
+
+    /**
+     * Waits until all the futures are done, whatever their outcome. Rules
+     * cannot be interrupted, so cancelling a future would only stop waiting
+     * for it, while its rules keep running.
+     */
+    private static void awaitCompletion(List<Future<Report>> futures) {
+        boolean interrupted = false;
+        for (Future<Report> future : futures) {
+            while (!future.isDone()) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    // already reported, or superseded by the failure being thrown
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Report applyPartition(List<Node> acuList, RuleSets partition, RuleContext ctx,
+            Language language) {
+        final RuleContext partitionCtx = new RuleContext(ctx);
+        partitionCtx.setReport(new Report());
+        partitionCtx.setSourceCodeFile(ctx.getSourceCodeFile());
+        partitionCtx.setSourceCodeFilename(ctx.getSourceCodeFilename());
+        partitionCtx.setLanguageVersion(ctx.getLanguageVersion());
+        partitionCtx.setIgnoreExceptions(ctx.isIgnoreExceptions());
+        partitionCtx.setMetricValues(ctx.getMetricValues());
+
+        TimeTracker.initThread();
+        try {
+            partition.apply(acuList, partitionCtx, language);
+        } finally {
+            partitionCtx.setXPathDocument(null, null);
+            TimeTracker.finishThread();
+        }
+        return partitionCtx.getReport();
+    }
+
+    /**
+     * Adds the contents of the partition report to the report of the file.
+     * Violations are added one by one, so that NOPMD suppressions and report
+     * listeners of the file report apply to them.
+     */
+    private static void merge(Report fileReport, Report partitionReport) {
+        for (RuleViolation violation : partitionReport) {
+            fileReport.addRuleViolation(violation);
+        }
+        for (SuppressedViolation suppressed : partitionReport.getSuppressedRuleViolations()) {
+            fileReport.addRuleViolation(suppressed.getRuleViolation());
+        }
+        for (Iterator<ProcessingError> it = partitionReport.errors(); it.hasNext();) {
+            fileReport.addError(it.next());
+        }
+        for (Iterator<Metric> it = partitionReport.metrics(); it.hasNext();) {
+            fileReport.addMetric(it.next());
+        }
+    }
+
+    private synchronized ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = new ForkJoinPool(threads - 1, new PmdThreadFactory(), null, false);
+        }
+        return pool;
+    }
+
+    /**
+     * Shuts down the worker threads. The applier must not be used afterwards.
+     */
+    /* package */ synchronized void close() {
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+}
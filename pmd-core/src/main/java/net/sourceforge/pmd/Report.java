@@ -15,6 +15,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
@@ -35,15 +36,18 @@ import net.sourceforge.pmd.util.NumericConstants;
 public class Report implements Iterable<RuleViolation> {
 
     /*
-     * The idea is to store the violations in a tree instead of a list, to do
-     * better and faster sort and filter mechanism and to visualize the result
-     * as tree. (ide plugins).
+     * The violations are kept in the order they were added, as runs: the
+     * violations added to this report, and the sorted violations of each
+     * merged report. They are only sorted when they're iterated, by merging
+     * the runs, so that merging many file reports takes linear time.
      */
-    private final ReportTree violationTree = new ReportTree();
-
-    // Note that this and the above data structure are both being maintained for
-    // a bit
-    private final List<RuleViolation> violations = new ArrayList<>();
+    private final List<ViolationRun> violationRuns = new ArrayList<>();
+    private ViolationRun addedViolations;
+    private int violationCount;
+    /** The sorted violations, null if they have to be sorted again. */
+    private List<RuleViolation> sortedViolations;
+    /** The tree of the violations, only built when it's requested. */
+    private ReportTree violationTree;
     private final Set<Metric> metrics = new HashSet<>();
     private final List<ThreadSafeReportListener> listeners = new ArrayList<>();
     private List<ProcessingError> errors;
@@ -263,7 +267,7 @@ public class Report implements Iterable<RuleViolation> {
      */
     public Map<String, Integer> getCountSummary() {
         Map<String, Integer> summary = new HashMap<>();
-        for (RuleViolation rv : violationTree) {
+        for (RuleViolation rv : getViolationTree()) {
             String key = keyFor(rv);
             Integer o = summary.get(key);
             summary.put(key, o == null ? NumericConstants.ONE : o + 1);
@@ -271,8 +275,23 @@ public class Report implements Iterable<RuleViolation> {
         return summary;
     }
 
-    public ReportTree getViolationTree() {
-        return this.violationTree;
+    /**
+     * Returns the violations as a tree of packages and classes. The tree is
+     * built on the first call, and then kept up to date.
+     *
+     * @return The violation tree
+     */
+    public synchronized ReportTree getViolationTree() {
+        if (violationTree == null) {
+            ReportTree tree = new ReportTree();
+            for (ViolationRun run : violationRuns) {
+                for (RuleViolation violation : run.violations) {
+                    tree.addRuleViolation(violation);
+                }
+            }
+            violationTree = tree;
+        }
+        return violationTree;
     }
 
     /**
@@ -283,13 +302,15 @@ public class Report implements Iterable<RuleViolation> {
      */
     public Map<String, Integer> getSummary() {
         Map<String, Integer> summary = new HashMap<>();
-        for (RuleViolation rv : violations) {
-            String name = rv.getRule().getName();
-            if (!summary.containsKey(name)) {
-                summary.put(name, NumericConstants.ZERO);
+        for (ViolationRun run : violationRuns) {
+            for (RuleViolation rv : run.violations) {
+                String name = rv.getRule().getName();
+                if (!summary.containsKey(name)) {
+                    summary.put(name, NumericConstants.ZERO);
+                }
+                Integer count = summary.get(name);
+                summary.put(name, count + 1);
             }
-            Integer count = summary.get(name);
-            summary.put(name, count + 1);
         }
         return summary;
     }
@@ -328,9 +349,12 @@ public class Report implements Iterable<RuleViolation> {
             return;
         }
 
-        int index = Collections.binarySearch(violations, violation, RuleViolationComparator.INSTANCE);
-        violations.add(index < 0 ? -index - 1 : index, violation);
-        violationTree.addRuleViolation(violation);
+        if (addedViolations == null) {
+            addedViolations = new ViolationRun(new ArrayList<RuleViolation>(), false);
+            violationRuns.add(addedViolations);
+        }
+        addedViolations.violations.add(violation);
+        violationAdded(violation);
         for (ThreadSafeReportListener listener : listeners) {
             listener.ruleViolationAdded(violation);
         }
@@ -400,12 +424,14 @@ public class Report implements Iterable<RuleViolation> {
         while (m.hasNext()) {
             addMetric(m.next());
         }
-        Iterator<RuleViolation> v = r.iterator();
-        while (v.hasNext()) {
-            RuleViolation violation = v.next();
-            int index = Collections.binarySearch(violations, violation, RuleViolationComparator.INSTANCE);
-            violations.add(index < 0 ? -index - 1 : index, violation);
-            violationTree.addRuleViolation(violation);
+        List<RuleViolation> mergedViolations = r.getSortedViolations();
+        if (!mergedViolations.isEmpty()) {
+            // the sorted list of the other report is never modified, it's shared
+            violationRuns.add(new ViolationRun(mergedViolations, true));
+            addedViolations = null;
+            for (RuleViolation violation : mergedViolations) {
+                violationAdded(violation);
+            }
         }
         Iterator<SuppressedViolation> s = r.getSuppressedRuleViolations().iterator();
         while (s.hasNext()) {
@@ -413,6 +439,63 @@ public class Report implements Iterable<RuleViolation> {
         }
     }
 
+    private void violationAdded(RuleViolation violation) {
+        violationCount++;
+        sortedViolations = null;
+        if (violationTree != null) {
+            violationTree.addRuleViolation(violation);
+        }
+    }
+
+    /**
+     * Returns the violations sorted with {@link RuleViolationComparator}.
+     * The runs of violations are sorted and merged on the first call after
+     * a violation was added.
+     *
+     * @return The sorted violations, which must not be modified
+     */
+    private synchronized List<RuleViolation> getSortedViolations() {
+        if (sortedViolations == null) {
+            sortedViolations = sortViolations();
+        }
+        return sortedViolations;
+    }
+
+    private List<RuleViolation> sortViolations() {
+        List<List<RuleViolation>> sortedRuns = new ArrayList<>(violationRuns.size());
+        for (ViolationRun run : violationRuns) {
+            if (run.sorted) {
+                sortedRuns.add(run.violations);
+            } else {
+                // the run may still grow, sort a copy
+                List<RuleViolation> copy = new ArrayList<>(run.violations);
+                Collections.sort(copy, RuleViolationComparator.INSTANCE);
+                sortedRuns.add(copy);
+            }
+        }
+
+        if (sortedRuns.isEmpty()) {
+            return Collections.emptyList();
+        } else if (sortedRuns.size() == 1) {
+            return Collections.unmodifiableList(sortedRuns.get(0));
+        }
+
+        // k-way merge, the violations which compare equal are kept in the order of their runs
+        List<RuleViolation> result = new ArrayList<>(violationCount);
+        PriorityQueue<RunCursor> queue = new PriorityQueue<>(sortedRuns.size());
+        for (int i = 0; i < sortedRuns.size(); i++) {
+            queue.add(new RunCursor(sortedRuns.get(i), i));
+        }
+        while (!queue.isEmpty()) {
+            RunCursor cursor = queue.poll();
+            result.add(cursor.current());
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
     /**
      * Check whether any metrics have been reported
      *
@@ -433,7 +516,7 @@ public class Report implements Iterable<RuleViolation> {
     }
 
     public boolean isEmpty() {
-        return !violations.iterator().hasNext() && !hasErrors();
+        return violationCount == 0 && !hasErrors();
     }
 
     /**
@@ -463,7 +546,7 @@ public class Report implements Iterable<RuleViolation> {
      *         <code>false</code> otherwise
      */
     public boolean treeIsEmpty() {
-        return !violationTree.iterator().hasNext();
+        return !getViolationTree().iterator().hasNext();
     }
 
     /**
@@ -472,12 +555,18 @@ public class Report implements Iterable<RuleViolation> {
      * @return an iterator
      */
     public Iterator<RuleViolation> treeIterator() {
-        return violationTree.iterator();
+        return getViolationTree().iterator();
     }
 
+    /**
+     * Returns an iteration over the reported violations, sorted with
+     * {@link RuleViolationComparator}.
+     *
+     * @return an iterator
+     */
     @Override
     public Iterator<RuleViolation> iterator() {
-        return violations.iterator();
+        return getSortedViolations().iterator();
     }
 
     /**
@@ -504,7 +593,7 @@ public class Report implements Iterable<RuleViolation> {
      * @return number of violations.
      */
     public int treeSize() {
-        return violationTree.size();
+        return getViolationTree().size();
     }
 
     /**
@@ -513,7 +602,7 @@ public class Report implements Iterable<RuleViolation> {
      * @return number of violations.
      */
     public int size() {
-        return violations.size();
+        return violationCount;
     }
 
     /**
@@ -552,4 +641,45 @@ public class Report implements Iterable<RuleViolation> {
     public void addListeners(List<ThreadSafeReportListener> allListeners) {
         listeners.addAll(allListeners);
     }
+
+    /**
+     * Violations in the order they were added to the report.
+     */
+    private static final class ViolationRun {
+        final List<RuleViolation> violations;
+        final boolean sorted;
+
+        ViolationRun(List<RuleViolation> violations, boolean sorted) {
+            this.violations = violations;
+            this.sorted = sorted;
+        }
+    }
+
+    /**
+     * The next violation of a sorted run, for the k-way merge.
+     */
+    private static final class RunCursor implements Comparable<RunCursor> {
+        private final List<RuleViolation> run;
+        private final int runIndex;
+        private int position;
+
+        RunCursor(List<RuleViolation> run, int runIndex) {
+            this.run = run;
+            this.runIndex = runIndex;
+        }
+
+        RuleViolation current() {
+            return run.get(position);
+        }
+
+        boolean advance() {
+            return ++position < run.size();
+        }
+
+        @Override
+        public int compareTo(RunCursor other) {
+            int cmp = RuleViolationComparator.INSTANCE.compare(current(), other.current());
+            return cmp != 0 ? cmp : Integer.compare(runIndex, other.runIndex);
+        }
+    }
 }
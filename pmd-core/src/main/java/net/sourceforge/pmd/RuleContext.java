@@ -5,10 +5,17 @@
 package net.sourceforge.pmd;
 
 import java.io.File;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
+import net.sourceforge.pmd.annotation.InternalApi;
+import net.sourceforge.pmd.lang.BatchParser;
 import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.ast.xpath.saxon.DocumentNode;
+import net.sourceforge.pmd.lang.metrics.MetricValueStore;
+import net.sourceforge.pmd.lang.metrics.MetricValueStore.FileValues;
 
 /**
  * The RuleContext provides access to Rule processing state. This information
@@ -16,12 +23,17 @@ import net.sourceforge.pmd.lang.LanguageVersion;
  * <ul>
  * <li>The Report to which Rule Violations are sent.</li>
  * <li>Named attributes.</li>
+ * <li>The store of the metric values persisted across runs, if any.</li>
+ * <li>The batch parsers of the analysis, if any.</li>
  * </ul>
  * As well as the following source file specific information:
  * <ul>
  * <li>A File for the source file.</li>
  * <li>A String for the name of the source file.</li>
  * <li>The Language Version of the source file.</li>
+ * <li>The XPath view of the AST of the source file, built on demand by XPath
+ * rules and released once the file is processed.</li>
+ * <li>The stored metric values of the source file.</li>
  * </ul>
  * It is <strong>required</strong> that all source file specific options be set
  * between calls to difference source files. Failure to do so, may result in
@@ -35,6 +47,11 @@ public class RuleContext {
     private LanguageVersion languageVersion;
     private final ConcurrentMap<String, Object> attributes;
     private boolean ignoreExceptions = true;
+    private Node xpathRootNode;
+    private DocumentNode xpathDocument;
+    private MetricValueStore metricValueStore;
+    private Map<LanguageVersion, BatchParser> batchParsers;
+    private FileValues metricValues;
 
     /**
      * Default constructor.
@@ -44,14 +61,16 @@ public class RuleContext {
     }
 
     /**
-     * Constructor which shares attributes and report listeners with the given
-     * RuleContext.
+     * Constructor which shares attributes, report listeners, the metric
+     * value store and the batch parsers with the given RuleContext.
      *
      * @param ruleContext
      *            the context from which the values are shared
      */
     public RuleContext(RuleContext ruleContext) {
         this.attributes = ruleContext.attributes;
+        this.metricValueStore = ruleContext.metricValueStore;
+        this.batchParsers = ruleContext.batchParsers;
         this.report.addListeners(ruleContext.getReport().getListeners());
     }
 
@@ -236,4 +255,109 @@ public class RuleContext {
     public boolean isIgnoreExceptions() {
         return ignoreExceptions;
     }
+
+    /**
+     * Returns the Saxon document wrapping the AST with the given root, if it
+     * was already built while processing the current file.
+     *
+     * @param rootNode The root of the AST
+     *
+     * @return The document, or null if none was built for this AST yet
+     */
+    @InternalApi
+    public DocumentNode getXPathDocument(Node rootNode) {
+        return rootNode == xpathRootNode ? xpathDocument : null;
+    }
+
+    /**
+     * Keeps the Saxon document wrapping the AST with the given root, so that
+     * all the XPath rules applied on the current file share it. This
+     * context owns the document until it is replaced or cleared, with
+     * {@code setXPathDocument(null, null)}, once the file is processed.
+     *
+     * @param rootNode The root of the AST
+     * @param document The document wrapping the AST
+     */
+    @InternalApi
+    public void setXPathDocument(Node rootNode, DocumentNode document) {
+        this.xpathRootNode = rootNode;
+        this.xpathDocument = document;
+    }
+
+    /**
+     * Returns the store of the metric values persisted across runs, which is
+     * shared by the files of this analysis.
+     *
+     * @return The store, or null if the metric values are not persisted
+     *
+     * @since 6.13.0
+     */
+    @InternalApi
+    public MetricValueStore getMetricValueStore() {
+        return metricValueStore;
+    }
+
+    /**
+     * Sets the store of the metric values persisted across runs.
+     *
+     * @param metricValueStore The store, or null if the metric values are not persisted
+     *
+     * @since 6.13.0
+     */
+    @InternalApi
+    public void setMetricValueStore(MetricValueStore metricValueStore) {
+        this.metricValueStore = metricValueStore;
+    }
+
+    /**
+     * Returns the batch parser of the given language version, which was
+     * created for the files of this analysis.
+     *
+     * @param languageVersion The language version
+     *
+     * @return The batch parser, or null if the files are parsed one by one
+     *
+     * @since 6.13.0
+     */
+    @InternalApi
+    public BatchParser getBatchParser(LanguageVersion languageVersion) {
+        return batchParsers == null ? null : batchParsers.get(languageVersion);
+    }
+
+    /**
+     * Sets the batch parsers of this analysis.
+     *
+     * @param batchParsers The batch parsers by language version, or null if there are none
+     *
+     * @since 6.13.0
+     */
+    @InternalApi
+    public void setBatchParsers(Map<LanguageVersion, BatchParser> batchParsers) {
+        this.batchParsers = batchParsers;
+    }
+
+    /**
+     * Returns the stored metric values of the current file.
+     *
+     * @return The values, or null if they are not persisted
+     *
+     * @since 6.13.0
+     */
+    @InternalApi
+    public FileValues getMetricValues() {
+        return metricValues;
+    }
+
+    /**
+     * Sets the stored metric values of the current file, see
+     * {@link MetricValueStore#startFile(String, long)}.
+     *
+     * @param metricValues The values, or null if they are not persisted
+     *
+     * @since 6.13.0
+     */
+    @InternalApi
+    public void setMetricValues(FileValues metricValues) {
+        this.metricValues = metricValues;
+    }
 }
@@ -14,6 +14,10 @@ import java.util.Set;
 
 import net.sourceforge.pmd.lang.Language;
 import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.metrics.AbstractMetricsFacade;
+import net.sourceforge.pmd.lang.metrics.MetricValueStore.FileValues;
+import net.sourceforge.pmd.lang.rule.AbstractDelegateRule;
+import net.sourceforge.pmd.lang.rule.NotParallelizable;
 
 /**
  * Grouping of Rules per Language in a RuleSet.
@@ -31,6 +35,17 @@ public class RuleSets {
      */
     private RuleChain ruleChain = new RuleChain();
 
+    /**
+     * Partitions of the parallelizable rules, built lazily.
+     */
+    private List<RuleSets> parallelPartitions;
+    private int partitionCount;
+
+    /**
+     * The rules which can't be applied in parallel, built lazily.
+     */
+    private RuleSets sequentialRules;
+
     /**
      * Public constructor.
      */
@@ -69,6 +84,7 @@ public class RuleSets {
     public void addRuleSet(RuleSet ruleSet) {
         ruleSets.add(ruleSet);
         ruleChain.add(ruleSet);
+        clearPartitions();
     }
 
     /**
@@ -137,12 +153,118 @@ public class RuleSets {
      *            the Language of the source
      */
     public void apply(List<Node> acuList, RuleContext ctx, Language language) {
-        ruleChain.apply(acuList, ctx, language);
-        for (RuleSet ruleSet : ruleSets) {
-            if (ruleSet.applies(ctx.getSourceCodeFile())) {
-                ruleSet.apply(acuList, ctx);
+        // the metrics computed by the rules reuse the values stored for the file
+        FileValues previousMetricValues = AbstractMetricsFacade.setFileValues(ctx.getMetricValues());
+        try {
+            ruleChain.apply(acuList, ctx, language);
+            for (RuleSet ruleSet : ruleSets) {
+                if (ruleSet.applies(ctx.getSourceCodeFile())) {
+                    ruleSet.apply(acuList, ctx);
+                }
+            }
+        } finally {
+            AbstractMetricsFacade.setFileValues(previousMetricValues);
+        }
+    }
+
+    /**
+     * Splits the rules which can be applied in parallel into at most
+     * {@code count} disjoint rulesets of similar size. The partitions share
+     * the rule instances of these rulesets and are only built once.
+     *
+     * @param count The maximum number of partitions
+     *
+     * @return The partitions, none of which is empty
+     */
+    /* package */ List<RuleSets> getParallelPartitions(int count) {
+        if (parallelPartitions == null || partitionCount != count) {
+            List<List<List<Rule>>> rulesPerPartition = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                List<List<Rule>> rules = new ArrayList<>(ruleSets.size());
+                for (int j = 0; j < ruleSets.size(); j++) {
+                    rules.add(new ArrayList<Rule>());
+                }
+                rulesPerPartition.add(rules);
+            }
+
+            int next = 0;
+            for (int j = 0; j < ruleSets.size(); j++) {
+                for (Rule rule : ruleSets.get(j).getRules()) {
+                    if (isParallelizable(rule)) {
+                        rulesPerPartition.get(next).get(j).add(rule);
+                        next = (next + 1) % count;
+                    }
+                }
             }
+
+            List<RuleSets> partitions = new ArrayList<>(count);
+            for (List<List<Rule>> rules : rulesPerPartition) {
+                RuleSets partition = subset(rules);
+                if (partition.ruleCount() > 0) {
+                    partitions.add(partition);
+                }
+            }
+            parallelPartitions = partitions;
+            partitionCount = count;
+        }
+        return parallelPartitions;
+    }
+
+    /**
+     * Returns the rules which must not be applied in parallel with other
+     * rules, see {@link NotParallelizable}.
+     *
+     * @return The sequential rules, possibly none
+     */
+    /* package */ RuleSets getSequentialRules() {
+        if (sequentialRules == null) {
+            List<List<Rule>> rules = new ArrayList<>(ruleSets.size());
+            for (RuleSet ruleSet : ruleSets) {
+                List<Rule> sequential = new ArrayList<>();
+                for (Rule rule : ruleSet.getRules()) {
+                    if (!isParallelizable(rule)) {
+                        sequential.add(rule);
+                    }
+                }
+                rules.add(sequential);
+            }
+            sequentialRules = subset(rules);
+        }
+        return sequentialRules;
+    }
+
+    private RuleSets subset(List<List<Rule>> rulesPerRuleSet) {
+        RuleSets subset = new RuleSets();
+        for (int j = 0; j < ruleSets.size(); j++) {
+            List<Rule> rules = rulesPerRuleSet.get(j);
+            if (!rules.isEmpty()) {
+                RuleSet original = ruleSets.get(j);
+                RuleSet.RuleSetBuilder builder = new RuleSet.RuleSetBuilder(original.getChecksum())
+                        .withName(original.getName())
+                        .withDescription(original.getDescription())
+                        .withFileName(original.getFileName())
+                        .setExcludePatterns(original.getExcludePatterns())
+                        .setIncludePatterns(original.getIncludePatterns());
+                for (Rule rule : rules) {
+                    builder.addRule(rule);
+                }
+                subset.addRuleSet(builder.build());
+            }
+        }
+        return subset;
+    }
+
+    private void clearPartitions() {
+        parallelPartitions = null;
+        sequentialRules = null;
+    }
+
+    private static boolean isParallelizable(Rule rule) {
+        Rule actual = rule;
+        while (actual instanceof AbstractDelegateRule) {
+            actual = ((AbstractDelegateRule) actual).getRule();
         }
+        return !actual.getClass().isAnnotationPresent(NotParallelizable.class);
     }
 
     /**
@@ -253,6 +375,7 @@ public class RuleSets {
         for (RuleSet ruleSet : ruleSets) {
             ruleSet.removeDysfunctionalRules(collector);
         }
+        clearPartitions();
     }
 
     /**
@@ -4,6 +4,8 @@
 
 package net.sourceforge.pmd;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -11,24 +13,41 @@ import java.io.Reader;
 import java.util.Collections;
 import java.util.List;
 
+import org.apache.commons.io.IOUtils;
+
 import net.sourceforge.pmd.benchmark.TimeTracker;
 import net.sourceforge.pmd.benchmark.TimedOperation;
 import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.cache.AnalysisCache;
+import net.sourceforge.pmd.cache.AnalysisResult;
+import net.sourceforge.pmd.lang.BatchParser;
 import net.sourceforge.pmd.lang.Language;
 import net.sourceforge.pmd.lang.LanguageVersion;
 import net.sourceforge.pmd.lang.LanguageVersionHandler;
 import net.sourceforge.pmd.lang.Parser;
+import net.sourceforge.pmd.lang.ParserOptions;
 import net.sourceforge.pmd.lang.VisitorStarter;
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.ParseException;
+import net.sourceforge.pmd.lang.metrics.MetricValueStore;
 import net.sourceforge.pmd.lang.xpath.Initializer;
+import net.sourceforge.pmd.util.datasource.DataSource;
 
 public class SourceCodeProcessor {
 
+    /**
+     * Files shorter than this are not worth splitting the rules among
+     * several threads.
+     */
+    private static final int PARALLEL_RULES_MIN_LINES = 2000;
+
     private final PMDConfiguration configuration;
+    private final ParallelRuleApplier parallelRuleApplier;
 
     public SourceCodeProcessor(PMDConfiguration configuration) {
         this.configuration = configuration;
+        this.parallelRuleApplier = configuration.getRuleThreads() > 1
+                ? new ParallelRuleApplier(configuration.getRuleThreads()) : null;
     }
 
     /**
@@ -85,24 +104,171 @@ public class SourceCodeProcessor {
         if (ruleSets.applies(ctx.getSourceCodeFile())) {
             // Is the cache up to date?
             if (configuration.getAnalysisCache().isUpToDate(ctx.getSourceCodeFile())) {
-                for (final RuleViolation rv : configuration.getAnalysisCache().getCachedViolations(ctx.getSourceCodeFile())) {
-                    ctx.getReport().addRuleViolation(rv);
-                }
+                reuseCachedResults(ctx);
+                return;
+            }
+
+            analyze(sourceCode, AnalysisResult.UNKNOWN, ruleSets, ctx);
+        }
+    }
+
+    /**
+     * Processes the already loaded contents of a source file against a rule set
+     * using the configured source encoding. This is equivalent to
+     * {@link #processSourceCode(InputStream, RuleSets, RuleContext)}, but the
+     * contents are only read once: the analysis cache is checked with a checksum
+     * computed from these bytes instead of reading the file again.
+     *
+     * @param sourceCode
+     *            The complete contents of the file to analyze.
+     * @param ruleSets
+     *            The collection of rules to process against the file.
+     * @param ctx
+     *            The context in which PMD is operating.
+     * @throws PMDException
+     *             if the input encoding is unsupported, the input could
+     *             not be parsed, or other error is encountered.
+     */
+    public void processSourceCode(byte[] sourceCode, RuleSets ruleSets, RuleContext ctx) throws PMDException {
+        determineLanguage(ctx);
+
+        // make sure custom XPath functions are initialized
+        Initializer.initialize();
+
+        // Coarse check to see if any RuleSet applies to file, will need to do a finer RuleSet specific check later
+        if (ruleSets.applies(ctx.getSourceCodeFile())) {
+            // the file metadata may not match these contents, don't record it
+            processContents(sourceCode, AnalysisResult.UNKNOWN, AnalysisResult.UNKNOWN, ruleSets, ctx);
+        }
+    }
+
+    /**
+     * Processes the already loaded contents of a source file against a rule set
+     * using the configured source encoding. This is equivalent to
+     * {@link #processSourceCode(DataSource, RuleSets, RuleContext)}, for a caller
+     * which read the contents of the file itself.
+     *
+     * @param sourceCode
+     *            The complete contents of the file to analyze.
+     * @param fileSize
+     *            The size of the file, read before its contents.
+     * @param lastModified
+     *            The modification time of the file, read before its contents.
+     * @param ruleSets
+     *            The collection of rules to process against the file.
+     * @param ctx
+     *            The context in which PMD is operating.
+     * @throws PMDException
+     *             if the input encoding is unsupported, the input could
+     *             not be parsed, or other error is encountered.
+     *
+     * @since 6.13.0
+     */
+    public void processSourceCode(byte[] sourceCode, long fileSize, long lastModified, RuleSets ruleSets,
+            RuleContext ctx) throws PMDException {
+        determineLanguage(ctx);
+
+        // make sure custom XPath functions are initialized
+        Initializer.initialize();
+
+        // Coarse check to see if any RuleSet applies to file, will need to do a finer RuleSet specific check later
+        if (ruleSets.applies(ctx.getSourceCodeFile())) {
+            processContents(sourceCode, fileSize, lastModified, ruleSets, ctx);
+        }
+    }
+
+    /**
+     * Processes the given data source against a rule set using the configured
+     * source encoding. The source is read at most once: it is not read at all if
+     * the analysis cache can tell from the file metadata that it didn't change,
+     * otherwise its contents are used both for the cache checksum and for parsing.
+     *
+     * @param dataSource
+     *            The source to analyze.
+     * @param ruleSets
+     *            The collection of rules to process against the file.
+     * @param ctx
+     *            The context in which PMD is operating.
+     * @throws PMDException
+     *             if the source cannot be read, the input encoding is unsupported,
+     *             the input could not be parsed, or other error is encountered.
+     * @see #processSourceCode(byte[], RuleSets, RuleContext)
+     */
+    public void processSourceCode(DataSource dataSource, RuleSets ruleSets, RuleContext ctx) throws PMDException {
+        determineLanguage(ctx);
+
+        // make sure custom XPath functions are initialized
+        Initializer.initialize();
+
+        // Coarse check to see if any RuleSet applies to file, will need to do a finer RuleSet specific check later
+        if (ruleSets.applies(ctx.getSourceCodeFile())) {
+            // Cheapest check first, the file needs not be read if its size and modification time are unchanged
+            if (configuration.getAnalysisCache().isUpToDateByMetadata(ctx.getSourceCodeFile())) {
+                reuseCachedResults(ctx);
                 return;
             }
 
-            try {
-                ruleSets.start(ctx);
-                processSource(sourceCode, ruleSets, ctx);
-            } catch (ParseException pe) {
-                configuration.getAnalysisCache().analysisFailed(ctx.getSourceCodeFile());
-                throw new PMDException("Error while parsing " + ctx.getSourceCodeFilename(), pe);
-            } catch (Exception e) {
-                configuration.getAnalysisCache().analysisFailed(ctx.getSourceCodeFile());
-                throw new PMDException("Error while processing " + ctx.getSourceCodeFilename(), e);
-            } finally {
-                ruleSets.end(ctx);
+            // the metadata is read before the contents, so that a concurrent change is detected on the next run
+            final File file = ctx.getSourceCodeFile();
+            final long fileSize = file == null ? AnalysisResult.UNKNOWN : file.length();
+            final long lastModified = file == null ? AnalysisResult.UNKNOWN : file.lastModified();
+
+            final byte[] contents;
+            try (InputStream stream = dataSource.getInputStream()) {
+                contents = IOUtils.toByteArray(stream);
+            } catch (IOException e) {
+                throw new PMDException("IO exception: " + e.getMessage(), e);
             }
+            processContents(contents, fileSize, lastModified, ruleSets, ctx);
+        }
+    }
+
+    private void processContents(byte[] sourceCode, long fileSize, long lastModified, RuleSets ruleSets,
+            RuleContext ctx) throws PMDException {
+        // Is the cache up to date?
+        final AnalysisCache cache = configuration.getAnalysisCache();
+        final long checksum = AnalysisResult.computeChecksum(sourceCode);
+        if (cache.isUpToDate(ctx.getSourceCodeFile(), checksum, fileSize, lastModified)) {
+            reuseCachedResults(ctx);
+            return;
+        }
+
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(sourceCode),
+                configuration.getSourceEncoding())) {
+            analyze(reader, checksum, ruleSets, ctx);
+        } catch (IOException e) {
+            throw new PMDException("IO exception: " + e.getMessage(), e);
+        }
+    }
+
+    private void reuseCachedResults(RuleContext ctx) {
+        for (final RuleViolation rv : configuration.getAnalysisCache().getCachedViolations(ctx.getSourceCodeFile())) {
+            ctx.getReport().addRuleViolation(rv);
+        }
+
+        final MetricValueStore metricValues = ctx.getMetricValueStore();
+        if (metricValues != null && ctx.getSourceCodeFile() != null) {
+            metricValues.keepFile(ctx.getSourceCodeFile().getPath());
+        }
+    }
+
+    private void analyze(Reader sourceCode, long checksum, RuleSets ruleSets, RuleContext ctx) throws PMDException {
+        try {
+            final long start = System.nanoTime();
+            ruleSets.start(ctx);
+            processSource(sourceCode, checksum, ruleSets, ctx);
+            configuration.getAnalysisCache().recordAnalysisDuration(ctx.getSourceCodeFile(), System.nanoTime() - start);
+        } catch (ParseException pe) {
+            configuration.getAnalysisCache().analysisFailed(ctx.getSourceCodeFile());
+            throw new PMDException("Error while parsing " + ctx.getSourceCodeFilename(), pe);
+        } catch (Exception e) {
+            configuration.getAnalysisCache().analysisFailed(ctx.getSourceCodeFile());
+            throw new PMDException("Error while processing " + ctx.getSourceCodeFilename(), e);
+        } finally {
+            ruleSets.end(ctx);
+            // the AST of this file is not needed anymore
+            ctx.setXPathDocument(null, null);
+            ctx.setMetricValues(null);
         }
     }
 
@@ -167,12 +333,31 @@ public class SourceCodeProcessor {
     }
 
 
-    private void processSource(Reader sourceCode, RuleSets ruleSets, RuleContext ctx) {
+    /**
+     * Returns the parser of the batch parser of the language version, if
+     * the analysis has one, or else a new parser of the language version.
+     */
+    private Parser parserFor(LanguageVersion languageVersion, RuleContext ctx) {
+        BatchParser batchParser = ctx.getBatchParser(languageVersion);
+        if (batchParser == null) {
+            return PMD.parserFor(languageVersion, configuration);
+        }
+        ParserOptions options = languageVersion.getLanguageVersionHandler().getDefaultParserOptions();
+        options.setSuppressMarker(configuration.getSuppressMarker());
+        return batchParser.getParser(options);
+    }
+
+
+    private void processSource(Reader sourceCode, long checksum, RuleSets ruleSets, RuleContext ctx) {
         LanguageVersion languageVersion = ctx.getLanguageVersion();
         LanguageVersionHandler languageVersionHandler = languageVersion.getLanguageVersionHandler();
-        Parser parser = PMD.parserFor(languageVersion, configuration);
+        Parser parser = parserFor(languageVersion, ctx);
 
         Node rootNode = parse(ctx, sourceCode, parser);
+        final MetricValueStore metricValues = ctx.getMetricValueStore();
+        if (metricValues != null && checksum != AnalysisResult.UNKNOWN && ctx.getSourceCodeFile() != null) {
+            ctx.setMetricValues(metricValues.startFile(ctx.getSourceCodeFile().getPath(), checksum));
+        }
         resolveQualifiedNames(rootNode, languageVersionHandler);
         symbolFacade(rootNode, languageVersionHandler);
         Language language = languageVersion.getLanguage();
@@ -181,7 +366,24 @@ public class SourceCodeProcessor {
         usesMultifile(rootNode, languageVersionHandler, ruleSets, language);
 
         List<Node> acus = Collections.singletonList(rootNode);
-        ruleSets.apply(acus, ctx, language);
+        if (parallelRuleApplier != null && rootNode.getEndLine() >= PARALLEL_RULES_MIN_LINES) {
+            // the partitions share the AST, which is only parsed once
+            parallelRuleApplier.apply(acus, ruleSets, ctx, language);
+        } else {
+            ruleSets.apply(acus, ctx, language);
+        }
+    }
+
+    /**
+     * Releases the threads used to apply the rules in parallel, if any.
+     * This processor must not be used afterwards.
+     *
+     * @since 6.13.0
+     */
+    public void close() {
+        if (parallelRuleApplier != null) {
+            parallelRuleApplier.close();
+        }
     }
 
     private void determineLanguage(RuleContext ctx) {
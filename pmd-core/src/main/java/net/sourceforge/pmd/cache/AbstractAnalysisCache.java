@@ -48,29 +48,91 @@ public abstract class AbstractAnalysisCache implements AnalysisCache {
     protected long rulesetChecksum;
     protected long auxClassPathChecksum;
     protected long executionClassPathChecksum;
+    protected final boolean trustFileMetadata;
+    private volatile boolean previousResultsDiscarded;
 
     /**
      * Creates a new empty cache
      */
     public AbstractAnalysisCache() {
+        this(false);
+    }
+
+    /**
+     * Creates a new empty cache.
+     *
+     * @param trustFileMetadata If true, a file whose size and last modification time didn't change
+     *                          is considered up to date without computing the checksum of its contents
+     */
+    public AbstractAnalysisCache(final boolean trustFileMetadata) {
         pmdVersion = PMDVersion.VERSION;
         fileResultsCache = new ConcurrentHashMap<>();
         updatedResultsCache = new ConcurrentHashMap<>();
+        this.trustFileMetadata = trustFileMetadata;
     }
 
     @Override
     public boolean isUpToDate(final File sourceFile) {
+        return isUpToDateByMetadata(sourceFile) || isUpToDate(sourceFile, new AnalysisResult(sourceFile));
+    }
+
+    @Override
+    public boolean isUpToDate(final File sourceFile, final long fileChecksum, final long fileSize,
+            final long lastModified) {
+        return isUpToDate(sourceFile, new AnalysisResult(fileChecksum, fileSize, lastModified));
+    }
+
+    @Override
+    public boolean isUpToDateByMetadata(final File sourceFile) {
+        if (!trustFileMetadata) {
+            return false;
+        }
+
+        final AnalysisResult analysisResult = getPreviousResult(sourceFile);
+        if (analysisResult == null || analysisResult.getLastModified() == AnalysisResult.UNKNOWN) {
+            return false;
+        }
+
+        // read through the same API as the recorded metadata, their precision may differ between APIs
+        final long lastModified = sourceFile.lastModified();
+        if (lastModified == 0L) {
+            // the file doesn't exist or can't be read, let the regular checksum comparison deal with it
+            return false;
+        }
+        final long fileSize = sourceFile.length();
+        if (fileSize != analysisResult.getFileSize() || lastModified != analysisResult.getLastModified()) {
+            return false;
+        }
+
+        // The file didn't change, carry the checksum over to the updated cache
+        final AnalysisResult updatedResult = new AnalysisResult(analysisResult.getFileChecksum(),
+                fileSize, lastModified, new ArrayList<RuleViolation>());
+        updatedResult.setAnalysisDuration(analysisResult.getAnalysisDuration());
+        updatedResultsCache.put(sourceFile.getPath(), updatedResult);
+
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Incremental Analysis cache HIT - file metadata unchanged");
+        }
+
+        return true;
+    }
+
+    private boolean isUpToDate(final File sourceFile, final AnalysisResult updatedResult) {
         // There is a new file being analyzed, prepare entry in updated cache
-        final AnalysisResult updatedResult = new AnalysisResult(sourceFile);
         updatedResultsCache.put(sourceFile.getPath(), updatedResult);
 
         // Now check the old cache
-        final AnalysisResult analysisResult = fileResultsCache.get(sourceFile.getPath());
+        final AnalysisResult analysisResult = getPreviousResult(sourceFile);
 
         // is this a known file? has it changed?
         final boolean result = analysisResult != null
                 && analysisResult.getFileChecksum() == updatedResult.getFileChecksum();
 
+        if (result) {
+            // the file won't be analyzed, keep the duration of its last analysis
+            updatedResult.setAnalysisDuration(analysisResult.getAnalysisDuration());
+        }
+
         if (LOG.isLoggable(Level.FINE)) {
             if (result) {
                 LOG.fine("Incremental Analysis cache HIT");
@@ -85,7 +147,7 @@ public abstract class AbstractAnalysisCache implements AnalysisCache {
 
     @Override
     public List<RuleViolation> getCachedViolations(final File sourceFile) {
-        final AnalysisResult analysisResult = fileResultsCache.get(sourceFile.getPath());
+        final AnalysisResult analysisResult = getPreviousResult(sourceFile);
 
         if (analysisResult == null) {
             // new file, avoid nulls
@@ -100,6 +162,55 @@ public abstract class AbstractAnalysisCache implements AnalysisCache {
         updatedResultsCache.remove(sourceFile.getPath());
     }
 
+    @Override
+    public void recordAnalysisDuration(final File sourceFile, final long nanos) {
+        final AnalysisResult updatedResult = updatedResultsCache.get(sourceFile.getPath());
+        if (updatedResult != null) {
+            updatedResult.setAnalysisDuration(nanos);
+        }
+    }
+
+    @Override
+    public long getPreviousAnalysisDuration(final File sourceFile) {
+        final AnalysisResult analysisResult = getPreviousResult(sourceFile);
+        return analysisResult == null ? AnalysisResult.UNKNOWN : analysisResult.getAnalysisDuration();
+    }
+
+    /**
+     * Retrieves the result of the previous analysis of the given file. Results are
+     * looked up in {@link #fileResultsCache} first, then loaded on demand through
+     * {@link #loadPreviousResult(String)}, unless the cache was invalidated.
+     *
+     * @param sourceFile The file whose previous result is requested
+     * @return The previous result, or null if the file is unknown
+     */
+    protected AnalysisResult getPreviousResult(final File sourceFile) {
+        final String fileName = sourceFile.getPath();
+        AnalysisResult result = fileResultsCache.get(fileName);
+        if (result == null && !previousResultsDiscarded) {
+            result = loadPreviousResult(fileName);
+            if (result != null) {
+                final AnalysisResult concurrentResult = fileResultsCache.putIfAbsent(fileName, result);
+                if (concurrentResult != null) {
+                    result = concurrentResult;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Loads the result of the previous analysis of the given file from the persisted
+     * cache, for implementations that don't load all of them upfront into
+     * {@link #fileResultsCache}. The default implementation finds nothing.
+     *
+     * @param fileName The path of the file
+     * @return The previous result, or null if the file is unknown
+     */
+    protected AnalysisResult loadPreviousResult(final String fileName) {
+        return null;
+    }
+
 
     /**
      * Returns true if the cache exists. If so, normal cache validity checks
@@ -144,6 +255,7 @@ public abstract class AbstractAnalysisCache implements AnalysisCache {
 
         if (!cacheIsValid) {
             // Clear the cache
+            previousResultsDiscarded = true;
             fileResultsCache.clear();
         }
 
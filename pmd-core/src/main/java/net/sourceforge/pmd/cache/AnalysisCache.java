@@ -34,6 +34,59 @@ public interface AnalysisCache extends ThreadSafeReportListener {
      */
     boolean isUpToDate(File sourceFile);
 
+    /**
+     * Checks if a given file is up to date in the cache and can be skipped from analysis,
+     * using a checksum that was already computed by the caller. This behaves exactly
+     * like {@link #isUpToDate(File)}, but spares the cache from reading the file
+     * again when its contents have already been loaded for analysis.
+     *
+     * <p>The size and modification time are recorded for the metadata check of the
+     * next run. They must have been read before the contents, otherwise a change of
+     * the file in between would be recorded with the checksum of the old contents.
+     * Pass {@link AnalysisResult#UNKNOWN} if they are not known, the next run then
+     * compares the checksum.
+     *
+     * @param sourceFile The file to check in the cache
+     * @param fileChecksum The checksum of the file contents, as computed by
+     *                     {@link AnalysisResult#computeChecksum(byte[])}
+     * @param fileSize The size of the file, read before its contents
+     * @param lastModified The last modification time of the file, read before its contents
+     * @return True if the cache is a hit, false otherwise
+     */
+    boolean isUpToDate(File sourceFile, long fileChecksum, long fileSize, long lastModified);
+
+    /**
+     * Checks if a given file is up to date in the cache, relying only on its size and
+     * last modification time, without reading its contents. This can only succeed if
+     * the cache was configured to trust file metadata; otherwise it always returns false.
+     *
+     * <p>If this returns true, the file is considered up to date, with the same side-effects
+     * as {@link #isUpToDate(File)}. If it returns false, nothing is recorded, and the caller
+     * must still call {@link #isUpToDate(File)} or {@link #isUpToDate(File, long, long, long)}.
+     *
+     * @param sourceFile The file to check in the cache
+     * @return True if the cache is a hit based on file metadata, false otherwise
+     */
+    boolean isUpToDateByMetadata(File sourceFile);
+
+    /**
+     * Records how long the analysis of the given file took. This is persisted with
+     * the file results, to estimate the cost of analyzing the file on the next run.
+     *
+     * @param sourceFile The analyzed file
+     * @param nanos The duration of the analysis, in nanoseconds
+     */
+    void recordAnalysisDuration(File sourceFile, long nanos);
+
+    /**
+     * Returns how long the last analysis of the given file took, as recorded
+     * by {@link #recordAnalysisDuration(File, long)} on a previous run.
+     *
+     * @param sourceFile The file
+     * @return The duration in nanoseconds, or {@link AnalysisResult#UNKNOWN}
+     */
+    long getPreviousAnalysisDuration(File sourceFile);
+
     /**
      * Retrieves cached violations for the given file. Make sure to call {@link #isUpToDate(File)} first.
      * @param sourceFile The file to check in the cache
@@ -0,0 +1,427 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.apache.commons.lang3.SystemUtils;
+
+import net.sourceforge.pmd.RuleViolation;
+
+/**
+ * Binary representation of a persisted analysis cache, which is memory-mapped
+ * and decoded lazily. Opening the file only reads its header; the results of a
+ * single file are found through an on-disk hash index, and its violations are
+ * only decoded when they are requested. Startup time and heap usage are thus
+ * proportional to the files that are looked up, not to the size of the cache.
+ *
+ * <p>Layout of the file (big-endian):
+ * <pre>
+ * header     magic, format version, PMD version, ruleset / auxclasspath / classpath checksums,
+ *            string count, file count, slot count
+ * strings    offset of each entry of the string table
+ * slots      open-addressing hash index: index of a file entry, or -1 for an empty slot
+ * files      fixed size entries: path hash, path string, checksum, size, last modified,
+ *            analysis duration, offset of the first violation, violation count
+ * string table
+ * violations fixed size records: description, rule class, begin line / column, end line / column,
+ *            package, class, method and variable name. Strings are ids in the string table.
+ * </pre>
+ *
+ * <p>Only the header is checked when the file is opened. The records of a file are checked
+ * when they are found: if one of them is out of bounds, the whole cache file is considered
+ * malformed, and no result is found in it anymore.
+ */
+final class AnalysisCacheFile {
+
+    private static final int MAGIC = 0x504D4443; // "PMDC"
+    private static final int FORMAT_VERSION = 2;
+    private static final int NO_ENTRY = -1;
+    private static final int FILE_ENTRY_SIZE = 48;
+    private static final int VIOLATION_RECORD_SIZE = 40;
+    private static final Logger LOG = Logger.getLogger(AnalysisCacheFile.class.getName());
+
+    private final String path;
+    private final ByteBuffer buffer;
+    private final String pmdVersion;
+    private final long rulesetChecksum;
+    private final long auxClassPathChecksum;
+    private final long executionClassPathChecksum;
+    private final int stringCount;
+    private final int slotCount;
+    private final int stringOffsetsStart;
+    private final int slotsStart;
+    private final int filesStart;
+    private final int fileCount;
+    private volatile boolean malformed;
+    // Decoded strings, filled on demand. Strings are immutable, so racy publication is fine
+    private final String[] strings;
+
+    private AnalysisCacheFile(final String path, final ByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+
+        if (buffer.remaining() < 8 || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("unsupported cache format");
+        }
+        int position = 8;
+        final int versionLength = buffer.getInt(position);
+        position += 4;
+        pmdVersion = decode(position, versionLength);
+        position += versionLength;
+        rulesetChecksum = buffer.getLong(position);
+        auxClassPathChecksum = buffer.getLong(position + 8);
+        executionClassPathChecksum = buffer.getLong(position + 16);
+        stringCount = buffer.getInt(position + 24);
+        fileCount = buffer.getInt(position + 28);
+        slotCount = buffer.getInt(position + 32);
+        stringOffsetsStart = position + 36;
+        slotsStart = stringOffsetsStart + 4 * stringCount;
+        filesStart = slotsStart + 4 * slotCount;
+
+        if (stringCount < 0 || fileCount < 0 || slotCount <= 0 || Integer.bitCount(slotCount) != 1
+                || stringOffsetsStart + 4L * stringCount + 4L * slotCount + (long) FILE_ENTRY_SIZE * fileCount
+                > buffer.limit()) {
+            throw new IOException("malformed cache header");
+        }
+        strings = new String[stringCount];
+    }
+
+    /**
+     * Opens the given cache file. The file is memory-mapped, except on Windows, where a mapped file
+     * could not be replaced when the cache is persisted again. It is then read in memory instead.
+     *
+     * @param cacheFile The file to open
+     * @return The opened cache file
+     * @throws IOException If the file can't be read, or has an unsupported format
+     */
+    public static AnalysisCacheFile open(final File cacheFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer buffer;
+            if (SystemUtils.IS_OS_WINDOWS) {
+                buffer = ByteBuffer.allocate((int) channel.size());
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // keep reading
+                }
+                buffer.flip();
+            } else {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            return new AnalysisCacheFile(cacheFile.getPath(), buffer);
+        } catch (final IndexOutOfBoundsException | BufferUnderflowException | IllegalArgumentException
+                | NegativeArraySizeException e) {
+            throw new IOException("malformed cache file", e);
+        }
+    }
+
+    public String getPmdVersion() {
+        return pmdVersion;
+    }
+
+    public long getRulesetChecksum() {
+        return rulesetChecksum;
+    }
+
+    public long getAuxClassPathChecksum() {
+        return auxClassPathChecksum;
+    }
+
+    public long getExecutionClassPathChecksum() {
+        return executionClassPathChecksum;
+    }
+
+    /**
+     * Finds the result of the given file. Its violations are decoded
+     * on first access of {@link AnalysisResult#getViolations()}.
+     *
+     * <p>The records of the file are checked before it is returned. If they
+     * are out of bounds, the cache file is malformed: this and all the
+     * following lookups find nothing, so that the files are analyzed again.
+     *
+     * @param fileName The path of the file
+     * @param mapper The mapper to be used to obtain rule instances from the active rulesets
+     * @return The result, or null if the file is not in the cache, or the cache is malformed
+     */
+    public AnalysisResult find(final String fileName, final CachedRuleMapper mapper) {
+        if (malformed) {
+            return null;
+        }
+
+        try {
+            final int hash = fileName.hashCode();
+            final int mask = slotCount - 1;
+            int slot = spread(hash) & mask;
+            // a malformed index may have no empty slot
+            for (int probes = 0; probes < slotCount; probes++, slot = (slot + 1) & mask) {
+                final int fileIndex = buffer.getInt(slotsStart + 4 * slot);
+                if (fileIndex == NO_ENTRY) {
+                    return null;
+                }
+                if (fileIndex < 0 || fileIndex >= fileCount) {
+                    throw new IndexOutOfBoundsException("file index " + fileIndex);
+                }
+
+                final int entry = filesStart + FILE_ENTRY_SIZE * fileIndex;
+                if (buffer.getInt(entry) == hash && fileName.equals(getString(buffer.getInt(entry + 4)))) {
+                    checkViolations(entry);
+                    return new MappedAnalysisResult(fileName, mapper, entry);
+                }
+            }
+            return null;
+        } catch (final IndexOutOfBoundsException | BufferUnderflowException | IllegalArgumentException
+                | NegativeArraySizeException e) {
+            if (!malformed) {
+                malformed = true;
+                LOG.warning("Cache file " + path + " is malformed, will not be used for the rest of the analysis: "
+                        + e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Checks that the violation records of a file entry, and the strings
+     * they refer to, are within the bounds of the file. The strings are
+     * decoded, so that {@link MappedAnalysisResult#getViolations()} can't fail.
+     */
+    private void checkViolations(final int entry) {
+        final int offset = buffer.getInt(entry + 40);
+        final int count = buffer.getInt(entry + 44);
+        if (offset < filesStart || count < 0
+                || (long) offset + (long) VIOLATION_RECORD_SIZE * count > buffer.limit()) {
+            throw new IndexOutOfBoundsException("violation records at " + offset);
+        }
+        for (int i = 0; i < count; i++) {
+            final int record = offset + VIOLATION_RECORD_SIZE * i;
+            getString(buffer.getInt(record));
+            getString(buffer.getInt(record + 4));
+            for (int field = 24; field < VIOLATION_RECORD_SIZE; field += 4) {
+                getString(buffer.getInt(record + field));
+            }
+        }
+    }
+
+    private String getString(final int id) {
+        String string = strings[id];
+        if (string == null) {
+            final int offset = buffer.getInt(stringOffsetsStart + 4 * id);
+            string = decode(offset + 4, buffer.getInt(offset));
+            strings[id] = string;
+        }
+        return string;
+    }
+
+    private String decode(final int offset, final int length) {
+        final byte[] bytes = new byte[length];
+        final ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int spread(final int hash) {
+        return hash ^ hash >>> 16;
+    }
+
+    /**
+     * Writes the given results to a cache file.
+     *
+     * @param target The file to write
+     * @param pmdVersion The PMD version that produced the results
+     * @param rulesetChecksum The checksum of the rulesets
+     * @param auxClassPathChecksum The checksum of the auxclasspath
+     * @param executionClassPathChecksum The checksum of the execution classpath
+     * @param results The results, by file path
+     * @throws IOException If the file can't be written
+     */
+    public static void write(final File target, final String pmdVersion, final long rulesetChecksum,
+            final long auxClassPathChecksum, final long executionClassPathChecksum,
+            final Map<String, AnalysisResult> results) throws IOException {
+        final StringTable stringTable = new StringTable();
+        final List<String> fileNames = new ArrayList<>(results.size());
+        final List<AnalysisResult> fileResults = new ArrayList<>(results.size());
+        int violationCount = 0;
+        for (final Map.Entry<String, AnalysisResult> entry : results.entrySet()) {
+            fileNames.add(entry.getKey());
+            fileResults.add(entry.getValue());
+            stringTable.idOf(entry.getKey());
+            for (final RuleViolation rv : entry.getValue().getViolations()) {
+                stringTable.idOf(rv.getDescription());
+                stringTable.idOf(rv.getRule().getRuleClass());
+                stringTable.idOf(rv.getPackageName());
+                stringTable.idOf(rv.getClassName());
+                stringTable.idOf(rv.getMethodName());
+                stringTable.idOf(rv.getVariableName());
+                violationCount++;
+            }
+        }
+
+        final byte[] versionBytes = pmdVersion.getBytes(StandardCharsets.UTF_8);
+        final int slotCount = Integer.highestOneBit(Math.max(2, fileNames.size()) * 2);
+        final int stringsStart = 8 + 4 + versionBytes.length + 36 + 4 * stringTable.size()
+                + 4 * slotCount + FILE_ENTRY_SIZE * fileNames.size();
+        final int violationsStart = stringsStart + stringTable.byteSize();
+        if ((long) violationsStart + (long) VIOLATION_RECORD_SIZE * violationCount > Integer.MAX_VALUE) {
+            throw new IOException("analysis cache is too large");
+        }
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(target.toPath())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(versionBytes.length);
+            out.write(versionBytes);
+            out.writeLong(rulesetChecksum);
+            out.writeLong(auxClassPathChecksum);
+            out.writeLong(executionClassPathChecksum);
+            out.writeInt(stringTable.size());
+            out.writeInt(fileNames.size());
+            out.writeInt(slotCount);
+
+            // string offsets
+            int stringOffset = stringsStart;
+            for (final byte[] bytes : stringTable.entries) {
+                out.writeInt(stringOffset);
+                stringOffset += 4 + bytes.length;
+            }
+
+            // hash index
+            final int[] slots = new int[slotCount];
+            Arrays.fill(slots, NO_ENTRY);
+            for (int i = 0; i < fileNames.size(); i++) {
+                int slot = spread(fileNames.get(i).hashCode()) & (slotCount - 1);
+                while (slots[slot] != NO_ENTRY) {
+                    slot = (slot + 1) & (slotCount - 1);
+                }
+                slots[slot] = i;
+            }
+            for (final int slot : slots) {
+                out.writeInt(slot);
+            }
+
+            // file entries
+            int violationIndex = 0;
+            for (int i = 0; i < fileNames.size(); i++) {
+                final AnalysisResult result = fileResults.get(i);
+                out.writeInt(fileNames.get(i).hashCode());
+                out.writeInt(stringTable.idOf(fileNames.get(i)));
+                out.writeLong(result.getFileChecksum());
+                out.writeLong(result.getFileSize());
+                out.writeLong(result.getLastModified());
+                out.writeLong(result.getAnalysisDuration());
+                out.writeInt(violationsStart + VIOLATION_RECORD_SIZE * violationIndex);
+                out.writeInt(result.getViolations().size());
+                violationIndex += result.getViolations().size();
+            }
+
+            // string table
+            for (final byte[] bytes : stringTable.entries) {
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            // violations
+            for (final AnalysisResult result : fileResults) {
+                for (final RuleViolation rv : result.getViolations()) {
+                    out.writeInt(stringTable.idOf(rv.getDescription()));
+                    out.writeInt(stringTable.idOf(rv.getRule().getRuleClass()));
+                    out.writeInt(rv.getBeginLine());
+                    out.writeInt(rv.getBeginColumn());
+                    out.writeInt(rv.getEndLine());
+                    out.writeInt(rv.getEndColumn());
+                    out.writeInt(stringTable.idOf(rv.getPackageName()));
+                    out.writeInt(stringTable.idOf(rv.getClassName()));
+                    out.writeInt(stringTable.idOf(rv.getMethodName()));
+                    out.writeInt(stringTable.idOf(rv.getVariableName()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Interns the strings written to a cache file.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<byte[]> entries = new ArrayList<>();
+        private int byteSize;
+
+        int idOf(final String value) {
+            final String string = value == null ? "" : value;
+            Integer id = ids.get(string);
+            if (id == null) {
+                id = entries.size();
+                final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                ids.put(string, id);
+                entries.add(bytes);
+                byteSize += 4 + bytes.length;
+            }
+            return id;
+        }
+
+        int size() {
+            return entries.size();
+        }
+
+        int byteSize() {
+            return byteSize;
+        }
+    }
+
+    /**
+     * A previous analysis result backed by an entry of the cache file.
+     */
+    private final class MappedAnalysisResult extends AnalysisResult {
+        private final String fileName;
+        private final CachedRuleMapper mapper;
+        private final int entry;
+        private volatile List<RuleViolation> violations;
+
+        MappedAnalysisResult(final String fileName, final CachedRuleMapper mapper, final int entry) {
+            super(buffer.getLong(entry + 8), buffer.getLong(entry + 16), buffer.getLong(entry + 24),
+                    Collections.<RuleViolation>emptyList());
+            this.fileName = fileName;
+            this.mapper = mapper;
+            this.entry = entry;
+            setAnalysisDuration(buffer.getLong(entry + 32));
+        }
+
+        @Override
+        public List<RuleViolation> getViolations() {
+            List<RuleViolation> result = violations;
+            if (result == null) {
+                final int offset = buffer.getInt(entry + 40);
+                final int count = buffer.getInt(entry + 44);
+                result = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    final int record = offset + VIOLATION_RECORD_SIZE * i;
+                    result.add(new CachedRuleViolation(mapper, getString(buffer.getInt(record)), fileName,
+                            getString(buffer.getInt(record + 4)), buffer.getInt(record + 8),
+                            buffer.getInt(record + 12), buffer.getInt(record + 16), buffer.getInt(record + 20),
+                            getString(buffer.getInt(record + 24)), getString(buffer.getInt(record + 28)),
+                            getString(buffer.getInt(record + 32)), getString(buffer.getInt(record + 36))));
+                }
+                violations = result;
+            }
+            return result;
+        }
+    }
+}
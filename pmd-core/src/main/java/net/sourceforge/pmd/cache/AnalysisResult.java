@@ -19,20 +19,68 @@ import net.sourceforge.pmd.RuleViolation;
 
 /**
  * The result of a single file analysis.
- * Includes a checksum of the file and the complete list of violations detected.
+ * Includes a checksum of the file, its size and last modification time,
+ * and the complete list of violations detected.
  */
 public class AnalysisResult {
 
+    /** Value of the file size, modification time and analysis duration when they are not known. */
+    public static final long UNKNOWN = -1L;
+
     private final long fileChecksum;
+    private final long fileSize;
+    private final long lastModified;
+    private volatile long analysisDuration = UNKNOWN;
     private final List<RuleViolation> violations;
 
     public AnalysisResult(final long fileChecksum, final List<RuleViolation> violations) {
+        this(fileChecksum, UNKNOWN, UNKNOWN, violations);
+    }
+
+    public AnalysisResult(final long fileChecksum, final long fileSize, final long lastModified,
+            final List<RuleViolation> violations) {
         this.fileChecksum = fileChecksum;
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
         this.violations = violations;
     }
 
     public AnalysisResult(final File sourceFile) {
-        this(computeFileChecksum(sourceFile), new ArrayList<RuleViolation>());
+        // the metadata is read before the contents, so that a concurrent change is detected on the next run
+        this(sourceFile.length(), sourceFile.lastModified(), sourceFile);
+    }
+
+    private AnalysisResult(final long fileSize, final long lastModified, final File sourceFile) {
+        this(computeFileChecksum(sourceFile), fileSize, lastModified, new ArrayList<RuleViolation>());
+    }
+
+    /**
+     * Creates a new, empty result for a file whose checksum was already
+     * computed, eg. by {@link #computeChecksum(byte[])} on contents that
+     * were loaded for analysis anyway. The size and modification time must
+     * have been read before the contents, so that a change of the file in
+     * between is detected on the next run.
+     *
+     * @param fileChecksum The checksum of the file contents
+     * @param fileSize     The size of the file, or {@link #UNKNOWN}
+     * @param lastModified The last modification time of the file, or {@link #UNKNOWN}
+     */
+    public AnalysisResult(final long fileChecksum, final long fileSize, final long lastModified) {
+        this(fileChecksum, fileSize, lastModified, new ArrayList<RuleViolation>());
+    }
+
+    /**
+     * Computes the checksum of the given file contents. The result is the same
+     * as would be computed by reading the file from disk, so it can be compared
+     * with checksums stored in the cache.
+     *
+     * @param contents The complete contents of a file
+     * @return The checksum of the contents
+     */
+    public static long computeChecksum(final byte[] contents) {
+        final Adler32 adler32 = new Adler32();
+        adler32.update(contents, 0, contents.length);
+        return adler32.getValue();
     }
 
     private static long computeFileChecksum(final File sourceFile) {
@@ -56,6 +104,33 @@ public class AnalysisResult {
         return fileChecksum;
     }
 
+    /**
+     * Returns the size of the file when it was analyzed, or {@link #UNKNOWN}.
+     */
+    public long getFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * Returns the last modification time of the file when it was analyzed,
+     * in milliseconds since the epoch, or {@link #UNKNOWN}.
+     */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Returns how long the last analysis of the file took, in nanoseconds,
+     * or {@link #UNKNOWN}. This is used to schedule costly files first.
+     */
+    public long getAnalysisDuration() {
+        return analysisDuration;
+    }
+
+    public void setAnalysisDuration(final long analysisDuration) {
+        this.analysisDuration = analysisDuration;
+    }
+
     public List<RuleViolation> getViolations() {
         return violations;
     }
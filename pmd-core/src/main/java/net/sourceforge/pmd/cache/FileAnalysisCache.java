@@ -4,87 +4,83 @@
 
 package net.sourceforge.pmd.cache;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
-import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.nio.file.StandardCopyOption;
 
 import net.sourceforge.pmd.PMDVersion;
-import net.sourceforge.pmd.RuleViolation;
 
 /**
  * An analysis cache backed by a regular file.
+ *
+ * <p>The file is memory-mapped and decoded lazily, see {@link AnalysisCacheFile}:
+ * the results of a file are only read when the file is analyzed again.
  */
 public class FileAnalysisCache extends AbstractAnalysisCache {
 
     private final File cacheFile;
+    private AnalysisCacheFile previousResults;
 
     /**
      * Creates a new cache backed by the given file, and attempts to load pre-existing data from it.
      * @param cache The file on which to store analysis cache
      */
     public FileAnalysisCache(final File cache) {
-        super();
+        this(cache, false);
+    }
+
+    /**
+     * Creates a new cache backed by the given file, and attempts to load pre-existing data from it.
+     * @param cache The file on which to store analysis cache
+     * @param trustFileMetadata If true, a file whose size and last modification time didn't change
+     *                          is considered up to date without computing the checksum of its contents
+     */
+    public FileAnalysisCache(final File cache, final boolean trustFileMetadata) {
+        super(trustFileMetadata);
         this.cacheFile = cache;
 
         loadFromFile(cache);
     }
 
     /**
-     * Loads cache data from the given file.
+     * Loads cache data from the given file. Only the header is read,
+     * results are loaded on demand by {@link #loadPreviousResult(String)}.
      * @param cacheFile The file which backs the file analysis cache.
      */
     private void loadFromFile(final File cacheFile) {
         if (cacheExists()) {
-            try (
-                DataInputStream inputStream = new DataInputStream(
-                    new BufferedInputStream(Files.newInputStream(cacheFile.toPath())));
-            ) {
-                final String cacheVersion = inputStream.readUTF();
+            try {
+                final AnalysisCacheFile file = AnalysisCacheFile.open(cacheFile);
 
-                if (PMDVersion.VERSION.equals(cacheVersion)) {
+                if (PMDVersion.VERSION.equals(file.getPmdVersion())) {
                     // Cache seems valid, load the rest
 
                     // Get checksums
-                    rulesetChecksum = inputStream.readLong();
-                    auxClassPathChecksum = inputStream.readLong();
-                    executionClassPathChecksum = inputStream.readLong();
-
-                    // Cached results
-                    while (inputStream.available() > 0) {
-                        final String fileName = inputStream.readUTF();
-                        final long checksum = inputStream.readLong();
-
-                        final int countViolations = inputStream.readInt();
-                        final List<RuleViolation> violations = new ArrayList<>(countViolations);
-                        for (int i = 0; i < countViolations; i++) {
-                            violations.add(CachedRuleViolation.loadFromStream(inputStream, fileName, ruleMapper));
-                        }
+                    rulesetChecksum = file.getRulesetChecksum();
+                    auxClassPathChecksum = file.getAuxClassPathChecksum();
+                    executionClassPathChecksum = file.getExecutionClassPathChecksum();
 
-                        fileResultsCache.put(fileName, new AnalysisResult(checksum, violations));
-                    }
+                    // Cached results are read lazily
+                    previousResults = file;
 
                     LOG.info("Analysis cache loaded");
                 } else {
                     LOG.info("Analysis cache invalidated, PMD version changed.");
                 }
-            } catch (final EOFException e) {
-                LOG.warning("Cache file " + cacheFile.getPath() + " is malformed, will not be used for current analysis");
             } catch (final IOException e) {
-                LOG.severe("Could not load analysis cache from file. " + e.getMessage());
+                LOG.warning("Cache file " + cacheFile.getPath() + " is malformed, will not be used for current analysis");
             }
         } else if (cacheFile.isDirectory()) {
             LOG.severe("The configured cache location must be the path to a file, but is a directory.");
         }
     }
 
+    @Override
+    protected AnalysisResult loadPreviousResult(final String fileName) {
+        return previousResults == null ? null : previousResults.find(fileName, ruleMapper);
+    }
+
     @Override
     public void persist() {
 
@@ -96,34 +92,25 @@ public class FileAnalysisCache extends AbstractAnalysisCache {
         boolean cacheFileShouldBeCreated = !cacheFile.exists();
 
         // Create directories missing along the way
+        final File parentFile = cacheFile.getAbsoluteFile().getParentFile();
         if (cacheFileShouldBeCreated) {
-            final File parentFile = cacheFile.getAbsoluteFile().getParentFile();
             if (parentFile != null && !parentFile.exists()) {
                 parentFile.mkdirs();
             }
         }
 
-        try (
-            DataOutputStream outputStream = new DataOutputStream(
-                new BufferedOutputStream(Files.newOutputStream(cacheFile.toPath())))
-        ) {
-            outputStream.writeUTF(pmdVersion);
-
-            outputStream.writeLong(rulesetChecksum);
-            outputStream.writeLong(auxClassPathChecksum);
-            outputStream.writeLong(executionClassPathChecksum);
-
-            for (final Map.Entry<String, AnalysisResult> resultEntry : updatedResultsCache.entrySet()) {
-                final List<RuleViolation> violations = resultEntry.getValue().getViolations();
-
-                outputStream.writeUTF(resultEntry.getKey());
-                outputStream.writeLong(resultEntry.getValue().getFileChecksum());
-
-                outputStream.writeInt(violations.size());
-                for (final RuleViolation rv : violations) {
-                    CachedRuleViolation.storeToStream(outputStream, rv);
-                }
+        try {
+            // The previous cache file may still be mapped, so the new one is written
+            // next to it and moved in place, instead of being overwritten.
+            final File tempFile = File.createTempFile(cacheFile.getName(), ".tmp", parentFile);
+            try {
+                AnalysisCacheFile.write(tempFile, pmdVersion, rulesetChecksum, auxClassPathChecksum,
+                        executionClassPathChecksum, updatedResultsCache);
+                Files.move(tempFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tempFile.toPath());
             }
+
             if (cacheFileShouldBeCreated) {
                 LOG.info("Analysis cache created");
             } else {
@@ -37,6 +37,27 @@ public class NoopAnalysisCache implements AnalysisCache {
         return false;
     }
 
+    @Override
+    public boolean isUpToDate(final File sourceFile, final long fileChecksum, final long fileSize,
+            final long lastModified) {
+        return false;
+    }
+
+    @Override
+    public boolean isUpToDateByMetadata(final File sourceFile) {
+        return false;
+    }
+
+    @Override
+    public void recordAnalysisDuration(final File sourceFile, final long nanos) {
+        // noop
+    }
+
+    @Override
+    public long getPreviousAnalysisDuration(final File sourceFile) {
+        return AnalysisResult.UNKNOWN;
+    }
+
     @Override
     public void analysisFailed(final File sourceFile) {
         // noop
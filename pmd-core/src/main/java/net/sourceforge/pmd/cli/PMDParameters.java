@@ -4,6 +4,7 @@
 
 package net.sourceforge.pmd.cli;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -55,6 +56,11 @@ public class PMDParameters {
             validateWith = PositiveInteger.class)
     private int threads = 1;
 
+    @Parameter(names = "-rule-threads",
+            description = "Sets the number of threads among which the rules are split when analyzing a large file.",
+            validateWith = PositiveInteger.class)
+    private int ruleThreads = 0;
+
     @Parameter(names = { "-benchmark", "-b" },
             description = "Benchmark mode - output a benchmark report upon completion; default to System.err.")
     private boolean benchmark = false;
@@ -95,6 +101,12 @@ public class PMDParameters {
             description = "Specifies the classpath for libraries used by the source code. This is used by the type resolution. Alternatively, a 'file://' URL to a text file containing path elements on consecutive lines can be specified.")
     private String auxclasspath;
 
+    @Parameter(names = "-auxclasspath-index",
+            description = "Specifies a directory where an index of the classes of the auxclasspath is kept. "
+                    + "The index of a jar is built once and reused by later runs, as long as the jar doesn't change. "
+                    + "Type resolution uses it to avoid loading classes where possible.")
+    private String auxclasspathIndex;
+
     @Parameter(names = { "-failOnViolation", "--failOnViolation" }, arity = 1,
             description = "By default PMD exits with status 4 if violations are found. Disable this option with '-failOnViolation false' to exit with 0 instead and just write the report.")
     private boolean failOnViolation = true;
@@ -110,6 +122,16 @@ public class PMDParameters {
                     + "with the most up-to-date rule violations.")
     private String cacheLocation = null;
 
+    @Parameter(names = "-cache-trust-metadata",
+            description = "Consider files whose size and last modification time didn't change since the previous run as up to date, "
+                    + "without computing the checksum of their contents. Only used together with '-cache'.")
+    private boolean cacheTrustMetadata = false;
+
+    @Parameter(names = "-metrics-cache",
+            description = "Specify the location of a file where the values of the metrics used by the rules are kept. "
+                    + "The next runs reuse the values computed on the files that didn't change.")
+    private String metricsCacheLocation = null;
+
     @Parameter(names = "-no-cache", description = "Explicitly disable incremental analysis. The '-cache' option is ignored if this switch is present in the command line.")
     private boolean noCache = false;
 
@@ -196,15 +218,22 @@ public class PMDParameters {
         configuration.setStressTest(this.isStress());
         configuration.setSuppressMarker(this.getSuppressmarker());
         configuration.setThreads(this.getThreads());
+        configuration.setRuleThreads(this.getRuleThreads());
         configuration.setFailOnViolation(this.isFailOnViolation());
-        configuration.setAnalysisCacheLocation(this.cacheLocation);
+        configuration.setAnalysisCacheLocation(this.cacheLocation, this.cacheTrustMetadata);
         configuration.setIgnoreIncrementalAnalysis(this.isIgnoreIncrementalAnalysis());
+        if (this.metricsCacheLocation != null) {
+            configuration.setMetricsCacheFile(new File(this.metricsCacheLocation));
+        }
 
         LanguageVersion languageVersion = LanguageRegistry
                 .findLanguageVersionByTerseName(this.getLanguage() + ' ' + this.getVersion());
         if (languageVersion != null) {
             configuration.getLanguageVersionDiscoverer().setDefaultLanguageVersion(languageVersion);
         }
+        if (this.auxclasspathIndex != null) {
+            configuration.setAuxClasspathIndexDirectory(new File(this.auxclasspathIndex));
+        }
         try {
             configuration.prependClasspath(this.getAuxclasspath());
         } catch (IOException e) {
@@ -244,6 +273,10 @@ public class PMDParameters {
         return threads;
     }
 
+    public int getRuleThreads() {
+        return ruleThreads;
+    }
+
     public boolean isBenchmark() {
         return benchmark;
     }
@@ -8,12 +8,19 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -34,13 +41,19 @@ public class CPD {
     private CPDListener listener = new CPDNullListener();
     private Tokens tokens = new Tokens();
     private MatchAlgorithm matchAlgorithm;
+    private List<Match> matches;
     private Set<String> current = new HashSet<>();
+    private TokenCache cache;
+    private Set<String> changedFiles = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
     public CPD(CPDConfiguration theConfiguration) {
         configuration = theConfiguration;
         // before we start any tokenizing (add(File...)), we need to reset the
         // static TokenEntry status
         TokenEntry.clearImages();
+        if (configuration.getCacheFile() != null) {
+            cache = TokenCache.load(configuration.getCacheFile(), configuration.describeTokenizer());
+        }
     }
 
     public void setCpdListener(CPDListener cpdListener) {
@@ -48,12 +61,37 @@ public class CPD {
     }
 
     public void go() {
-        matchAlgorithm = new MatchAlgorithm(source, tokens, configuration.getMinimumTileSize(), listener);
+        if (configuration.isSuffixArray()) {
+            matchAlgorithm = new SuffixArrayMatchAlgorithm(source, tokens, configuration.getMinimumTileSize(), listener);
+        } else {
+            matchAlgorithm = new MatchAlgorithm(source, tokens, configuration.getMinimumTileSize(), listener);
+        }
         matchAlgorithm.findMatches();
+
+        matches = new ArrayList<>();
+        for (Iterator<Match> it = matchAlgorithm.matches(); it.hasNext();) {
+            Match match = it.next();
+            if (cache == null || !configuration.isReportChangedOnly() || isChanged(match)) {
+                matches.add(match);
+            }
+        }
+
+        if (cache != null) {
+            cache.persist();
+        }
+    }
+
+    private boolean isChanged(Match match) {
+        for (Mark mark : match) {
+            if (changedFiles.contains(mark.getFilename())) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public Iterator<Match> getMatches() {
-        return matchAlgorithm.matches();
+        return matches.iterator();
     }
 
     public void addAllInDirectory(File dir) throws IOException {
@@ -65,8 +103,19 @@ public class CPD {
     }
 
     public void add(List<File> files) throws IOException {
-        for (File f : files) {
-            add(f);
+        if (configuration.getThreads() > 1 && files.size() > 1) {
+            List<SourceCode> sourceCodes = new ArrayList<>(files.size());
+            for (File f : files) {
+                SourceCode sourceCode = sourceCodeFor(f);
+                if (sourceCode != null) {
+                    sourceCodes.add(sourceCode);
+                }
+            }
+            addInParallel(sourceCodes);
+        } else {
+            for (File f : files) {
+                add(f);
+            }
         }
     }
 
@@ -80,14 +129,20 @@ public class CPD {
     }
 
     public void add(File file) throws IOException {
+        SourceCode sourceCode = sourceCodeFor(file);
+        if (sourceCode != null) {
+            add(sourceCode);
+        }
+    }
 
+    private SourceCode sourceCodeFor(File file) throws IOException {
         if (configuration.isSkipDuplicates()) {
             // TODO refactor this thing into a separate class
             String signature = file.getName() + '_' + file.length();
             if (current.contains(signature)) {
                 System.err.println("Skipping " + file.getAbsolutePath()
                         + " since it appears to be a duplicate file and --skip-duplicate-files is set");
-                return;
+                return null;
             }
             current.add(signature);
         }
@@ -95,16 +150,15 @@ public class CPD {
         if (!FilenameUtils.equalsNormalizedOnSystem(file.getAbsoluteFile().getCanonicalPath(),
                 file.getAbsolutePath())) {
             System.err.println("Skipping " + file + " since it appears to be a symlink");
-            return;
+            return null;
         }
 
         if (!file.exists()) {
             System.err.println("Skipping " + file + " since it doesn't exist (broken symlink?)");
-            return;
+            return null;
         }
 
-        SourceCode sourceCode = configuration.sourceCodeFor(file);
-        add(sourceCode);
+        return configuration.sourceCodeFor(file);
     }
 
     public void add(DBURI dburi) throws IOException {
@@ -139,7 +193,7 @@ public class CPD {
     }
 
     private void addAndThrowLexicalError(SourceCode sourceCode) throws IOException {
-        configuration.tokenizer().tokenize(sourceCode, tokens);
+        tokenize(configuration.tokenizer(), sourceCode, tokens);
         listener.addedFile(1, new File(sourceCode.getFileName()));
         source.put(sourceCode.getFileName(), sourceCode);
     }
@@ -155,6 +209,106 @@ public class CPD {
         }
     }
 
+    /**
+     * Tokenizes a source, or adds its cached tokens if it didn't change since
+     * the last run.
+     */
+    private void tokenize(Tokenizer tokenizer, SourceCode sourceCode, Tokens target) throws IOException {
+        if (cache == null) {
+            tokenizer.tokenize(sourceCode, target);
+            return;
+        }
+
+        long checksum = TokenCache.checksum(sourceCode);
+        if (!cache.addCachedTokens(sourceCode.getFileName(), checksum, target)) {
+            int start = target.size();
+            tokenizer.tokenize(sourceCode, target);
+            cache.storeTokens(sourceCode.getFileName(), checksum, target.getTokens().subList(start, target.size()));
+            changedFiles.add(sourceCode.getFileName());
+        }
+    }
+
+    /**
+     * Tokenizes the given sources with the configured number of threads. Each
+     * source is tokenized into its own tokens, with images shared by all the
+     * threads. The tokens are then added in the order of the sources, so that
+     * the result is the same as when tokenizing them one after the other.
+     */
+    private void addInParallel(List<SourceCode> sourceCodes) throws IOException {
+        if (configuration.newTokenizer() == null) {
+            LOGGER.fine("The language can't be instantiated for each thread, tokenizing the files sequentially");
+            for (SourceCode sourceCode : sourceCodes) {
+                add(sourceCode);
+            }
+            return;
+        }
+
+        final TokenEntry.Images images = TokenEntry.getImages();
+        final ThreadLocal<Tokenizer> tokenizers = new ThreadLocal<Tokenizer>() {
+            @Override
+            protected Tokenizer initialValue() {
+                return configuration.newTokenizer();
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(configuration.getThreads());
+        try {
+            List<Future<Tokens>> results = new ArrayList<>(sourceCodes.size());
+            for (final SourceCode sourceCode : sourceCodes) {
+                results.add(executor.submit(new Callable<Tokens>() {
+                    @Override
+                    public Tokens call() throws IOException {
+                        TokenEntry.useImages(images);
+                        Tokens fileTokens = new Tokens();
+                        tokenize(tokenizers.get(), sourceCode, fileTokens);
+                        return fileTokens;
+                    }
+                }));
+            }
+
+            for (int i = 0; i < sourceCodes.size(); i++) {
+                SourceCode sourceCode = sourceCodes.get(i);
+                Tokens fileTokens;
+                try {
+                    fileTokens = results.get(i).get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof TokenMgrError && configuration.isSkipLexicalErrors()) {
+                        System.err.println("Skipping " + sourceCode.getFileName() + ". Reason: " + e.getCause().getMessage());
+                        continue;
+                    }
+                    throw rethrow(e.getCause());
+                }
+
+                for (Iterator<TokenEntry> it = fileTokens.iterator(); it.hasNext();) {
+                    TokenEntry token = it.next();
+                    if (token != TokenEntry.EOF) {
+                        token.setIndex(tokens.size());
+                    }
+                    tokens.add(token);
+                }
+                TokenEntry.setTokenCount(tokens.size());
+                listener.addedFile(1, new File(sourceCode.getFileName()));
+                source.put(sourceCode.getFileName(), sourceCode);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while tokenizing the files", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static IOException rethrow(Throwable cause) {
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new IOException(cause);
+    }
+
     /**
      * List names/paths of each source to be processed.
      *
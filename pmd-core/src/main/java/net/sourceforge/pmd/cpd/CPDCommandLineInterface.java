@@ -125,19 +125,24 @@ public final class CPDCommandLineInterface {
 
     private static void addSourcesFilesToCPD(List<File> files, CPD cpd, boolean recursive) {
         try {
+            // consecutive files are added together, so that they can be tokenized in parallel
+            List<File> plainFiles = new ArrayList<>();
             for (File file : files) {
                 if (!file.exists()) {
                     throw new FileNotFoundException("Couldn't find directory/file '" + file + "'");
                 } else if (file.isDirectory()) {
+                    cpd.add(plainFiles);
+                    plainFiles.clear();
                     if (recursive) {
                         cpd.addRecursively(file);
                     } else {
                         cpd.addAllInDirectory(file);
                     }
                 } else {
-                    cpd.add(file);
+                    plainFiles.add(file);
                 }
             }
+            cpd.add(plainFiles);
         } catch (IOException e) {
             throw new IllegalStateException(e);
         }
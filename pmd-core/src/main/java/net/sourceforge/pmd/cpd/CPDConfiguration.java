@@ -19,6 +19,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeMap;
 
 import net.sourceforge.pmd.AbstractConfiguration;
 import net.sourceforge.pmd.cpd.renderer.CPDRenderer;
@@ -28,6 +29,7 @@ import net.sourceforge.pmd.util.FileUtil;
 import com.beust.jcommander.IStringConverter;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.converters.FileConverter;
+import com.beust.jcommander.validators.PositiveInteger;
 
 /**
  *
@@ -107,6 +109,26 @@ public class CPDConfiguration extends AbstractConfiguration {
             required = false)
     private String skipBlocksPattern = Tokenizer.DEFAULT_SKIP_BLOCKS_PATTERN;
 
+    @Parameter(names = "--cache", description = "Specify the location of the cache file for incremental analysis. "
+            + "The tokens of the files which didn't change since the last run are loaded from it instead of "
+            + "tokenizing the files again.", required = false, converter = FileConverter.class)
+    private File cacheFile;
+
+    @Parameter(names = "--report-changed-only",
+            description = "Only report the duplicates of code in which at least one file changed since the cache was written. "
+                    + "Requires --cache.", required = false)
+    private boolean reportChangedOnly;
+
+    @Parameter(names = "--threads",
+            description = "Number of threads used to tokenize the files in parallel", required = false,
+            validateWith = PositiveInteger.class)
+    private int threads = 1;
+
+    @Parameter(names = "--suffix-array",
+            description = "Find the duplicates with a suffix array of the tokens, without the map of all token positions built by the default algorithm",
+            required = false)
+    private boolean suffixArray = false;
+
     @Parameter(names = "--files", variableArity = true, description = "List of files and directories to process",
             required = false, converter = FileConverter.class)
     private List<File> files;
@@ -252,6 +274,10 @@ public class CPDConfiguration extends AbstractConfiguration {
     }
 
     public static void setSystemProperties(CPDConfiguration configuration) {
+        configuration.getLanguage().setProperties(createTokenizerProperties(configuration));
+    }
+
+    private static Properties createTokenizerProperties(CPDConfiguration configuration) {
         Properties properties = new Properties();
         if (configuration.isIgnoreLiterals()) {
             properties.setProperty(Tokenizer.IGNORE_LITERALS, "true");
@@ -275,7 +301,7 @@ public class CPDConfiguration extends AbstractConfiguration {
         }
         properties.setProperty(Tokenizer.OPTION_SKIP_BLOCKS, Boolean.toString(!configuration.isNoSkipBlocks()));
         properties.setProperty(Tokenizer.OPTION_SKIP_BLOCKS_PATTERN, configuration.getSkipBlocksPattern());
-        configuration.getLanguage().setProperties(properties);
+        return properties;
     }
 
     public Language getLanguage() {
@@ -329,6 +355,38 @@ public class CPDConfiguration extends AbstractConfiguration {
         return language.getTokenizer();
     }
 
+    /**
+     * Describes the language and the options of its tokenizer, so that the
+     * token cache is invalidated when they change.
+     */
+    String describeTokenizer() {
+        if (language == null) {
+            throw new IllegalStateException("Language is null.");
+        }
+        return language.getTerseName() + ' ' + getEncoding() + ' '
+                + new TreeMap<>(createTokenizerProperties(this));
+    }
+
+    /**
+     * Creates a new tokenizer for the language, configured with the options
+     * of this configuration. Tokenizers keep some state while tokenizing a
+     * file, so each thread which tokenizes files in parallel needs its own.
+     *
+     * @return The tokenizer, or null if the language can't be instantiated
+     */
+    Tokenizer newTokenizer() {
+        if (language == null) {
+            throw new IllegalStateException("Language is null.");
+        }
+        try {
+            Language copy = language.getClass().newInstance();
+            copy.setProperties(createTokenizerProperties(this));
+            return copy.getTokenizer();
+        } catch (InstantiationException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
     public FilenameFilter filenameFilter() {
         if (language == null) {
             throw new IllegalStateException("Language is null.");
@@ -419,6 +477,65 @@ public class CPDConfiguration extends AbstractConfiguration {
         this.skipLexicalErrors = skipLexicalErrors;
     }
 
+    public File getCacheFile() {
+        return cacheFile;
+    }
+
+    /**
+     * Sets the file where the tokens of the files are cached between runs.
+     * The cache is invalidated when the language, the encoding, or the ignore
+     * and skip blocks options of this configuration change.
+     *
+     * @param cacheFile The cache file, or null to disable the cache
+     */
+    public void setCacheFile(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    public boolean isReportChangedOnly() {
+        return reportChangedOnly;
+    }
+
+    /**
+     * Sets whether only the matches which involve a file that wasn't loaded
+     * from the cache are reported. Without a cache, all the matches are reported.
+     *
+     * @param reportChangedOnly Whether to report only the matches of changed files
+     */
+    public void setReportChangedOnly(boolean reportChangedOnly) {
+        this.reportChangedOnly = reportChangedOnly;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets the number of threads used to tokenize the files added together
+     * (e.g. the files of a directory) in parallel. Each thread uses a new
+     * instance of the language, whose tokenizer is configured with the ignore
+     * and skip blocks options of this configuration. The default is 1, which
+     * tokenizes the files in the current thread.
+     *
+     * @param threads The number of threads
+     *
+     * @throws IllegalArgumentException If the number of threads is not positive
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be positive, got " + threads);
+        }
+        this.threads = threads;
+    }
+
+    public boolean isSuffixArray() {
+        return suffixArray;
+    }
+
+    public void setSuffixArray(boolean suffixArray) {
+        this.suffixArray = suffixArray;
+    }
+
     public List<File> getFiles() {
         return files;
     }
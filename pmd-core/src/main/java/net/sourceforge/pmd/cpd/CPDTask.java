@@ -61,6 +61,8 @@ public class CPDTask extends Task {
     private boolean ignoreAnnotations;
     private boolean ignoreUsings;
     private boolean skipLexicalErrors;
+    private boolean suffixArray;
+    private int threads = 1;
     private boolean skipDuplicateFiles;
     private boolean skipBlocks = true;
     private String skipBlocksPattern = Tokenizer.DEFAULT_SKIP_BLOCKS_PATTERN;
@@ -85,6 +87,15 @@ public class CPDTask extends Task {
             config.setEncoding(encoding);
             config.setSkipDuplicates(skipDuplicateFiles);
             config.setSkipLexicalErrors(skipLexicalErrors);
+            config.setSuffixArray(suffixArray);
+            config.setThreads(threads);
+            // the tokenizers of the threads are configured from these options
+            config.setIgnoreLiterals(ignoreLiterals);
+            config.setIgnoreIdentifiers(ignoreIdentifiers);
+            config.setIgnoreAnnotations(ignoreAnnotations);
+            config.setIgnoreUsings(ignoreUsings);
+            config.setNoSkipBlocks(!skipBlocks);
+            config.setSkipBlocksPattern(skipBlocksPattern);
 
             CPD cpd = new CPD(config);
             tokenizeFiles(cpd);
@@ -158,12 +169,15 @@ public class CPDTask extends Task {
         for (FileSet fileSet : filesets) {
             DirectoryScanner directoryScanner = fileSet.getDirectoryScanner(getProject());
             String[] includedFiles = directoryScanner.getIncludedFiles();
+            List<File> files = new ArrayList<>(includedFiles.length);
             for (int i = 0; i < includedFiles.length; i++) {
                 File file = new File(
                         directoryScanner.getBasedir() + System.getProperty("file.separator") + includedFiles[i]);
                 log("Tokenizing " + file.getAbsolutePath(), Project.MSG_VERBOSE);
-                cpd.add(file);
+                files.add(file);
             }
+            // the files of a file set are tokenized together, in parallel if there are several threads
+            cpd.add(files);
         }
     }
 
@@ -188,6 +202,10 @@ public class CPDTask extends Task {
             throw new BuildException("minimumTokenCount is required and must be greater than zero");
         }
 
+        if (threads < 1) {
+            throw new BuildException("threads must be greater than zero");
+        }
+
         if (filesets.isEmpty()) {
             throw new BuildException("Must include at least one FileSet");
         }
@@ -226,6 +244,14 @@ public class CPDTask extends Task {
         this.skipLexicalErrors = skipLexicalErrors;
     }
 
+    public void setSuffixArray(boolean suffixArray) {
+        this.suffixArray = suffixArray;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
     public void setSkipDuplicateFiles(boolean skipDuplicateFiles) {
         this.skipDuplicateFiles = skipDuplicateFiles;
     }
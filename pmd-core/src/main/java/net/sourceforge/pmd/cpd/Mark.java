@@ -8,6 +8,7 @@ public class Mark implements Comparable<Mark> {
     private TokenEntry token;
     private int lineCount;
     private SourceCode code;
+    private String sourceCodeSlice;
 
     public Mark(TokenEntry token) {
         this.token = token;
@@ -38,13 +39,28 @@ public class Mark implements Comparable<Mark> {
     }
 
     public String getSourceCodeSlice() {
+        if (this.sourceCodeSlice != null) {
+            return this.sourceCodeSlice;
+        }
         return this.code.getSlice(getBeginLine(), getEndLine());
     }
 
+    /**
+     * Sets the slice returned by {@link #getSourceCodeSlice()}, when it was
+     * loaded ahead. With null, the slice is read from the source code again.
+     */
+    void setSourceCodeSlice(String sourceCodeSlice) {
+        this.sourceCodeSlice = sourceCodeSlice;
+    }
+
     public void setSourceCode(SourceCode code) {
         this.code = code;
     }
 
+    SourceCode getSourceCode() {
+        return this.code;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
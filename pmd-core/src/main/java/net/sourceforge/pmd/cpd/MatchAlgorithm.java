@@ -72,8 +72,18 @@ public class MatchAlgorithm {
             i.remove();
         }
         cpdListener.phaseUpdate(CPDListener.GROUPING);
-        matches = matchCollector.getMatches();
+        setMatches(matchCollector.getMatches());
+        cpdListener.phaseUpdate(CPDListener.DONE);
+    }
 
+    /**
+     * Sets the matches found, and completes their marks with their line
+     * count and source code.
+     *
+     * @param matches The sorted matches
+     */
+    void setMatches(List<Match> matches) {
+        this.matches = matches;
         for (Match match : matches) {
             for (Mark mark : match) {
                 TokenEntry token = mark.getToken();
@@ -84,7 +94,6 @@ public class MatchAlgorithm {
                 mark.setSourceCode(sourceCode);
             }
         }
-        cpdListener.phaseUpdate(CPDListener.DONE);
     }
 
     @SuppressWarnings("PMD.JumbledIncrementer")
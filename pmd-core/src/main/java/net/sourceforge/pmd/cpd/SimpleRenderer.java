@@ -76,13 +76,14 @@ public class SimpleRenderer implements Renderer, CPDRenderer {
 
     @Override
     public void render(Iterator<Match> matches, Writer writer) throws IOException {
-        if (matches.hasNext()) {
-            renderOn(writer, matches.next());
+        Iterator<Match> slicedMatches = new SourceCodeSlicer(matches);
+        if (slicedMatches.hasNext()) {
+            renderOn(writer, slicedMatches.next());
         }
 
         Match match;
-        while (matches.hasNext()) {
-            match = matches.next();
+        while (slicedMatches.hasNext()) {
+            match = slicedMatches.next();
             writer.append(separator).append(PMD.EOL);
             renderOn(writer, match);
         }
@@ -36,6 +36,13 @@ public class SourceCode {
             return code.get();
         }
 
+        /**
+         * Returns the code if it's still in memory, without loading it.
+         */
+        List<String> getLoadedCode() {
+            return code == null ? null : code.get();
+        }
+
         public List<String> getCodeSlice(int startLine, int endLine) {
             List<String> c = null;
             if (code != null) {
@@ -207,6 +214,64 @@ public class SourceCode {
         return sb.toString();
     }
 
+    /**
+     * Returns the slices between the given begin and end lines (inclusive).
+     * Unlike {@link #getSlice(int, int)}, the code is read at most once, and
+     * only the lines covered by the slices are kept in memory.
+     *
+     * @param beginLines The begin lines of the slices, in ascending order
+     * @param endLines   The end lines of the slices
+     *
+     * @return The slices, in the same order
+     */
+    String[] getSlices(int[] beginLines, int[] endLines) {
+        List<String> code = cl.getLoadedCode();
+        if (code == null) {
+            code = loadLines(beginLines, endLines);
+        }
+
+        String[] slices = new String[beginLines.length];
+        for (int i = 0; i < slices.length; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int line = beginLines[i]; line <= endLines[i] && line <= code.size(); line++) {
+                if (line > beginLines[i]) {
+                    sb.append(PMD.EOL);
+                }
+                sb.append(code.get(line - 1));
+            }
+            slices[i] = sb.toString();
+        }
+        return slices;
+    }
+
+    /**
+     * Reads the code up to the last end line, keeping only the lines
+     * covered by a slice. The other lines are null.
+     */
+    private List<String> loadLines(int[] beginLines, int[] endLines) {
+        try (BufferedReader reader = new BufferedReader(cl.getReader())) {
+            List<String> lines = new ArrayList<>();
+            int next = 0;
+            int coveredUntil = 0;
+            String currentLine;
+            while (next < beginLines.length || lines.size() < coveredUntil) {
+                currentLine = reader.readLine();
+                if (currentLine == null) {
+                    break;
+                }
+                int line = lines.size() + 1;
+                while (next < beginLines.length && beginLines[next] <= line) {
+                    coveredUntil = Math.max(coveredUntil, endLines[next]);
+                    next++;
+                }
+                lines.add(line <= coveredUntil ? currentLine : null);
+            }
+            return lines;
+        } catch (Exception e) {
+            throw new RuntimeException("Problem while reading " + getFileName() + ":" + e.getMessage(), e);
+        }
+    }
+
     public String getFileName() {
         return cl.getFileName();
     }
@@ -0,0 +1,150 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import net.sourceforge.pmd.annotation.Experimental;
+
+/**
+ * Iterates over matches, loading the source code slices of their marks
+ * ahead of the renderers which output them.
+ *
+ * <p>Reading the slices one match at a time reloads a file for every match
+ * it's involved in, as soon as the soft reference to its code was cleared.
+ * Instead, this reads a window of matches ahead, sorts their marks by file,
+ * and reads each file at most once per window, keeping only the lines of
+ * the slices. The window is bounded by a number of lines, so that the
+ * slices of all the matches are never in memory at once.
+ *
+ * @since 6.13.0
+ */
+@Experimental
+public final class SourceCodeSlicer implements Iterator<Match> {
+
+    /** The default maximum number of lines of the slices loaded at once. */
+    public static final int DEFAULT_MAX_LINES = 100000;
+
+    private static final Comparator<Mark> BY_BEGIN_LINE = new Comparator<Mark>() {
+        @Override
+        public int compare(Mark m1, Mark m2) {
+            return Integer.compare(m1.getBeginLine(), m2.getBeginLine());
+        }
+    };
+
+    private final Iterator<Match> matches;
+    private final int maxLines;
+    private final List<Match> window = new ArrayList<>();
+    private int position;
+
+
+    public SourceCodeSlicer(Iterator<Match> matches) {
+        this(matches, DEFAULT_MAX_LINES);
+    }
+
+
+    /**
+     * Creates a slicer.
+     *
+     * @param matches  The matches
+     * @param maxLines The maximum number of lines of the slices loaded at once,
+     *                 a match with a longer slice is loaded alone
+     */
+    public SourceCodeSlicer(Iterator<Match> matches, int maxLines) {
+        this.matches = matches;
+        this.maxLines = maxLines;
+    }
+
+
+    @Override
+    public boolean hasNext() {
+        if (position < window.size()) {
+            return true;
+        }
+        if (matches.hasNext()) {
+            return true;
+        }
+        releaseWindow();
+        return false;
+    }
+
+
+    @Override
+    public Match next() {
+        if (position == window.size()) {
+            if (!matches.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            nextWindow();
+        }
+        return window.get(position++);
+    }
+
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+
+    private void releaseWindow() {
+        for (Match match : window) {
+            firstMark(match).setSourceCodeSlice(null);
+        }
+        window.clear();
+        position = 0;
+    }
+
+
+    private void nextWindow() {
+        releaseWindow();
+
+        // the renderers only output the slice of the first mark of a match
+        Map<SourceCode, List<Mark>> marksBySource = new IdentityHashMap<>();
+        int lines = 0;
+        while (matches.hasNext() && (window.isEmpty() || lines < maxLines)) {
+            Match match = matches.next();
+            window.add(match);
+            Mark mark = firstMark(match);
+            if (mark.getSourceCode() != null) {
+                List<Mark> marks = marksBySource.get(mark.getSourceCode());
+                if (marks == null) {
+                    marks = new ArrayList<>();
+                    marksBySource.put(mark.getSourceCode(), marks);
+                }
+                marks.add(mark);
+                lines += mark.getLineCount();
+            }
+        }
+
+        for (Map.Entry<SourceCode, List<Mark>> entry : marksBySource.entrySet()) {
+            List<Mark> marks = entry.getValue();
+            Collections.sort(marks, BY_BEGIN_LINE);
+            int[] beginLines = new int[marks.size()];
+            int[] endLines = new int[marks.size()];
+            for (int i = 0; i < beginLines.length; i++) {
+                beginLines[i] = marks.get(i).getBeginLine();
+                endLines[i] = marks.get(i).getEndLine();
+            }
+            String[] slices = entry.getKey().getSlices(beginLines, endLines);
+            for (int i = 0; i < slices.length; i++) {
+                marks.get(i).setSourceCodeSlice(slices[i]);
+            }
+        }
+    }
+
+
+    // the first mark is the one of Match#getSourceCodeSlice()
+    private static Mark firstMark(Match match) {
+        return match.iterator().next();
+    }
+}
@@ -0,0 +1,316 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Match algorithm which finds the same matches as {@link MatchAlgorithm},
+ * without the map of all token positions built by the latter.
+ *
+ * <p>Instead of hashing every token position into a map, the identifiers of
+ * the tokens are copied into an int array, and the suffixes of the token
+ * sequence are sorted by their first {@link #getMinimumTileSize()} tokens,
+ * using prefix doubling with radix sorts on int arrays. The positions which
+ * start with the same tokens end up next to each other, and are then compared
+ * pairwise like {@link MatchCollector} does.
+ *
+ * <p>The token entries themselves, which are created by the tokenizers, are
+ * still kept in {@link Tokens}, and make up most of the memory needed by CPD.
+ * This algorithm only saves the memory of the map, which is about an eighth of
+ * the heap on a code base of 3 million tokens.
+ *
+ * @since 6.13.0
+ */
+public class SuffixArrayMatchAlgorithm extends MatchAlgorithm {
+
+    /** Identifier of {@link TokenEntry#EOF}, the other tokens have positive identifiers. */
+    private static final int EOF = 0;
+
+    private final List<TokenEntry> code;
+    private final int min;
+    private CPDListener cpdListener;
+
+    private int[] identifiers;
+
+
+    public SuffixArrayMatchAlgorithm(Map<String, SourceCode> sourceCode, Tokens tokens, int min) {
+        this(sourceCode, tokens, min, new CPDNullListener());
+    }
+
+
+    public SuffixArrayMatchAlgorithm(Map<String, SourceCode> sourceCode, Tokens tokens, int min, CPDListener listener) {
+        super(sourceCode, tokens, min, listener);
+        this.code = tokens.getTokens();
+        this.min = min;
+        this.cpdListener = listener;
+    }
+
+
+    @Override
+    public void setListener(CPDListener listener) {
+        super.setListener(listener);
+        this.cpdListener = listener;
+    }
+
+
+    @Override
+    public void findMatches() {
+        cpdListener.phaseUpdate(CPDListener.HASH);
+        identifiers = new int[code.size()];
+        for (int i = 0; i < identifiers.length; i++) {
+            identifiers[i] = code.get(i).getIdentifier();
+        }
+        int[] ranks = rankPrefixes();
+
+        cpdListener.phaseUpdate(CPDListener.MATCH);
+        List<Match> matches = new ArrayList<>();
+        if (ranks != null) {
+            int[] positions = sortPositions(ranks);
+            Map<Integer, Map<Integer, Match>> matchTree = new HashMap<>();
+            int start = 0;
+            for (int i = 1; i <= positions.length; i++) {
+                if (i == positions.length || ranks[positions[i]] != ranks[positions[start]]) {
+                    if (i - start > 1) {
+                        collect(positions, start, i, ranks[positions[start]], matchTree, matches);
+                        matchTree.clear();
+                    }
+                    start = i;
+                }
+            }
+        }
+        identifiers = null;
+
+        cpdListener.phaseUpdate(CPDListener.GROUPING);
+        Collections.sort(matches);
+        setMatches(matches);
+        cpdListener.phaseUpdate(CPDListener.DONE);
+    }
+
+
+    /**
+     * Ranks the token positions so that two positions have the same rank iff
+     * they start with the same {@link #min} tokens. Positions whose first
+     * tokens reach the end of a file get a rank of -1.
+     *
+     * @return The ranks, or null if no position starts like another
+     */
+    private int[] rankPrefixes() {
+        final int n = identifiers.length;
+        if (n == 0) {
+            return null;
+        }
+        int[] ranks = identifiers;
+        int maxRank = 0;
+        for (int id : identifiers) {
+            maxRank = Math.max(maxRank, id);
+        }
+        // the identifiers may not be dense, only the ranks computed below tell if they're all different
+        boolean allDifferent = false;
+
+        int[] order = new int[n];
+        int[] buffer = new int[n];
+        int[] newRanks = new int[n];
+
+        // ranks are for prefixes of length k, combining the ranks of p and p + offset
+        // gives the ranks of prefixes of length k + offset
+        int k = 1;
+        while (k < min && !allDifferent) {
+            int offset = Math.min(k, min - k);
+            maxRank = combine(ranks, maxRank, offset, order, buffer, newRanks);
+            allDifferent = maxRank == n - 1;
+            if (ranks == identifiers) {
+                ranks = newRanks;
+                newRanks = new int[n];
+            } else {
+                int[] swap = ranks;
+                ranks = newRanks;
+                newRanks = swap;
+            }
+            k += offset;
+        }
+
+        if (allDifferent) {
+            return null;
+        }
+
+        if (ranks == identifiers) {
+            ranks = newRanks;
+            System.arraycopy(identifiers, 0, ranks, 0, n);
+        }
+
+        // a match can't span several files
+        int length = 0;
+        for (int p = n - 1; p >= 0; p--) {
+            length = identifiers[p] == EOF ? 0 : length + 1;
+            if (length < min) {
+                ranks[p] = -1;
+            }
+        }
+        return ranks;
+    }
+
+
+    /**
+     * Sorts the positions by the pair of their rank and the rank of the
+     * position at the given offset, and computes the ranks of the pairs.
+     *
+     * @return The maximum new rank
+     */
+    private static int combine(int[] ranks, int maxRank, int offset, int[] order, int[] buffer, int[] newRanks) {
+        final int n = ranks.length;
+
+        // radix sort, first on the rank at the offset (0 past the end), then on the rank
+        int[] counts = new int[maxRank + 3];
+        for (int p = 0; p < n; p++) {
+            counts[secondKey(ranks, p, offset) + 1]++;
+        }
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+        for (int p = 0; p < n; p++) {
+            buffer[counts[secondKey(ranks, p, offset)]++] = p;
+        }
+
+        counts = new int[maxRank + 2];
+        for (int p = 0; p < n; p++) {
+            counts[ranks[p] + 1]++;
+        }
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+        for (int i = 0; i < n; i++) {
+            int p = buffer[i];
+            order[counts[ranks[p]]++] = p;
+        }
+
+        int rank = 0;
+        newRanks[order[0]] = 0;
+        for (int i = 1; i < n; i++) {
+            int p = order[i];
+            int previous = order[i - 1];
+            if (ranks[p] != ranks[previous] || secondKey(ranks, p, offset) != secondKey(ranks, previous, offset)) {
+                rank++;
+            }
+            newRanks[p] = rank;
+        }
+        return rank;
+    }
+
+
+    private static int secondKey(int[] ranks, int p, int offset) {
+        return p + offset < ranks.length ? ranks[p + offset] + 1 : 0;
+    }
+
+
+    /**
+     * Returns the ranked positions, sorted by rank and then by position.
+     */
+    private static int[] sortPositions(int[] ranks) {
+        int maxRank = -1;
+        int count = 0;
+        for (int rank : ranks) {
+            if (rank >= 0) {
+                maxRank = Math.max(maxRank, rank);
+                count++;
+            }
+        }
+
+        int[] counts = new int[maxRank + 2];
+        for (int rank : ranks) {
+            if (rank >= 0) {
+                counts[rank + 1]++;
+            }
+        }
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+        int[] positions = new int[count];
+        for (int p = 0; p < ranks.length; p++) {
+            if (ranks[p] >= 0) {
+                positions[counts[ranks[p]]++] = p;
+            }
+        }
+        return positions;
+    }
+
+
+    /**
+     * Collects the maximal matches between the positions of a group, which
+     * start with the same tokens. This mirrors {@link MatchCollector#collect(List)}.
+     */
+    private void collect(int[] positions, int from, int to, int rank,
+                         Map<Integer, Map<Integer, Match>> matchTree, List<Match> matches) {
+        for (int i = from; i < to - 1; i++) {
+            int mark1 = positions[i];
+            for (int j = i + 1; j < to; j++) {
+                int mark2 = positions[j];
+                if (mark2 - mark1 < min) {
+                    continue;
+                }
+                if (hasPreviousDupe(mark1, mark2)) {
+                    continue;
+                }
+                int dupes = countDuplicateTokens(mark1, mark2);
+                // is it still too close together
+                if (mark1 + dupes > mark2) {
+                    continue;
+                }
+                reportMatch(mark1, mark2, dupes, rank, matchTree, matches);
+            }
+        }
+    }
+
+
+    private void reportMatch(int mark1, int mark2, int dupes, int rank,
+                             Map<Integer, Map<Integer, Match>> matchTree, List<Match> matches) {
+        Map<Integer, Match> ofLength = matchTree.get(dupes);
+        if (ofLength == null) {
+            ofLength = new HashMap<>();
+            matchTree.put(dupes, ofLength);
+        }
+        Match matchA = ofLength.get(mark1);
+        Match matchB = ofLength.get(mark2);
+
+        if (matchA == null && matchB == null) {
+            Match match = new Match(dupes, tokenAt(mark1, rank), tokenAt(mark2, rank));
+            ofLength.put(mark1, match);
+            ofLength.put(mark2, match);
+            matches.add(match);
+        } else if (matchA == null) {
+            matchB.addTokenEntry(tokenAt(mark1, rank));
+            ofLength.put(mark1, matchB);
+        } else if (matchB == null) {
+            matchA.addTokenEntry(tokenAt(mark2, rank));
+            ofLength.put(mark2, matchA);
+        }
+    }
+
+
+    private TokenEntry tokenAt(int position, int rank) {
+        TokenEntry token = code.get(position);
+        // like the hash of MatchAlgorithm, the marks of a match have the same hash code
+        token.setHashCode(rank);
+        return token;
+    }
+
+
+    private boolean hasPreviousDupe(int mark1, int mark2) {
+        return mark1 > 0 && identifiers[mark1 - 1] != EOF && identifiers[mark1 - 1] == identifiers[mark2 - 1];
+    }
+
+
+    private int countDuplicateTokens(int mark1, int mark2) {
+        int count = 0;
+        while (identifiers[mark1 + count] != EOF && identifiers[mark1 + count] == identifiers[mark2 + count]) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,274 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Adler32;
+
+import net.sourceforge.pmd.PMDVersion;
+
+/**
+ * Tokens of the files analysed by a previous CPD run, persisted in a file.
+ * The tokens of a file are reused as long as its contents and the options
+ * of the tokenizer don't change, so that only the files which changed are
+ * tokenized again.
+ *
+ * <p>The cache only keeps the files added to the current run, so that
+ * removed files are dropped when it's persisted. The tokens of the files can
+ * be added and stored by several threads at once.
+ */
+final class TokenCache {
+
+    private static final Logger LOG = Logger.getLogger(TokenCache.class.getName());
+
+    private static final int MAGIC = 0x43504443; // "CPDC"
+    private static final int FORMAT_VERSION = 1;
+    /** Image index of {@link TokenEntry#EOF}. */
+    private static final int EOF = -1;
+
+    private final File file;
+    private final String tokenizerOptions;
+    private final Map<String, FileTokens> previousTokens = new HashMap<>();
+    private final ConcurrentMap<String, FileTokens> tokens = new ConcurrentHashMap<>();
+    private volatile boolean modified;
+
+
+    private TokenCache(File file, String tokenizerOptions) {
+        this.file = file;
+        this.tokenizerOptions = tokenizerOptions;
+    }
+
+
+    /**
+     * Loads the cache persisted in the given file. If the file doesn't exist,
+     * or was written by another PMD version or with other tokenizer options,
+     * the cache starts empty.
+     *
+     * @param file             The file where the cache is persisted
+     * @param tokenizerOptions Describes the language and the options of the tokenizer
+     *
+     * @return The cache
+     */
+    static TokenCache load(File file, String tokenizerOptions) {
+        TokenCache cache = new TokenCache(file, tokenizerOptions);
+        if (!file.isFile()) {
+            return cache;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION
+                    || !PMDVersion.VERSION.equals(readString(in))
+                    || !tokenizerOptions.equals(readString(in))) {
+                LOG.info("CPD cache invalidated, the PMD version or the tokenizer options changed");
+                return cache;
+            }
+
+            int fileCount = in.readInt();
+            for (int f = 0; f < fileCount; f++) {
+                String fileName = readString(in);
+                long checksum = in.readLong();
+                String[] images = new String[in.readInt()];
+                for (int i = 0; i < images.length; i++) {
+                    images[i] = readString(in);
+                }
+                int[] imageIndexes = new int[in.readInt()];
+                int[] lines = new int[imageIndexes.length];
+                for (int i = 0; i < imageIndexes.length; i++) {
+                    imageIndexes[i] = in.readInt();
+                    lines[i] = in.readInt();
+                }
+                cache.previousTokens.put(fileName, new FileTokens(checksum, images, imageIndexes, lines));
+            }
+            LOG.info("CPD cache loaded");
+        } catch (IOException | RuntimeException e) {
+            LOG.log(Level.WARNING, "CPD cache " + file + " is malformed, will not be used", e);
+            cache.previousTokens.clear();
+        }
+        return cache;
+    }
+
+
+    /**
+     * Computes the checksum of the contents of a source.
+     */
+    static long checksum(SourceCode sourceCode) {
+        Adler32 checksum = new Adler32();
+        for (String line : sourceCode.getCode()) {
+            checksum.update(line.getBytes(StandardCharsets.UTF_8));
+            checksum.update('\n');
+        }
+        return checksum.getValue();
+    }
+
+
+    /**
+     * Adds the cached tokens of a file to the given tokens, if its contents
+     * didn't change since they were cached.
+     *
+     * @param fileName The name of the file
+     * @param checksum The checksum of the contents of the file
+     * @param target   The tokens to which the cached tokens are added
+     *
+     * @return True if the tokens were cached, false if the file must be tokenized
+     */
+    boolean addCachedTokens(String fileName, long checksum, Tokens target) {
+        FileTokens cached = previousTokens.get(fileName);
+        if (cached == null || cached.checksum != checksum) {
+            return false;
+        }
+
+        for (int i = 0; i < cached.imageIndexes.length; i++) {
+            int image = cached.imageIndexes[i];
+            target.add(image == EOF ? TokenEntry.getEOF() : new TokenEntry(cached.images[image], fileName, cached.lines[i]));
+        }
+        tokens.put(fileName, cached);
+        return true;
+    }
+
+
+    /**
+     * Stores the tokens of a file. The tokens must have been created by the
+     * current thread, or with the same images.
+     *
+     * @param fileName   The name of the file
+     * @param checksum   The checksum of the contents of the file
+     * @param fileTokens The tokens of the file
+     */
+    void storeTokens(String fileName, long checksum, List<TokenEntry> fileTokens) {
+        Map<String, Integer> imageIndexes = new HashMap<>();
+        int[] indexes = new int[fileTokens.size()];
+        int[] lines = new int[fileTokens.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            TokenEntry token = fileTokens.get(i);
+            if (token == TokenEntry.EOF) {
+                indexes[i] = EOF;
+                continue;
+            }
+            String image = token.getImage();
+            Integer index = imageIndexes.get(image);
+            if (index == null) {
+                index = imageIndexes.size();
+                imageIndexes.put(image, index);
+            }
+            indexes[i] = index;
+            lines[i] = token.getBeginLine();
+        }
+
+        String[] images = new String[imageIndexes.size()];
+        for (Map.Entry<String, Integer> entry : imageIndexes.entrySet()) {
+            images[entry.getValue()] = entry.getKey();
+        }
+        tokens.put(fileName, new FileTokens(checksum, images, indexes, lines));
+        modified = true;
+    }
+
+
+    /**
+     * Writes the tokens of the files of this run to the file of the cache,
+     * if they changed since it was loaded.
+     */
+    void persist() {
+        if (!modified && tokens.size() == previousTokens.size()) {
+            return;
+        }
+
+        File tmp = null;
+        try {
+            File parent = file.getAbsoluteFile().getParentFile();
+            if (parent != null && !parent.exists()) {
+                parent.mkdirs();
+            }
+            // write to a temporary file first, so that a failure doesn't leave a partial cache
+            tmp = File.createTempFile(file.getName(), ".tmp", parent);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp.toPath())))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                writeString(out, PMDVersion.VERSION);
+                writeString(out, tokenizerOptions);
+
+                out.writeInt(tokens.size());
+                for (Map.Entry<String, FileTokens> entry : tokens.entrySet()) {
+                    FileTokens fileTokens = entry.getValue();
+                    writeString(out, entry.getKey());
+                    out.writeLong(fileTokens.checksum);
+                    out.writeInt(fileTokens.images.length);
+                    for (String image : fileTokens.images) {
+                        writeString(out, image);
+                    }
+                    out.writeInt(fileTokens.imageIndexes.length);
+                    for (int i = 0; i < fileTokens.imageIndexes.length; i++) {
+                        out.writeInt(fileTokens.imageIndexes[i]);
+                        out.writeInt(fileTokens.lines[i]);
+                    }
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            modified = false;
+            LOG.info("CPD cache updated");
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Could not persist the CPD cache " + file, e);
+        } finally {
+            if (tmp != null && tmp.exists() && !tmp.delete()) {
+                tmp.deleteOnExit();
+            }
+        }
+    }
+
+
+    // DataOutput#writeUTF is limited to 64KB, which a string literal may exceed, and doesn't support null
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        if (string == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+
+    /** The tokens of a file, their images are indexes in a table of the file. */
+    private static final class FileTokens {
+
+        final long checksum;
+        final String[] images;
+        final int[] imageIndexes;
+        final int[] lines;
+
+
+        FileTokens(long checksum, String[] images, int[] imageIndexes, int[] lines) {
+            this.checksum = checksum;
+            this.images = images;
+            this.imageIndexes = imageIndexes;
+            this.lines = lines;
+        }
+    }
+}
@@ -5,9 +5,10 @@
 package net.sourceforge.pmd.cpd;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class TokenEntry implements Comparable<TokenEntry> {
@@ -20,10 +21,10 @@ public class TokenEntry implements Comparable<TokenEntry> {
     private int identifier;
     private int hashCode;
 
-    private static final ThreadLocal<Map<String, Integer>> TOKENS = new ThreadLocal<Map<String, Integer>>() {
+    private static final ThreadLocal<Images> TOKENS = new ThreadLocal<Images>() {
         @Override
-        protected Map<String, Integer> initialValue() {
-            return new HashMap<>();
+        protected Images initialValue() {
+            return new Images();
         }
     };
     private static final ThreadLocal<AtomicInteger> TOKEN_COUNT = new ThreadLocal<AtomicInteger>() {
@@ -57,34 +58,98 @@ public class TokenEntry implements Comparable<TokenEntry> {
     }
 
     public static void clearImages() {
-        TOKENS.get().clear();
+        // the images may be shared with other threads, don't clear them
         TOKENS.remove();
         TOKEN_COUNT.remove();
     }
 
+    /**
+     * Returns the images of the current thread. The threads tokenizing files
+     * in parallel use them with {@link #useImages(Images)}, so that the same
+     * images get the same identifiers.
+     */
+    static Images getImages() {
+        return TOKENS.get();
+    }
+
+    /**
+     * Makes the current thread use the images of another thread.
+     *
+     * @see #getImages()
+     */
+    static void useImages(Images images) {
+        TOKENS.set(images);
+    }
+
+    /**
+     * Sets the number of token entries created by the current thread, which
+     * is the index of the next entry.
+     */
+    static void setTokenCount(int tokenCount) {
+        TOKEN_COUNT.get().set(tokenCount);
+    }
+
     /**
      * Helper class to preserve and restore the current state of the token
-     * entries.
+     * entries. The images are not restored: they may be shared with other
+     * threads, which may already use the identifiers added since, so the
+     * images of the dropped entries are kept.
      */
     public static class State {
         private int tokenCount;
-        private Map<String, Integer> tokens;
         private List<TokenEntry> entries;
 
         public State(List<TokenEntry> entries) {
             this.tokenCount = TokenEntry.TOKEN_COUNT.get().intValue();
-            this.tokens = new HashMap<>(TokenEntry.TOKENS.get());
             this.entries = new ArrayList<>(entries);
         }
 
         public List<TokenEntry> restore() {
             TokenEntry.TOKEN_COUNT.get().set(tokenCount);
-            TOKENS.get().clear();
-            TOKENS.get().putAll(tokens);
             return entries;
         }
     }
 
+    /**
+     * The images of the tokens, indexed by their identifier. The images can
+     * be shared by the threads tokenizing files in parallel: new images are
+     * added under a lock, while the lookups don't lock. Images are never
+     * removed, since another thread may have handed out their identifier.
+     */
+    static final class Images {
+        private static final String NULL_IMAGE = "\u0000null";
+
+        private final ConcurrentMap<String, Integer> identifiers = new ConcurrentHashMap<>();
+        // images[i] is the image of identifier i + 1, only grows under the lock
+        private volatile String[] images = new String[16];
+        private int size;
+
+        int getIdentifier(String image) {
+            // the concurrent map doesn't support null keys
+            String key = image == null ? NULL_IMAGE : image;
+            Integer identifier = identifiers.get(key);
+            if (identifier == null) {
+                synchronized (this) {
+                    identifier = identifiers.get(key);
+                    if (identifier == null) {
+                        String[] grown = size < images.length ? images : Arrays.copyOf(images, 2 * size);
+                        grown[size++] = image;
+                        // the volatile write publishes the image before its identifier
+                        images = grown;
+                        identifier = size;
+                        identifiers.put(key, identifier);
+                    }
+                }
+            }
+            return identifier;
+        }
+
+        String getImage(int identifier) {
+            String[] current = images;
+            return identifier > 0 && identifier <= current.length ? current[identifier - 1] : null;
+        }
+    }
+
     public String getTokenSrcID() {
         return tokenSrcID;
     }
@@ -101,6 +166,14 @@ public class TokenEntry implements Comparable<TokenEntry> {
         return this.index;
     }
 
+    /**
+     * Sets the index of an entry created by another thread, when it's added
+     * to the tokens of the current thread.
+     */
+    void setIndex(int index) {
+        this.index = index;
+    }
+
     @Override
     public int hashCode() {
         return hashCode;
@@ -129,20 +202,19 @@ public class TokenEntry implements Comparable<TokenEntry> {
         if (this == EOF) {
             return "EOF";
         }
-        for (Map.Entry<String, Integer> e : TOKENS.get().entrySet()) {
-            if (e.getValue().intValue() == identifier) {
-                return e.getKey();
-            }
-        }
-        return "--unkown--";
+        String image = getImage();
+        return image == null ? "--unkown--" : image;
+    }
+
+    /**
+     * Returns the image of this token, if it was created with the images of
+     * the current thread.
+     */
+    String getImage() {
+        return TOKENS.get().getImage(identifier);
     }
 
     final void setImage(String image) {
-        Integer i = TOKENS.get().get(image);
-        if (i == null) {
-            i = TOKENS.get().size() + 1;
-            TOKENS.get().put(image, i);
-        }
-        this.identifier = i.intValue();
+        this.identifier = TOKENS.get().getIdentifier(image);
     }
 }
@@ -7,20 +7,11 @@ package net.sourceforge.pmd.cpd;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
 import java.util.Iterator;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.OutputKeys;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerException;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
-
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
+import net.sourceforge.pmd.PMD;
 import net.sourceforge.pmd.cpd.renderer.CPDRenderer;
 
 /**
@@ -30,6 +21,8 @@ import net.sourceforge.pmd.cpd.renderer.CPDRenderer;
  */
 public final class XMLRenderer implements Renderer, CPDRenderer {
 
+    private static final String INDENT = "    ";
+
     private String encoding;
 
     /**
@@ -62,30 +55,6 @@ public final class XMLRenderer implements Renderer, CPDRenderer {
         return this.encoding;
     }
 
-    private Document createDocument() {
-        try {
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder parser = factory.newDocumentBuilder();
-            return parser.newDocument();
-        } catch (ParserConfigurationException e) {
-            throw new IllegalStateException(e);
-        }
-    }
-
-    private void dumpDocToWriter(Document doc, Writer writer) {
-        try {
-            TransformerFactory tf = TransformerFactory.newInstance();
-            Transformer transformer = tf.newTransformer();
-            transformer.setOutputProperty(OutputKeys.METHOD, "xml");
-            transformer.setOutputProperty(OutputKeys.ENCODING, encoding);
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
-            transformer.setOutputProperty(OutputKeys.CDATA_SECTION_ELEMENTS, "codefragment");
-            transformer.transform(new DOMSource(doc), new StreamResult(writer));
-        } catch (TransformerException e) {
-            throw new IllegalStateException(e);
-        }
-    }
-
     @Override
     public String render(Iterator<Match> matches) {
         StringWriter writer = new StringWriter();
@@ -97,48 +66,126 @@ public final class XMLRenderer implements Renderer, CPDRenderer {
         return writer.toString();
     }
     
+    /**
+     * Renders the matches one after the other, without keeping them in
+     * memory. The code fragments are read through a {@link SourceCodeSlicer}.
+     * The output is the same as the one of the DOM serializer used before,
+     * with the same XML declaration and an indentation of 4 spaces.
+     */
     @Override
     public void render(Iterator<Match> matches, Writer writer) throws IOException {
-        Document doc = createDocument();
-        Element root = doc.createElement("pmd-cpd");
-        doc.appendChild(root);
-
-        Match match;
-        while (matches.hasNext()) {
-            match = matches.next();
-            root.appendChild(addCodeSnippet(doc,
-                    addFilesToDuplicationElement(doc, createDuplicationElement(doc, match), match), match));
+        CharsetEncoder encoder = createEncoder();
+
+        writer.write("<?xml version=\"1.0\" encoding=\"" + encoding + "\" standalone=\"no\"?>");
+        writer.write(PMD.EOL);
+
+        Iterator<Match> it = new SourceCodeSlicer(matches);
+        if (!it.hasNext()) {
+            writer.write("<pmd-cpd/>");
+            writer.write(PMD.EOL);
+            writer.flush();
+            return;
+        }
+
+        writer.write("<pmd-cpd>");
+        writer.write(PMD.EOL);
+        StringBuilder buf = new StringBuilder();
+        while (it.hasNext()) {
+            Match match = it.next();
+            buf.setLength(0);
+            buf.append(INDENT).append("<duplication lines=\"").append(match.getLineCount())
+               .append("\" tokens=\"").append(match.getTokenCount()).append("\">").append(PMD.EOL);
+            for (Mark mark : match) {
+                buf.append(INDENT).append(INDENT).append("<file line=\"").append(mark.getBeginLine()).append("\" path=\"");
+                appendAttributeValue(buf, mark.getFilename(), encoder);
+                buf.append("\"/>").append(PMD.EOL);
+            }
+            String codeSnippet = match.getSourceCodeSlice();
+            if (codeSnippet != null) {
+                buf.append(INDENT).append(INDENT);
+                if (codeSnippet.isEmpty()) {
+                    buf.append("<codefragment/>");
+                } else {
+                    buf.append("<codefragment>");
+                    appendCData(buf, codeSnippet, encoder);
+                    buf.append("</codefragment>");
+                }
+                buf.append(PMD.EOL);
+            }
+            buf.append(INDENT).append("</duplication>").append(PMD.EOL);
+            writer.write(buf.toString());
         }
-        dumpDocToWriter(doc, writer);
+
+        writer.write("</pmd-cpd>");
+        writer.write(PMD.EOL);
         writer.flush();
     }
 
-    private Element addFilesToDuplicationElement(Document doc, Element duplication, Match match) {
-        Mark mark;
-        for (Iterator<Mark> iterator = match.iterator(); iterator.hasNext();) {
-            mark = iterator.next();
-            Element file = doc.createElement("file");
-            file.setAttribute("line", String.valueOf(mark.getBeginLine()));
-            file.setAttribute("path", mark.getFilename());
-            duplication.appendChild(file);
+    private CharsetEncoder createEncoder() {
+        try {
+            return Charset.forName(encoding).newEncoder();
+        } catch (IllegalArgumentException e) {
+            // unknown encoding, the characters are written as is
+            return null;
         }
-        return duplication;
     }
 
-    private Element addCodeSnippet(Document doc, Element duplication, Match match) {
-        String codeSnipet = match.getSourceCodeSlice();
-        if (codeSnipet != null) {
-            Element codefragment = doc.createElement("codefragment");
-            codefragment.appendChild(doc.createCDATASection(codeSnipet));
-            duplication.appendChild(codefragment);
+    private static boolean canEncode(CharsetEncoder encoder, String text, int index, int codePoint) {
+        return encoder == null || encoder.canEncode(text.subSequence(index, index + Character.charCount(codePoint)));
+    }
+
+    /**
+     * Appends an attribute value, escaped like the DOM serializer does.
+     */
+    private static void appendAttributeValue(StringBuilder buf, String value, CharsetEncoder encoder) {
+        for (int i = 0; i < value.length(); i += Character.charCount(value.codePointAt(i))) {
+            int c = value.codePointAt(i);
+            switch (c) {
+            case '&':
+                buf.append("&amp;");
+                break;
+            case '<':
+                buf.append("&lt;");
+                break;
+            case '>':
+                buf.append("&gt;");
+                break;
+            case '"':
+                buf.append("&quot;");
+                break;
+            case '\t':
+            case '\n':
+            case '\r':
+                buf.append("&#").append(c).append(';');
+                break;
+            default:
+                if (canEncode(encoder, value, i, c)) {
+                    buf.appendCodePoint(c);
+                } else {
+                    buf.append("&#").append(c).append(';');
+                }
+            }
         }
-        return duplication;
     }
 
-    private Element createDuplicationElement(Document doc, Match match) {
-        Element duplication = doc.createElement("duplication");
-        duplication.setAttribute("lines", String.valueOf(match.getLineCount()));
-        duplication.setAttribute("tokens", String.valueOf(match.getTokenCount()));
-        return duplication;
+    /**
+     * Appends a CDATA section. Like the DOM serializer, the section is split
+     * around "]]>" and around the characters which the encoding can't
+     * represent, which are written as character references.
+     */
+    private static void appendCData(StringBuilder buf, String text, CharsetEncoder encoder) {
+        buf.append("<![CDATA[");
+        for (int i = 0; i < text.length(); i += Character.charCount(text.codePointAt(i))) {
+            int c = text.codePointAt(i);
+            if (c == ']' && text.startsWith("]]>", i)) {
+                buf.append("]]]]><![CDATA[>");
+                i += 2;
+            } else if (canEncode(encoder, text, i, c)) {
+                buf.appendCodePoint(c);
+            } else {
+                buf.append("]]>&#").append(c).append(";<![CDATA[");
+            }
+        }
+        buf.append("]]>");
     }
 }
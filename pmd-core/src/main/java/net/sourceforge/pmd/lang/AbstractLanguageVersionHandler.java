@@ -79,4 +79,10 @@ public abstract class AbstractLanguageVersionHandler implements LanguageVersionH
     public LanguageMetricsProvider<?, ?> getLanguageMetricsProvider() {
         return null;
     }
+
+
+    @Override
+    public BatchParser createBatchParser() {
+        return null;
+    }
 }
@@ -0,0 +1,71 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang;
+
+import java.util.Map;
+
+import net.sourceforge.pmd.annotation.Experimental;
+
+/**
+ * Parses the files of a language version in batches, before they're
+ * analyzed one by one. This lets a language share the work of parsing
+ * between the files, eg to resolve the types declared in the other files
+ * of the project.
+ *
+ * <p>A batch parser is created for each analysis run, see
+ * {@link LanguageVersionHandler#createBatchParser()}, and is used by a
+ * single thread. First, {@link #declareAll(Map)} is called for each batch
+ * of the files of the language version. Then, only the files whose cached
+ * results are out of date are parsed, each batch right before its files
+ * are analyzed, so that parsing a file doesn't depend on the order of the
+ * batches.
+ *
+ * <p>The trees are returned by the parsers of {@link #getParser(ParserOptions)},
+ * by file name, when the files are analyzed, possibly on other threads.
+ * A parser returns a tree only once, and parses a file alone if it has no
+ * tree for it, so the batch parser may skip the files it fails to parse.
+ *
+ * @since 6.13.0
+ */
+@Experimental
+public interface BatchParser {
+
+    /**
+     * Returns the maximum number of files to parse together.
+     */
+    int getBatchSize();
+
+    /**
+     * Collects the declarations of the given files, eg the types they
+     * declare. This is called for each batch of the files of the language
+     * version, before any batch is parsed.
+     *
+     * @param sources The contents of the files, by file name
+     */
+    void declareAll(Map<String, String> sources);
+
+    /**
+     * Parses the given files together. This is called for each batch,
+     * before the files of the batch are analyzed.
+     *
+     * @param sources The contents of the files to parse, by file name
+     */
+    void parseAll(Map<String, String> sources);
+
+    /**
+     * Returns a parser which returns the trees of this batch parser, and
+     * parses the other files alone.
+     *
+     * @param parserOptions The parser options
+     */
+    Parser getParser(ParserOptions parserOptions);
+
+    /**
+     * Releases the trees which were not returned by a parser, eg because
+     * the analysis of their file was skipped, and the collected
+     * declarations. This is called once all the files were analyzed.
+     */
+    void clear();
+}
@@ -150,4 +150,15 @@ public interface LanguageVersionHandler {
     @Experimental
     LanguageMetricsProvider<?, ?> getLanguageMetricsProvider();
 
+
+    /**
+     * Creates a batch parser for one analysis run, which parses the files
+     * of this language version together before they're analyzed. Returns
+     * null if the files are only parsed one by one.
+     *
+     * @since 6.13.0
+     */
+    @Experimental
+    BatchParser createBatchParser();
+
 }
@@ -0,0 +1,22 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.ast;
+
+/**
+ * A root node which may carry an index of the nodes of its tree, built
+ * by the parser.
+ *
+ * @since 6.13.0
+ */
+public interface IndexedRootNode extends RootNode {
+
+    /**
+     * Returns the index of the nodes of this tree by type, or null if
+     * the tree was not built by a parser maintaining such an index.
+     *
+     * @return The node type index, or null
+     */
+    NodeTypeIndex getNodeTypeIndex();
+}
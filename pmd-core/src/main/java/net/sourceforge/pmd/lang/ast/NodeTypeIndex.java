@@ -0,0 +1,130 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.ast;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Index of the nodes of an AST by node type, recorded by the parser while
+ * the tree is built. This spares the rule chain a walk of the whole tree
+ * to find the nodes the rules are interested in.
+ *
+ * <p>Node types are identified by their dense int id (see {@link Node#jjtGetId()}),
+ * and their names are the {@linkplain Node#getXPathNodeName() XPath node names}.
+ * Within a type, nodes are kept in document order (pre-order), which is
+ * the order in which a tree traversal would find them.
+ *
+ * <p>The index is filled in two steps: the parser calls {@link #nodeOpened(Node)}
+ * each time it opens a node, then {@link #finish(Node)} once the tree is
+ * complete. Nodes which the parser opened and then discarded are dropped at
+ * that point.
+ *
+ * @since 6.13.0
+ */
+public final class NodeTypeIndex {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final String[] typeNames;
+    private Node[] openedNodes = new Node[INITIAL_CAPACITY];
+    private int openedCount;
+    private List<Node>[] nodesByType;
+
+    /**
+     * Creates an empty index.
+     *
+     * @param typeNames The name of each node type, indexed by node type id.
+     *                  This array is shared, and must not be modified.
+     */
+    public NodeTypeIndex(String[] typeNames) {
+        this.typeNames = typeNames;
+    }
+
+    /**
+     * Records a node opened by the parser. Nodes must be recorded in the
+     * order in which they are opened.
+     *
+     * @param node The opened node
+     */
+    public void nodeOpened(Node node) {
+        if (openedCount == openedNodes.length) {
+            openedNodes = Arrays.copyOf(openedNodes, openedCount * 2);
+        }
+        openedNodes[openedCount++] = node;
+    }
+
+    /**
+     * Builds the index, once the tree has been built.
+     *
+     * @param root The root of the tree
+     *
+     * @return This index
+     */
+    @SuppressWarnings("unchecked")
+    public NodeTypeIndex finish(Node root) {
+        final int[] counts = new int[typeNames.length];
+        int kept = 0;
+        for (int i = 0; i < openedCount; i++) {
+            final Node node = openedNodes[i];
+            // nodes discarded by the parser never get a parent
+            if (node.jjtGetParent() != null || node == root) {
+                counts[node.jjtGetId()]++;
+                openedNodes[kept++] = node;
+            }
+        }
+
+        nodesByType = new List[typeNames.length];
+        for (int i = 0; i < kept; i++) {
+            final int type = openedNodes[i].jjtGetId();
+            if (nodesByType[type] == null) {
+                nodesByType[type] = new ArrayList<>(counts[type]);
+            }
+            nodesByType[type].add(openedNodes[i]);
+        }
+
+        openedNodes = null;
+        openedCount = 0;
+        return this;
+    }
+
+    /**
+     * Returns the id of the node type with the given name.
+     *
+     * @param typeName The XPath node name of the type
+     *
+     * @return The id of the type, or -1 if there is no such type
+     */
+    public int getTypeId(String typeName) {
+        for (int i = 0; i < typeNames.length; i++) {
+            if (typeNames[i].equals(typeName)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the nodes of the given type, in document order. The returned
+     * list must not be modified.
+     *
+     * @param typeId The id of the node type, may be -1
+     *
+     * @return The nodes of the type, possibly none
+     *
+     * @throws IllegalStateException If the index has not been {@linkplain #finish(Node) finished}
+     */
+    public List<Node> getNodes(int typeId) {
+        if (nodesByType == null) {
+            throw new IllegalStateException("The node type index is not complete");
+        }
+        if (typeId < 0 || typeId >= nodesByType.length || nodesByType[typeId] == null) {
+            return Collections.emptyList();
+        }
+        return nodesByType[typeId];
+    }
+}
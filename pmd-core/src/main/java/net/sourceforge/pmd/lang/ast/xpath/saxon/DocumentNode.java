@@ -4,9 +4,16 @@
 
 package net.sourceforge.pmd.lang.ast.xpath.saxon;
 
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.ast.Node;
@@ -32,9 +39,14 @@ public class DocumentNode extends AbstractNodeInfo implements DocumentInfo {
     protected final ElementNode rootNode;
 
     /**
-     * Mapping from AST Node to corresponding ElementNode.
+     * Mapping from AST Node to corresponding ElementNode. This is a read-only
+     * view, which creates the element nodes it's asked for.
+     *
+     * @deprecated Use {@link #getElementNode(Node)}. Iterating over this map
+     *     creates the element nodes of the whole tree.
      */
-    public final Map<Node, ElementNode> nodeToElementNode = new HashMap<>();
+    @Deprecated
+    public final Map<Node, ElementNode> nodeToElementNode = new ElementNodeMap();
 
     /**
      * Construct a DocumentNode, with the given AST Node serving as the root
@@ -49,6 +61,36 @@ public class DocumentNode extends AbstractNodeInfo implements DocumentInfo {
         this.rootNode = new ElementNode(this, new IdGenerator(), null, node, -1);
     }
 
+    /**
+     * Returns the ElementNode corresponding to the given AST Node. The element
+     * nodes on the path from the root to the node are created if needed,
+     * the rest of the tree is not.
+     *
+     * @param node
+     *            An AST Node of the tree wrapped by this document.
+     *
+     * @return The corresponding ElementNode
+     */
+    public ElementNode getElementNode(Node node) {
+        final Deque<Node> path = new ArrayDeque<>();
+        for (Node current = node; current.jjtGetParent() != null; current = current.jjtGetParent()) {
+            path.push(current);
+        }
+        return getElementNode(path);
+    }
+
+    /**
+     * Returns the ElementNode at the end of the given path of AST Nodes,
+     * which starts below the root.
+     */
+    private ElementNode getElementNode(Deque<Node> path) {
+        ElementNode elementNode = rootNode;
+        while (!path.isEmpty()) {
+            elementNode = elementNode.getChild(path.pop().jjtGetChildIndex());
+        }
+        return elementNode;
+    }
+
     @Override
     public String[] getUnparsedEntity(String name) {
         throw createUnsupportedOperationException("DocumentInfo.getUnparsedEntity(String)");
@@ -92,4 +134,55 @@ public class DocumentNode extends AbstractNodeInfo implements DocumentInfo {
             return super.iterateAxis(axisNumber);
         }
     }
+
+    /**
+     * Looks the element nodes up with {@link #getElementNode(Node)}, for the
+     * nodes of the tree wrapped by this document.
+     */
+    private final class ElementNodeMap extends AbstractMap<Node, ElementNode> {
+
+        @Override
+        public ElementNode get(Object key) {
+            if (!(key instanceof Node)) {
+                return null;
+            }
+            final Deque<Node> path = new ArrayDeque<>();
+            Node current = (Node) key;
+            while (current.jjtGetParent() != null) {
+                path.push(current);
+                current = current.jjtGetParent();
+            }
+            // only the nodes of this tree have an element node
+            return current == rootNode.node ? getElementNode(path) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public Set<Entry<Node, ElementNode>> entrySet() {
+            final List<Entry<Node, ElementNode>> entries = new ArrayList<>();
+            addEntries(rootNode, entries);
+            return new AbstractSet<Entry<Node, ElementNode>>() {
+                @Override
+                public Iterator<Entry<Node, ElementNode>> iterator() {
+                    return Collections.unmodifiableList(entries).iterator();
+                }
+
+                @Override
+                public int size() {
+                    return entries.size();
+                }
+            };
+        }
+
+        private void addEntries(ElementNode elementNode, List<Entry<Node, ElementNode>> entries) {
+            entries.add(new SimpleImmutableEntry<>(elementNode.node, elementNode));
+            for (int i = 0; i < elementNode.node.jjtGetNumChildren(); i++) {
+                addEntries(elementNode.getChild(i), entries);
+            }
+        }
+    }
 }
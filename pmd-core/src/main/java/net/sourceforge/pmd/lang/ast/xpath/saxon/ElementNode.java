@@ -19,6 +19,10 @@ import net.sf.saxon.type.Type;
 
 /**
  * A Saxon OM Element type node for an AST Node.
+ *
+ * <p>The element nodes of the children are only created when they are first
+ * navigated to, so that queries which only look at part of the tree don't
+ * wrap the whole AST. Like the AST itself, element nodes are not thread-safe.
  */
 @Deprecated
 @InternalApi
@@ -29,24 +33,52 @@ public class ElementNode extends AbstractNodeInfo {
     protected final Node node;
     protected final int id;
     protected final int siblingPosition;
-    protected final NodeInfo[] children;
+    /**
+     * The element nodes of the children, or null if there are none.
+     *
+     * @deprecated The children are created on first access, so this is
+     *     null until then. Use {@link #iterateAxis(byte)} with {@link Axis#CHILD}.
+     */
+    @Deprecated
+    protected NodeInfo[] children;
+    private final IdGenerator idGenerator;
 
     public ElementNode(DocumentNode document, IdGenerator idGenerator, ElementNode parent, Node node,
             int siblingPosition) {
         this.document = document;
         this.parent = parent;
         this.node = node;
+        this.idGenerator = idGenerator;
         this.id = idGenerator.getNextId();
         this.siblingPosition = siblingPosition;
-        if (node.jjtGetNumChildren() > 0) {
-            this.children = new NodeInfo[node.jjtGetNumChildren()];
-            for (int i = 0; i < children.length; i++) {
-                children[i] = new ElementNode(document, idGenerator, this, node.jjtGetChild(i), i);
+    }
+
+    /**
+     * Returns the element nodes of the children of this node, creating them
+     * on first access.
+     *
+     * @return The children, or null if there are none
+     */
+    private NodeInfo[] getChildren() {
+        if (children == null && node.jjtGetNumChildren() > 0) {
+            final NodeInfo[] created = new NodeInfo[node.jjtGetNumChildren()];
+            for (int i = 0; i < created.length; i++) {
+                created[i] = new ElementNode(document, idGenerator, this, node.jjtGetChild(i), i);
             }
-        } else {
-            this.children = null;
+            children = created;
         }
-        document.nodeToElementNode.put(node, this);
+        return children;
+    }
+
+    /**
+     * Returns the element node of the i-th child of this node.
+     *
+     * @param index The index of the child
+     *
+     * @return The element node of the child
+     */
+    /* package */ ElementNode getChild(int index) {
+        return (ElementNode) getChildren()[index];
     }
 
     @Override
@@ -71,7 +103,7 @@ public class ElementNode extends AbstractNodeInfo {
 
     @Override
     public boolean hasChildNodes() {
-        return children != null;
+        return node.jjtGetNumChildren() > 0;
     }
 
     @Override
@@ -115,10 +147,10 @@ public class ElementNode extends AbstractNodeInfo {
         case Axis.ATTRIBUTE:
             return new AttributeAxisIterator(this);
         case Axis.CHILD:
-            if (children == null) {
+            if (!hasChildNodes()) {
                 return EmptyIterator.getInstance();
             } else {
-                return new NodeArrayIterator(children);
+                return new NodeArrayIterator(getChildren());
             }
         case Axis.DESCENDANT:
             return new Navigator.DescendantEnumeration(this, false, true);
@@ -127,10 +159,11 @@ public class ElementNode extends AbstractNodeInfo {
         case Axis.FOLLOWING:
             return new Navigator.FollowingEnumeration(this);
         case Axis.FOLLOWING_SIBLING:
-            if (parent == null || siblingPosition == parent.children.length - 1) {
+            if (parent == null || siblingPosition == parent.node.jjtGetNumChildren() - 1) {
                 return EmptyIterator.getInstance();
             } else {
-                return new NodeArrayIterator(parent.children, siblingPosition + 1, parent.children.length);
+                final NodeInfo[] siblings = parent.getChildren();
+                return new NodeArrayIterator(siblings, siblingPosition + 1, siblings.length);
             }
         case Axis.NAMESPACE:
             return super.iterateAxis(axisNumber);
@@ -142,7 +175,7 @@ public class ElementNode extends AbstractNodeInfo {
             if (parent == null || siblingPosition == 0) {
                 return EmptyIterator.getInstance();
             } else {
-                return new NodeArrayIterator(parent.children, 0, siblingPosition);
+                return new NodeArrayIterator(parent.getChildren(), 0, siblingPosition);
             }
         case Axis.SELF:
             return SingleNodeIterator.makeIterator(this);
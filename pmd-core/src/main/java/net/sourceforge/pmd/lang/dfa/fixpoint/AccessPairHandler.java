@@ -0,0 +1,29 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.dfa.fixpoint;
+
+import net.sourceforge.pmd.lang.dfa.DataFlowNode;
+import net.sourceforge.pmd.lang.dfa.VariableAccess;
+
+/**
+ * Receives the pairs of consecutive accesses to a variable found by
+ * {@link ReachingAccesses}.
+ *
+ * @since 6.13.0
+ */
+public interface AccessPairHandler {
+
+    /**
+     * Handles two accesses to the same variable, such that there is a path
+     * from the first to the second one that doesn't access the variable
+     * in between.
+     *
+     * @param previousNode The node of the first access
+     * @param previous     The first access
+     * @param node         The node of the second access
+     * @param access       The second access
+     */
+    void handlePair(DataFlowNode previousNode, VariableAccess previous, DataFlowNode node, VariableAccess access);
+}
@@ -0,0 +1,166 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.dfa.fixpoint;
+
+import java.util.ArrayDeque;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sourceforge.pmd.lang.dfa.DataFlowNode;
+
+/**
+ * Base class for gen/kill dataflow analyses over the data flow of a method,
+ * such as reaching definitions or liveness. The facts are the bits of a
+ * {@link BitSet}, and are merged with a union where paths join.
+ *
+ * <p>The equations are solved with a worklist: a node is revisited only when
+ * the facts of one of its predecessors changed. Each fact can only be added
+ * once to a node, so the analysis terminates after a number of steps that is
+ * linear in the number of edges times the number of facts, whatever the
+ * number of paths through the method.
+ *
+ * @since 6.13.0
+ */
+public abstract class BitVectorAnalysis {
+
+    private final List<DataFlowNode> flow;
+    private final Map<DataFlowNode, Integer> indices;
+    private final boolean forward;
+    private BitSet[] in;
+    private BitSet[] out;
+
+    /**
+     * Creates a new analysis.
+     *
+     * @param flow    The nodes of the data flow, see {@link DataFlowNode#getFlow()}
+     * @param forward Whether the facts flow from a node to its children, like for
+     *                reaching definitions, or to its parents, like for liveness
+     */
+    protected BitVectorAnalysis(List<DataFlowNode> flow, boolean forward) {
+        this.flow = flow;
+        this.forward = forward;
+        this.indices = new IdentityHashMap<>(flow.size());
+        for (int i = 0; i < flow.size(); i++) {
+            indices.put(flow.get(i), i);
+        }
+    }
+
+    /**
+     * Returns the facts generated by the given node.
+     *
+     * @param node The index of the node in the flow
+     *
+     * @return The generated facts, which must not be modified by the caller
+     */
+    protected abstract BitSet gen(int node);
+
+    /**
+     * Returns the facts killed by the given node.
+     *
+     * @param node The index of the node in the flow
+     *
+     * @return The killed facts, which must not be modified by the caller
+     */
+    protected abstract BitSet kill(int node);
+
+    /**
+     * Solves the equations. Called on the first access to the results.
+     */
+    protected final void solve() {
+        if (in != null) {
+            return;
+        }
+
+        final int size = flow.size();
+        final BitSet[] before = new BitSet[size];
+        final BitSet[] after = new BitSet[size];
+        final BitSet[] gens = new BitSet[size];
+        final BitSet[] kills = new BitSet[size];
+        final Deque<Integer> worklist = new ArrayDeque<>(size);
+        final boolean[] queued = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            before[i] = new BitSet();
+            gens[i] = gen(i);
+            kills[i] = kill(i);
+            after[i] = (BitSet) gens[i].clone();
+            // visit the nodes in flow order first, which settles acyclic methods in one pass
+            final int node = forward ? i : size - 1 - i;
+            worklist.add(node);
+            queued[node] = true;
+        }
+
+        while (!worklist.isEmpty()) {
+            final int node = worklist.poll();
+            queued[node] = false;
+
+            final BitSet facts = before[node];
+            for (DataFlowNode predecessor : predecessors(flow.get(node))) {
+                final Integer index = indices.get(predecessor);
+                if (index != null) {
+                    facts.or(after[index]);
+                }
+            }
+
+            final BitSet transferred = (BitSet) facts.clone();
+            transferred.andNot(kills[node]);
+            transferred.or(gens[node]);
+            if (!transferred.equals(after[node])) {
+                after[node] = transferred;
+                for (DataFlowNode successor : successors(flow.get(node))) {
+                    final Integer index = indices.get(successor);
+                    if (index != null && !queued[index]) {
+                        worklist.add(index);
+                        queued[index] = true;
+                    }
+                }
+            }
+        }
+
+        in = forward ? before : after;
+        out = forward ? after : before;
+    }
+
+    private List<DataFlowNode> predecessors(DataFlowNode node) {
+        return forward ? node.getParents() : node.getChildren();
+    }
+
+    private List<DataFlowNode> successors(DataFlowNode node) {
+        return forward ? node.getChildren() : node.getParents();
+    }
+
+    /**
+     * Returns the nodes of the analyzed data flow.
+     */
+    public List<DataFlowNode> getFlow() {
+        return flow;
+    }
+
+    /**
+     * Returns the facts that hold when entering the given node.
+     *
+     * @param node The index of the node in the flow
+     *
+     * @return The facts, which must not be modified by the caller
+     */
+    public BitSet getIn(int node) {
+        solve();
+        return in[node];
+    }
+
+    /**
+     * Returns the facts that hold when leaving the given node.
+     *
+     * @param node The index of the node in the flow
+     *
+     * @return The facts, which must not be modified by the caller
+     */
+    public BitSet getOut(int node) {
+        solve();
+        return out[node];
+    }
+}
@@ -0,0 +1,128 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.dfa.fixpoint;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sourceforge.pmd.lang.dfa.DataFlowNode;
+import net.sourceforge.pmd.lang.dfa.VariableAccess;
+
+/**
+ * Finds the accesses to each variable that can reach a node, that is, the last
+ * accesses to the variable on the paths leading to it. This generalizes reaching
+ * definitions to all kinds of {@link VariableAccess}: definitions, references and
+ * undefinitions.
+ *
+ * <p>From that, {@link #visitAccessPairs(AccessPairHandler)} yields every pair of
+ * consecutive accesses to a variable that occurs on some path of the data flow,
+ * which is what a data flow anomaly analysis checks. Unlike the enumeration of
+ * the paths done by {@link net.sourceforge.pmd.lang.dfa.pathfinder.DAAPathFinder},
+ * the cost of the analysis doesn't depend on the number of paths, and no path
+ * is left out.
+ *
+ * @since 6.13.0
+ */
+public class ReachingAccesses extends BitVectorAnalysis {
+
+    private final List<DataFlowNode> accessNodes = new ArrayList<>();
+    private final List<VariableAccess> accesses = new ArrayList<>();
+    private final Map<String, BitSet> accessesByVariable = new HashMap<>();
+    private final int[] firstAccess;
+    private final BitSet[] gens;
+    private final BitSet[] kills;
+
+    /**
+     * Creates the analysis of the given data flow.
+     *
+     * @param flow The nodes of the data flow, see {@link DataFlowNode#getFlow()}
+     */
+    public ReachingAccesses(List<DataFlowNode> flow) {
+        super(flow, true);
+
+        final int size = flow.size();
+        firstAccess = new int[size + 1];
+        gens = new BitSet[size];
+        kills = new BitSet[size];
+
+        for (int i = 0; i < size; i++) {
+            firstAccess[i] = accesses.size();
+            for (VariableAccess access : accessesOf(flow.get(i))) {
+                BitSet ofVariable = accessesByVariable.get(access.getVariableName());
+                if (ofVariable == null) {
+                    ofVariable = new BitSet();
+                    accessesByVariable.put(access.getVariableName(), ofVariable);
+                }
+                ofVariable.set(accesses.size());
+                accessNodes.add(flow.get(i));
+                accesses.add(access);
+            }
+        }
+        firstAccess[size] = accesses.size();
+
+        for (int i = 0; i < size; i++) {
+            // the last access to each variable in the node reaches its successors,
+            // and hides all the other accesses to the variable
+            final Map<String, Integer> lastAccesses = new HashMap<>();
+            for (int id = firstAccess[i]; id < firstAccess[i + 1]; id++) {
+                lastAccesses.put(accesses.get(id).getVariableName(), id);
+            }
+            gens[i] = new BitSet();
+            kills[i] = new BitSet();
+            for (Map.Entry<String, Integer> last : lastAccesses.entrySet()) {
+                gens[i].set(last.getValue());
+                kills[i].or(accessesByVariable.get(last.getKey()));
+            }
+        }
+    }
+
+    private static List<VariableAccess> accessesOf(DataFlowNode node) {
+        final List<VariableAccess> accesses = node.getVariableAccess();
+        return accesses == null ? Collections.<VariableAccess>emptyList() : accesses;
+    }
+
+    @Override
+    protected BitSet gen(int node) {
+        return gens[node];
+    }
+
+    @Override
+    protected BitSet kill(int node) {
+        return kills[node];
+    }
+
+    /**
+     * Passes each pair of consecutive accesses to a variable to the handler.
+     * The pairs are ordered by the position of their second access in the
+     * flow, and then by the position of their first access.
+     *
+     * @param handler The handler of the pairs
+     */
+    public void visitAccessPairs(AccessPairHandler handler) {
+        final List<DataFlowNode> flow = getFlow();
+        for (int i = 0; i < flow.size(); i++) {
+            final DataFlowNode node = flow.get(i);
+            final Map<String, Integer> previousInNode = new HashMap<>();
+            for (int id = firstAccess[i]; id < firstAccess[i + 1]; id++) {
+                final VariableAccess access = accesses.get(id);
+                final Integer previous = previousInNode.get(access.getVariableName());
+                if (previous != null) {
+                    handler.handlePair(node, accesses.get(previous), node, access);
+                } else {
+                    final BitSet reaching = (BitSet) getIn(i).clone();
+                    reaching.and(accessesByVariable.get(access.getVariableName()));
+                    for (int r = reaching.nextSetBit(0); r >= 0; r = reaching.nextSetBit(r + 1)) {
+                        handler.handlePair(accessNodes.get(r), accesses.get(r), node, access);
+                    }
+                }
+                previousInNode.put(access.getVariableName(), id);
+            }
+        }
+    }
+}
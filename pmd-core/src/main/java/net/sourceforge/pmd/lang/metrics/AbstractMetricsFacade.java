@@ -6,7 +6,9 @@ package net.sourceforge.pmd.lang.metrics;
 
 import java.util.Objects;
 
+import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.ast.QualifiableNode;
+import net.sourceforge.pmd.lang.metrics.MetricValueStore.FileValues;
 
 /**
  * Base class for a façade that can compute metrics for types, operations and compute aggregate results with a result
@@ -24,6 +26,32 @@ public abstract class AbstractMetricsFacade<T extends QualifiableNode, O extends
     private static final String NULL_OPTIONS_MESSAGE = "The metric options must not be null";
     private static final String NULL_NODE_MESSAGE = "The node must not be null";
 
+    /** The stored values of the file whose rules are applied on the current thread. */
+    private static final ThreadLocal<FileValues> FILE_VALUES = new ThreadLocal<>();
+
+
+    /**
+     * Sets the stored metric values of the file whose rules are applied on
+     * the current thread. The façades of all languages reuse them instead of
+     * computing the metrics again, and store the values they compute.
+     *
+     * @param values The values of the file, or null to only memoize the values in memory
+     *
+     * @return The values which were set before
+     *
+     * @since 6.13.0
+     */
+    @InternalApi
+    public static FileValues setFileValues(FileValues values) {
+        FileValues previous = FILE_VALUES.get();
+        if (values == null) {
+            FILE_VALUES.remove();
+        } else {
+            FILE_VALUES.set(values);
+        }
+        return previous;
+    }
+
 
     /**
      * Gets the language specific metrics computer.
@@ -62,10 +90,17 @@ public abstract class AbstractMetricsFacade<T extends QualifiableNode, O extends
         }
 
         MetricMemoizer<T> memoizer = getLanguageSpecificProjectMemoizer().getClassMemoizer(node.getQualifiedName());
+        if (memoizer == null) {
+            return Double.NaN;
+        }
 
-        return memoizer == null ? Double.NaN
-                                : getLanguageSpecificComputer().computeForType(key, node, false,
-                                                                               options, memoizer);
+        FileValues stored = FILE_VALUES.get();
+        boolean computed = stored != null && !loadStoredValue(stored, key, node, options, memoizer);
+        double value = getLanguageSpecificComputer().computeForType(key, node, false, options, memoizer);
+        if (computed) {
+            stored.put(node.getQualifiedName(), ParameterizedMetricKey.getInstance(key, options), value);
+        }
+        return value;
     }
 
 
@@ -90,11 +125,38 @@ public abstract class AbstractMetricsFacade<T extends QualifiableNode, O extends
         }
 
         MetricMemoizer<O> memoizer = getLanguageSpecificProjectMemoizer().getOperationMemoizer(node.getQualifiedName());
+        if (memoizer == null) {
+            return Double.NaN;
+        }
+
+        FileValues stored = FILE_VALUES.get();
+        boolean computed = stored != null && !loadStoredValue(stored, key, node, options, memoizer);
+        double value = getLanguageSpecificComputer().computeForOperation(key, node, false, options, memoizer);
+        if (computed) {
+            stored.put(node.getQualifiedName(), ParameterizedMetricKey.getInstance(key, options), value);
+        }
+        return value;
+    }
 
-        return memoizer == null ? Double.NaN
-                                : getLanguageSpecificComputer().computeForOperation(key, node, false,
-                                                                                    options, memoizer);
 
+    /**
+     * Memoizes the persisted value of the metric if it's not memoized yet.
+     *
+     * @return False if the value is neither memoized nor stored, and has to
+     *     be computed and stored afterwards
+     */
+    private <N extends QualifiableNode> boolean loadStoredValue(FileValues stored, MetricKey<N> key, N node,
+                                                                MetricOptions options, MetricMemoizer<N> memoizer) {
+        ParameterizedMetricKey<N> paramKey = ParameterizedMetricKey.getInstance(key, options);
+        if (memoizer.getMemo(paramKey) != null) {
+            return true;
+        }
+        Double value = stored.get(node.getQualifiedName(), paramKey);
+        if (value == null) {
+            return false;
+        }
+        memoizer.memoize(paramKey, value);
+        return true;
     }
 
 
@@ -4,14 +4,19 @@
 
 package net.sourceforge.pmd.lang.metrics;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
 
 import net.sourceforge.pmd.lang.ast.Node;
 
 /**
  * Basic implementation of a metric memoizer.
  *
+ * <p>The values are stored unboxed, in an array indexed by the id of the
+ * {@link ParameterizedMetricKey}. The memoizer is safe to use from several
+ * threads without locking. If a value is memoized while another thread grows
+ * the array, it may be lost, in which case it's just computed again.
+ *
  * @param <N> Type of node on which the memoized metric can be computed
  *
  * @author Clément Fournier
@@ -19,18 +24,50 @@ import net.sourceforge.pmd.lang.ast.Node;
  */
 public class BasicMetricMemoizer<N extends Node> implements MetricMemoizer<N> {
 
+    /**
+     * Marks the absence of a value. This is a NaN that {@link Double#doubleToLongBits(double)}
+     * never returns, since it collapses all NaNs to the canonical one.
+     */
+    private static final long ABSENT = 0x7ff0_dead_0000_beefL;
+    private static final AtomicLongArray EMPTY = new AtomicLongArray(0);
 
-    private final Map<ParameterizedMetricKey<N>, Double> memo = new HashMap<>();
+    private final AtomicReference<AtomicLongArray> memo = new AtomicReference<>(EMPTY);
 
 
     @Override
     public Double getMemo(ParameterizedMetricKey<N> key) {
-        return memo.get(key);
+        AtomicLongArray values = memo.get();
+        int id = key.id();
+        if (id >= values.length()) {
+            return null;
+        }
+        long bits = values.get(id);
+        return bits == ABSENT ? null : Double.longBitsToDouble(bits);
     }
 
 
     @Override
     public void memoize(ParameterizedMetricKey<N> key, double value) {
-        memo.put(key, value);
+        int id = key.id();
+        long bits = Double.doubleToLongBits(value);
+        AtomicLongArray values = memo.get();
+        while (id >= values.length()) {
+            AtomicLongArray grown = grow(values, id);
+            if (memo.compareAndSet(values, grown)) {
+                values = grown;
+            } else {
+                values = memo.get();
+            }
+        }
+        values.set(id, bits);
+    }
+
+
+    private static AtomicLongArray grow(AtomicLongArray values, int id) {
+        AtomicLongArray grown = new AtomicLongArray(Math.max(id + 1, 2 * values.length()));
+        for (int i = 0; i < grown.length(); i++) {
+            grown.set(i, i < values.length() ? values.get(i) : ABSENT);
+        }
+        return grown;
     }
 }
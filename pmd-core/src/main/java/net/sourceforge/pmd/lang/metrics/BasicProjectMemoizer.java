@@ -4,9 +4,13 @@
 
 package net.sourceforge.pmd.lang.metrics;
 
-import java.util.Map;
-import java.util.WeakHashMap;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.QualifiableNode;
 import net.sourceforge.pmd.lang.ast.QualifiedName;
 
@@ -14,7 +18,9 @@ import net.sourceforge.pmd.lang.ast.QualifiedName;
  * Simple implementation of a project memoizer. Memoizers are accessible in constant time, provided the QualifiedName's
  * hashCode is well distributed.
  *
- * <p>This implementation takes care of recollecting irrelevant memoizers by storing them in {@link WeakHashMap}.
+ * <p>This implementation takes care of recollecting irrelevant memoizers by only referencing the qualified names
+ * weakly, like a {@link java.util.WeakHashMap}. The memoizers are kept in concurrent maps, so that threads analysing
+ * different files don't wait for each other to fetch them.
  *
  * @param <T> Type of type declaration nodes of the language
  * @param <O> Type of operation declaration nodes of the language
@@ -25,11 +31,8 @@ import net.sourceforge.pmd.lang.ast.QualifiedName;
 public abstract class BasicProjectMemoizer<T extends QualifiableNode, O extends QualifiableNode>
     implements ProjectMemoizer<T, O> {
 
-    private Map<QualifiedName, MetricMemoizer<T>> classes = new WeakHashMap<>();
-    private Map<QualifiedName, MetricMemoizer<O>> operations = new WeakHashMap<>();
-
-    private final Object classesSynchronizer = new Object();
-    private final Object operationsSynchronizer = new Object();
+    private final WeakMemoizerMap<T> classes = new WeakMemoizerMap<>();
+    private final WeakMemoizerMap<O> operations = new WeakMemoizerMap<>();
 
     /** Clears all memoizers. Used for tests. */
     public void reset() {
@@ -40,24 +43,132 @@ public abstract class BasicProjectMemoizer<T extends QualifiableNode, O extends
 
     @Override
     public MetricMemoizer<O> getOperationMemoizer(QualifiedName qname) {
-        synchronized (operationsSynchronizer) {
-            if (!operations.containsKey(qname)) {
-                operations.put(qname, new BasicMetricMemoizer<O>());
-            }
-        }
-
         return operations.get(qname);
     }
 
 
     @Override
     public MetricMemoizer<T> getClassMemoizer(QualifiedName qname) {
-        synchronized (classesSynchronizer) {
-            if (!classes.containsKey(qname)) {
-                classes.put(qname, new BasicMetricMemoizer<T>());
+        return classes.get(qname);
+    }
+
+
+    /**
+     * Concurrent map of memoizers with weak keys. Stale entries are purged
+     * when new memoizers are added.
+     */
+    private static final class WeakMemoizerMap<N extends Node> {
+
+        private final ConcurrentMap<Key, MetricMemoizer<N>> memoizers = new ConcurrentHashMap<>();
+        private final ReferenceQueue<QualifiedName> staleKeys = new ReferenceQueue<>();
+
+
+        MetricMemoizer<N> get(QualifiedName qname) {
+            MetricMemoizer<N> memoizer = memoizers.get(new StrongKey(qname));
+            if (memoizer != null) {
+                return memoizer;
             }
+
+            purgeStaleKeys();
+            MetricMemoizer<N> created = new BasicMetricMemoizer<>();
+            memoizer = memoizers.putIfAbsent(new WeakKey(qname, staleKeys), created);
+            return memoizer == null ? created : memoizer;
         }
 
-        return classes.get(qname);
+
+        void clear() {
+            memoizers.clear();
+            purgeStaleKeys();
+        }
+
+
+        private void purgeStaleKeys() {
+            for (Reference<? extends QualifiedName> ref = staleKeys.poll(); ref != null; ref = staleKeys.poll()) {
+                memoizers.remove(((KeyReference) ref).key);
+            }
+        }
+    }
+
+
+    /** Key of the memoizer maps, compares the qualified names. */
+    private abstract static class Key {
+
+        abstract QualifiedName qname();
+
+
+        @Override
+        public final boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            QualifiedName qname = qname();
+            return qname != null && qname.equals(((Key) o).qname());
+        }
+    }
+
+
+    /** Key used for the lookups, which is only referenced during the call. */
+    private static final class StrongKey extends Key {
+
+        private final QualifiedName qname;
+
+
+        StrongKey(QualifiedName qname) {
+            this.qname = qname;
+        }
+
+
+        @Override
+        QualifiedName qname() {
+            return qname;
+        }
+
+
+        @Override
+        public int hashCode() {
+            return qname.hashCode();
+        }
+    }
+
+
+    /** Key stored in the maps. Once the qualified name is collected, only equals itself. */
+    private static final class WeakKey extends Key {
+
+        private final WeakReference<QualifiedName> qname;
+        private final int hash;
+
+
+        WeakKey(QualifiedName qname, ReferenceQueue<QualifiedName> queue) {
+            this.qname = new KeyReference(qname, queue, this);
+            this.hash = qname.hashCode();
+        }
+
+
+        @Override
+        QualifiedName qname() {
+            return qname.get();
+        }
+
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+
+    /** Reference enqueued once the qualified name is collected, which points back to its key. */
+    private static final class KeyReference extends WeakReference<QualifiedName> {
+
+        private final WeakKey key;
+
+
+        KeyReference(QualifiedName qname, ReferenceQueue<QualifiedName> queue, WeakKey key) {
+            super(qname, queue);
+            this.key = key;
+        }
     }
 }
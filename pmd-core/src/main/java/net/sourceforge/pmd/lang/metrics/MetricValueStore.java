@@ -0,0 +1,251 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.metrics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.sourceforge.pmd.PMDVersion;
+import net.sourceforge.pmd.annotation.Experimental;
+import net.sourceforge.pmd.lang.ast.QualifiedName;
+
+/**
+ * Metric values persisted across runs. The values are stored per source file,
+ * together with the checksum of the contents of the file, under the qualified
+ * name of the node and the parameterized metric key. As long as a file doesn't
+ * change, the next runs reuse the values computed on its classes and operations
+ * instead of computing them again.
+ *
+ * <p>A metric only looks at the file of its node, and at the types of the
+ * auxclasspath through type resolution. The store is bound to a checksum of
+ * the contents of the auxclasspath, and is invalidated when it changes, or
+ * when the PMD version changes.
+ *
+ * <p>Like the analysis cache, the store keeps the files of the last run: the
+ * files which were analyzed, and those which were skipped because their
+ * analysis was cached (see {@link #keepFile(String)}). The values of files
+ * which changed or were not part of the run are dropped when it's persisted.
+ *
+ * <p>A store belongs to one analysis, see {@link net.sourceforge.pmd.RuleContext#setMetricValueStore(MetricValueStore)}.
+ *
+ * @since 6.13.0
+ */
+@Experimental
+public final class MetricValueStore {
+
+    private static final Logger LOG = Logger.getLogger(MetricValueStore.class.getName());
+
+    private static final int MAGIC = 0x504D444D; // "PMDM"
+    private static final int FORMAT_VERSION = 2;
+
+    private final Map<String, FileValues> previousFiles = new HashMap<>();
+    private final ConcurrentMap<String, FileValues> files = new ConcurrentHashMap<>();
+    private final File file;
+    private final long classpathChecksum;
+    private volatile boolean modified;
+
+
+    private MetricValueStore(File file, long classpathChecksum) {
+        this.file = file;
+        this.classpathChecksum = classpathChecksum;
+    }
+
+
+    /**
+     * Loads the store persisted in the given file. If the file doesn't exist,
+     * or was written by another PMD version or for another auxclasspath, the
+     * store starts empty.
+     *
+     * @param file              The file where the store is persisted
+     * @param classpathChecksum A checksum of the contents of the auxclasspath
+     *
+     * @return The store
+     */
+    public static MetricValueStore load(File file, long classpathChecksum) {
+        MetricValueStore store = new MetricValueStore(file, classpathChecksum);
+        if (!file.isFile()) {
+            return store;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION
+                    || !PMDVersion.VERSION.equals(in.readUTF())
+                    || in.readLong() != classpathChecksum) {
+                LOG.fine("Metric value store invalidated, the auxclasspath or PMD version changed");
+                return store;
+            }
+
+            int fileCount = in.readInt();
+            for (int i = 0; i < fileCount; i++) {
+                String path = in.readUTF();
+                FileValues values = store.new FileValues(in.readLong());
+                int count = in.readInt();
+                for (int j = 0; j < count; j++) {
+                    values.values.put(in.readUTF(), in.readDouble());
+                }
+                store.previousFiles.put(path, values);
+            }
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Could not load the metric value store " + file, e);
+            store.previousFiles.clear();
+        }
+        return store;
+    }
+
+
+    /**
+     * Returns the values of a source file which is about to be analyzed. The
+     * values stored for the file are reused if its checksum didn't change.
+     * The same file may be started several times.
+     *
+     * @param path     The path of the file
+     * @param checksum The checksum of the contents of the file
+     *
+     * @return The values of the file
+     */
+    public FileValues startFile(String path, long checksum) {
+        FileValues values = files.get(path);
+        if (values == null || values.checksum != checksum) {
+            FileValues previous = previousFiles.get(path);
+            values = new FileValues(checksum);
+            if (previous != null && previous.checksum == checksum) {
+                values.values.putAll(previous.values);
+            } else {
+                modified = true;
+            }
+            files.put(path, values);
+        }
+        return values;
+    }
+
+
+    /**
+     * Keeps the values of a file which was not analyzed again, because it
+     * didn't change since the previous run.
+     *
+     * @param path The path of the file
+     */
+    public void keepFile(String path) {
+        FileValues previous = previousFiles.get(path);
+        if (previous != null) {
+            files.putIfAbsent(path, previous);
+        }
+    }
+
+
+    private static String id(QualifiedName qname, ParameterizedMetricKey<?> key) {
+        List<String> options = new ArrayList<>();
+        for (MetricOption option : key.options.getOptions()) {
+            options.add(option.valueName());
+        }
+        // the options are a set, sort them for the id to be stable across runs
+        Collections.sort(options);
+        return qname.toString() + ' ' + key.key.name() + options;
+    }
+
+
+    /**
+     * Writes the values of the files of this run to the file of the store,
+     * if they changed since it was loaded.
+     */
+    public void persist() {
+        if (!modified && files.size() == previousFiles.size()) {
+            return;
+        }
+
+        File tmp = null;
+        try {
+            // write to a temporary file first, so that concurrent runs never read a partial store
+            tmp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp.toPath())))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(PMDVersion.VERSION);
+                out.writeLong(classpathChecksum);
+
+                // the maps are only weakly consistent, write snapshots so that the counts match
+                Map<String, FileValues> filesSnapshot = new HashMap<>(files);
+                out.writeInt(filesSnapshot.size());
+                for (Map.Entry<String, FileValues> fileEntry : filesSnapshot.entrySet()) {
+                    out.writeUTF(fileEntry.getKey());
+                    out.writeLong(fileEntry.getValue().checksum);
+                    Map<String, Double> snapshot = new HashMap<>(fileEntry.getValue().values);
+                    out.writeInt(snapshot.size());
+                    for (Map.Entry<String, Double> entry : snapshot.entrySet()) {
+                        out.writeUTF(entry.getKey());
+                        out.writeDouble(entry.getValue());
+                    }
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            modified = false;
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Could not persist the metric value store " + file, e);
+        } finally {
+            if (tmp != null && tmp.exists() && !tmp.delete()) {
+                tmp.deleteOnExit();
+            }
+        }
+    }
+
+
+    /**
+     * The values computed on the nodes of a source file, see
+     * {@link #startFile(String, long)}. They can be read and written
+     * concurrently without locking.
+     */
+    public final class FileValues {
+
+        private final long checksum;
+        private final ConcurrentMap<String, Double> values = new ConcurrentHashMap<>();
+
+
+        FileValues(long checksum) {
+            this.checksum = checksum;
+        }
+
+
+        /**
+         * Returns the value of a metric computed by a previous run.
+         *
+         * @param qname The qualified name of the node
+         * @param key   The metric key parameterized with its options
+         *
+         * @return The value, or null if it's not stored
+         */
+        public Double get(QualifiedName qname, ParameterizedMetricKey<?> key) {
+            return values.get(id(qname, key));
+        }
+
+
+        /**
+         * Stores the value of a metric.
+         *
+         * @param qname The qualified name of the node
+         * @param key   The metric key parameterized with its options
+         * @param value The value of the metric
+         */
+        public void put(QualifiedName qname, ParameterizedMetricKey<?> key, double value) {
+            if (values.put(id(qname, key), value) == null) {
+                modified = true;
+            }
+        }
+    }
+}
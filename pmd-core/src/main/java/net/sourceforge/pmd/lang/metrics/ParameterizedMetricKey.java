@@ -4,8 +4,9 @@
 
 package net.sourceforge.pmd.lang.metrics;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.sourceforge.pmd.lang.ast.Node;
 
@@ -19,18 +20,31 @@ import net.sourceforge.pmd.lang.ast.Node;
  */
 public final class ParameterizedMetricKey<N extends Node> {
 
-    private static final Map<ParameterizedMetricKey<?>, ParameterizedMetricKey<?>> POOL = new HashMap<>();
+    private static final ConcurrentMap<ParameterizedMetricKey<?>, ParameterizedMetricKey<?>> POOL = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
 
     /** The metric key. */
     public final MetricKey<N> key;
     /** The options of the metric. */
     public final MetricOptions options;
+    /** Small number identifying the pooled instance, used to index memoization arrays. */
+    private final int id;
 
 
     /** Used internally by the pooler. */
-    private ParameterizedMetricKey(MetricKey<N> key, MetricOptions options) {
+    private ParameterizedMetricKey(MetricKey<N> key, MetricOptions options, int id) {
         this.key = key;
         this.options = options;
+        this.id = id;
+    }
+
+
+    /**
+     * Returns the id of this key. Each pooled instance has a distinct id,
+     * and the ids are allocated sequentially from zero.
+     */
+    int id() {
+        return id;
     }
 
 
@@ -65,13 +79,19 @@ public final class ParameterizedMetricKey<N extends Node> {
      */
     @SuppressWarnings("PMD.SingletonClassReturningNewInstance")
     public static <N extends Node> ParameterizedMetricKey<N> getInstance(MetricKey<N> key, MetricOptions options) {
-        ParameterizedMetricKey<N> tmp = new ParameterizedMetricKey<>(key, options);
-        if (!POOL.containsKey(tmp)) {
-            POOL.put(tmp, tmp);
+        ParameterizedMetricKey<N> tmp = new ParameterizedMetricKey<>(key, options, -1);
+        ParameterizedMetricKey<?> pooled = POOL.get(tmp);
+        if (pooled == null) {
+            // ids lost to a race are never reused, which only leaves a hole in the memoization arrays
+            ParameterizedMetricKey<N> created = new ParameterizedMetricKey<>(key, options, NEXT_ID.getAndIncrement());
+            pooled = POOL.putIfAbsent(created, created);
+            if (pooled == null) {
+                pooled = created;
+            }
         }
 
         @SuppressWarnings("unchecked")
-        ParameterizedMetricKey<N> result = (ParameterizedMetricKey<N>) POOL.get(tmp);
+        ParameterizedMetricKey<N> result = (ParameterizedMetricKey<N>) pooled;
         return result;
     }
 }
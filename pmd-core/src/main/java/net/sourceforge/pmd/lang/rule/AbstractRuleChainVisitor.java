@@ -7,6 +7,7 @@ package net.sourceforge.pmd.lang.rule;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -22,7 +23,9 @@ import net.sourceforge.pmd.RuleSet;
 import net.sourceforge.pmd.benchmark.TimeTracker;
 import net.sourceforge.pmd.benchmark.TimedOperation;
 import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.lang.ast.IndexedRootNode;
 import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.ast.NodeTypeIndex;
 
 /**
  * This is a base class for RuleChainVisitor implementations which extracts
@@ -43,6 +46,12 @@ public abstract class AbstractRuleChainVisitor implements RuleChainVisitor {
      */
     protected Map<String, List<Node>> nodeNameToNodes;
 
+    /**
+     * The node type ids of the rule chain visits of each rule, resolved
+     * against the node type index of the first indexed AST.
+     */
+    private final Map<Rule, int[]> ruleChainVisitTypeIds = new IdentityHashMap<>();
+
     /**
      * @see RuleChainVisitor#add(RuleSet, Rule)
      */
@@ -63,10 +72,14 @@ public abstract class AbstractRuleChainVisitor implements RuleChainVisitor {
         initialize();
         clear();
 
-        // Perform a visitation of the AST to index nodes which need visiting by
+        // Use the index built by the parser if there is one, otherwise
+        // perform a visitation of the AST to index nodes which need visiting by
         // type
-        try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.RULECHAIN_VISIT)) {
-            indexNodes(nodes, ctx);
+        final NodeTypeIndex nodeTypeIndex = getNodeTypeIndex(nodes);
+        if (nodeTypeIndex == null) {
+            try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.RULECHAIN_VISIT)) {
+                indexNodes(nodes, ctx);
+            }
         }
 
         // For each RuleSet, only if this source file applies
@@ -85,8 +98,10 @@ public abstract class AbstractRuleChainVisitor implements RuleChainVisitor {
                     }
                     try (TimedOperation rcto = TimeTracker.startOperation(TimedOperationCategory.RULECHAIN_RULE, rule.getName())) {
                         final List<String> nodeNames = rule.getRuleChainVisits();
+                        final int[] typeIds = nodeTypeIndex == null ? null : getTypeIds(rule, nodeTypeIndex);
                         for (int j = 0; j < nodeNames.size(); j++) {
-                            List<Node> ns = nodeNameToNodes.get(nodeNames.get(j));
+                            List<Node> ns = typeIds == null ? nodeNameToNodes.get(nodeNames.get(j))
+                                    : nodeTypeIndex.getNodes(typeIds[j]);
                             for (Node node : ns) {
                                 // Visit with underlying Rule, not the RuleReference
                                 Rule actualRule = rule;
@@ -115,6 +130,26 @@ public abstract class AbstractRuleChainVisitor implements RuleChainVisitor {
         }
     }
 
+    private static NodeTypeIndex getNodeTypeIndex(List<Node> nodes) {
+        if (nodes.size() == 1 && nodes.get(0) instanceof IndexedRootNode) {
+            return ((IndexedRootNode) nodes.get(0)).getNodeTypeIndex();
+        }
+        return null;
+    }
+
+    private int[] getTypeIds(Rule rule, NodeTypeIndex nodeTypeIndex) {
+        int[] typeIds = ruleChainVisitTypeIds.get(rule);
+        if (typeIds == null) {
+            final List<String> nodeNames = rule.getRuleChainVisits();
+            typeIds = new int[nodeNames.size()];
+            for (int j = 0; j < typeIds.length; j++) {
+                typeIds[j] = nodeTypeIndex.getTypeId(nodeNames.get(j));
+            }
+            ruleChainVisitTypeIds.put(rule, typeIds);
+        }
+        return typeIds;
+    }
+
     /**
      * Visit the given rule to the given node.
      */
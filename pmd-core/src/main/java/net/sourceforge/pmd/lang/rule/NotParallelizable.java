@@ -0,0 +1,32 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import net.sourceforge.pmd.PMDConfiguration;
+
+
+/**
+ * Marks a rule which must not be applied concurrently with other rules
+ * on the same file, e.g. because it mutates the AST or some other state
+ * shared with other rules.
+ *
+ * <p>When rules are applied in parallel on large files (see
+ * {@link PMDConfiguration#getRuleThreads()}), rules annotated with this
+ * annotation are applied on the thread processing the file, once all
+ * the other rules are done.
+ *
+ * @since 6.13.0
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface NotParallelizable {
+}
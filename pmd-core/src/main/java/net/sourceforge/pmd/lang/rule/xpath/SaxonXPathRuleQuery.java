@@ -5,7 +5,6 @@
 package net.sourceforge.pmd.lang.rule.xpath;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Pattern;
@@ -43,16 +42,6 @@ import net.sf.saxon.value.UntypedAtomicValue;
  */
 public class SaxonXPathRuleQuery extends AbstractXPathRuleQuery {
 
-    private static final int MAX_CACHE_SIZE = 20;
-    private static final Map<Node, DocumentNode> CACHE = new LinkedHashMap<Node, DocumentNode>(MAX_CACHE_SIZE) {
-        private static final long serialVersionUID = -7653916493967142443L;
-
-        @Override
-        protected boolean removeEldestEntry(final Map.Entry<Node, DocumentNode> eldest) {
-            return size() > MAX_CACHE_SIZE;
-        }
-    };
-
     /**
      * Representation of an XPath query, created at {@link #initializeXPathExpression()} using {@link #xpath}.
      */
@@ -65,6 +54,12 @@ public class SaxonXPathRuleQuery extends AbstractXPathRuleQuery {
      */
     private List<XPathVariable> xpathVariables;
 
+    /**
+     * The values bound to the {@link #xpathVariables} on each evaluation, at the same positions. They are
+     * converted once at {@link #initializeXPathExpression()}, since the properties don't change afterwards.
+     */
+    private List<ValueRepresentation> xpathVariableValues;
+
     @Override
     public boolean isSupportedVersion(String version) {
         return XPATH_1_0_COMPATIBILITY.equals(version) || XPATH_2_0.equals(version);
@@ -76,10 +71,10 @@ public class SaxonXPathRuleQuery extends AbstractXPathRuleQuery {
         initializeXPathExpression();
 
         try {
-            final DocumentNode documentNode = getDocumentNodeForRootNode(node);
+            final DocumentNode documentNode = getDocumentNodeForRootNode(node, data);
 
             // Map AST Node -> Saxon Node
-            final ElementNode rootElementNode = documentNode.nodeToElementNode.get(node);
+            final ElementNode rootElementNode = documentNode.getElementNode(node);
 
             final XPathDynamicContext xpathDynamicContext = createDynamicContext(rootElementNode);
             final List<ElementNode> nodes = xpathExpression.evaluate(xpathDynamicContext);
@@ -112,14 +107,8 @@ public class SaxonXPathRuleQuery extends AbstractXPathRuleQuery {
         final XPathDynamicContext dynamicContext = xpathExpression.createDynamicContext(elementNode);
 
         // Set variable values on the dynamic context
-        for (final XPathVariable xpathVariable : xpathVariables) {
-            final String variableName = xpathVariable.getVariableQName().getLocalName();
-            for (final Map.Entry<PropertyDescriptor<?>, Object> entry : super.properties.entrySet()) {
-                if (variableName.equals(entry.getKey().name())) {
-                    final ValueRepresentation valueRepresentation = getRepresentation(entry.getKey(), entry.getValue());
-                    dynamicContext.setVariable(xpathVariable, valueRepresentation);
-                }
-            }
+        for (int i = 0; i < xpathVariables.size(); i++) {
+            dynamicContext.setVariable(xpathVariables.get(i), xpathVariableValues.get(i));
         }
         return dynamicContext;
     }
@@ -143,22 +132,24 @@ public class SaxonXPathRuleQuery extends AbstractXPathRuleQuery {
 
     /**
      * Gets the DocumentNode representation for the whole AST in which the node is, that is, if the node is not the root
-     * of the AST, then the AST is traversed all the way up until the root node is found. If the DocumentNode was
-     * cached because this method was previously called, then a new DocumentNode will not be instanced.
+     * of the AST, then the AST is traversed all the way up until the root node is found. The DocumentNode is owned by
+     * the rule context of the file, so that it's built only once per file, and shared by all the XPath rules applied
+     * with that context, without any synchronization.
      *
      * @param node the node from which the root node will be looked for.
+     * @param data the rule context of the file, may be null
      * @return the DocumentNode representing the whole AST
      */
-    private DocumentNode getDocumentNodeForRootNode(final Node node) {
+    private DocumentNode getDocumentNodeForRootNode(final Node node, final RuleContext data) {
         final Node root = getRootNode(node);
+        if (data == null) {
+            return new DocumentNode(root);
+        }
 
-        DocumentNode documentNode;
-        synchronized (CACHE) {
-            documentNode = CACHE.get(root);
-            if (documentNode == null) {
-                documentNode = new DocumentNode(root);
-                CACHE.put(root, documentNode);
-            }
+        DocumentNode documentNode = data.getXPathDocument(root);
+        if (documentNode == null) {
+            documentNode = new DocumentNode(root);
+            data.setXPathDocument(root, documentNode);
         }
         return documentNode;
     }
@@ -202,11 +193,13 @@ public class SaxonXPathRuleQuery extends AbstractXPathRuleQuery {
             createDynamicContext(ElementNode).
             */
             xpathVariables = new ArrayList<>();
-            for (final PropertyDescriptor<?> propertyDescriptor : super.properties.keySet()) {
-                final String name = propertyDescriptor.name();
+            xpathVariableValues = new ArrayList<>();
+            for (final Map.Entry<PropertyDescriptor<?>, Object> entry : super.properties.entrySet()) {
+                final String name = entry.getKey().name();
                 if (!"xpath".equals(name)) {
                     final XPathVariable xpathVariable = xpathStaticContext.declareVariable(null, name);
                     xpathVariables.add(xpathVariable);
+                    xpathVariableValues.add(getRepresentation(entry.getKey(), entry.getValue()));
                 }
             }
 
@@ -4,12 +4,17 @@
 
 package net.sourceforge.pmd.lang.symboltable;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
@@ -20,6 +25,10 @@ public abstract class AbstractScope implements Scope {
     private Scope parent;
     /** Stores the name declaration already sorted by class. */
     private Map<Class<? extends NameDeclaration>, Map<NameDeclaration, List<NameOccurrence>>> nameDeclarations = new LinkedHashMap<>();
+    /** Indexes the name declarations by image, in the order they were added. */
+    private final Map<String, List<NameDeclaration>> declarationsByImage = new HashMap<>();
+    private final Map<NameDeclaration, List<NameOccurrence>> declarationsView = new DeclarationsView();
+    private int declarationCount;
 
     @Override
     public Scope getParent() {
@@ -31,13 +40,15 @@ public abstract class AbstractScope implements Scope {
         this.parent = parent;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The returned map is an unmodifiable view, which reflects the
+     * declarations added later on. The declarations are grouped by class.
+     */
     @Override
     public Map<NameDeclaration, List<NameOccurrence>> getDeclarations() {
-        Map<NameDeclaration, List<NameOccurrence>> result = new LinkedHashMap<>();
-        for (Map<NameDeclaration, List<NameOccurrence>> e : nameDeclarations.values()) {
-            result.putAll(e);
-        }
-        return result;
+        return declarationsView;
     }
 
     @Override
@@ -50,14 +61,39 @@ public abstract class AbstractScope implements Scope {
         return result;
     }
 
-    @Override
-    public boolean contains(NameOccurrence occ) {
-        for (NameDeclaration d : getDeclarations().keySet()) {
-            if (d.getImage().equals(occ.getImage())) {
-                return true;
+    /**
+     * Returns the declarations of the given type that have the given image,
+     * in the order they were added. This is a lookup in an index, and is
+     * cheaper than searching the whole {@link #getDeclarations(Class)} map.
+     *
+     * @param clazz The type of name declarations to use, which must be exactly
+     *              the class of the declarations, as for {@link #getDeclarations(Class)}
+     * @param image The image of the declarations
+     *
+     * @return The declarations, possibly empty
+     *
+     * @since 6.13.0
+     */
+    public <T extends NameDeclaration> List<T> getDeclarations(Class<T> clazz, String image) {
+        List<NameDeclaration> named = declarationsByImage.get(image);
+        if (named == null) {
+            return Collections.emptyList();
+        }
+        List<T> result = null;
+        for (NameDeclaration declaration : named) {
+            if (declaration.getClass() == clazz) {
+                if (result == null) {
+                    result = new ArrayList<>(named.size());
+                }
+                result.add(clazz.cast(declaration));
             }
         }
-        return false;
+        return result == null ? Collections.<T>emptyList() : result;
+    }
+
+    @Override
+    public boolean contains(NameOccurrence occ) {
+        return declarationsByImage.containsKey(occ.getImage());
     }
 
     @Override
@@ -67,7 +103,15 @@ public abstract class AbstractScope implements Scope {
             declarationsPerClass = new LinkedHashMap<>();
             nameDeclarations.put(declaration.getClass(), declarationsPerClass);
         }
-        declarationsPerClass.put(declaration, new ArrayList<NameOccurrence>());
+        if (declarationsPerClass.put(declaration, new ArrayList<NameOccurrence>()) == null) {
+            List<NameDeclaration> named = declarationsByImage.get(declaration.getImage());
+            if (named == null) {
+                named = new ArrayList<>(1);
+                declarationsByImage.put(declaration.getImage(), named);
+            }
+            named.add(declaration);
+            declarationCount++;
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -85,13 +129,87 @@ public abstract class AbstractScope implements Scope {
 
     @Override
     public Set<NameDeclaration> addNameOccurrence(NameOccurrence occurrence) {
+        List<NameDeclaration> named = declarationsByImage.get(occurrence.getImage());
+        if (named == null) {
+            return new HashSet<>();
+        }
         Set<NameDeclaration> result = new HashSet<>();
-        for (Map.Entry<NameDeclaration, List<NameOccurrence>> e : getDeclarations().entrySet()) {
-            if (e.getKey().getImage().equals(occurrence.getImage())) {
-                result.add(e.getKey());
-                e.getValue().add(occurrence);
-            }
+        for (NameDeclaration declaration : named) {
+            result.add(declaration);
+            declarationsView.get(declaration).add(occurrence);
         }
         return result;
     }
+
+    /**
+     * Read-only view of the declarations of all classes, which avoids
+     * copying them on each call to {@link #getDeclarations()}.
+     */
+    private final class DeclarationsView extends AbstractMap<NameDeclaration, List<NameOccurrence>> {
+
+        private final Set<Entry<NameDeclaration, List<NameOccurrence>>> entries = new AbstractSet<Entry<NameDeclaration, List<NameOccurrence>>>() {
+            @Override
+            public Iterator<Entry<NameDeclaration, List<NameOccurrence>>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return declarationCount;
+            }
+        };
+
+        @Override
+        public List<NameOccurrence> get(Object key) {
+            Map<NameDeclaration, List<NameOccurrence>> declarationsPerClass = declarationsPerClass(key);
+            return declarationsPerClass == null ? null : declarationsPerClass.get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            Map<NameDeclaration, List<NameOccurrence>> declarationsPerClass = declarationsPerClass(key);
+            return declarationsPerClass != null && declarationsPerClass.containsKey(key);
+        }
+
+        private Map<NameDeclaration, List<NameOccurrence>> declarationsPerClass(Object key) {
+            return key == null ? null : nameDeclarations.get(key.getClass());
+        }
+
+        @Override
+        public int size() {
+            return declarationCount;
+        }
+
+        @Override
+        public Set<Entry<NameDeclaration, List<NameOccurrence>>> entrySet() {
+            return entries;
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<NameDeclaration, List<NameOccurrence>>> {
+
+        private final Iterator<Map<NameDeclaration, List<NameOccurrence>>> classes = nameDeclarations.values().iterator();
+        private Iterator<Map.Entry<NameDeclaration, List<NameOccurrence>>> current = Collections.emptyIterator();
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext() && classes.hasNext()) {
+                current = classes.next().entrySet().iterator();
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public Map.Entry<NameDeclaration, List<NameOccurrence>> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return new AbstractMap.SimpleImmutableEntry<>(current.next());
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
 }
@@ -4,13 +4,22 @@
 
 package net.sourceforge.pmd.processor;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.apache.commons.io.IOUtils;
+
 import net.sourceforge.pmd.PMDConfiguration;
 import net.sourceforge.pmd.Report;
 import net.sourceforge.pmd.Rule;
@@ -22,6 +31,11 @@ import net.sourceforge.pmd.SourceCodeProcessor;
 import net.sourceforge.pmd.benchmark.TimeTracker;
 import net.sourceforge.pmd.benchmark.TimedOperation;
 import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.cache.AnalysisCache;
+import net.sourceforge.pmd.cache.AnalysisResult;
+import net.sourceforge.pmd.lang.BatchParser;
+import net.sourceforge.pmd.lang.Language;
+import net.sourceforge.pmd.lang.LanguageVersion;
 import net.sourceforge.pmd.renderers.Renderer;
 import net.sourceforge.pmd.util.datasource.DataSource;
 
@@ -102,20 +116,253 @@ public abstract class AbstractPMDProcessor {
         configuration.getAnalysisCache().checkValidity(rs, configuration.getClassLoader());
         SourceCodeProcessor processor = new SourceCodeProcessor(configuration);
 
+        // render base report first - general errors
+        renderReports(renderers, ctx.getReport());
+
+        Set<Language> ruleLanguages = new HashSet<>();
+        for (Rule rule : rs.getAllRules()) {
+            ruleLanguages.add(rule.getLanguage());
+        }
+        // the batch parsers of this run, by language version
+        Map<LanguageVersion, BatchParser> batchParsers = new HashMap<>();
+        // the analyses are run in the order of the files, those of a batch once it's parsed
+        Deque<QueuedAnalysis> queuedAnalyses = new ArrayDeque<>();
+        Map<BatchParser, PendingBatch> pendingBatches = new LinkedHashMap<>();
+
+        try {
+            prepareAnalyses(files);
+            declareBatches(files, rs, ruleLanguages, batchParsers);
+            // set before the analyses copy the context
+            ctx.setBatchParsers(batchParsers);
+            for (DataSource dataSource : files) {
+                String niceFileName = filenameFrom(dataSource);
+
+                LanguageVersion languageVersion = getAnalyzedLanguageVersion(niceFileName, rs, ruleLanguages);
+                BatchParser batchParser = languageVersion == null ? null : batchParsers.get(languageVersion);
+                if (batchParser == null) {
+                    queuedAnalyses.add(new QueuedAnalysis(
+                            new PmdRunnable(dataSource, niceFileName, renderers, ctx, rs, processor), null));
+                } else {
+                    PendingBatch batch = pendingBatches.get(batchParser);
+                    if (batch == null) {
+                        batch = new PendingBatch(batchParser);
+                        pendingBatches.put(batchParser, batch);
+                    }
+                    queuedAnalyses.add(prepareBatchedAnalysis(dataSource, niceFileName, renderers, ctx, rs,
+                            processor, batch));
+                    if (batch.sources.size() >= batchParser.getBatchSize()) {
+                        parseBatch(batch);
+                        pendingBatches.put(batchParser, new PendingBatch(batchParser));
+                    }
+                }
+                runQueuedAnalyses(queuedAnalyses, renderers);
+            }
+
+            for (PendingBatch batch : pendingBatches.values()) {
+                parseBatch(batch);
+            }
+            runQueuedAnalyses(queuedAnalyses, renderers);
+
+            // then add the remaining analysis results per file
+            collectReports(renderers);
+        } finally {
+            processor.close();
+            ctx.setBatchParsers(null);
+            for (BatchParser batchParser : batchParsers.values()) {
+                batchParser.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns the language version of the file, or null if the file is not
+     * analyzed.
+     */
+    private LanguageVersion getAnalyzedLanguageVersion(String niceFileName, RuleSets ruleSets,
+            Set<Language> ruleLanguages) {
+        LanguageVersion languageVersion = configuration.getLanguageVersionOfFile(niceFileName);
+        if (languageVersion == null || !ruleLanguages.contains(languageVersion.getLanguage())
+                || !ruleSets.applies(new File(niceFileName))) {
+            return null;
+        }
+        return languageVersion;
+    }
+
+    /**
+     * Creates the batch parsers of this run, and declares all the files of
+     * their language version, batch by batch. So each batch is then parsed
+     * with the declarations of all the files, whatever its position. The
+     * files of a language version are not parsed in batches if the cached
+     * results of all of them are up to date.
+     */
+    private void declareBatches(List<DataSource> files, RuleSets ruleSets, Set<Language> ruleLanguages,
+            Map<LanguageVersion, BatchParser> batchParsers) {
+        final AnalysisCache cache = configuration.getAnalysisCache();
+        Map<LanguageVersion, BatchParser> created = new HashMap<>();
+        Map<LanguageVersion, Map<String, DataSource>> batchedFiles = new LinkedHashMap<>();
         for (DataSource dataSource : files) {
             String niceFileName = filenameFrom(dataSource);
+            LanguageVersion languageVersion = getAnalyzedLanguageVersion(niceFileName, ruleSets, ruleLanguages);
+            if (languageVersion == null) {
+                continue;
+            }
+            if (!created.containsKey(languageVersion)) {
+                created.put(languageVersion, languageVersion.getLanguageVersionHandler().createBatchParser());
+            }
+            if (created.get(languageVersion) == null) {
+                continue;
+            }
+            Map<String, DataSource> versionFiles = batchedFiles.get(languageVersion);
+            if (versionFiles == null) {
+                versionFiles = new LinkedHashMap<>();
+                batchedFiles.put(languageVersion, versionFiles);
+            }
+            versionFiles.put(niceFileName, dataSource);
+            if (!cache.isUpToDateByMetadata(new File(niceFileName))) {
+                batchParsers.put(languageVersion, created.get(languageVersion));
+            }
+        }
 
-            runAnalysis(new PmdRunnable(dataSource, niceFileName, renderers, ctx, rs, processor));
+        for (Map.Entry<LanguageVersion, BatchParser> entry : batchParsers.entrySet()) {
+            BatchParser batchParser = entry.getValue();
+            Map<String, String> sources = new LinkedHashMap<>();
+            for (Map.Entry<String, DataSource> file : batchedFiles.get(entry.getKey()).entrySet()) {
+                try (InputStream stream = file.getValue().getInputStream()) {
+                    sources.put(file.getKey(), IOUtils.toString(stream, configuration.getSourceEncoding()));
+                } catch (IOException e) {
+                    // the error is reported when the file is analyzed
+                    LOG.log(Level.FINE, "Couldn't read " + file.getKey(), e);
+                }
+                if (sources.size() >= batchParser.getBatchSize()) {
+                    declareBatch(batchParser, sources);
+                    sources = new LinkedHashMap<>();
+                }
+            }
+            declareBatch(batchParser, sources);
         }
+    }
 
-        // render base report first - general errors
-        renderReports(renderers, ctx.getReport());
-        
-        // then add analysis results per file
-        collectReports(renderers);
+    private void declareBatch(BatchParser batchParser, Map<String, String> sources) {
+        if (!sources.isEmpty()) {
+            try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.PARSER)) {
+                batchParser.declareAll(sources);
+            }
+        }
+    }
+
+    /**
+     * Prepares the analysis of a file of a batch parser. The analysis cache
+     * is checked first: the files whose cached results are up to date are
+     * not parsed. The contents of the other files are read once, added to
+     * the batch, and handed over to the analysis.
+     */
+    private QueuedAnalysis prepareBatchedAnalysis(DataSource dataSource, String niceFileName,
+            List<Renderer> renderers, RuleContext ctx, RuleSets ruleSets, SourceCodeProcessor processor,
+            PendingBatch batch) {
+        // this is the file used as key by the analysis cache
+        final File file = new File(niceFileName);
+        final AnalysisCache cache = configuration.getAnalysisCache();
+        if (cache.isUpToDateByMetadata(file)) {
+            return new QueuedAnalysis(new PmdRunnable(dataSource, niceFileName, renderers, ctx, ruleSets,
+                    processor), null);
+        }
+
+        // the metadata is read before the contents, so that a concurrent change is detected on the next run
+        final long fileSize = file.length();
+        final long lastModified = file.lastModified();
+        final byte[] contents;
+        try (InputStream stream = dataSource.getInputStream()) {
+            contents = IOUtils.toByteArray(stream);
+        } catch (IOException e) {
+            // the error is reported when the file is analyzed
+            LOG.log(Level.FINE, "Couldn't read " + niceFileName, e);
+            return new QueuedAnalysis(new PmdRunnable(dataSource, niceFileName, renderers, ctx, ruleSets,
+                    processor), null);
+        }
+
+        final PmdRunnable runnable = new PmdRunnable(dataSource, niceFileName, renderers, ctx, ruleSets,
+                processor, contents, fileSize, lastModified);
+        if (cache.isUpToDate(file, AnalysisResult.computeChecksum(contents), fileSize, lastModified)) {
+            return new QueuedAnalysis(runnable, null);
+        }
+        batch.sources.put(niceFileName, new String(contents, configuration.getSourceEncoding()));
+        return new QueuedAnalysis(runnable, batch);
+    }
+
+    private void parseBatch(PendingBatch batch) {
+        if (!batch.sources.isEmpty()) {
+            try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.PARSER)) {
+                batch.parser.parseAll(batch.sources);
+            }
+        }
+        batch.sources.clear();
+        batch.parsed = true;
+    }
+
+    /**
+     * Runs the queued analyses, in order, up to the first one whose batch
+     * is not parsed yet.
+     */
+    private void runQueuedAnalyses(Deque<QueuedAnalysis> queuedAnalyses, List<Renderer> renderers) {
+        while (!queuedAnalyses.isEmpty()
+                && (queuedAnalyses.peek().batch == null || queuedAnalyses.peek().batch.parsed)) {
+            runAnalysis(queuedAnalyses.poll().runnable, renderers);
+        }
+    }
+
+    /**
+     * Called once the analysis cache was checked, before the analyses of the
+     * given files are run. The default implementation does nothing.
+     *
+     * @param files The files to analyze, in the order of their analyses
+     */
+    protected void prepareAnalyses(List<DataSource> files) {
+        // nothing to do
     }
 
-    protected abstract void runAnalysis(PmdRunnable runnable);
+    /**
+     * Runs the analysis of a single file. This is called for each file, in
+     * the order of the files. Implementations should render the resulting
+     * report as soon as possible, so that it can be released.
+     *
+     * @param runnable The analysis to run
+     * @param renderers The renderers of the analysis results
+     */
+    protected abstract void runAnalysis(PmdRunnable runnable, List<Renderer> renderers);
 
+    /**
+     * Waits for all analyses to be done, and renders the reports which
+     * were not rendered yet.
+     *
+     * @param renderers The renderers of the analysis results
+     */
     protected abstract void collectReports(List<Renderer> renderers);
+
+    /**
+     * The files of a batch parser which wait to be parsed together.
+     */
+    private static final class PendingBatch {
+        private final BatchParser parser;
+        /** The contents of the files by file name, released once they're parsed. */
+        private final Map<String, String> sources = new LinkedHashMap<>();
+        private boolean parsed;
+
+        PendingBatch(BatchParser parser) {
+            this.parser = parser;
+        }
+    }
+
+    /**
+     * An analysis which waits for the previous ones, or for its batch to be parsed.
+     */
+    private static final class QueuedAnalysis {
+        private final PmdRunnable runnable;
+        /** The batch of the file, or null if the file is not parsed in a batch. */
+        private final PendingBatch batch;
+
+        QueuedAnalysis(PmdRunnable runnable, PendingBatch batch) {
+            this.runnable = runnable;
+            this.batch = batch;
+        }
+    }
 }
@@ -0,0 +1,65 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.processor;
+
+import java.io.File;
+import java.util.List;
+
+import net.sourceforge.pmd.cache.AnalysisCache;
+import net.sourceforge.pmd.cache.AnalysisResult;
+
+/**
+ * Estimates the cost of the analysis of files, so that the most expensive
+ * files can be scheduled first. Scheduling large files first avoids a long
+ * tail at the end of a multithreaded analysis, where a single thread
+ * processes a huge file while the others are idle.
+ *
+ * <p>The cost of a file is the duration of its last analysis, as recorded
+ * in the analysis cache. Files without history are estimated from their
+ * size, using the average duration per byte of the files with history.
+ *
+ * <p>The durations vary from run to run, so the costs are rounded down to
+ * a power of two. Files only change places when their cost at least doubles
+ * or halves, and files with the same rounded cost keep the order of the
+ * input, which makes the schedule stable.
+ */
+final class FileCostEstimator {
+
+    private final AnalysisCache analysisCache;
+
+    FileCostEstimator(AnalysisCache analysisCache) {
+        this.analysisCache = analysisCache;
+    }
+
+    /**
+     * Estimates the cost of the analysis of the given files.
+     *
+     * @param sourceFiles The files, as used by the analysis cache
+     * @return The rounded cost of each file, in the order of the files
+     */
+    public long[] estimateCosts(List<File> sourceFiles) {
+        final int count = sourceFiles.size();
+        final long[] sizes = new long[count];
+        final long[] durations = new long[count];
+        long sizeWithHistory = 0;
+        long durationWithHistory = 0;
+        for (int i = 0; i < count; i++) {
+            sizes[i] = sourceFiles.get(i).length();
+            durations[i] = analysisCache.getPreviousAnalysisDuration(sourceFiles.get(i));
+            if (durations[i] != AnalysisResult.UNKNOWN) {
+                sizeWithHistory += sizes[i];
+                durationWithHistory += durations[i];
+            }
+        }
+
+        final double nanosPerByte = sizeWithHistory > 0 ? (double) durationWithHistory / sizeWithHistory : 1.0;
+        final long[] costs = new long[count];
+        for (int i = 0; i < count; i++) {
+            final long cost = durations[i] != AnalysisResult.UNKNOWN ? durations[i] : (long) (sizes[i] * nanosPerByte);
+            costs[i] = Long.highestOneBit(cost);
+        }
+        return costs;
+    }
+}
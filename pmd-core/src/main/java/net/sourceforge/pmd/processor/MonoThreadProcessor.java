@@ -4,11 +4,9 @@
 
 package net.sourceforge.pmd.processor;
 
-import java.util.ArrayList;
 import java.util.List;
 
 import net.sourceforge.pmd.PMDConfiguration;
-import net.sourceforge.pmd.Report;
 import net.sourceforge.pmd.renderers.Renderer;
 
 /**
@@ -17,24 +15,19 @@ import net.sourceforge.pmd.renderers.Renderer;
  */
 public final class MonoThreadProcessor extends AbstractPMDProcessor {
 
-    private final List<Report> reports = new ArrayList<>();
-    
     public MonoThreadProcessor(PMDConfiguration configuration) {
         super(configuration);
     }
 
     @Override
-    protected void runAnalysis(PmdRunnable runnable) {
-        // single thread execution, run analysis on same thread
-        reports.add(runnable.call());
+    protected void runAnalysis(PmdRunnable runnable, List<Renderer> renderers) {
+        // single thread execution, run analysis on same thread and render the report right away
+        super.renderReports(renderers, runnable.call());
     }
 
     @Override
     protected void collectReports(List<Renderer> renderers) {
-        for (Report r : reports) {
-            super.renderReports(renderers, r);
-        }
-
+        // Reports have already been rendered.
         // Since this thread may run PMD again, clean up the runnable
         PmdRunnable.reset();
     }
@@ -4,7 +4,13 @@
 
 package net.sourceforge.pmd.processor;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
@@ -13,40 +19,135 @@ import java.util.concurrent.Executors;
 
 import net.sourceforge.pmd.PMDConfiguration;
 import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.benchmark.TimedOperation;
+import net.sourceforge.pmd.benchmark.TimedOperationCategory;
 import net.sourceforge.pmd.renderers.Renderer;
+import net.sourceforge.pmd.renderers.ShardableRenderer;
+import net.sourceforge.pmd.util.datasource.DataSource;
 
 
 /**
+ * Processes files on a fixed thread pool. The reports are merged
+ * into the renderers in the order of the files, so that the output doesn't
+ * depend on the order in which the analyses finish. Reports which finish
+ * early wait for the previous ones in a queue.
+ *
+ * <p>Files are analyzed in a bounded window, which spans {@link #TASKS_PER_THREAD}
+ * files per thread from the first file whose report is not merged yet. The
+ * window only moves forward once that report is merged. Reports are thus
+ * rendered and released as soon as possible, and the memory used doesn't
+ * depend on the number of files.
+ *
+ * <p>Only one file more than there are threads is submitted at a time, the
+ * others wait in the window. When a thread is free, the most expensive file
+ * of the window is submitted, see {@link FileCostEstimator}. A large file
+ * thus starts up to three files per thread earlier than in the order of the
+ * files.
+ *
+ * <p>The {@link ShardableRenderer}s render the reports on the analysis
+ * threads, each thread with its own shards.
+ *
  * @author Romain Pelisse &lt;belaran@gmail.com&gt;
  */
 public class MultiThreadProcessor extends AbstractPMDProcessor {
+
+    /** Number of files per thread in the window of files which are analyzed, but not merged yet. */
+    private static final int TASKS_PER_THREAD = 4;
+
     private final ExecutorService executor;
-    private final CompletionService<Report> completionService;
+    private final CompletionService<AnalysisResult> completionService;
+    private final int maxPendingTasks;
+    private final int maxRunningTasks;
+    private final ThreadLocal<RendererShards> shards = new ThreadLocal<>();
+    /** The files of the window which are not submitted yet, the most expensive first. */
+    private final PriorityQueue<WaitingAnalysis> waitingAnalyses = new PriorityQueue<>();
+    /** The finished analyses which wait for the previous ones to be merged, by index. */
+    private final PriorityQueue<AnalysisResult> finishedResults = new PriorityQueue<>();
 
+    /** The estimated cost of each file, by index. */
+    private long[] costs;
+    private int receivedTasks = 0;
     private long submittedTasks = 0L;
+    /** The number of finished tasks taken from the completion service. */
+    private long takenTasks = 0L;
+    private long mergedTasks = 0L;
 
     public MultiThreadProcessor(final PMDConfiguration configuration) {
         super(configuration);
 
         executor = Executors.newFixedThreadPool(configuration.getThreads(), new PmdThreadFactory());
         completionService = new ExecutorCompletionService<>(executor);
+        maxPendingTasks = configuration.getThreads() * TASKS_PER_THREAD;
+        // a free thread doesn't wait for the next file to be chosen
+        maxRunningTasks = configuration.getThreads() + 1;
+    }
+
+    @Override
+    protected void prepareAnalyses(List<DataSource> files) {
+        final List<File> sourceFiles = new ArrayList<>(files.size());
+        for (final DataSource dataSource : files) {
+            // this is the file used as key by the analysis cache
+            sourceFiles.add(new File(filenameFrom(dataSource)));
+        }
+        costs = new FileCostEstimator(configuration.getAnalysisCache()).estimateCosts(sourceFiles);
     }
 
     @Override
-    protected void runAnalysis(PmdRunnable runnable) {
-        completionService.submit(runnable);
-        submittedTasks++;
+    protected void runAnalysis(PmdRunnable runnable, List<Renderer> renderers) {
+        if (executor.isShutdown()) {
+            return;
+        }
+
+        final int index = receivedTasks++;
+        final long cost = costs != null && index < costs.length ? costs[index] : 0L;
+        waitingAnalyses.add(new WaitingAnalysis(index, cost, runnable));
+
+        try {
+            // once all the files of the window are known, the most expensive ones can be chosen
+            while (receivedTasks - mergedTasks >= maxPendingTasks) {
+                submitOrRender(renderers);
+            }
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        } catch (final RuntimeException | Error e) {
+            executor.shutdownNow();
+            throw e;
+        }
     }
 
     @Override
     protected void collectReports(List<Renderer> renderers) {
         try {
-            for (int i = 0; i < submittedTasks; i++) {
-                final Report report = completionService.take().get();
-                super.renderReports(renderers, report);
+            while (mergedTasks < receivedTasks && !executor.isShutdown()) {
+                submitOrRender(renderers);
             }
         } catch (final InterruptedException ie) {
             Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Submits the most expensive waiting file of the window if a thread is
+     * free, or else renders the next finished report.
+     */
+    private void submitOrRender(List<Renderer> renderers) throws InterruptedException {
+        if (!waitingAnalyses.isEmpty() && submittedTasks - takenTasks < maxRunningTasks) {
+            final WaitingAnalysis waiting = waitingAnalyses.poll();
+            completionService.submit(new Analysis(waiting.runnable, renderers, waiting.index));
+            submittedTasks++;
+        } else {
+            renderNextReport(renderers);
+        }
+    }
+
+    private void renderNextReport(List<Renderer> renderers) throws InterruptedException {
+        final AnalysisResult result;
+        try {
+            result = completionService.take().get();
         } catch (final ExecutionException ee) {
             final Throwable t = ee.getCause();
             if (t instanceof RuntimeException) {
@@ -56,8 +157,127 @@ public class MultiThreadProcessor extends AbstractPMDProcessor {
             } else {
                 throw new IllegalStateException("PmdRunnable exception", t);
             }
-        } finally {
-            executor.shutdownNow();
+        }
+        takenTasks++;
+
+        finishedResults.add(result);
+        while (!finishedResults.isEmpty() && finishedResults.peek().index == mergedTasks) {
+            mergeReport(renderers, finishedResults.poll());
+            mergedTasks++;
+        }
+    }
+
+    private void mergeReport(List<Renderer> renderers, AnalysisResult result) {
+        try (TimedOperation to = TimeTracker.startOperation(TimedOperationCategory.REPORTING)) {
+            for (int i = 0; i < renderers.size(); i++) {
+                if (result.rendered[i] != null) {
+                    ((ShardableRenderer) renderers.get(i)).mergeShard(result.report, result.rendered[i]);
+                } else {
+                    renderers.get(i).renderFileReport(result.report);
+                }
+            }
+        } catch (IOException ioe) {
+            throw new RuntimeException(ioe);
+        }
+    }
+
+    /**
+     * Analyzes a file, and renders its report with the shards of the
+     * thread.
+     */
+    private final class Analysis implements Callable<AnalysisResult> {
+        private final PmdRunnable runnable;
+        private final List<Renderer> renderers;
+        private final long index;
+
+        Analysis(PmdRunnable runnable, List<Renderer> renderers, long index) {
+            this.runnable = runnable;
+            this.renderers = renderers;
+            this.index = index;
+        }
+
+        @Override
+        public AnalysisResult call() throws IOException {
+            final Report report = runnable.call();
+
+            RendererShards threadShards = shards.get();
+            if (threadShards == null) {
+                threadShards = new RendererShards(renderers);
+                shards.set(threadShards);
+            }
+            return new AnalysisResult(index, report, threadShards.render(report));
+        }
+    }
+
+    /**
+     * A file of the window which is not submitted yet.
+     */
+    private static final class WaitingAnalysis implements Comparable<WaitingAnalysis> {
+        private final int index;
+        private final long cost;
+        private final PmdRunnable runnable;
+
+        WaitingAnalysis(int index, long cost, PmdRunnable runnable) {
+            this.index = index;
+            this.cost = cost;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public int compareTo(WaitingAnalysis o) {
+            // the most expensive first, then in the order of the files
+            final int byCost = Long.compare(o.cost, cost);
+            return byCost != 0 ? byCost : Integer.compare(index, o.index);
+        }
+    }
+
+    private static final class AnalysisResult implements Comparable<AnalysisResult> {
+        private final long index;
+        private final Report report;
+        /** The text rendered by the shards, null for the renderers which aren't shardable. */
+        private final String[] rendered;
+
+        AnalysisResult(long index, Report report, String[] rendered) {
+            this.index = index;
+            this.report = report;
+            this.rendered = rendered;
+        }
+
+        @Override
+        public int compareTo(AnalysisResult o) {
+            return Long.compare(index, o.index);
+        }
+    }
+
+    /**
+     * The shards of the shardable renderers, for a single thread.
+     */
+    private static final class RendererShards {
+        private final ShardableRenderer[] shards;
+        private final StringWriter[] writers;
+
+        RendererShards(List<Renderer> renderers) {
+            shards = new ShardableRenderer[renderers.size()];
+            writers = new StringWriter[renderers.size()];
+            for (int i = 0; i < shards.length; i++) {
+                if (renderers.get(i) instanceof ShardableRenderer) {
+                    shards[i] = ((ShardableRenderer) renderers.get(i)).createShard();
+                    writers[i] = new StringWriter();
+                    shards[i].setWriter(writers[i]);
+                }
+            }
+        }
+
+        String[] render(Report report) throws IOException {
+            final String[] rendered = new String[shards.length];
+            for (int i = 0; i < shards.length; i++) {
+                if (shards[i] != null) {
+                    shards[i].renderShard(report);
+                    rendered[i] = writers[i].toString();
+                    writers[i].getBuffer().setLength(0);
+                }
+            }
+            return rendered;
         }
     }
 }
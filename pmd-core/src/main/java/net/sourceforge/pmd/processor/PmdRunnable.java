@@ -4,9 +4,6 @@
 
 package net.sourceforge.pmd.processor;
 
-import java.io.BufferedInputStream;
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.logging.Level;
@@ -33,15 +30,32 @@ public class PmdRunnable implements Callable<Report> {
     private final RuleContext ruleContext;
     private final RuleSets ruleSets;
     private final SourceCodeProcessor sourceCodeProcessor;
+    /** The contents of the file if they were already read, else null. */
+    private final byte[] contents;
+    private final long fileSize;
+    private final long lastModified;
 
     public PmdRunnable(DataSource dataSource, String fileName, List<Renderer> renderers,
             RuleContext ruleContext, RuleSets ruleSets, SourceCodeProcessor sourceCodeProcessor) {
+        this(dataSource, fileName, renderers, ruleContext, ruleSets, sourceCodeProcessor, null, 0L, 0L);
+    }
+
+    /**
+     * Creates an analysis of a file whose contents were already read,
+     * after its size and modification time.
+     */
+    PmdRunnable(DataSource dataSource, String fileName, List<Renderer> renderers, RuleContext ruleContext,
+            RuleSets ruleSets, SourceCodeProcessor sourceCodeProcessor, byte[] contents, long fileSize,
+            long lastModified) {
         this.ruleSets = ruleSets;
         this.dataSource = dataSource;
         this.fileName = fileName;
         this.renderers = renderers;
         this.ruleContext = ruleContext;
         this.sourceCodeProcessor = sourceCodeProcessor;
+        this.contents = contents;
+        this.fileSize = fileSize;
+        this.lastModified = lastModified;
     }
 
     public static void reset() {
@@ -73,13 +87,15 @@ public class PmdRunnable implements Callable<Report> {
             r.startFileAnalysis(dataSource);
         }
 
-        try (InputStream stream = new BufferedInputStream(dataSource.getInputStream())) {
+        try {
             tc.ruleContext.setLanguageVersion(null);
-            sourceCodeProcessor.processSourceCode(stream, tc.ruleSets, tc.ruleContext);
+            if (contents != null) {
+                sourceCodeProcessor.processSourceCode(contents, fileSize, lastModified, tc.ruleSets, tc.ruleContext);
+            } else {
+                sourceCodeProcessor.processSourceCode(dataSource, tc.ruleSets, tc.ruleContext);
+            }
         } catch (PMDException pmde) {
             addError(report, pmde, "Error while processing file: " + fileName);
-        } catch (IOException ioe) {
-            addError(report, ioe, "IOException during processing of " + fileName);
         } catch (RuntimeException re) {
             addError(report, re, "RuntimeException during processing of " + fileName);
         }
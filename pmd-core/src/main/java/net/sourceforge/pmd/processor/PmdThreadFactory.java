@@ -4,10 +4,13 @@
 
 package net.sourceforge.pmd.processor;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 
-public class PmdThreadFactory implements ThreadFactory {
+public class PmdThreadFactory implements ThreadFactory, ForkJoinWorkerThreadFactory {
 
     private final AtomicInteger counter = new AtomicInteger();
 
@@ -16,4 +19,16 @@ public class PmdThreadFactory implements ThreadFactory {
         return new Thread(r, "PmdThread " + counter.incrementAndGet());
     }
 
+    @Override
+    public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+        return new PmdWorkerThread(pool, "PmdThread " + counter.incrementAndGet());
+    }
+
+    private static class PmdWorkerThread extends ForkJoinWorkerThread {
+        PmdWorkerThread(ForkJoinPool pool, String name) {
+            super(pool);
+            setName(name);
+        }
+    }
+
 }
@@ -62,7 +62,48 @@ public abstract class AbstractIncrementingRenderer extends AbstractRenderer {
             renderFileViolations(violations);
             getWriter().flush();
         }
+        collect(report);
+    }
+
+    /**
+     * Renders the violations of a file report, without collecting its
+     * errors and suppressed violations. This implements
+     * {@link ShardableRenderer#renderShard(Report)} for the subclasses which
+     * are shardable.
+     *
+     * @param report The file report
+     * @throws IOException If the writer fails
+     *
+     * @since 6.13.0
+     */
+    public void renderShard(Report report) throws IOException {
+        Iterator<RuleViolation> violations = report.iterator();
+        if (violations.hasNext()) {
+            renderFileViolations(violations);
+        }
+    }
+
+    /**
+     * Writes the violations of a file report rendered by a shard, and
+     * collects its errors and suppressed violations. This implements
+     * {@link ShardableRenderer#mergeShard(Report, String)} for the subclasses
+     * which are shardable.
+     *
+     * @param report   The file report
+     * @param rendered The violations rendered by the shard
+     * @throws IOException If the writer fails
+     *
+     * @since 6.13.0
+     */
+    public void mergeShard(Report report, String rendered) throws IOException {
+        if (!rendered.isEmpty()) {
+            getWriter().write(rendered);
+            getWriter().flush();
+        }
+        collect(report);
+    }
 
+    private void collect(Report report) {
         for (Iterator<Report.ProcessingError> i = report.errors(); i.hasNext();) {
             errors.add(i.next());
         }
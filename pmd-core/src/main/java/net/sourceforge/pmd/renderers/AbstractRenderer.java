@@ -21,6 +21,7 @@ public abstract class AbstractRenderer extends AbstractPropertySource implements
 
     protected boolean showSuppressedViolations = true;
     protected Writer writer;
+    private StreamEmitter emitter;
 
     public AbstractRenderer(String name, String description) {
         this.name = name;
@@ -72,6 +73,23 @@ public abstract class AbstractRenderer extends AbstractPropertySource implements
         return writer;
     }
 
+    /**
+     * Returns the emitter which writes to the {@linkplain #getWriter() writer}
+     * of this renderer. The emitter is reused as long as the writer doesn't
+     * change. Renderers must {@linkplain StreamEmitter#flush() flush} it
+     * before returning from the methods which render something.
+     *
+     * @return The emitter
+     *
+     * @since 6.13.0
+     */
+    protected StreamEmitter getEmitter() {
+        if (emitter == null || emitter.getWriter() != writer) {
+            emitter = new StreamEmitter(writer);
+        }
+        return emitter;
+    }
+
     @Override
     public void flush() {
         try {
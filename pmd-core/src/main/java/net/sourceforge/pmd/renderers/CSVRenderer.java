@@ -26,7 +26,7 @@ import net.sourceforge.pmd.renderers.ColumnDescriptor.Accessor;
  * are present by default. IDEs can enable/disable columns individually
  * (cmd-line control to follow eventually)
  */
-public class CSVRenderer extends AbstractIncrementingRenderer {
+public class CSVRenderer extends AbstractIncrementingRenderer implements ShardableRenderer {
 
     private String separator;
     private String cr;
@@ -135,7 +135,7 @@ public class CSVRenderer extends AbstractIncrementingRenderer {
 
     @Override
     public void start() throws IOException {
-        csvWriter().writeTitles(getWriter());
+        csvWriter().writeTitles(getEmitter());
     }
 
     @Override
@@ -143,9 +143,18 @@ public class CSVRenderer extends AbstractIncrementingRenderer {
         return "csv";
     }
 
+    @Override
+    public ShardableRenderer createShard() {
+        // the writer is immutable, the shards share it. It's created from the
+        // columns of this renderer, the ones of the shard are the default
+        CSVRenderer shard = new CSVRenderer(ALL_COLUMNS, separator, cr);
+        shard.csvWriter = csvWriter();
+        return shard;
+    }
+
     @Override
     public void renderFileViolations(Iterator<RuleViolation> violations) throws IOException {
-        csvWriter().writeData(getWriter(), violations);
+        csvWriter().writeData(getEmitter(), violations);
     }
 
     /**
@@ -29,51 +29,65 @@ public class CSVWriter<T extends Object> {
     }
 
     public void writeTitles(Writer writer) throws IOException {
-        StringBuilder buf = new StringBuilder(300);
+        writeTitles(new StreamEmitter(writer));
+    }
+
+    /**
+     * Writes the titles of the columns, and flushes the emitter.
+     *
+     * @since 6.13.0
+     */
+    public void writeTitles(StreamEmitter out) throws IOException {
         for (int i = 0; i < columns.size() - 1; i++) {
-            quoteAndCommify(buf, columns.get(i).title);
+            quoteAndCommify(out, columns.get(i).title);
         }
 
-        quote(buf, columns.get(columns.size() - 1).title);
+        quote(out, columns.get(columns.size() - 1).title);
 
-        buf.append(lineSeparator);
-        writer.write(buf.toString());
+        out.append(lineSeparator);
+        out.flush();
     }
 
     public void writeData(Writer writer, Iterator<T> items) throws IOException {
+        writeData(new StreamEmitter(writer), items);
+    }
 
-        int count = 1;
+    /**
+     * Writes a row per item, and flushes the emitter.
+     *
+     * @since 6.13.0
+     */
+    public void writeData(StreamEmitter out, Iterator<T> items) throws IOException {
 
-        StringBuilder buf = new StringBuilder(300);
+        int count = 1;
 
         T rv;
         final int lastColumnIdx = columns.size() - 1;
 
         while (items.hasNext()) {
-            buf.setLength(0);
             rv = items.next();
 
             for (int i = 0; i < lastColumnIdx; i++) {
-                quoteAndCommify(buf, columns.get(i).accessor.get(count, rv, separator));
+                quoteAndCommify(out, columns.get(i).accessor.get(count, rv, separator));
             }
 
-            quote(buf, columns.get(lastColumnIdx).accessor.get(count, rv, separator));
+            quote(out, columns.get(lastColumnIdx).accessor.get(count, rv, separator));
 
-            buf.append(lineSeparator);
-            writer.write(buf.toString());
+            out.append(lineSeparator);
             count++;
         }
+        out.flush();
     }
 
-    private void quote(StringBuilder buffer, String s) {
+    private void quote(StreamEmitter out, String s) throws IOException {
         if (s == null) {
             return;
         }
-        buffer.append('"').append(s).append('"');
+        out.append('"').append(s).append('"');
     }
 
-    private void quoteAndCommify(StringBuilder buffer, String s) {
-        quote(buffer, s);
-        buffer.append(separator);
+    private void quoteAndCommify(StreamEmitter out, String s) throws IOException {
+        quote(out, s);
+        out.append(separator);
     }
 }
@@ -0,0 +1,170 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers;
+
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Iterator;
+
+import net.sourceforge.pmd.PMD;
+import net.sourceforge.pmd.PMDVersion;
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.RuleViolation;
+
+/**
+ * Renderer to JSON format. The violations are written as the files are
+ * processed, grouped by file.
+ *
+ * @since 6.13.0
+ */
+public class JsonRenderer extends AbstractIncrementingRenderer {
+
+    public static final String NAME = "json";
+
+    private static final int FORMAT_VERSION = 0;
+
+    private boolean firstFile;
+
+
+    public JsonRenderer() {
+        super(NAME, "JSON format.");
+    }
+
+
+    @Override
+    public String defaultFileExtension() {
+        return "json";
+    }
+
+
+    @Override
+    public void start() throws IOException {
+        StreamEmitter out = getEmitter();
+        out.append('{').append(PMD.EOL);
+        out.append("  \"formatVersion\": ").append(FORMAT_VERSION).append(',').append(PMD.EOL);
+        out.append("  \"pmdVersion\": ").appendJsonString(PMDVersion.VERSION).append(',').append(PMD.EOL);
+        out.append("  \"timestamp\": ")
+           .appendJsonString(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ").format(new Date()))
+           .append(',').append(PMD.EOL);
+        out.append("  \"files\": [");
+        out.flush();
+        firstFile = true;
+    }
+
+
+    @Override
+    public void renderFileViolations(Iterator<RuleViolation> violations) throws IOException {
+        StreamEmitter out = getEmitter();
+        String filename = null;
+
+        while (violations.hasNext()) {
+            RuleViolation rv = violations.next();
+            if (!rv.getFilename().equals(filename)) {
+                if (filename != null) {
+                    endFile(out);
+                }
+                filename = rv.getFilename();
+                out.append(firstFile ? "" : ",").append(PMD.EOL);
+                firstFile = false;
+                out.append("    {").append(PMD.EOL);
+                out.append("      \"filename\": ").appendJsonString(filename).append(',').append(PMD.EOL);
+                out.append("      \"violations\": [").append(PMD.EOL);
+            } else {
+                out.append(',').append(PMD.EOL);
+            }
+
+            out.append("        {").append(PMD.EOL);
+            out.append("          \"beginline\": ").append(rv.getBeginLine()).append(',').append(PMD.EOL);
+            out.append("          \"begincolumn\": ").append(rv.getBeginColumn()).append(',').append(PMD.EOL);
+            out.append("          \"endline\": ").append(rv.getEndLine()).append(',').append(PMD.EOL);
+            out.append("          \"endcolumn\": ").append(rv.getEndColumn()).append(',').append(PMD.EOL);
+            out.append("          \"description\": ").appendJsonString(rv.getDescription()).append(',').append(PMD.EOL);
+            out.append("          \"rule\": ").appendJsonString(rv.getRule().getName()).append(',').append(PMD.EOL);
+            out.append("          \"ruleset\": ").appendJsonString(rv.getRule().getRuleSetName()).append(',').append(PMD.EOL);
+            maybeAdd("package", rv.getPackageName(), out);
+            maybeAdd("class", rv.getClassName(), out);
+            maybeAdd("method", rv.getMethodName(), out);
+            maybeAdd("variable", rv.getVariableName(), out);
+            maybeAdd("externalInfoUrl", rv.getRule().getExternalInfoUrl(), out);
+            out.append("          \"priority\": ").append(rv.getRule().getPriority().getPriority()).append(PMD.EOL);
+            out.append("        }");
+        }
+        if (filename != null) {
+            endFile(out);
+        }
+        out.flush();
+    }
+
+
+    private static void endFile(StreamEmitter out) throws IOException {
+        out.append(PMD.EOL).append("      ]").append(PMD.EOL).append("    }");
+    }
+
+
+    private static void maybeAdd(String name, String value, StreamEmitter out) throws IOException {
+        if (value != null && value.length() > 0) {
+            out.append("          \"").append(name).append("\": ").appendJsonString(value).append(',').append(PMD.EOL);
+        }
+    }
+
+
+    @Override
+    public void end() throws IOException {
+        StreamEmitter out = getEmitter();
+        endArray(out, firstFile);
+
+        out.append("  \"suppressedViolations\": [");
+        boolean first = true;
+        if (showSuppressedViolations) {
+            for (Report.SuppressedViolation s : suppressed) {
+                out.append(first ? "" : ",").append(PMD.EOL);
+                first = false;
+                out.append("    {").append(PMD.EOL);
+                out.append("      \"filename\": ").appendJsonString(s.getRuleViolation().getFilename()).append(',').append(PMD.EOL);
+                out.append("      \"rule\": ").appendJsonString(s.getRuleViolation().getRule().getName()).append(',').append(PMD.EOL);
+                out.append("      \"suppressiontype\": ").appendJsonString(s.suppressedByNOPMD() ? "nopmd" : "annotation").append(',').append(PMD.EOL);
+                out.append("      \"msg\": ").appendJsonString(s.getRuleViolation().getDescription()).append(',').append(PMD.EOL);
+                out.append("      \"usermsg\": ").appendJsonString(s.getUserMessage() == null ? "" : s.getUserMessage()).append(PMD.EOL);
+                out.append("    }");
+            }
+        }
+        endArray(out, first);
+
+        out.append("  \"processingErrors\": [");
+        first = true;
+        for (Report.ProcessingError error : errors) {
+            out.append(first ? "" : ",").append(PMD.EOL);
+            first = false;
+            out.append("    {").append(PMD.EOL);
+            out.append("      \"filename\": ").appendJsonString(error.getFile()).append(',').append(PMD.EOL);
+            out.append("      \"message\": ").appendJsonString(error.getMsg()).append(',').append(PMD.EOL);
+            out.append("      \"detail\": ").appendJsonString(error.getDetail()).append(PMD.EOL);
+            out.append("    }");
+        }
+        endArray(out, first);
+
+        out.append("  \"configurationErrors\": [");
+        first = true;
+        for (Report.ConfigurationError error : configErrors) {
+            out.append(first ? "" : ",").append(PMD.EOL);
+            first = false;
+            out.append("    {").append(PMD.EOL);
+            out.append("      \"rule\": ").appendJsonString(error.rule().getName()).append(',').append(PMD.EOL);
+            out.append("      \"ruleset\": ").appendJsonString(error.rule().getRuleSetName()).append(',').append(PMD.EOL);
+            out.append("      \"message\": ").appendJsonString(error.issue()).append(PMD.EOL);
+            out.append("    }");
+        }
+        out.append(first ? "" : PMD.EOL + "  ").append(']').append(PMD.EOL);
+
+        out.append('}').append(PMD.EOL);
+        out.flush();
+    }
+
+
+    private static void endArray(StreamEmitter out, boolean empty) throws IOException {
+        out.append(empty ? "" : PMD.EOL + "  ").append("],").append(PMD.EOL);
+    }
+}
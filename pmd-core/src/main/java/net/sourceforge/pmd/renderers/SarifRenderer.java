@@ -0,0 +1,296 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sourceforge.pmd.PMD;
+import net.sourceforge.pmd.PMDVersion;
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.Rule;
+import net.sourceforge.pmd.RulePriority;
+import net.sourceforge.pmd.RuleViolation;
+
+/**
+ * Renderer to the Static Analysis Results Interchange Format (SARIF) 2.1.0.
+ * The results are written as the files are processed. The rules which were
+ * violated are only known in the end, so the description of the tool, which
+ * lists them, is written after the results.
+ *
+ * <p>Absolute file names are written as file URIs. Relative file names, as
+ * reported with the short names option, are relative to the input directories,
+ * which the renderer doesn't know: they are written as relative URIs, resolved
+ * against the {@code %SRCROOT%} base, which consumers map to the root of
+ * the sources.
+ *
+ * @since 6.13.0
+ */
+public class SarifRenderer extends AbstractIncrementingRenderer {
+
+    public static final String NAME = "sarif";
+
+    private static final String SCHEMA = "https://schemastore.azurewebsites.net/schemas/json/sarif-2.1.0-rtm.4.json";
+    private static final String INFORMATION_URI = "https://pmd.github.io/pmd/";
+    private static final String SOURCE_ROOT = "%SRCROOT%";
+
+    /**
+     * The violated rules, by ruleset and name, with their index in the rules of
+     * the tool. Rules of different rulesets may have the same name.
+     */
+    private final Map<String, Integer> ruleIndexes = new LinkedHashMap<>();
+    private final List<Rule> rules = new ArrayList<>();
+    private boolean firstResult;
+
+
+    public SarifRenderer() {
+        super(NAME, "Static Analysis Results Interchange Format (SARIF) 2.1.0.");
+    }
+
+
+    @Override
+    public String defaultFileExtension() {
+        return "sarif.json";
+    }
+
+
+    @Override
+    public void start() throws IOException {
+        ruleIndexes.clear();
+        rules.clear();
+        firstResult = true;
+
+        StreamEmitter out = getEmitter();
+        out.append('{').append(PMD.EOL);
+        out.append("  \"$schema\": ").appendJsonString(SCHEMA).append(',').append(PMD.EOL);
+        out.append("  \"version\": \"2.1.0\",").append(PMD.EOL);
+        out.append("  \"runs\": [").append(PMD.EOL);
+        out.append("    {").append(PMD.EOL);
+        out.append("      \"results\": [");
+        out.flush();
+    }
+
+
+    @Override
+    public void renderFileViolations(Iterator<RuleViolation> violations) throws IOException {
+        StreamEmitter out = getEmitter();
+        while (violations.hasNext()) {
+            startResult(out, violations.next());
+            out.append(PMD.EOL).append("        }");
+        }
+        out.flush();
+    }
+
+
+    private void startResult(StreamEmitter out, RuleViolation rv) throws IOException {
+        Rule rule = rv.getRule();
+        String ruleKey = rule.getRuleSetName() + '/' + rule.getName();
+        Integer ruleIndex = ruleIndexes.get(ruleKey);
+        if (ruleIndex == null) {
+            ruleIndex = rules.size();
+            ruleIndexes.put(ruleKey, ruleIndex);
+            rules.add(rule);
+        }
+
+        out.append(firstResult ? "" : ",").append(PMD.EOL);
+        firstResult = false;
+        out.append("        {").append(PMD.EOL);
+        out.append("          \"ruleId\": ").appendJsonString(rule.getName()).append(',').append(PMD.EOL);
+        out.append("          \"ruleIndex\": ").append(ruleIndex).append(',').append(PMD.EOL);
+        out.append("          \"level\": ").appendJsonString(level(rule.getPriority())).append(',').append(PMD.EOL);
+        out.append("          \"message\": {").append(PMD.EOL);
+        out.append("            \"text\": ").appendJsonString(rv.getDescription()).append(PMD.EOL);
+        out.append("          },").append(PMD.EOL);
+        out.append("          \"locations\": [").append(PMD.EOL);
+        out.append("            {").append(PMD.EOL);
+        out.append("              \"physicalLocation\": {").append(PMD.EOL);
+        out.append("                \"artifactLocation\": {").append(PMD.EOL);
+        writeArtifactLocation(out, rv.getFilename(), "                  ");
+        out.append("                },").append(PMD.EOL);
+        out.append("                \"region\": {").append(PMD.EOL);
+        out.append("                  \"startLine\": ").append(rv.getBeginLine()).append(',').append(PMD.EOL);
+        out.append("                  \"startColumn\": ").append(rv.getBeginColumn()).append(',').append(PMD.EOL);
+        out.append("                  \"endLine\": ").append(rv.getEndLine()).append(',').append(PMD.EOL);
+        out.append("                  \"endColumn\": ").append(rv.getEndColumn()).append(PMD.EOL);
+        out.append("                }").append(PMD.EOL);
+        out.append("              }").append(PMD.EOL);
+        out.append("            }").append(PMD.EOL);
+        out.append("          ]");
+    }
+
+
+    @Override
+    public void end() throws IOException {
+        StreamEmitter out = getEmitter();
+
+        // the suppressed violations are results with a suppression
+        if (showSuppressedViolations) {
+            for (Report.SuppressedViolation s : suppressed) {
+                startResult(out, s.getRuleViolation());
+                out.append(',').append(PMD.EOL);
+                out.append("          \"suppressions\": [").append(PMD.EOL);
+                out.append("            {").append(PMD.EOL);
+                out.append("              \"kind\": \"inSource\"");
+                if (s.getUserMessage() != null) {
+                    out.append(',').append(PMD.EOL);
+                    out.append("              \"justification\": ").appendJsonString(s.getUserMessage());
+                }
+                out.append(PMD.EOL);
+                out.append("            }").append(PMD.EOL);
+                out.append("          ]").append(PMD.EOL);
+                out.append("        }");
+            }
+        }
+        out.append(firstResult ? "" : PMD.EOL + "      ").append("],").append(PMD.EOL);
+
+        writeTool(out);
+        writeInvocation(out);
+
+        out.append("    }").append(PMD.EOL);
+        out.append("  ]").append(PMD.EOL);
+        out.append('}').append(PMD.EOL);
+        out.flush();
+    }
+
+
+    private void writeTool(StreamEmitter out) throws IOException {
+        out.append("      \"tool\": {").append(PMD.EOL);
+        out.append("        \"driver\": {").append(PMD.EOL);
+        out.append("          \"name\": \"PMD\",").append(PMD.EOL);
+        out.append("          \"version\": ").appendJsonString(PMDVersion.VERSION).append(',').append(PMD.EOL);
+        out.append("          \"informationUri\": ").appendJsonString(INFORMATION_URI).append(',').append(PMD.EOL);
+        out.append("          \"rules\": [");
+        boolean first = true;
+        for (Rule rule : rules) {
+            out.append(first ? "" : ",").append(PMD.EOL);
+            first = false;
+            out.append("            {").append(PMD.EOL);
+            out.append("              \"id\": ").appendJsonString(rule.getName()).append(',').append(PMD.EOL);
+            if (rule.getMessage() != null) {
+                out.append("              \"shortDescription\": {").append(PMD.EOL);
+                out.append("                \"text\": ").appendJsonString(rule.getMessage()).append(PMD.EOL);
+                out.append("              },").append(PMD.EOL);
+            }
+            if (rule.getDescription() != null) {
+                out.append("              \"fullDescription\": {").append(PMD.EOL);
+                out.append("                \"text\": ").appendJsonString(rule.getDescription().trim()).append(PMD.EOL);
+                out.append("              },").append(PMD.EOL);
+            }
+            if (rule.getExternalInfoUrl() != null && rule.getExternalInfoUrl().length() > 0) {
+                out.append("              \"helpUri\": ").appendJsonString(rule.getExternalInfoUrl()).append(',').append(PMD.EOL);
+            }
+            out.append("              \"properties\": {").append(PMD.EOL);
+            out.append("                \"ruleset\": ").appendJsonString(rule.getRuleSetName()).append(',').append(PMD.EOL);
+            out.append("                \"priority\": ").append(rule.getPriority().getPriority()).append(PMD.EOL);
+            out.append("              }").append(PMD.EOL);
+            out.append("            }");
+        }
+        out.append(first ? "" : PMD.EOL + "          ").append(']').append(PMD.EOL);
+        out.append("        }").append(PMD.EOL);
+        out.append("      },").append(PMD.EOL);
+    }
+
+
+    private void writeInvocation(StreamEmitter out) throws IOException {
+        out.append("      \"invocations\": [").append(PMD.EOL);
+        out.append("        {").append(PMD.EOL);
+        out.append("          \"executionSuccessful\": ").append(errors.isEmpty() ? "true" : "false").append(',').append(PMD.EOL);
+
+        out.append("          \"toolConfigurationNotifications\": [");
+        boolean first = true;
+        for (Report.ConfigurationError error : configErrors) {
+            out.append(first ? "" : ",").append(PMD.EOL);
+            first = false;
+            out.append("            {").append(PMD.EOL);
+            out.append("              \"associatedRule\": {").append(PMD.EOL);
+            out.append("                \"id\": ").appendJsonString(error.rule().getName()).append(PMD.EOL);
+            out.append("              },").append(PMD.EOL);
+            out.append("              \"message\": {").append(PMD.EOL);
+            out.append("                \"text\": ").appendJsonString(error.issue()).append(PMD.EOL);
+            out.append("              }").append(PMD.EOL);
+            out.append("            }");
+        }
+        out.append(first ? "" : PMD.EOL + "          ").append("],").append(PMD.EOL);
+
+        out.append("          \"toolExecutionNotifications\": [");
+        first = true;
+        for (Report.ProcessingError error : errors) {
+            out.append(first ? "" : ",").append(PMD.EOL);
+            first = false;
+            out.append("            {").append(PMD.EOL);
+            out.append("              \"locations\": [").append(PMD.EOL);
+            out.append("                {").append(PMD.EOL);
+            out.append("                  \"physicalLocation\": {").append(PMD.EOL);
+            out.append("                    \"artifactLocation\": {").append(PMD.EOL);
+            writeArtifactLocation(out, error.getFile(), "                      ");
+            out.append("                    }").append(PMD.EOL);
+            out.append("                  }").append(PMD.EOL);
+            out.append("                }").append(PMD.EOL);
+            out.append("              ],").append(PMD.EOL);
+            out.append("              \"message\": {").append(PMD.EOL);
+            out.append("                \"text\": ").appendJsonString(error.getMsg()).append(PMD.EOL);
+            out.append("              },").append(PMD.EOL);
+            out.append("              \"exception\": {").append(PMD.EOL);
+            out.append("                \"kind\": ").appendJsonString(error.getError().getClass().getName());
+            if (error.getError().getMessage() != null) {
+                out.append(',').append(PMD.EOL);
+                out.append("                \"message\": ").appendJsonString(error.getError().getMessage());
+            }
+            out.append(PMD.EOL);
+            out.append("              }").append(PMD.EOL);
+            out.append("            }");
+        }
+        out.append(first ? "" : PMD.EOL + "          ").append(']').append(PMD.EOL);
+
+        out.append("        }").append(PMD.EOL);
+        out.append("      ]").append(PMD.EOL);
+    }
+
+
+    private static String level(RulePriority priority) {
+        switch (priority) {
+        case HIGH:
+        case MEDIUM_HIGH:
+            return "error";
+        case MEDIUM:
+            return "warning";
+        default:
+            return "note";
+        }
+    }
+
+
+    /**
+     * Writes the properties of the artifact location of the given file.
+     */
+    private static void writeArtifactLocation(StreamEmitter out, String filename, String indent) throws IOException {
+        if (filename == null) {
+            out.append(indent).append("\"uri\": null").append(PMD.EOL);
+            return;
+        }
+        File file = new File(filename);
+        if (file.isAbsolute()) {
+            out.append(indent).append("\"uri\": ").appendJsonString(file.toURI().toString()).append(PMD.EOL);
+            return;
+        }
+
+        String path = filename.replace(File.separatorChar, '/');
+        String uri;
+        try {
+            uri = new URI(null, null, path, null, null).toString();
+        } catch (URISyntaxException e) {
+            uri = path;
+        }
+        out.append(indent).append("\"uri\": ").appendJsonString(uri).append(',').append(PMD.EOL);
+        out.append(indent).append("\"uriBaseId\": ").appendJsonString(SOURCE_ROOT).append(PMD.EOL);
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers;
+
+import java.io.IOException;
+
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.annotation.Experimental;
+
+/**
+ * A renderer whose file reports can be rendered independently of each other,
+ * on the threads which analyze the files.
+ *
+ * <p>Each analysis thread renders the file reports with its own shard of the
+ * renderer, see {@link #createShard()}, into a private buffer. The rendered
+ * text is then merged into the output of this renderer on the thread which
+ * renders the reports, see {@link #mergeShard(Report, String)}, in the order
+ * in which the files were scheduled.
+ *
+ * @since 6.13.0
+ */
+@Experimental
+public interface ShardableRenderer extends Renderer {
+
+    /**
+     * Creates a shard of this renderer. A shard has the same configuration
+     * as this renderer, and is used by a single thread, once this renderer
+     * was started. Only its {@link #setWriter(java.io.Writer)} and
+     * {@link #renderShard(Report)} methods are called.
+     *
+     * @return A new shard
+     */
+    ShardableRenderer createShard();
+
+    /**
+     * Renders the violations of a file report to the writer of this shard.
+     * This renders what {@link #renderFileReport(Report)} would, but doesn't
+     * collect anything for {@link #end()}.
+     *
+     * @param report The file report
+     * @throws IOException If the writer of the shard fails
+     */
+    void renderShard(Report report) throws IOException;
+
+    /**
+     * Merges the output of a shard into the output of this renderer. This
+     * is called instead of {@link #renderFileReport(Report)}, in file order.
+     *
+     * @param report   The file report
+     * @param rendered The text rendered by the shard for the report
+     * @throws IOException If the writer of this renderer fails
+     */
+    void mergeShard(Report report, String rendered) throws IOException;
+}
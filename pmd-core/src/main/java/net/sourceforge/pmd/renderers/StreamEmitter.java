@@ -0,0 +1,227 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import net.sourceforge.pmd.annotation.Experimental;
+import net.sourceforge.pmd.util.StringUtil;
+
+/**
+ * Buffered output of the renderers. Text is copied into a char buffer,
+ * escaped in place for XML or JSON, and numbers are written digit by digit,
+ * so that rendering a violation doesn't allocate intermediate strings. The
+ * buffer is written to the underlying writer when it's full, and on
+ * {@link #flush()}.
+ *
+ * <p>An emitter is not thread-safe. Each renderer reuses its own emitter,
+ * see {@link AbstractRenderer#getEmitter()}.
+ *
+ * @since 6.13.0
+ */
+@Experimental
+public final class StreamEmitter {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Writer writer;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+
+
+    public StreamEmitter(Writer writer) {
+        this.writer = writer;
+    }
+
+
+    /**
+     * Returns the writer to which this emitter writes.
+     */
+    public Writer getWriter() {
+        return writer;
+    }
+
+
+    public StreamEmitter append(char c) throws IOException {
+        if (position == buffer.length) {
+            drain();
+        }
+        buffer[position++] = c;
+        return this;
+    }
+
+
+    /**
+     * Appends a string as is. Like {@link StringBuilder#append(String)},
+     * "null" is appended for null.
+     */
+    public StreamEmitter append(String s) throws IOException {
+        if (s == null) {
+            return append("null");
+        }
+        int start = 0;
+        int length = s.length();
+        while (start < length) {
+            if (position == buffer.length) {
+                drain();
+            }
+            int count = Math.min(length - start, buffer.length - position);
+            s.getChars(start, start + count, buffer, position);
+            position += count;
+            start += count;
+        }
+        return this;
+    }
+
+
+    /**
+     * Appends the decimal representation of a number, like
+     * {@link StringBuilder#append(long)}.
+     */
+    public StreamEmitter append(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            return append(Long.toString(value));
+        }
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+        // 19 digits at most
+        if (buffer.length - position < 19) {
+            drain();
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        position += digits;
+        return this;
+    }
+
+
+    /**
+     * Appends a string escaped for XML text or attribute values. This
+     * produces the same output as {@link StringUtil#appendXmlEscaped(StringBuilder, String, boolean)}.
+     *
+     * @param s           The string to escape
+     * @param supportUTF8 Whether the characters above '~' are appended as
+     *                    is, otherwise they're replaced by character references
+     */
+    public StreamEmitter appendXmlEscaped(String s, boolean supportUTF8) throws IOException {
+        int length = s.length();
+        int i = 0;
+        while (i < length) {
+            char c = s.charAt(i++);
+            if (c > '~') {
+                if (supportUTF8) {
+                    append(c);
+                } else {
+                    int codePoint = c;
+                    // surrogate characters are not allowed in XML
+                    if (Character.isHighSurrogate(c) && i < length) {
+                        codePoint = Character.toCodePoint(c, s.charAt(i++));
+                    }
+                    append("&#x").appendHex(codePoint).append(';');
+                }
+            } else if (c == '&') {
+                append("&amp;");
+            } else if (c == '"') {
+                append("&quot;");
+            } else if (c == '<') {
+                append("&lt;");
+            } else if (c == '>') {
+                append("&gt;");
+            } else {
+                append(c);
+            }
+        }
+        return this;
+    }
+
+
+    /**
+     * Appends a string as a quoted JSON string, or {@code null}.
+     */
+    public StreamEmitter appendJsonString(String s) throws IOException {
+        if (s == null) {
+            return append("null");
+        }
+        append('"');
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            switch (c) {
+            case '"':
+                append("\\\"");
+                break;
+            case '\\':
+                append("\\\\");
+                break;
+            case '\n':
+                append("\\n");
+                break;
+            case '\r':
+                append("\\r");
+                break;
+            case '\t':
+                append("\\t");
+                break;
+            case '\b':
+                append("\\b");
+                break;
+            case '\f':
+                append("\\f");
+                break;
+            default:
+                // the line separators are valid in JSON, but not in JavaScript
+                if (c < ' ' || c == '\u2028' || c == '\u2029') {
+                    append("\\u");
+                    for (int shift = 12; shift >= 0; shift -= 4) {
+                        append(HEX_DIGITS[(c >> shift) & 0xF]);
+                    }
+                } else {
+                    append(c);
+                }
+                break;
+            }
+        }
+        return append('"');
+    }
+
+
+    private StreamEmitter appendHex(int value) throws IOException {
+        int shift = 28;
+        while (shift > 0 && (value >>> shift) == 0) {
+            shift -= 4;
+        }
+        for (; shift >= 0; shift -= 4) {
+            append(HEX_DIGITS[(value >>> shift) & 0xF]);
+        }
+        return this;
+    }
+
+
+    /**
+     * Writes the buffered output to the underlying writer. The writer itself
+     * is not flushed.
+     */
+    public void flush() throws IOException {
+        drain();
+    }
+
+
+    private void drain() throws IOException {
+        if (position > 0) {
+            writer.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+}
@@ -5,7 +5,6 @@
 package net.sourceforge.pmd.renderers;
 
 import java.io.IOException;
-import java.io.Writer;
 import java.util.Iterator;
 
 import net.sourceforge.pmd.PMD;
@@ -15,7 +14,7 @@ import net.sourceforge.pmd.RuleViolation;
 /**
  * Renderer to simple text format.
  */
-public class TextRenderer extends AbstractIncrementingRenderer {
+public class TextRenderer extends AbstractIncrementingRenderer implements ShardableRenderer {
 
     public static final String NAME = "text";
 
@@ -28,48 +27,45 @@ public class TextRenderer extends AbstractIncrementingRenderer {
         return "txt";
     }
 
+    @Override
+    public ShardableRenderer createShard() {
+        return new TextRenderer();
+    }
+
     @Override
     public void renderFileViolations(Iterator<RuleViolation> violations) throws IOException {
-        Writer writer = getWriter();
-        StringBuilder buf = new StringBuilder();
+        StreamEmitter out = getEmitter();
 
         while (violations.hasNext()) {
-            buf.setLength(0);
             RuleViolation rv = violations.next();
-            buf.append(rv.getFilename());
-            buf.append(':').append(Integer.toString(rv.getBeginLine()));
-            buf.append(":\t").append(rv.getDescription()).append(PMD.EOL);
-            writer.write(buf.toString());
+            out.append(rv.getFilename());
+            out.append(':').append(rv.getBeginLine());
+            out.append(":\t").append(rv.getDescription()).append(PMD.EOL);
         }
+        out.flush();
     }
 
     @Override
     public void end() throws IOException {
-        Writer writer = getWriter();
-        StringBuilder buf = new StringBuilder(500);
-        
+        StreamEmitter out = getEmitter();
+
         for (Report.ProcessingError error : errors) {
-            buf.setLength(0);
-            buf.append(error.getFile());
-            buf.append("\t-\t").append(error.getMsg()).append(PMD.EOL);
-            writer.write(buf.toString());
+            out.append(error.getFile());
+            out.append("\t-\t").append(error.getMsg()).append(PMD.EOL);
         }
 
         for (Report.SuppressedViolation excluded : suppressed) {
-            buf.setLength(0);
-            buf.append(excluded.getRuleViolation().getRule().getName());
-            buf.append(" rule violation suppressed by ");
-            buf.append(excluded.suppressedByNOPMD() ? "//NOPMD" : "Annotation");
-            buf.append(" in ").append(excluded.getRuleViolation().getFilename()).append(PMD.EOL);
-            writer.write(buf.toString());
+            out.append(excluded.getRuleViolation().getRule().getName());
+            out.append(" rule violation suppressed by ");
+            out.append(excluded.suppressedByNOPMD() ? "//NOPMD" : "Annotation");
+            out.append(" in ").append(excluded.getRuleViolation().getFilename()).append(PMD.EOL);
         }
-        
+
         for (Report.ConfigurationError error : configErrors) {
-            buf.setLength(0);
-            buf.append(error.rule().getName());
-            buf.append("\t-\t").append(error.issue()).append(PMD.EOL);
-            writer.write(buf.toString());
+            out.append(error.rule().getName());
+            out.append("\t-\t").append(error.issue()).append(PMD.EOL);
         }
+        out.flush();
     }
 
 }
@@ -5,7 +5,6 @@
 package net.sourceforge.pmd.renderers;
 
 import java.io.IOException;
-import java.io.Writer;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Iterator;
@@ -15,12 +14,11 @@ import net.sourceforge.pmd.PMDVersion;
 import net.sourceforge.pmd.Report;
 import net.sourceforge.pmd.RuleViolation;
 import net.sourceforge.pmd.properties.StringProperty;
-import net.sourceforge.pmd.util.StringUtil;
 
 /**
  * Renderer to XML format.
  */
-public class XMLRenderer extends AbstractIncrementingRenderer {
+public class XMLRenderer extends AbstractIncrementingRenderer implements ShardableRenderer {
 
     public static final String NAME = "xml";
 
@@ -51,134 +49,134 @@ public class XMLRenderer extends AbstractIncrementingRenderer {
             useUTF8 = true;
         }
 
-        Writer writer = getWriter();
-        StringBuilder buf = new StringBuilder(500);
-        buf.append("<?xml version=\"1.0\" encoding=\"" + encoding + "\"?>").append(PMD.EOL);
-        createVersionAttr(buf);
-        createTimestampAttr(buf);
+        StreamEmitter out = getEmitter();
+        out.append("<?xml version=\"1.0\" encoding=\"").append(encoding).append("\"?>").append(PMD.EOL);
+        createVersionAttr(out);
+        createTimestampAttr(out);
         // FIXME: elapsed time not available until the end of the processing
         // buf.append(createTimeElapsedAttr(report));
-        buf.append('>').append(PMD.EOL);
-        writer.write(buf.toString());
+        out.append('>').append(PMD.EOL);
+        out.flush();
+    }
+
+    @Override
+    public ShardableRenderer createShard() {
+        String encoding = getProperty(ENCODING);
+        XMLRenderer shard = new XMLRenderer(encoding);
+        // like start() does for this renderer, which may not have been started yet
+        shard.useUTF8 = "utf-8".equalsIgnoreCase(encoding);
+        return shard;
     }
 
     @Override
     public void renderFileViolations(Iterator<RuleViolation> violations) throws IOException {
-        Writer writer = getWriter();
-        StringBuilder buf = new StringBuilder(500);
+        StreamEmitter out = getEmitter();
         String filename = null;
 
         // rule violations
         while (violations.hasNext()) {
-            buf.setLength(0);
             RuleViolation rv = violations.next();
             if (!rv.getFilename().equals(filename)) {
                 // New File
                 if (filename != null) {
                     // Not first file ?
-                    buf.append("</file>").append(PMD.EOL);
+                    out.append("</file>").append(PMD.EOL);
                 }
                 filename = rv.getFilename();
-                buf.append("<file name=\"");
-                StringUtil.appendXmlEscaped(buf, filename, useUTF8);
-                buf.append("\">").append(PMD.EOL);
+                out.append("<file name=\"");
+                out.appendXmlEscaped(filename, useUTF8);
+                out.append("\">").append(PMD.EOL);
             }
 
-            buf.append("<violation beginline=\"").append(rv.getBeginLine());
-            buf.append("\" endline=\"").append(rv.getEndLine());
-            buf.append("\" begincolumn=\"").append(rv.getBeginColumn());
-            buf.append("\" endcolumn=\"").append(rv.getEndColumn());
-            buf.append("\" rule=\"");
-            StringUtil.appendXmlEscaped(buf, rv.getRule().getName(), useUTF8);
-            buf.append("\" ruleset=\"");
-            StringUtil.appendXmlEscaped(buf, rv.getRule().getRuleSetName(), useUTF8);
-            buf.append('"');
-            maybeAdd("package", rv.getPackageName(), buf);
-            maybeAdd("class", rv.getClassName(), buf);
-            maybeAdd("method", rv.getMethodName(), buf);
-            maybeAdd("variable", rv.getVariableName(), buf);
-            maybeAdd("externalInfoUrl", rv.getRule().getExternalInfoUrl(), buf);
-            buf.append(" priority=\"");
-            buf.append(rv.getRule().getPriority().getPriority());
-            buf.append("\">").append(PMD.EOL);
-            StringUtil.appendXmlEscaped(buf, rv.getDescription(), useUTF8);
-
-            buf.append(PMD.EOL);
-            buf.append("</violation>");
-            buf.append(PMD.EOL);
-            writer.write(buf.toString());
+            out.append("<violation beginline=\"").append(rv.getBeginLine());
+            out.append("\" endline=\"").append(rv.getEndLine());
+            out.append("\" begincolumn=\"").append(rv.getBeginColumn());
+            out.append("\" endcolumn=\"").append(rv.getEndColumn());
+            out.append("\" rule=\"");
+            out.appendXmlEscaped(rv.getRule().getName(), useUTF8);
+            out.append("\" ruleset=\"");
+            out.appendXmlEscaped(rv.getRule().getRuleSetName(), useUTF8);
+            out.append('"');
+            maybeAdd("package", rv.getPackageName(), out);
+            maybeAdd("class", rv.getClassName(), out);
+            maybeAdd("method", rv.getMethodName(), out);
+            maybeAdd("variable", rv.getVariableName(), out);
+            maybeAdd("externalInfoUrl", rv.getRule().getExternalInfoUrl(), out);
+            out.append(" priority=\"");
+            out.append(rv.getRule().getPriority().getPriority());
+            out.append("\">").append(PMD.EOL);
+            out.appendXmlEscaped(rv.getDescription(), useUTF8);
+
+            out.append(PMD.EOL);
+            out.append("</violation>");
+            out.append(PMD.EOL);
         }
         if (filename != null) { // Not first file ?
-            writer.write("</file>");
-            writer.write(PMD.EOL);
+            out.append("</file>");
+            out.append(PMD.EOL);
         }
+        out.flush();
     }
 
     @Override
     public void end() throws IOException {
-        Writer writer = getWriter();
-        StringBuilder buf = new StringBuilder(500);
+        StreamEmitter out = getEmitter();
         // errors
         for (Report.ProcessingError pe : errors) {
-            buf.setLength(0);
-            buf.append("<error ").append("filename=\"");
-            StringUtil.appendXmlEscaped(buf, pe.getFile(), useUTF8);
-            buf.append("\" msg=\"");
-            StringUtil.appendXmlEscaped(buf, pe.getMsg(), useUTF8);
-            buf.append("\">").append(PMD.EOL);
-            buf.append("<![CDATA[").append(pe.getDetail()).append("]]>").append(PMD.EOL);
-            buf.append("</error>").append(PMD.EOL);
-            writer.write(buf.toString());
+            out.append("<error ").append("filename=\"");
+            out.appendXmlEscaped(pe.getFile(), useUTF8);
+            out.append("\" msg=\"");
+            out.appendXmlEscaped(pe.getMsg(), useUTF8);
+            out.append("\">").append(PMD.EOL);
+            out.append("<![CDATA[").append(pe.getDetail()).append("]]>").append(PMD.EOL);
+            out.append("</error>").append(PMD.EOL);
         }
 
         // suppressed violations
         if (showSuppressedViolations) {
             for (Report.SuppressedViolation s : suppressed) {
-                buf.setLength(0);
-                buf.append("<suppressedviolation ").append("filename=\"");
-                StringUtil.appendXmlEscaped(buf, s.getRuleViolation().getFilename(), useUTF8);
-                buf.append("\" suppressiontype=\"");
-                StringUtil.appendXmlEscaped(buf, s.suppressedByNOPMD() ? "nopmd" : "annotation", useUTF8);
-                buf.append("\" msg=\"");
-                StringUtil.appendXmlEscaped(buf, s.getRuleViolation().getDescription(), useUTF8);
-                buf.append("\" usermsg=\"");
-                StringUtil.appendXmlEscaped(buf, s.getUserMessage() == null ? "" : s.getUserMessage(), useUTF8);
-                buf.append("\"/>").append(PMD.EOL);
-                writer.write(buf.toString());
+                out.append("<suppressedviolation ").append("filename=\"");
+                out.appendXmlEscaped(s.getRuleViolation().getFilename(), useUTF8);
+                out.append("\" suppressiontype=\"");
+                out.appendXmlEscaped(s.suppressedByNOPMD() ? "nopmd" : "annotation", useUTF8);
+                out.append("\" msg=\"");
+                out.appendXmlEscaped(s.getRuleViolation().getDescription(), useUTF8);
+                out.append("\" usermsg=\"");
+                out.appendXmlEscaped(s.getUserMessage() == null ? "" : s.getUserMessage(), useUTF8);
+                out.append("\"/>").append(PMD.EOL);
             }
         }
         
         // config errors
         for (final Report.ConfigurationError ce : configErrors) {
-            buf.setLength(0);
-            buf.append("<configerror ").append("rule=\"");
-            StringUtil.appendXmlEscaped(buf, ce.rule().getName(), useUTF8);
-            buf.append("\" msg=\"");
-            StringUtil.appendXmlEscaped(buf, ce.issue(), useUTF8);
-            buf.append("\"/>").append(PMD.EOL);
-            writer.write(buf.toString());
+            out.append("<configerror ").append("rule=\"");
+            out.appendXmlEscaped(ce.rule().getName(), useUTF8);
+            out.append("\" msg=\"");
+            out.appendXmlEscaped(ce.issue(), useUTF8);
+            out.append("\"/>").append(PMD.EOL);
         }
 
-        writer.write("</pmd>" + PMD.EOL);
+        out.append("</pmd>").append(PMD.EOL);
+        out.flush();
     }
 
-    private void maybeAdd(String attr, String value, StringBuilder buf) {
+    private void maybeAdd(String attr, String value, StreamEmitter out) throws IOException {
         if (value != null && value.length() > 0) {
-            buf.append(' ').append(attr).append("=\"");
-            StringUtil.appendXmlEscaped(buf, value, useUTF8);
-            buf.append('"');
+            out.append(' ').append(attr).append("=\"");
+            out.appendXmlEscaped(value, useUTF8);
+            out.append('"');
         }
     }
 
-    private void createVersionAttr(StringBuilder buffer) {
-        buffer.append("<pmd xmlns=\"http://pmd.sourceforge.net/report/2.0.0\"").append(PMD.EOL)
+    private void createVersionAttr(StreamEmitter out) throws IOException {
+        out.append("<pmd xmlns=\"http://pmd.sourceforge.net/report/2.0.0\"").append(PMD.EOL)
             .append("    xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"").append(PMD.EOL)
             .append("    xsi:schemaLocation=\"http://pmd.sourceforge.net/report/2.0.0 http://pmd.sourceforge.net/report_2_0_0.xsd\"").append(PMD.EOL)
             .append("    version=\"").append(PMDVersion.VERSION).append('"');
     }
 
-    private void createTimestampAttr(StringBuilder buffer) {
-        buffer.append(" timestamp=\"").append(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS").format(new Date()))
+    private void createTimestampAttr(StreamEmitter out) throws IOException {
+        out.append(" timestamp=\"").append(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS").format(new Date()))
                 .append('"');
     }
 
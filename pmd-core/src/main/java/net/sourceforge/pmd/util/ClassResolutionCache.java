@@ -0,0 +1,222 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import net.sourceforge.pmd.PMDVersion;
+import net.sourceforge.pmd.annotation.InternalApi;
+
+/**
+ * Results of class lookups on the auxclasspath, which are expensive to repeat:
+ * the names of the classes that can't be loaded, and the classes imported by
+ * a class, as found by parsing its bytecode.
+ *
+ * <p>The cache is backed by concurrent maps, so that threads never wait for each
+ * other to read or fill it. It can be persisted, and is then reused by the next
+ * runs as long as the auxclasspath, the PMD version and the Java version don't
+ * change.
+ *
+ * @since 6.13.0
+ */
+@InternalApi
+public final class ClassResolutionCache {
+
+    private static final Logger LOG = Logger.getLogger(ClassResolutionCache.class.getName());
+
+    private static final int MAGIC = 0x504D4452; // "PMDR"
+    private static final int FORMAT_VERSION = 1;
+
+    private final ConcurrentMap<String, Boolean> unresolvable = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Map<String, String>> importedClasses = new ConcurrentHashMap<>();
+    private final File file;
+    private final long classpathChecksum;
+    private volatile boolean modified;
+
+    /**
+     * Creates an empty cache, which is not persisted.
+     */
+    public ClassResolutionCache() {
+        this(null, 0);
+    }
+
+    private ClassResolutionCache(final File file, final long classpathChecksum) {
+        this.file = file;
+        this.classpathChecksum = classpathChecksum;
+    }
+
+    /**
+     * Returns the name of the file where the cache of the given classpath is
+     * persisted. The name is derived from the entries of the classpath, so that
+     * projects sharing the same directory don't overwrite each other's cache.
+     *
+     * @param classpath The entries of the classpath
+     * @return The file name
+     */
+    static String fileName(final URL[] classpath) {
+        long hash = classpath.length;
+        for (final URL url : classpath) {
+            // not URL.hashCode, which may resolve the host name
+            hash = 31 * hash + url.toString().hashCode();
+        }
+        return "resolution-" + Long.toHexString(hash) + ".cache";
+    }
+
+    /**
+     * Loads the cache persisted in the given file. If the file doesn't exist,
+     * or was written for another classpath, the cache starts empty.
+     *
+     * @param file The file where the cache is persisted
+     * @param classpathChecksum The checksum of the contents of the auxclasspath
+     * @return The cache
+     */
+    public static ClassResolutionCache load(final File file, final long classpathChecksum) {
+        final ClassResolutionCache cache = new ClassResolutionCache(file, classpathChecksum);
+        if (!file.isFile()) {
+            return cache;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file.toPath())))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION
+                    || !PMDVersion.VERSION.equals(in.readUTF())
+                    || !System.getProperty("java.version").equals(in.readUTF())
+                    || in.readLong() != classpathChecksum) {
+                LOG.fine("Class resolution cache invalidated, the auxclasspath changed");
+                return cache;
+            }
+
+            final int unresolvableCount = in.readInt();
+            for (int i = 0; i < unresolvableCount; i++) {
+                cache.unresolvable.put(in.readUTF(), Boolean.TRUE);
+            }
+            final int importedCount = in.readInt();
+            for (int i = 0; i < importedCount; i++) {
+                final String className = in.readUTF();
+                final int size = in.readInt();
+                final Map<String, String> imports = new HashMap<>();
+                for (int j = 0; j < size; j++) {
+                    imports.put(in.readUTF(), in.readUTF());
+                }
+                cache.importedClasses.put(className, Collections.unmodifiableMap(imports));
+            }
+        } catch (final IOException e) {
+            LOG.log(Level.WARNING, "Could not load the class resolution cache " + file, e);
+            cache.unresolvable.clear();
+            cache.importedClasses.clear();
+        }
+        return cache;
+    }
+
+    /**
+     * Checks whether the given class is known not to be loadable.
+     *
+     * @param className The binary name of the class
+     * @return True if loading the class failed before
+     */
+    public boolean isUnresolvable(final String className) {
+        return unresolvable.containsKey(className);
+    }
+
+    /**
+     * Records that the given class can't be loaded.
+     *
+     * @param className The binary name of the class
+     */
+    public void addUnresolvable(final String className) {
+        if (unresolvable.put(className, Boolean.TRUE) == null) {
+            modified = true;
+        }
+    }
+
+    /**
+     * Returns the classes imported by the given class.
+     *
+     * @param className The binary name of the class
+     * @return The imported classes, by simple name, or null if they are not cached
+     */
+    public Map<String, String> getImportedClasses(final String className) {
+        return importedClasses.get(className);
+    }
+
+    /**
+     * Caches the classes imported by the given class. If another thread cached
+     * them in the meantime, its result is kept.
+     *
+     * @param className The binary name of the class
+     * @param imports The imported classes, by simple name
+     * @return The cached imported classes, which can't be modified
+     */
+    public Map<String, String> putImportedClasses(final String className, final Map<String, String> imports) {
+        final Map<String, String> cached = Collections.unmodifiableMap(new HashMap<>(imports));
+        final Map<String, String> previous = importedClasses.putIfAbsent(className, cached);
+        if (previous != null) {
+            return previous;
+        }
+        modified = true;
+        return cached;
+    }
+
+    /**
+     * Writes the cache to its file, if it is persistent and changed since it was loaded.
+     */
+    public void persist() {
+        if (file == null || !modified) {
+            return;
+        }
+
+        File tmp = null;
+        try {
+            // write to a temporary file first, so that concurrent runs never read a partial cache
+            tmp = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp.toPath())))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(PMDVersion.VERSION);
+                out.writeUTF(System.getProperty("java.version"));
+                out.writeLong(classpathChecksum);
+
+                // the maps are only weakly consistent, write snapshots so that the counts match
+                final String[] names = unresolvable.keySet().toArray(new String[0]);
+                out.writeInt(names.length);
+                for (final String name : names) {
+                    out.writeUTF(name);
+                }
+                final Map<String, Map<String, String>> imported = new HashMap<>(importedClasses);
+                out.writeInt(imported.size());
+                for (final Map.Entry<String, Map<String, String>> entry : imported.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeInt(entry.getValue().size());
+                    for (final Map.Entry<String, String> importEntry : entry.getValue().entrySet()) {
+                        out.writeUTF(importEntry.getKey());
+                        out.writeUTF(importEntry.getValue());
+                    }
+                }
+            }
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            modified = false;
+        } catch (final IOException e) {
+            LOG.log(Level.WARNING, "Could not persist the class resolution cache " + file, e);
+        } finally {
+            if (tmp != null && tmp.exists() && !tmp.delete()) {
+                tmp.deleteOnExit();
+            }
+        }
+    }
+}
@@ -13,6 +13,7 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.StringTokenizer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -29,6 +30,11 @@ import org.apache.commons.lang3.StringUtils;
 public class ClasspathClassLoader extends URLClassLoader {
 
     private static final Logger LOG = Logger.getLogger(ClasspathClassLoader.class.getName());
+
+    private File symbolIndexDirectory;
+    private volatile ClasspathSymbolIndex symbolIndex;
+    private volatile boolean symbolIndexEnabled;
+    private ClassResolutionCache resolutionCache;
     
     static {
         registerAsParallelCapable();
@@ -95,6 +101,81 @@ public class ClasspathClassLoader extends URLClassLoader {
         return file.getAbsoluteFile().toURI().toURL();
     }
 
+    /**
+     * Enables the symbol index of the classpath of this class loader. The index
+     * is built on the first call to {@link #getSymbolIndex()}.
+     *
+     * @param indexDirectory The directory where the indexes of jars are persisted
+     *                       and reused across runs, or null if they shouldn't be persisted
+     *
+     * @since 6.13.0
+     */
+    public synchronized void enableSymbolIndex(File indexDirectory) {
+        if (!Objects.equals(symbolIndexDirectory, indexDirectory)) {
+            symbolIndex = null;
+            resolutionCache = null;
+        }
+        symbolIndexDirectory = indexDirectory;
+        symbolIndexEnabled = true;
+    }
+
+    /**
+     * Returns the symbol index of the classpath of this class loader, which allows
+     * to query the classes without loading them. The index doesn't cover the parent
+     * class loader.
+     *
+     * @return The index, or null if it was not enabled with {@link #enableSymbolIndex(File)}
+     *
+     * @since 6.13.0
+     */
+    public ClasspathSymbolIndex getSymbolIndex() {
+        // type resolution asks for the index on each type check, so it is
+        // only read without locking once built
+        ClasspathSymbolIndex index = symbolIndex;
+        if (index == null && symbolIndexEnabled) {
+            synchronized (this) {
+                if (symbolIndexEnabled && symbolIndex == null) {
+                    symbolIndex = ClasspathSymbolIndex.create(getURLs(), symbolIndexDirectory);
+                }
+                index = symbolIndex;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the cache of the class lookups done on this class loader. If the
+     * symbol index is persisted, see {@link #enableSymbolIndex(File)}, the cache
+     * is persisted next to it when this class loader is closed, in a file named
+     * after the classpath, and reused by the next runs as long as the classpath
+     * doesn't change.
+     *
+     * @return The cache
+     *
+     * @since 6.13.0
+     */
+    public synchronized ClassResolutionCache getResolutionCache() {
+        if (resolutionCache == null) {
+            if (symbolIndexEnabled && symbolIndexDirectory != null) {
+                File file = new File(symbolIndexDirectory, ClassResolutionCache.fileName(getURLs()));
+                resolutionCache = ClassResolutionCache.load(file, getSymbolIndex().getChecksum());
+            } else {
+                resolutionCache = new ClassResolutionCache();
+            }
+        }
+        return resolutionCache;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (resolutionCache != null) {
+                resolutionCache.persist();
+            }
+        }
+        super.close();
+    }
+
     @Override
     public String toString() {
         return new StringBuilder(getClass().getSimpleName())
@@ -0,0 +1,596 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Adler32;
+import java.util.zip.CheckedInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.SystemUtils;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Opcodes;
+
+import net.sourceforge.pmd.annotation.Experimental;
+
+/**
+ * Read-only index of the classes of a classpath, built from their bytecode
+ * with ASM. Unlike a class loader, the index never loads, links or initializes
+ * the classes it describes.
+ *
+ * <p>Each jar of the classpath is indexed separately. When an index directory
+ * is given, the index of a jar is persisted there, under a name derived from
+ * the checksum of the jar, and later runs memory-map it instead of scanning
+ * the jar again. Directories are scanned on every run, as they usually contain
+ * the output of the build being analyzed.
+ *
+ * <p>Java type resolution only uses the index to find out whether a class
+ * exists, or to compare classes by name. The types it resolves, their members
+ * and the overload resolution of methods are still based on loaded classes.
+ *
+ * <p>Layout of an index file (big-endian):
+ * <pre>
+ * header     magic, format version, class count, string count
+ * classes    name and offset of the record of each class, sorted by name
+ * strings    offset of each entry of the string table
+ * records    access flags, super class and interfaces of each class.
+ *            Strings are ids in the string table, -1 stands for null.
+ * string table
+ * </pre>
+ *
+ * @since 6.13.0
+ */
+@Experimental
+public final class ClasspathSymbolIndex {
+
+    private static final Logger LOG = Logger.getLogger(ClasspathSymbolIndex.class.getName());
+
+    private static final int MAGIC = 0x504D4449; // "PMDI"
+    private static final int FORMAT_VERSION = 2;
+    private static final int NO_STRING = -1;
+    private static final int HEADER_SIZE = 16;
+    private static final int PARSING_OPTIONS = ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES;
+
+    private final List<Segment> segments;
+
+    private ClasspathSymbolIndex(final List<Segment> segments) {
+        this.segments = segments;
+    }
+
+    /**
+     * Creates the index of the given classpath entries. Entries that don't exist
+     * or can't be read are skipped.
+     *
+     * @param classpath The entries of the classpath, in lookup order
+     * @param indexDirectory The directory where the indexes of jars are persisted,
+     *                       or null if they shouldn't be persisted
+     * @return The index
+     */
+    public static ClasspathSymbolIndex create(final URL[] classpath, final File indexDirectory) {
+        if (indexDirectory != null && !indexDirectory.isDirectory() && !indexDirectory.mkdirs()) {
+            LOG.warning("Could not create auxclasspath index directory " + indexDirectory);
+        }
+
+        final List<Segment> segments = new ArrayList<>(classpath.length);
+        for (final URL url : classpath) {
+            final File entry;
+            try {
+                entry = new File(url.toURI());
+            } catch (final URISyntaxException | IllegalArgumentException e) {
+                LOG.warning("Can't index auxclasspath entry " + url + ", ignoring it");
+                continue;
+            }
+
+            try {
+                if (entry.isDirectory()) {
+                    segments.add(indexDirectory(entry.toPath()));
+                } else if (entry.isFile()) {
+                    segments.add(indexJar(entry, indexDirectory));
+                } else {
+                    LOG.warning("Auxclasspath entry " + entry + " doesn't exist, ignoring it");
+                }
+            } catch (final IOException e) {
+                LOG.log(Level.WARNING, "Can't index auxclasspath entry " + entry + ", ignoring it", e);
+            }
+        }
+        return new ClasspathSymbolIndex(segments);
+    }
+
+    /**
+     * Returns a checksum of the contents of the indexed classpath. It changes
+     * whenever a jar or a class file of the classpath changes.
+     *
+     * @return The checksum
+     */
+    public long getChecksum() {
+        long checksum = segments.size();
+        for (final Segment segment : segments) {
+            checksum = 31 * checksum + segment.checksum;
+        }
+        return checksum;
+    }
+
+    /**
+     * Computes the checksum of the contents of the given classpath entries,
+     * without indexing them. It's the same as the {@link #getChecksum() checksum}
+     * of the index of these entries. Entries that don't exist or can't be read
+     * are skipped.
+     *
+     * @param classpath The entries of the classpath, in lookup order
+     * @return The checksum
+     */
+    public static long computeChecksum(final URL[] classpath) {
+        final List<Long> checksums = new ArrayList<>(classpath.length);
+        for (final URL url : classpath) {
+            try {
+                final File entry = new File(url.toURI());
+                if (entry.isDirectory()) {
+                    checksums.add(checksumDirectory(entry.toPath()));
+                } else if (entry.isFile()) {
+                    checksums.add(checksum(entry));
+                }
+            } catch (final URISyntaxException | IllegalArgumentException | IOException e) {
+                LOG.log(Level.FINE, "Can't read auxclasspath entry " + url + ", ignoring it", e);
+            }
+        }
+
+        long checksum = checksums.size();
+        for (final long entryChecksum : checksums) {
+            checksum = 31 * checksum + entryChecksum;
+        }
+        return checksum;
+    }
+
+    /**
+     * Returns whether the given class is on the indexed classpath.
+     *
+     * @param binaryName The binary name of the class, e.g. {@code java.util.Map$Entry}
+     * @return True if the class is known
+     */
+    public boolean contains(final String binaryName) {
+        return getClassSymbol(binaryName) != null;
+    }
+
+    /**
+     * Finds the given class. If several classpath entries define it, the first
+     * one wins, like for a class loader.
+     *
+     * @param binaryName The binary name of the class, e.g. {@code java.util.Map$Entry}
+     * @return The class, or null if it isn't on the indexed classpath
+     */
+    public ClassSymbol getClassSymbol(final String binaryName) {
+        for (final Segment segment : segments) {
+            final ClassSymbol symbol = segment.find(binaryName);
+            if (symbol != null) {
+                return symbol;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether the first class is the second one or one of its subtypes.
+     * Only the indexed classpath is searched: if the hierarchy of the class leaves
+     * it (e.g. to extend a class of the JDK), the unknown part is not explored.
+     *
+     * @param binaryName The binary name of the potential subtype
+     * @param superTypeName The binary name of the potential supertype
+     * @return True if the subtype relation could be established from the index
+     */
+    public boolean isSubtype(final String binaryName, final String superTypeName) {
+        final Set<String> visited = new HashSet<>();
+        final List<String> pending = new ArrayList<>();
+        pending.add(binaryName);
+        while (!pending.isEmpty()) {
+            final String name = pending.remove(pending.size() - 1);
+            if (name.equals(superTypeName)) {
+                return true;
+            }
+            if (!visited.add(name)) {
+                continue;
+            }
+            final ClassSymbol symbol = getClassSymbol(name);
+            if (symbol != null) {
+                if (symbol.getSuperName() != null) {
+                    pending.add(symbol.getSuperName());
+                }
+                pending.addAll(symbol.getInterfaceNames());
+            }
+        }
+        return false;
+    }
+
+    private static Segment indexJar(final File jar, final File indexDirectory) throws IOException {
+        final long checksum = checksum(jar);
+        if (indexDirectory == null) {
+            return new Segment(ByteBuffer.wrap(scanJar(jar)), checksum);
+        }
+
+        final File indexFile = new File(indexDirectory, jar.getName() + '-' + Long.toHexString(checksum) + ".idx");
+        if (indexFile.isFile()) {
+            try {
+                return new Segment(map(indexFile), checksum);
+            } catch (final IOException e) {
+                LOG.log(Level.FINE, "Ignoring unreadable auxclasspath index " + indexFile, e);
+            }
+        }
+
+        final byte[] index = scanJar(jar);
+        if (indexDirectory.isDirectory()) {
+            // write to a temporary file first, so that concurrent runs never map a partial index
+            final File tmp = File.createTempFile(indexFile.getName(), ".tmp", indexDirectory);
+            try {
+                Files.write(tmp.toPath(), index);
+                Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } catch (final IOException e) {
+                LOG.log(Level.WARNING, "Could not persist the auxclasspath index of " + jar, e);
+            } finally {
+                Files.deleteIfExists(tmp.toPath());
+            }
+        }
+        return new Segment(ByteBuffer.wrap(index), checksum);
+    }
+
+    private static long checksum(final File file) throws IOException {
+        final Adler32 adler32 = new Adler32();
+        try (CheckedInputStream inputStream = new CheckedInputStream(Files.newInputStream(file.toPath()), adler32)) {
+            // Just read it, the CheckedInputStream will update the checksum on it's own
+            while (IOUtils.skip(inputStream, Long.MAX_VALUE) == Long.MAX_VALUE) {
+                // just loop
+            }
+        }
+        return adler32.getValue();
+    }
+
+    /**
+     * Maps the given index file, except on Windows, where a mapped file could
+     * not be replaced by another run. It is then read in memory instead.
+     */
+    private static ByteBuffer map(final File indexFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+            final ByteBuffer buffer;
+            if (SystemUtils.IS_OS_WINDOWS) {
+                buffer = ByteBuffer.allocate((int) channel.size());
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // keep reading
+                }
+                buffer.flip();
+            } else {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                throw new IOException("unsupported index format");
+            }
+            return buffer;
+        }
+    }
+
+    private static byte[] scanJar(final File jar) throws IOException {
+        final IndexWriter writer = new IndexWriter();
+        try (JarFile jarFile = new JarFile(jar)) {
+            final Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                final JarEntry entry = entries.nextElement();
+                if (isClassFile(entry.getName())) {
+                    try (InputStream in = jarFile.getInputStream(entry)) {
+                        writer.add(in);
+                    }
+                }
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    private static Segment indexDirectory(final Path directory) throws IOException {
+        final IndexWriter writer = new IndexWriter();
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                if (isClassFile(file.getFileName().toString())) {
+                    try (InputStream in = Files.newInputStream(file)) {
+                        writer.add(in);
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return new Segment(ByteBuffer.wrap(writer.toByteArray()), writer.contentChecksum);
+    }
+
+    private static long checksumDirectory(final Path directory) throws IOException {
+        final long[] checksum = new long[1];
+        Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                if (isClassFile(file.getFileName().toString())) {
+                    // the order of the files is not significant, like in IndexWriter
+                    checksum[0] += checksum(file.toFile());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return checksum[0];
+    }
+
+    private static boolean isClassFile(final String path) {
+        return path.endsWith(".class") && !path.endsWith("module-info.class") && !path.startsWith("META-INF/");
+    }
+
+    private static String binaryName(final String internalName) {
+        return internalName == null ? null : internalName.replace('/', '.');
+    }
+
+    /**
+     * A class of the index. Its attributes are decoded on access.
+     */
+    public static final class ClassSymbol {
+
+        private final Segment segment;
+        private final String name;
+        private final int record;
+
+        private ClassSymbol(final Segment segment, final String name, final int record) {
+            this.segment = segment;
+            this.name = name;
+            this.record = record;
+        }
+
+        /**
+         * Returns the binary name of the class.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the access flags of the class, see {@link Opcodes}.
+         */
+        public int getAccess() {
+            return segment.buffer.getInt(record);
+        }
+
+        /**
+         * Returns the binary name of the super class, or null for {@link Object}.
+         */
+        public String getSuperName() {
+            return segment.getString(segment.buffer.getInt(record + 4));
+        }
+
+        /**
+         * Returns the binary names of the interfaces directly implemented by this class.
+         */
+        public List<String> getInterfaceNames() {
+            final int count = segment.buffer.getInt(record + 8);
+            final List<String> interfaces = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                interfaces.add(segment.getString(segment.buffer.getInt(record + 12 + 4 * i)));
+            }
+            return interfaces;
+        }
+
+        @Override
+        public String toString() {
+            return "ClassSymbol[" + name + ']';
+        }
+    }
+
+    /**
+     * The index of a single classpath entry.
+     */
+    private static final class Segment {
+
+        private final ByteBuffer buffer;
+        private final long checksum;
+        private final int classCount;
+        private final int stringOffsetsStart;
+        // Decoded strings, filled on demand. Strings are immutable, so racy publication is fine
+        private final String[] strings;
+
+        Segment(final ByteBuffer buffer, final long checksum) {
+            this.buffer = buffer;
+            this.checksum = checksum;
+            this.classCount = buffer.getInt(8);
+            this.stringOffsetsStart = HEADER_SIZE + 8 * classCount;
+            this.strings = new String[buffer.getInt(12)];
+        }
+
+        ClassSymbol find(final String binaryName) {
+            int low = 0;
+            int high = classCount - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                final int entry = HEADER_SIZE + 8 * mid;
+                final String name = getString(buffer.getInt(entry));
+                final int cmp = name.compareTo(binaryName);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return new ClassSymbol(this, name, buffer.getInt(entry + 4));
+                }
+            }
+            return null;
+        }
+
+        String getString(final int id) {
+            if (id == NO_STRING) {
+                return null;
+            }
+            String string = strings[id];
+            if (string == null) {
+                final int offset = buffer.getInt(stringOffsetsStart + 4 * id);
+                final byte[] bytes = new byte[buffer.getInt(offset)];
+                final ByteBuffer view = buffer.duplicate();
+                view.position(offset + 4);
+                view.get(bytes);
+                string = new String(bytes, StandardCharsets.UTF_8);
+                strings[id] = string;
+            }
+            return string;
+        }
+    }
+
+    /**
+     * Collects the classes of a classpath entry and encodes them.
+     */
+    private static final class IndexWriter {
+
+        private final Map<String, Integer> stringIds = new HashMap<>();
+        private final List<byte[]> strings = new ArrayList<>();
+        // sorted by name, the first definition of a class wins
+        private final Map<String, int[]> classes = new TreeMap<>();
+        private long contentChecksum;
+
+        void add(final InputStream classFile) throws IOException {
+            final byte[] bytes = IOUtils.toByteArray(classFile);
+            final Adler32 adler32 = new Adler32();
+            adler32.update(bytes, 0, bytes.length);
+            // the order of the files is not significant
+            contentChecksum += adler32.getValue();
+
+            final ClassReader reader;
+            try {
+                reader = new ClassReader(bytes);
+            } catch (final IllegalArgumentException e) {
+                // unsupported class file version, or not a class file
+                LOG.log(Level.FINE, "Skipping unreadable class file", e);
+                return;
+            }
+            final RecordVisitor visitor = new RecordVisitor();
+            reader.accept(visitor, PARSING_OPTIONS);
+            if (visitor.name != null && !classes.containsKey(visitor.name)) {
+                classes.put(visitor.name, visitor.toRecord());
+            }
+        }
+
+        int idOf(final String string) {
+            if (string == null) {
+                return NO_STRING;
+            }
+            Integer id = stringIds.get(string);
+            if (id == null) {
+                id = strings.size();
+                stringIds.put(string, id);
+                strings.add(string.getBytes(StandardCharsets.UTF_8));
+            }
+            return id;
+        }
+
+        byte[] toByteArray() throws IOException {
+            // names are interned before the offsets of the tables can be computed
+            final int[] nameIds = new int[classes.size()];
+            int i = 0;
+            int recordsSize = 0;
+            for (final Map.Entry<String, int[]> entry : classes.entrySet()) {
+                nameIds[i++] = idOf(entry.getKey());
+                recordsSize += 4 * entry.getValue().length;
+            }
+
+            final int recordsStart = HEADER_SIZE + 8 * classes.size() + 4 * strings.size();
+            final int stringsStart = recordsStart + recordsSize;
+
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream(stringsStart + 32 * strings.size());
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(classes.size());
+                out.writeInt(strings.size());
+
+                i = 0;
+                int recordOffset = recordsStart;
+                for (final int[] record : classes.values()) {
+                    out.writeInt(nameIds[i++]);
+                    out.writeInt(recordOffset);
+                    recordOffset += 4 * record.length;
+                }
+
+                int stringOffset = stringsStart;
+                for (final byte[] string : strings) {
+                    out.writeInt(stringOffset);
+                    stringOffset += 4 + string.length;
+                }
+
+                for (final int[] record : classes.values()) {
+                    for (final int value : record) {
+                        out.writeInt(value);
+                    }
+                }
+
+                for (final byte[] string : strings) {
+                    out.writeInt(string.length);
+                    out.write(string);
+                }
+            }
+            return bytes.toByteArray();
+        }
+
+        /**
+         * Builds the record of a class, as it is laid out in the index.
+         */
+        private final class RecordVisitor extends ClassVisitor {
+
+            private String name;
+            private final List<Integer> record = new ArrayList<>();
+
+            RecordVisitor() {
+                super(Opcodes.ASM7);
+            }
+
+            @Override
+            public void visit(final int version, final int access, final String name, final String signature,
+                    final String superName, final String[] interfaces) {
+                this.name = binaryName(name);
+                record.add(access);
+                record.add(idOf(binaryName(superName)));
+                record.add(interfaces == null ? 0 : interfaces.length);
+                if (interfaces != null) {
+                    for (final String itf : interfaces) {
+                        record.add(idOf(binaryName(itf)));
+                    }
+                }
+            }
+
+            int[] toRecord() {
+                final int[] values = new int[record.size()];
+                int i = 0;
+                for (final int value : record) {
+                    values[i++] = value;
+                }
+                return values;
+            }
+        }
+    }
+}
@@ -0,0 +1,306 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.RuleSet.RuleSetBuilder;
+import net.sourceforge.pmd.lang.DummyLanguageModule;
+import net.sourceforge.pmd.lang.Language;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.ast.DummyNode;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.MockRule;
+import net.sourceforge.pmd.lang.rule.NotParallelizable;
+import net.sourceforge.pmd.stat.Metric;
+
+public class ParallelRuleApplierTest {
+
+    private static final Language DUMMY = LanguageRegistry.getLanguage(DummyLanguageModule.NAME);
+
+    @Test
+    public void testPartitionsAreBalancedAndExcludeSequentialRules() {
+        RuleSets ruleSets = createRuleSets(7, 2);
+
+        List<RuleSets> partitions = ruleSets.getParallelPartitions(3);
+        assertEquals(3, partitions.size());
+        assertEquals(3, partitions.get(0).ruleCount());
+        assertEquals(2, partitions.get(1).ruleCount());
+        assertEquals(2, partitions.get(2).ruleCount());
+        assertEquals(2, ruleSets.getSequentialRules().ruleCount());
+
+        assertSame("Partitions should be reused", partitions, ruleSets.getParallelPartitions(3));
+    }
+
+    @Test
+    public void testNoEmptyPartitions() {
+        RuleSets ruleSets = createRuleSets(2, 0);
+
+        assertEquals(2, ruleSets.getParallelPartitions(4).size());
+        assertEquals(0, ruleSets.getSequentialRules().ruleCount());
+    }
+
+    @Test
+    public void testAllViolationsAreMergedIntoFileReport() {
+        RuleSets ruleSets = createRuleSets(9, 2);
+        RuleContext ctx = createContext(true);
+        final AtomicInteger notified = new AtomicInteger();
+        ctx.getReport().addListener(new ThreadSafeReportListener() {
+            @Override
+            public void ruleViolationAdded(RuleViolation ruleViolation) {
+                notified.incrementAndGet();
+            }
+
+            @Override
+            public void metricAdded(Metric metric) {
+                // not used
+            }
+        });
+
+        apply(4, ruleSets, ctx, DUMMY);
+
+        assertEquals(11, ctx.getReport().size());
+        assertEquals(11, notified.get());
+    }
+
+    @Test
+    public void testSequentialRulesRunOnCallingThreadAfterOthers() {
+        RuleSets ruleSets = createRuleSets(6, 1);
+        RuleContext ctx = createContext(true);
+
+        apply(3, ruleSets, ctx, DUMMY);
+
+        SequentialRule sequential = (SequentialRule) ruleSets.getSequentialRules().getAllRules().iterator().next();
+        assertSame(Thread.currentThread(), sequential.thread);
+        assertEquals("All the other rules should be done", 6, sequential.violationsBefore);
+    }
+
+    @Test
+    public void testExceptionsInWorkersAreReported() {
+        RuleSets ruleSets = new RuleSets(createRuleSetBuilder()
+                .addRule(new ViolatingRule("first"))
+                .addRule(new FailingRule())
+                .build());
+        RuleContext ctx = createContext(true);
+
+        apply(2, ruleSets, ctx, DUMMY);
+
+        assertEquals(1, ctx.getReport().size());
+        assertTrue(ctx.getReport().hasErrors());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testExceptionsInWorkersAreThrownIfNotIgnored() {
+        RuleSets ruleSets = new RuleSets(createRuleSetBuilder()
+                .addRule(new ViolatingRule("first"))
+                .addRule(new FailingRule())
+                .build());
+
+        apply(2, ruleSets, createContext(false), DUMMY);
+    }
+
+    @Test
+    public void testPartitionsShareTheAst() {
+        RuleSets ruleSets = new RuleSets(createRuleSetBuilder()
+                .addRule(new AstRecordingRule("first"))
+                .addRule(new AstRecordingRule("second"))
+                .addRule(new AstRecordingRule("third"))
+                .build());
+        List<Node> acus = makeCompilationUnits();
+
+        ParallelRuleApplier applier = new ParallelRuleApplier(3);
+        try {
+            applier.apply(acus, ruleSets, createContext(true), DUMMY);
+        } finally {
+            applier.close();
+        }
+
+        Set<Node> asts = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+        for (Rule rule : ruleSets.getAllRules()) {
+            asts.add(((AstRecordingRule) rule).ast);
+        }
+        assertEquals("The AST should only be parsed once", 1, asts.size());
+        assertTrue("The partitions should use the given AST", asts.contains(acus.get(0)));
+    }
+
+    @Test
+    public void testFailureWaitsForRunningPartitions() {
+        final SlowRule slowRule = new SlowRule();
+        RuleSets ruleSets = new RuleSets(createRuleSetBuilder()
+                .addRule(new FailingRule() {
+                    @Override
+                    public void apply(List<? extends Node> nodes, RuleContext ctx) {
+                        // only fail once the other partition is running
+                        try {
+                            slowRule.started.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        super.apply(nodes, ctx);
+                    }
+                })
+                .addRule(slowRule)
+                .build());
+
+        try {
+            apply(2, ruleSets, createContext(false), DUMMY);
+            fail("The failure of the calling thread should be thrown");
+        } catch (IllegalStateException e) {
+            assertTrue("The other partition should be done", slowRule.done);
+        }
+    }
+
+    @Test
+    public void testSameViolationsAsSequentialApplication() {
+        RuleContext sequentialCtx = createContext(true);
+        createRuleSets(5, 1).apply(makeCompilationUnits(), sequentialCtx, DUMMY);
+
+        RuleContext parallelCtx = createContext(true);
+        apply(3, createRuleSets(5, 1), parallelCtx, DUMMY);
+
+        List<String> expected = new ArrayList<>();
+        for (RuleViolation violation : sequentialCtx.getReport()) {
+            expected.add(violation.getRule().getName());
+        }
+        List<String> actual = new ArrayList<>();
+        for (RuleViolation violation : parallelCtx.getReport()) {
+            actual.add(violation.getRule().getName());
+        }
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, actual);
+    }
+
+    private void apply(int threads, RuleSets ruleSets, RuleContext ctx, Language language) {
+        ParallelRuleApplier applier = new ParallelRuleApplier(threads);
+        try {
+            applier.apply(makeCompilationUnits(), ruleSets, ctx, language);
+        } finally {
+            applier.close();
+        }
+    }
+
+    private RuleSets createRuleSets(int parallelRules, int sequentialRules) {
+        RuleSetBuilder builder = createRuleSetBuilder();
+        for (int i = 0; i < parallelRules; i++) {
+            builder.addRule(new ViolatingRule("rule" + i));
+        }
+        for (int i = 0; i < sequentialRules; i++) {
+            builder.addRule(new SequentialRule("sequential" + i));
+        }
+        return new RuleSets(builder.build());
+    }
+
+    private RuleSetBuilder createRuleSetBuilder() {
+        return new RuleSetBuilder(new Random().nextLong())
+                .withName("parallel")
+                .withDescription("Description for parallel");
+    }
+
+    private RuleContext createContext(boolean ignoreExceptions) {
+        RuleContext ctx = new RuleContext();
+        ctx.setReport(new Report());
+        ctx.setLanguageVersion(DUMMY.getDefaultVersion());
+        ctx.setSourceCodeFilename(ParallelRuleApplierTest.class.getName());
+        ctx.setIgnoreExceptions(ignoreExceptions);
+        return ctx;
+    }
+
+    private static List<Node> makeCompilationUnits() {
+        DummyNode node = new DummyNode(1);
+        node.testingOnlySetBeginLine(1);
+        node.testingOnlySetBeginColumn(1);
+        node.setImage("Foo");
+        return Collections.<Node>singletonList(node);
+    }
+
+    private static class ViolatingRule extends MockRule {
+        ViolatingRule(String name) {
+            super(name, "desc", "msg", "parallel");
+        }
+
+        @Override
+        public void apply(List<? extends Node> nodes, RuleContext ctx) {
+            for (Node node : nodes) {
+                addViolationWithMessage(ctx, node, "Violation of " + getName());
+            }
+        }
+    }
+
+    @NotParallelizable
+    private static class SequentialRule extends ViolatingRule {
+        private Thread thread;
+        private int violationsBefore;
+
+        SequentialRule(String name) {
+            super(name);
+        }
+
+        @Override
+        public void apply(List<? extends Node> nodes, RuleContext ctx) {
+            thread = Thread.currentThread();
+            violationsBefore = ctx.getReport().size();
+            super.apply(nodes, ctx);
+        }
+    }
+
+    private static class FailingRule extends MockRule {
+        FailingRule() {
+            super("failing", "desc", "msg", "parallel");
+        }
+
+        @Override
+        public void apply(List<? extends Node> nodes, RuleContext ctx) {
+            throw new IllegalStateException("Test exception while applying rule");
+        }
+    }
+
+    private static class AstRecordingRule extends MockRule {
+        private Node ast;
+
+        AstRecordingRule(String name) {
+            super(name, "desc", "msg", "parallel");
+        }
+
+        @Override
+        public void apply(List<? extends Node> nodes, RuleContext ctx) {
+            ast = nodes.get(0);
+        }
+    }
+
+    private static class SlowRule extends MockRule {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private volatile boolean done;
+
+        SlowRule() {
+            super("slow", "desc", "msg", "parallel");
+        }
+
+        @Override
+        public void apply(List<? extends Node> nodes, RuleContext ctx) {
+            started.countDown();
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done = true;
+        }
+    }
+}
@@ -10,8 +10,12 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -167,6 +171,103 @@ public class ReportTest implements ThreadSafeReportListener {
         assertEquals(2, treeCount);
     }
 
+    @Test
+    public void testMergeIsSorted() {
+        Random random = new Random(42);
+        Rule rule = new MockRule("name", "desc", "msg", "rulesetname");
+        Node[] nodes = createNodes(20);
+        Report report = new Report();
+        List<RuleViolation> expected = new ArrayList<>();
+        for (int f = 0; f < 50; f++) {
+            Report fileReport = new Report();
+            RuleContext ctx = new RuleContext();
+            ctx.setSourceCodeFilename("file" + random.nextInt(30));
+            for (int i = random.nextInt(10); i > 0; i--) {
+                RuleViolation violation = new ParametricRuleViolation<>(rule, ctx, nodes[random.nextInt(nodes.length)], "msg");
+                fileReport.addRuleViolation(violation);
+                expected.add(violation);
+            }
+            report.merge(fileReport);
+            if (f % 10 == 0) {
+                // violations added directly and iterations in between
+                RuleViolation violation = new ParametricRuleViolation<>(rule, ctx, nodes[0], "msg");
+                report.addRuleViolation(violation);
+                expected.add(violation);
+                assertSorted(report, expected);
+            }
+        }
+        assertSorted(report, expected);
+    }
+
+    @Test
+    public void testTreeIsBuiltOnDemand() {
+        Rule rule = new MockRule("name", "desc", "msg", "rulesetname");
+        RuleContext ctx = new RuleContext();
+        ctx.setSourceCodeFilename("foo");
+        Report fileReport = new Report();
+        fileReport.addRuleViolation(new ParametricRuleViolation<>(rule, ctx, getNode(5, 5), "msg"));
+        Report report = new Report();
+        report.merge(fileReport);
+
+        assertEquals(1, report.treeSize());
+        report.addRuleViolation(new ParametricRuleViolation<>(rule, ctx, getNode(6, 5), "msg"));
+        assertEquals(2, report.treeSize());
+        // the tree filters the duplicated violations
+        report.addRuleViolation(new ParametricRuleViolation<>(rule, ctx, getNode(6, 5), "msg"));
+        assertEquals(2, report.treeSize());
+        assertEquals(3, report.size());
+    }
+
+    /**
+     * Merges the reports of many files, like an accumulating renderer does.
+     * The files are not merged in order.
+     */
+    @Test
+    public void testMergeManyReports() {
+        Rule rule = new MockRule("name", "desc", "msg", "rulesetname");
+        Node[] nodes = createNodes(20);
+        Report report = new Report();
+        for (int f = 0; f < 100; f++) {
+            Report fileReport = new Report();
+            RuleContext ctx = new RuleContext();
+            // the files are not analyzed in order
+            ctx.setSourceCodeFilename(String.format("file%03d", (f * 37) % 100));
+            for (int i = nodes.length - 1; i >= 0; i--) {
+                fileReport.addRuleViolation(new ParametricRuleViolation<>(rule, ctx, nodes[i], "msg"));
+            }
+            report.merge(fileReport);
+        }
+
+        assertEquals(2000, report.size());
+        RuleViolation previous = null;
+        for (RuleViolation violation : report) {
+            assertTrue(previous == null || RuleViolationComparator.INSTANCE.compare(previous, violation) <= 0);
+            previous = violation;
+        }
+    }
+
+    private static void assertSorted(Report report, List<RuleViolation> expected) {
+        List<RuleViolation> sorted = new ArrayList<>(expected);
+        Collections.sort(sorted, RuleViolationComparator.INSTANCE);
+        List<RuleViolation> actual = new ArrayList<>();
+        for (RuleViolation violation : report) {
+            actual.add(violation);
+        }
+        assertEquals(expected.size(), report.size());
+        assertEquals(sorted.size(), actual.size());
+        for (int i = 0; i < sorted.size(); i++) {
+            assertEquals(0, RuleViolationComparator.INSTANCE.compare(sorted.get(i), actual.get(i)));
+        }
+    }
+
+    private static Node[] createNodes(int count) {
+        Node[] nodes = new Node[count];
+        for (int i = 0; i < count; i++) {
+            nodes[i] = getNode(i + 1, 5);
+        }
+        return nodes;
+    }
+
     private static Node getNode(int line, int column) {
         DummyNode s = new DummyNode(2);
         DummyNode parent = new DummyNode(1);
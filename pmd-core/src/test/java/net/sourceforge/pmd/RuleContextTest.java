@@ -12,9 +12,21 @@ import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.Map;
 
 import org.junit.Test;
 
+import net.sourceforge.pmd.lang.BatchParser;
+import net.sourceforge.pmd.lang.DummyLanguageModule;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.lang.Parser;
+import net.sourceforge.pmd.lang.ParserOptions;
+import net.sourceforge.pmd.lang.ast.DummyNode;
+import net.sourceforge.pmd.lang.ast.xpath.saxon.DocumentNode;
+import net.sourceforge.pmd.lang.metrics.MetricValueStore;
+
 import junit.framework.JUnit4TestAdapter;
 
 public class RuleContextTest {
@@ -96,6 +108,77 @@ public class RuleContextTest {
         assertEquals("attribute value should be 'x'", "x", value2.toString());
     }
 
+    @Test
+    public void testMetricValueStoreIsSharedButNotTheFileValues() {
+        RuleContext ctx = new RuleContext();
+        MetricValueStore store = MetricValueStore.load(new File("metrics.cache"), 1L);
+        ctx.setMetricValueStore(store);
+        ctx.setMetricValues(store.startFile("Foo.java", 42L));
+
+        RuleContext copy = new RuleContext(ctx);
+        assertSame("store mismatch", store, copy.getMetricValueStore());
+        assertNull("file values are not shared", copy.getMetricValues());
+        assertNull("store of another analysis", new RuleContext().getMetricValueStore());
+    }
+
+    @Test
+    public void testBatchParsersAreSharedWithCopies() {
+        LanguageVersion version = LanguageRegistry.getLanguage(DummyLanguageModule.NAME).getDefaultVersion();
+        BatchParser batchParser = new NoopBatchParser();
+        RuleContext ctx = new RuleContext();
+        assertNull("no batch parser yet", ctx.getBatchParser(version));
+        ctx.setBatchParsers(Collections.singletonMap(version, batchParser));
+
+        assertSame("batch parser mismatch", batchParser, new RuleContext(ctx).getBatchParser(version));
+        assertNull("batch parser of another analysis", new RuleContext().getBatchParser(version));
+        assertNull("batch parser of another version",
+                ctx.getBatchParser(LanguageRegistry.getLanguage(DummyLanguageModule.NAME).getVersion("1.0")));
+    }
+
+    @Test
+    public void testXPathDocumentIsOnlyReturnedForItsRoot() {
+        RuleContext ctx = new RuleContext();
+        DummyNode root = new DummyNode(1);
+        assertNull("no document should be built yet", ctx.getXPathDocument(root));
+
+        DocumentNode document = new DocumentNode(root);
+        ctx.setXPathDocument(root, document);
+        assertSame("document mismatch", document, ctx.getXPathDocument(root));
+        assertNull("document of another AST", ctx.getXPathDocument(new DummyNode(1)));
+        assertNull("documents are not shared", new RuleContext(ctx).getXPathDocument(root));
+
+        ctx.setXPathDocument(null, null);
+        assertNull("document should be released", ctx.getXPathDocument(root));
+    }
+
+    private static class NoopBatchParser implements BatchParser {
+
+        @Override
+        public int getBatchSize() {
+            return 1;
+        }
+
+        @Override
+        public void declareAll(Map<String, String> sources) {
+            // nothing to do
+        }
+
+        @Override
+        public void parseAll(Map<String, String> sources) {
+            // nothing to do
+        }
+
+        @Override
+        public Parser getParser(ParserOptions parserOptions) {
+            return null;
+        }
+
+        @Override
+        public void clear() {
+            // nothing to do
+        }
+    }
+
     public static junit.framework.Test suite() {
         return new JUnit4TestAdapter(RuleContextTest.class);
     }
@@ -19,6 +19,7 @@ import java.net.URLClassLoader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -77,6 +78,13 @@ public class FileAnalysisCacheTest {
         new FileAnalysisCache(emptyCacheFile);
     }
 
+    @Test
+    public void testLoadFromMalformedFileShouldntThrow() throws IOException {
+        Files.write(emptyCacheFile.toPath(), "not a cache file".getBytes(StandardCharsets.UTF_8));
+        final FileAnalysisCache cache = new FileAnalysisCache(emptyCacheFile);
+        assertFalse("Cache believes an unknown file is up to date", cache.isUpToDate(sourceFile));
+    }
+
     @Test
     public void testStoreCreatesFile() {
         final FileAnalysisCache cache = new FileAnalysisCache(unexistingCacheFile);
@@ -112,6 +120,60 @@ public class FileAnalysisCacheTest {
         assertEquals("Cached rule violations count mismatch", 1, cachedViolations.size());
     }
 
+    @Test
+    public void testTruncatedViolationRecordsAreNotReplayed() throws IOException {
+        final FileAnalysisCache cache = new FileAnalysisCache(newCacheFile);
+        cache.isUpToDate(sourceFile);
+
+        final RuleViolation rv = mock(RuleViolation.class);
+        when(rv.getFilename()).thenReturn(sourceFile.getPath());
+        final net.sourceforge.pmd.Rule rule = mock(net.sourceforge.pmd.Rule.class, Mockito.RETURNS_SMART_NULLS);
+        when(rv.getRule()).thenReturn(rule);
+        cache.ruleViolationAdded(rv);
+        cache.persist();
+
+        // drop the violation record, which is at the end of the file
+        final byte[] contents = Files.readAllBytes(newCacheFile.toPath());
+        Files.write(newCacheFile.toPath(), Arrays.copyOf(contents, contents.length - 40));
+
+        final FileAnalysisCache reloadedCache = new FileAnalysisCache(newCacheFile);
+        assertFalse("Cache believes a file with malformed records is up to date",
+                reloadedCache.isUpToDate(sourceFile));
+        assertTrue("Cache replays violations from malformed records",
+                reloadedCache.getCachedViolations(sourceFile).isEmpty());
+    }
+
+    @Test
+    public void testStorePersistsManyFiles() throws IOException {
+        final FileAnalysisCache cache = new FileAnalysisCache(newCacheFile);
+        final File[] files = new File[100];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = tempFolder.newFile("Source" + i + ".java");
+            Files.write(files[i].toPath(), ("class Source" + i + " {}").getBytes(StandardCharsets.UTF_8));
+            cache.isUpToDate(files[i]);
+
+            final RuleViolation rv = mock(RuleViolation.class);
+            when(rv.getFilename()).thenReturn(files[i].getPath());
+            when(rv.getBeginLine()).thenReturn(i);
+            when(rv.getDescription()).thenReturn("Violation in file " + i);
+            final net.sourceforge.pmd.Rule rule = mock(net.sourceforge.pmd.Rule.class, Mockito.RETURNS_SMART_NULLS);
+            when(rv.getRule()).thenReturn(rule);
+            cache.ruleViolationAdded(rv);
+        }
+        cache.persist();
+
+        final FileAnalysisCache reloadedCache = new FileAnalysisCache(newCacheFile);
+        for (int i = files.length - 1; i >= 0; i--) {
+            assertTrue("Cache believes unmodified file is not up to date", reloadedCache.isUpToDate(files[i]));
+
+            final List<RuleViolation> cachedViolations = reloadedCache.getCachedViolations(files[i]);
+            assertEquals("Cached rule violations count mismatch", 1, cachedViolations.size());
+            assertEquals("Violation in file " + i, cachedViolations.get(0).getDescription());
+            assertEquals(i, cachedViolations.get(0).getBeginLine());
+            assertEquals(files[i].getPath(), cachedViolations.get(0).getFilename());
+        }
+    }
+
     @Test
     public void testCacheValidityWithNoChanges() {
         final RuleSets rs = mock(RuleSets.class);
@@ -328,6 +390,122 @@ public class FileAnalysisCacheTest {
                 cache.isUpToDate(sourceFile));
     }
 
+    @Test
+    public void testFileIsUpToDateWithPrecomputedChecksum() throws IOException {
+        Files.write(sourceFile.toPath(), "some text".getBytes(StandardCharsets.UTF_8));
+        setupCacheWithFiles(newCacheFile, mock(RuleSets.class), mock(ClassLoader.class), sourceFile);
+
+        final FileAnalysisCache cache = new FileAnalysisCache(newCacheFile);
+        final long checksum = AnalysisResult.computeChecksum(Files.readAllBytes(sourceFile.toPath()));
+        assertTrue("Cache believes a known, unchanged file is not up to date",
+                cache.isUpToDate(sourceFile, checksum, AnalysisResult.UNKNOWN, AnalysisResult.UNKNOWN));
+    }
+
+    @Test
+    public void testFileIsNotUpToDateWithChangedPrecomputedChecksum() throws IOException {
+        setupCacheWithFiles(newCacheFile, mock(RuleSets.class), mock(ClassLoader.class), sourceFile);
+
+        final FileAnalysisCache cache = new FileAnalysisCache(newCacheFile);
+        final long checksum = AnalysisResult.computeChecksum("some text".getBytes(StandardCharsets.UTF_8));
+        assertFalse("Cache believes a known, changed file is up to date",
+                cache.isUpToDate(sourceFile, checksum, AnalysisResult.UNKNOWN, AnalysisResult.UNKNOWN));
+    }
+
+    @Test
+    public void testMetadataReadBeforeChecksumIsRecorded() throws IOException {
+        // the metadata was read, then the file was changed before its contents were loaded
+        final long fileSize = sourceFile.length();
+        final long lastModified = sourceFile.lastModified() - 10000;
+        Files.write(sourceFile.toPath(), "some text".getBytes(StandardCharsets.UTF_8));
+        final long checksum = AnalysisResult.computeChecksum(Files.readAllBytes(sourceFile.toPath()));
+
+        final FileAnalysisCache cache = new FileAnalysisCache(newCacheFile, true);
+        cache.checkValidity(mock(RuleSets.class), mock(ClassLoader.class));
+        cache.isUpToDate(sourceFile, checksum, fileSize, lastModified);
+        cache.persist();
+
+        final FileAnalysisCache reloadedCache = new FileAnalysisCache(newCacheFile, true);
+        reloadedCache.checkValidity(mock(RuleSets.class), mock(ClassLoader.class));
+        assertFalse("Cache trusts metadata which doesn't match the file anymore",
+                reloadedCache.isUpToDateByMetadata(sourceFile));
+        assertTrue("Cache believes a known, unchanged file is not up to date",
+                reloadedCache.isUpToDate(sourceFile));
+    }
+
+    @Test
+    public void testMetadataIsNotTrustedByDefault() throws IOException {
+        setupCacheWithFiles(newCacheFile, mock(RuleSets.class), mock(ClassLoader.class), sourceFile);
+
+        final FileAnalysisCache cache = new FileAnalysisCache(newCacheFile);
+        assertFalse("Cache trusts file metadata without being configured to",
+                cache.isUpToDateByMetadata(sourceFile));
+    }
+
+    @Test
+    public void testFileIsUpToDateByMetadata() throws IOException {
+        setupCacheWithFiles(newCacheFile, mock(RuleSets.class), mock(ClassLoader.class), sourceFile);
+
+        final FileAnalysisCache cache = new FileAnalysisCache(newCacheFile, true);
+        assertTrue("Cache believes a known file with unchanged metadata is not up to date",
+                cache.isUpToDateByMetadata(sourceFile));
+    }
+
+    @Test
+    public void testMetadataRoundTrip() throws IOException {
+        Files.write(sourceFile.toPath(), "some text".getBytes(StandardCharsets.UTF_8));
+        // not a whole second, in case an API truncates the modification time
+        sourceFile.setLastModified(1234567891234L);
+
+        // record the file as the processor does: metadata first, then the contents
+        final long fileSize = sourceFile.length();
+        final long lastModified = sourceFile.lastModified();
+        final long checksum = AnalysisResult.computeChecksum(Files.readAllBytes(sourceFile.toPath()));
+        final FileAnalysisCache cache = new FileAnalysisCache(newCacheFile, true);
+        cache.checkValidity(mock(RuleSets.class), mock(ClassLoader.class));
+        assertFalse(cache.isUpToDate(sourceFile, checksum, fileSize, lastModified));
+        cache.persist();
+
+        final FileAnalysisCache reloadedCache = new FileAnalysisCache(newCacheFile, true);
+        reloadedCache.checkValidity(mock(RuleSets.class), mock(ClassLoader.class));
+        assertTrue("Cache believes a known file with unchanged metadata is not up to date",
+                reloadedCache.isUpToDateByMetadata(sourceFile));
+        reloadedCache.persist();
+
+        // the metadata is carried over to the next run
+        final FileAnalysisCache nextCache = new FileAnalysisCache(newCacheFile, true);
+        nextCache.checkValidity(mock(RuleSets.class), mock(ClassLoader.class));
+        assertTrue("Cache believes a known file with unchanged metadata is not up to date",
+                nextCache.isUpToDateByMetadata(sourceFile));
+    }
+
+    @Test
+    public void testFileIsNotUpToDateByMetadataWhenEdited() throws IOException {
+        setupCacheWithFiles(newCacheFile, mock(RuleSets.class), mock(ClassLoader.class), sourceFile);
+
+        // Edit the file
+        Files.write(Paths.get(sourceFile.getAbsolutePath()), "some text".getBytes());
+
+        final FileAnalysisCache cache = new FileAnalysisCache(newCacheFile, true);
+        assertFalse("Cache believes a known file with changed metadata is up to date",
+                cache.isUpToDateByMetadata(sourceFile));
+        assertFalse("Cache believes a known, changed file is up to date",
+                cache.isUpToDate(sourceFile));
+    }
+
+    @Test
+    public void testFileIsUpToDateWhenTouched() throws IOException {
+        setupCacheWithFiles(newCacheFile, mock(RuleSets.class), mock(ClassLoader.class), sourceFile);
+
+        // Change the modification time, but not the contents
+        sourceFile.setLastModified(sourceFile.lastModified() - 10000);
+
+        final FileAnalysisCache cache = new FileAnalysisCache(newCacheFile, true);
+        assertFalse("Cache believes a known file with changed metadata is up to date by metadata",
+                cache.isUpToDateByMetadata(sourceFile));
+        assertTrue("Cache believes a known file with unchanged contents is not up to date",
+                cache.isUpToDate(sourceFile));
+    }
+
     private void setupCacheWithFiles(final File cacheFile, final RuleSets ruleSets,
             final ClassLoader classLoader, final File... files) {
         // Setup a cache file with an entry for an empty Source.java with no violations
@@ -5,13 +5,19 @@
 package net.sourceforge.pmd.cpd;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.SystemUtils;
 import org.junit.Assert;
 import org.junit.Assume;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 /**
  * Unit test for {@link CPD}
@@ -21,6 +27,9 @@ public class CPDTest {
     private static final String BASE_TEST_RESOURCE_PATH = "src/test/resources/net/sourceforge/pmd/cpd/files/";
     private static final String TARGET_TEST_RESOURCE_PATH = "target/classes/net/sourceforge/pmd/cpd/files/";
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private CPD cpd;
 
     // Symlinks are not well supported under Windows - so the tests are
@@ -130,6 +139,100 @@ public class CPDTest {
         }
     }
 
+    /**
+     * Tokenizing the files in parallel finds the same duplicates, in the same order.
+     */
+    @Test
+    public void testParallelTokenization() throws Exception {
+        List<File> files = Arrays.asList(new File(BASE_TEST_RESOURCE_PATH, "dup2.java"),
+                new File(BASE_TEST_RESOURCE_PATH, "real-file.txt"),
+                new File(BASE_TEST_RESOURCE_PATH, "dup1.java"));
+
+        Assert.assertEquals(describeMatches(files, 1), describeMatches(files, 3));
+    }
+
+    /**
+     * The tokens of the files which didn't change are loaded from the cache.
+     */
+    @Test
+    public void testCache() throws Exception {
+        File dup1 = folder.newFile("dup1.java");
+        File dup2 = folder.newFile("dup2.java");
+        FileUtils.copyFile(new File(BASE_TEST_RESOURCE_PATH, "dup1.java"), dup1);
+        FileUtils.copyFile(new File(BASE_TEST_RESOURCE_PATH, "dup2.java"), dup2);
+        List<File> files = Arrays.asList(dup2, dup1);
+
+        CPDConfiguration configuration = createConfiguration(1);
+        configuration.setCacheFile(new File(folder.getRoot(), "cpd.cache"));
+        List<String> expected = describeMatches(files, createConfiguration(1));
+
+        Assert.assertEquals(expected, describeMatches(files, configuration));
+        Assert.assertTrue(configuration.getCacheFile().isFile());
+        // from the cache
+        Assert.assertEquals(expected, describeMatches(files, configuration));
+        configuration.setThreads(2);
+        Assert.assertEquals(expected, describeMatches(files, configuration));
+    }
+
+    /**
+     * Only the duplicates of the files which changed since the last run are reported.
+     */
+    @Test
+    public void testCacheReportChangedOnly() throws Exception {
+        File dup1 = folder.newFile("dup1.java");
+        File dup2 = folder.newFile("dup2.java");
+        FileUtils.copyFile(new File(BASE_TEST_RESOURCE_PATH, "dup1.java"), dup1);
+        FileUtils.copyFile(new File(BASE_TEST_RESOURCE_PATH, "dup2.java"), dup2);
+        List<File> files = Arrays.asList(dup2, dup1);
+
+        CPDConfiguration configuration = createConfiguration(1);
+        configuration.setCacheFile(new File(folder.getRoot(), "cpd.cache"));
+        configuration.setReportChangedOnly(true);
+        List<String> expected = describeMatches(files, configuration);
+
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertTrue(describeMatches(files, configuration).isEmpty());
+
+        FileUtils.write(dup1, FileUtils.readFileToString(dup1, "UTF-8") + "\n// changed\n", "UTF-8");
+        Assert.assertEquals(expected, describeMatches(files, configuration));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testThreadsMustBePositive() {
+        new CPDConfiguration().setThreads(0);
+    }
+
+    private static CPDConfiguration createConfiguration(int threads) {
+        CPDConfiguration configuration = new CPDConfiguration();
+        configuration.setLanguage(new CpddummyLanguage());
+        configuration.setMinimumTileSize(10);
+        configuration.setThreads(threads);
+        configuration.postContruct();
+        return configuration;
+    }
+
+    private static List<String> describeMatches(List<File> files, int threads) throws Exception {
+        List<String> descriptions = describeMatches(files, createConfiguration(threads));
+        Assert.assertFalse(descriptions.isEmpty());
+        return descriptions;
+    }
+
+    private static List<String> describeMatches(List<File> files, CPDConfiguration configuration) throws Exception {
+        CPD cpd = new CPD(configuration);
+        cpd.add(files);
+        cpd.go();
+
+        List<String> descriptions = new ArrayList<>();
+        for (Iterator<Match> matches = cpd.getMatches(); matches.hasNext();) {
+            Match match = matches.next();
+            for (Mark mark : match) {
+                descriptions.add(match.getTokenCount() + " " + mark.getFilename() + ":" + mark.getBeginLine()
+                        + "-" + mark.getEndLine() + " " + mark.getSourceCodeSlice().length());
+            }
+        }
+        return descriptions;
+    }
+
     /**
      * Simple listener that fails, if too many files were added and not skipped.
      */
@@ -0,0 +1,100 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.PMD;
+
+public class SourceCodeSlicerTest {
+
+    private static final String CODE = "line1\nline2\nline3\nline4\nline5\nline6\nline7\nline8";
+
+    @Test
+    public void testFileIsReadOncePerWindow() {
+        CountingCodeLoader loader = new CountingCodeLoader(CODE);
+        SourceCode sourceCode = new SourceCode(loader);
+        List<Match> matches = new ArrayList<>();
+        matches.add(createMatch(sourceCode, 5, 2));
+        matches.add(createMatch(sourceCode, 1, 3));
+        matches.add(createMatch(sourceCode, 2, 2));
+
+        List<String> slices = new ArrayList<>();
+        for (Iterator<Match> it = new SourceCodeSlicer(matches.iterator()); it.hasNext();) {
+            slices.add(it.next().getSourceCodeSlice());
+        }
+
+        assertEquals(1, loader.reads);
+        assertEquals(lines("line5", "line6"), slices.get(0));
+        assertEquals(lines("line1", "line2", "line3"), slices.get(1));
+        assertEquals(lines("line2", "line3"), slices.get(2));
+    }
+
+    @Test
+    public void testWindowIsBounded() {
+        CountingCodeLoader loader = new CountingCodeLoader(CODE);
+        SourceCode sourceCode = new SourceCode(loader);
+        List<Match> matches = new ArrayList<>();
+        matches.add(createMatch(sourceCode, 1, 4));
+        matches.add(createMatch(sourceCode, 7, 2));
+
+        Iterator<Match> it = new SourceCodeSlicer(matches.iterator(), 3);
+        assertEquals(lines("line1", "line2", "line3", "line4"), it.next().getSourceCodeSlice());
+        assertEquals(lines("line7", "line8"), it.next().getSourceCodeSlice());
+        assertFalse(it.hasNext());
+
+        assertEquals(2, loader.reads);
+    }
+
+    private static Match createMatch(SourceCode sourceCode, int beginLine, int lineCount) {
+        Mark mark1 = new Mark(new TokenEntry("public", sourceCode.getFileName(), beginLine));
+        Mark mark2 = new Mark(new TokenEntry("public", "Other.java", beginLine));
+        for (Mark mark : new Mark[] {mark1, mark2}) {
+            mark.setLineCount(lineCount);
+            mark.setSourceCode(sourceCode);
+        }
+        return new Match(10, mark1, mark2);
+    }
+
+    private static String lines(String... lines) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : lines) {
+            if (sb.length() > 0) {
+                sb.append(PMD.EOL);
+            }
+            sb.append(line);
+        }
+        return sb.toString();
+    }
+
+    private static class CountingCodeLoader extends SourceCode.CodeLoader {
+        private final String code;
+        private int reads;
+
+        CountingCodeLoader(String code) {
+            this.code = code;
+        }
+
+        @Override
+        public String getFileName() {
+            return "Foo.java";
+        }
+
+        @Override
+        protected Reader getReader() {
+            reads++;
+            return new StringReader(code);
+        }
+    }
+}
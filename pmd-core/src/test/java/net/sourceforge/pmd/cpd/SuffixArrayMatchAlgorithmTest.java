@@ -0,0 +1,111 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SuffixArrayMatchAlgorithmTest {
+
+    private static final Map<String, SourceCode> NO_SOURCES = Collections.emptyMap();
+
+    @Test
+    public void testSimple() {
+        Tokens tokens = tokenize("a b c d e x a b c d e y", "a b c d e");
+
+        List<String> matches = matches(new SuffixArrayMatchAlgorithm(NO_SOURCES, tokens, 5));
+
+        assertEquals(Collections.singletonList("5 tokens: File0:0/2 File0:6/2 File1:13/2"), matches);
+    }
+
+    @Test
+    public void testOverlap() {
+        // the occurrences of "a b a b" overlap, only the distant ones are reported
+        Tokens tokens = tokenize("a b a b a b a b");
+
+        assertEquals(matches(new MatchAlgorithm(NO_SOURCES, tokens, 2)),
+                matches(new SuffixArrayMatchAlgorithm(NO_SOURCES, tokens, 2)));
+    }
+
+    @Test
+    public void testNoMatch() {
+        Tokens tokens = tokenize("a b c d e f", "g h");
+
+        Iterator<Match> matches = findMatches(new SuffixArrayMatchAlgorithm(NO_SOURCES, tokens, 2));
+
+        assertFalse(matches.hasNext());
+    }
+
+    @Test
+    public void testSameMatchesAsHashing() {
+        Random random = new Random(42);
+        for (int min : new int[] {1, 2, 3, 5, 8, 13}) {
+            for (int run = 0; run < 20; run++) {
+                String[] files = new String[1 + random.nextInt(4)];
+                for (int f = 0; f < files.length; f++) {
+                    StringBuilder file = new StringBuilder();
+                    int length = random.nextInt(200);
+                    for (int t = 0; t < length; t++) {
+                        // few different tokens, so that there are many duplicates
+                        file.append((char) ('a' + random.nextInt(2 + run % 4))).append(' ');
+                    }
+                    files[f] = file.toString();
+                }
+
+                Tokens tokens = tokenize(files);
+                List<String> expected = matches(new MatchAlgorithm(NO_SOURCES, tokens, min));
+                List<String> actual = matches(new SuffixArrayMatchAlgorithm(NO_SOURCES, tokens, min));
+
+                assertEquals("min " + min + ", run " + run, expected, actual);
+                assertTrue(min > 3 || !actual.isEmpty());
+            }
+        }
+    }
+
+    private static Tokens tokenize(String... files) {
+        TokenEntry.clearImages();
+        Tokens tokens = new Tokens();
+        for (int f = 0; f < files.length; f++) {
+            String[] images = files[f].split(" ");
+            for (int i = 0; i < images.length; i++) {
+                if (!images[i].isEmpty()) {
+                    // three tokens per line
+                    tokens.add(new TokenEntry(images[i], "File" + f, 1 + i / 3));
+                }
+            }
+            tokens.add(TokenEntry.getEOF());
+        }
+        return tokens;
+    }
+
+    private static Iterator<Match> findMatches(MatchAlgorithm algorithm) {
+        algorithm.findMatches();
+        return algorithm.matches();
+    }
+
+    private static List<String> matches(MatchAlgorithm algorithm) {
+        List<String> result = new ArrayList<>();
+        for (Iterator<Match> it = findMatches(algorithm); it.hasNext();) {
+            Match match = it.next();
+            StringBuilder sb = new StringBuilder().append(match.getTokenCount()).append(" tokens:");
+            for (Mark mark : match) {
+                sb.append(' ').append(mark.getFilename()).append(':').append(mark.getToken().getIndex())
+                  .append('/').append(mark.getLineCount());
+            }
+            result.add(sb.toString());
+        }
+        return result;
+    }
+}
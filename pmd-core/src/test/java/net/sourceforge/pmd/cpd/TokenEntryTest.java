@@ -6,6 +6,8 @@ package net.sourceforge.pmd.cpd;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.Collections;
+
 import org.junit.Test;
 
 public class TokenEntryTest {
@@ -19,6 +21,24 @@ public class TokenEntryTest {
         assertEquals(0, mark.getIndex());
     }
 
+    /**
+     * The images may be shared with other threads, so restoring a state keeps
+     * the identifiers handed out since.
+     */
+    @Test
+    public void testRestoreKeepsImages() {
+        TokenEntry.clearImages();
+        new TokenEntry("public", "/var/Foo.java", 1);
+        TokenEntry.State state = new TokenEntry.State(Collections.<TokenEntry>emptyList());
+        TokenEntry skipped = new TokenEntry("class", "/var/Bar.java", 1);
+        assertEquals(0, state.restore().size());
+
+        TokenEntry mark = new TokenEntry("class", "/var/Foo.java", 1);
+        assertEquals(skipped.getIdentifier(), mark.getIdentifier());
+        assertEquals("class", mark.toString());
+        assertEquals(1, mark.getIndex());
+    }
+
     public static junit.framework.Test suite() {
         return new junit.framework.JUnit4TestAdapter(TokenEntryTest.class);
     }
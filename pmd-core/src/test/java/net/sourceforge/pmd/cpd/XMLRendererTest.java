@@ -12,14 +12,25 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
 
+import org.apache.commons.lang3.JavaVersion;
+import org.apache.commons.lang3.SystemUtils;
+import org.junit.Assume;
 import org.junit.Test;
 import org.w3c.dom.Document;
+import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
+import net.sourceforge.pmd.PMD;
 import net.sourceforge.pmd.cpd.renderer.CPDRenderer;
 
 /**
@@ -142,6 +153,95 @@ public class XMLRendererTest {
         assertTrue(report.contains(espaceChar));
     }
 
+    @Test
+    public void testCodeFragmentWithCDataEnd() throws Exception {
+        CPDRenderer renderer = new XMLRenderer("ISO-8859-1");
+        List<Match> list = new ArrayList<>();
+        String codeFragment = "int[][] a = b[c[0]]>0 ? x : y; // \u20ac";
+        Mark mark1 = createMark("public", "/var/Foo.java", 1, 1, codeFragment);
+        Mark mark2 = createMark("stuff", "/var/Foo.java", 73, 1, codeFragment);
+        list.add(new Match(75, mark1, mark2));
+
+        StringWriter sw = new StringWriter();
+        renderer.render(list.iterator(), sw);
+        String report = sw.toString();
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+                .parse(new ByteArrayInputStream(report.getBytes("ISO-8859-1")));
+        assertEquals(codeFragment, doc.getElementsByTagName("codefragment").item(0).getTextContent());
+    }
+
+    /**
+     * The streamed report is the same as the one of the DOM serializer,
+     * which was used before. The indentation of the DOM serializer differs
+     * before Java 9.
+     */
+    @Test
+    public void testSameOutputAsDomSerializer() throws Exception {
+        Assume.assumeTrue(SystemUtils.isJavaVersionAtLeast(JavaVersion.JAVA_9));
+
+        String code = "  int x = 1;" + PMD.EOL + "\tfoo(\"a<b>&c\");" + PMD.EOL
+                + "  b[c[0]]>0 \u20ac\u00e9 ]]]> \ud83d\ude00 x";
+        List<Match> list = new ArrayList<>();
+        list.add(new Match(75, createLoadedMark("public", "/var/F&o<o>\"'\t\u20ac.java", 1, 3, code),
+                createLoadedMark("stuff", "/var/Foo.java", 73, 3, code)));
+        Match match = new Match(76, createLoadedMark("void", "/var/Foo2.java", 1, 0, ""),
+                createLoadedMark("void", "/var/Foo3.java", 1, 0, ""));
+        match.addTokenEntry(new TokenEntry("void", "/var/Foo4.java", 5));
+        list.add(match);
+
+        for (String encoding : new String[] {"UTF-8", "ISO-8859-1"}) {
+            assertEquals(renderWithDom(list, encoding), new XMLRenderer(encoding).render(list.iterator()));
+            assertEquals(renderWithDom(Collections.<Match>emptyList(), encoding),
+                    new XMLRenderer(encoding).render(Collections.<Match>emptyList().iterator()));
+        }
+    }
+
+    /**
+     * Renders the matches like the renderer did before it streamed them.
+     */
+    private static String renderWithDom(List<Match> matches, String encoding) throws Exception {
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Element root = doc.createElement("pmd-cpd");
+        doc.appendChild(root);
+        for (Match match : matches) {
+            Element duplication = doc.createElement("duplication");
+            duplication.setAttribute("lines", String.valueOf(match.getLineCount()));
+            duplication.setAttribute("tokens", String.valueOf(match.getTokenCount()));
+            for (Mark mark : match) {
+                Element file = doc.createElement("file");
+                file.setAttribute("line", String.valueOf(mark.getBeginLine()));
+                file.setAttribute("path", mark.getFilename());
+                duplication.appendChild(file);
+            }
+            String codeSnippet = match.getSourceCodeSlice();
+            if (codeSnippet != null) {
+                Element codefragment = doc.createElement("codefragment");
+                codefragment.appendChild(doc.createCDATASection(codeSnippet));
+                duplication.appendChild(codefragment);
+            }
+            root.appendChild(duplication);
+        }
+
+        Transformer transformer = TransformerFactory.newInstance().newTransformer();
+        transformer.setOutputProperty(OutputKeys.METHOD, "xml");
+        transformer.setOutputProperty(OutputKeys.ENCODING, encoding);
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        transformer.setOutputProperty(OutputKeys.CDATA_SECTION_ELEMENTS, "codefragment");
+        StringWriter writer = new StringWriter();
+        transformer.transform(new DOMSource(doc), new StreamResult(writer));
+        return writer.toString();
+    }
+
+    /**
+     * Creates a mark whose code is loaded, like the code of the files after
+     * they were tokenized.
+     */
+    private Mark createLoadedMark(String image, String tokenSrcID, int beginLine, int lineCount, String code) {
+        Mark result = createMark(image, tokenSrcID, beginLine, lineCount, code);
+        result.getSourceCode().getCodeBuffer();
+        return result;
+    }
+
     private Mark createMark(String image, String tokenSrcID, int beginLine, int lineCount, String code) {
         Mark result = new Mark(new TokenEntry(image, tokenSrcID, beginLine));
 
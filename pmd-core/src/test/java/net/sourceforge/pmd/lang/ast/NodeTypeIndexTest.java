@@ -0,0 +1,138 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.ast;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.RuleSet;
+import net.sourceforge.pmd.RuleSetFactory;
+import net.sourceforge.pmd.RuleSets;
+import net.sourceforge.pmd.lang.DummyLanguageModule;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.rule.MockRule;
+
+public class NodeTypeIndexTest {
+
+    private static final String[] TYPE_NAMES = {"dummyNode", "otherNode"};
+
+    @Test
+    public void testNodesAreIndexedInDocumentOrder() {
+        NodeTypeIndex index = new NodeTypeIndex(TYPE_NAMES);
+        DummyNode root = open(index, 0);
+        DummyNode first = open(index, 1);
+        DummyNode nested = open(index, 1);
+        DummyNode second = open(index, 1);
+        addChild(first, nested);
+        addChild(root, first);
+        addChild(root, second);
+
+        index.finish(root);
+
+        assertEquals(Collections.<Node>singletonList(root), index.getNodes(0));
+        assertEquals(Arrays.<Node>asList(first, nested, second), index.getNodes(1));
+    }
+
+    @Test
+    public void testDiscardedNodesAreDropped() {
+        NodeTypeIndex index = new NodeTypeIndex(TYPE_NAMES);
+        DummyNode root = open(index, 0);
+        open(index, 0); // never attached to the tree
+        DummyNode child = open(index, 1);
+        addChild(root, child);
+
+        index.finish(root);
+
+        assertEquals(Collections.<Node>singletonList(root), index.getNodes(0));
+        assertEquals(Collections.<Node>singletonList(child), index.getNodes(1));
+    }
+
+    @Test
+    public void testTypeIds() {
+        NodeTypeIndex index = new NodeTypeIndex(TYPE_NAMES);
+        index.finish(open(index, 0));
+
+        assertEquals(0, index.getTypeId("dummyNode"));
+        assertEquals(1, index.getTypeId("otherNode"));
+        assertEquals(-1, index.getTypeId("unknownNode"));
+        assertTrue(index.getNodes(-1).isEmpty());
+        assertTrue(index.getNodes(1).isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testIndexMustBeFinished() {
+        NodeTypeIndex index = new NodeTypeIndex(TYPE_NAMES);
+        open(index, 0);
+
+        index.getNodes(0);
+    }
+
+    @Test
+    public void testRuleChainUsesIndex() {
+        NodeTypeIndex index = new NodeTypeIndex(TYPE_NAMES);
+        DummyRootNode root = new DummyRootNode(index);
+        index.nodeOpened(root);
+        DummyNode child = open(index, 0);
+        // only reachable through the index
+        child.jjtSetParent(root);
+        index.finish(root);
+
+        final List<Node> visited = new ArrayList<>();
+        MockRule rule = new MockRule("visitor", "desc", "msg", "rulesetname") {
+            {
+                addRuleChainVisit("dummyNode");
+            }
+
+            @Override
+            public void apply(List<? extends Node> nodes, RuleContext ctx) {
+                visited.addAll(nodes);
+            }
+        };
+        RuleSet ruleSet = new RuleSetFactory().createSingleRuleRuleSet(rule);
+        RuleContext ctx = new RuleContext();
+        ctx.setReport(new Report());
+        ctx.setLanguageVersion(LanguageRegistry.getLanguage(DummyLanguageModule.NAME).getDefaultVersion());
+        ctx.setSourceCodeFilename("indexed");
+
+        new RuleSets(ruleSet).apply(Collections.<Node>singletonList(root), ctx,
+                LanguageRegistry.getLanguage(DummyLanguageModule.NAME));
+
+        assertEquals(Arrays.<Node>asList(root, child), visited);
+    }
+
+    private static DummyNode open(NodeTypeIndex index, int typeId) {
+        DummyNode node = new DummyNode(typeId);
+        index.nodeOpened(node);
+        return node;
+    }
+
+    private static void addChild(Node parent, Node child) {
+        parent.jjtAddChild(child, parent.jjtGetNumChildren());
+        child.jjtSetParent(parent);
+    }
+
+    private static class DummyRootNode extends DummyNode implements IndexedRootNode {
+        private final NodeTypeIndex index;
+
+        DummyRootNode(NodeTypeIndex index) {
+            super(0);
+            this.index = index;
+        }
+
+        @Override
+        public NodeTypeIndex getNodeTypeIndex() {
+            return index;
+        }
+    }
+}
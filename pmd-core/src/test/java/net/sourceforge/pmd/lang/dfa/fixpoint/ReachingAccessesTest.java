@@ -0,0 +1,128 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.dfa.fixpoint;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.lang.dfa.DataFlowNode;
+import net.sourceforge.pmd.lang.dfa.StartOrEndDataFlowNode;
+import net.sourceforge.pmd.lang.dfa.VariableAccess;
+
+public class ReachingAccessesTest {
+
+    private final List<DataFlowNode> flow = new ArrayList<>();
+
+    @Test
+    public void testSequence() {
+        DataFlowNode start = node(1);
+        DataFlowNode def1 = node(2, def("x"));
+        DataFlowNode def2 = node(3, def("x"));
+        DataFlowNode ref = node(4, ref("x"), ref("y"));
+        link(start, def1);
+        link(def1, def2);
+        link(def2, ref);
+
+        assertEquals(Arrays.asList("D x 2-3", "D x 3-4"), pairs());
+    }
+
+    @Test
+    public void testBranches() {
+        DataFlowNode start = node(1, def("x"));
+        DataFlowNode redefined = node(2, def("x"));
+        DataFlowNode referenced = node(3, ref("x"));
+        DataFlowNode join = node(4, ref("x"));
+        link(start, redefined);
+        link(start, referenced);
+        link(redefined, join);
+        link(referenced, join);
+
+        assertEquals(Arrays.asList("D x 1-2", "D x 1-3", "D x 2-4", "R x 3-4"), pairs());
+    }
+
+    @Test
+    public void testLoop() {
+        DataFlowNode start = node(1);
+        DataFlowNode condition = node(2, ref("i"));
+        DataFlowNode body = node(3, ref("i"), def("i"));
+        DataFlowNode end = node(4, undef("i"));
+        link(start, condition);
+        link(condition, body);
+        link(body, condition);
+        link(condition, end);
+
+        assertEquals(Arrays.asList("D i 3-2", "R i 2-3", "R i 3-3", "R i 2-4"), pairs());
+    }
+
+    @Test
+    public void testManyPaths() {
+        // 64 consecutive if statements make 2^64 paths, which can't be enumerated
+        DataFlowNode last = node(0, def("x"));
+        final int branches = 64;
+        for (int i = 0; i < branches; i++) {
+            DataFlowNode condition = node(1 + 2 * i);
+            DataFlowNode then = node(2 + 2 * i, def("x"));
+            link(last, condition);
+            link(condition, then);
+            last = node(2 + 2 * i);
+            link(condition, last);
+            link(then, last);
+        }
+        DataFlowNode end = node(2 * branches + 1, undef("x"));
+        link(last, end);
+
+        // each definition can reach the following one, and the end of the method
+        int toEnd = 0;
+        for (String pair : pairs()) {
+            if (pair.endsWith("-" + end.getLine())) {
+                toEnd++;
+            }
+        }
+        assertEquals(branches + 1, toEnd);
+    }
+
+    private DataFlowNode node(int line, VariableAccess... accesses) {
+        DataFlowNode node = new StartOrEndDataFlowNode(flow, line, flow.isEmpty());
+        // only keep the edges added by the test
+        for (DataFlowNode parent : new ArrayList<>(node.getParents())) {
+            parent.removePathToChild(node);
+        }
+        node.setVariableAccess(new ArrayList<>(Arrays.asList(accesses)));
+        return node;
+    }
+
+    private static void link(DataFlowNode from, DataFlowNode to) {
+        from.addPathToChild(to);
+    }
+
+    private static VariableAccess def(String name) {
+        return new VariableAccess(VariableAccess.DEFINITION, name);
+    }
+
+    private static VariableAccess ref(String name) {
+        return new VariableAccess(VariableAccess.REFERENCING, name);
+    }
+
+    private static VariableAccess undef(String name) {
+        return new VariableAccess(VariableAccess.UNDEFINITION, name);
+    }
+
+    private List<String> pairs() {
+        final List<String> pairs = new ArrayList<>();
+        new ReachingAccesses(flow).visitAccessPairs(new AccessPairHandler() {
+            @Override
+            public void handlePair(DataFlowNode previousNode, VariableAccess previous, DataFlowNode node, VariableAccess access) {
+                pairs.add(previous.toString().charAt(0) + " " + access.getVariableName() + " "
+                        + previousNode.getLine() + "-" + node.getLine());
+            }
+        });
+        return pairs;
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.lang.ast.Node;
+
+public class BasicMetricMemoizerTest {
+
+    @Test
+    public void testMemoizedValues() {
+        BasicMetricMemoizer<Node> memoizer = new BasicMetricMemoizer<>();
+        ParameterizedMetricKey<Node> first = paramKey("first");
+        ParameterizedMetricKey<Node> second = paramKey("second");
+
+        assertNull(memoizer.getMemo(first));
+        memoizer.memoize(second, 2.5);
+        assertNull(memoizer.getMemo(first));
+        assertEquals(2.5, memoizer.getMemo(second), 0);
+
+        // NaN is a valid value
+        memoizer.memoize(first, Double.NaN);
+        assertTrue(Double.isNaN(memoizer.getMemo(first)));
+    }
+
+    @Test
+    public void testKeysArePooled() {
+        MetricKey<Node> key = MetricKeyUtil.of("pooled", new ConstantMetric());
+        assertSame(ParameterizedMetricKey.getInstance(key, MetricOptions.emptyOptions()),
+                   ParameterizedMetricKey.getInstance(key, MetricOptions.emptyOptions()));
+    }
+
+    @Test
+    public void testConcurrentMemoization() throws InterruptedException {
+        final BasicMetricMemoizer<Node> memoizer = new BasicMetricMemoizer<>();
+        final List<ParameterizedMetricKey<Node>> keys = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            keys.add(paramKey("concurrent" + i));
+        }
+
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < keys.size(); i++) {
+                        memoizer.memoize(keys.get(i), i);
+                    }
+                }
+            };
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // values can be lost while the storage grows, but never mixed up
+        for (int i = 0; i < keys.size(); i++) {
+            Double memo = memoizer.getMemo(keys.get(i));
+            assertTrue(memo == null || memo == i);
+        }
+    }
+
+    private static ParameterizedMetricKey<Node> paramKey(String name) {
+        return ParameterizedMetricKey.getInstance(MetricKeyUtil.of(name, new ConstantMetric()),
+                                                  MetricOptions.emptyOptions());
+    }
+
+    private static class ConstantMetric implements Metric<Node> {
+
+        @Override
+        public boolean supports(Node node) {
+            return true;
+        }
+
+        @Override
+        public double computeFor(Node node, MetricOptions options) {
+            return 1;
+        }
+    }
+}
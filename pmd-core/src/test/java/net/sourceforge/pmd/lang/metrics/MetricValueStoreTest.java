@@ -0,0 +1,147 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.ast.QualifiedName;
+import net.sourceforge.pmd.lang.metrics.MetricValueStore.FileValues;
+
+public class MetricValueStoreTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final ParameterizedMetricKey<Node> key
+        = ParameterizedMetricKey.getInstance(MetricKeyUtil.of("stored", new ZeroMetric()), MetricOptions.emptyOptions());
+
+    @Test
+    public void testPersistAndReload() {
+        File file = new File(tempFolder.getRoot(), "metrics.cache");
+        MetricValueStore store = MetricValueStore.load(file, 1L);
+        FileValues values = store.startFile("Foo.java", 42L);
+        assertNull(values.get(new MyQualifiedName("Foo"), key));
+        values.put(new MyQualifiedName("Foo"), key, 3.0);
+        store.persist();
+        assertTrue(file.isFile());
+
+        MetricValueStore reloaded = MetricValueStore.load(file, 1L);
+        FileValues reloadedValues = reloaded.startFile("Foo.java", 42L);
+        assertEquals(3.0, reloadedValues.get(new MyQualifiedName("Foo"), key), 0);
+        assertNull(reloadedValues.get(new MyQualifiedName("Bar"), key));
+        // another file
+        assertNull(reloaded.startFile("Bar.java", 42L).get(new MyQualifiedName("Foo"), key));
+    }
+
+    @Test
+    public void testChangedFileIsComputedAgain() {
+        File file = new File(tempFolder.getRoot(), "metrics.cache");
+        MetricValueStore store = MetricValueStore.load(file, 1L);
+        store.startFile("Foo.java", 42L).put(new MyQualifiedName("Foo"), key, 3.0);
+        store.persist();
+
+        MetricValueStore reloaded = MetricValueStore.load(file, 1L);
+        assertNull(reloaded.startFile("Foo.java", 43L).get(new MyQualifiedName("Foo"), key));
+    }
+
+    @Test
+    public void testStartsOfTheSameFileShareTheirValues() {
+        MetricValueStore store = MetricValueStore.load(new File(tempFolder.getRoot(), "metrics.cache"), 1L);
+        FileValues values = store.startFile("Foo.java", 42L);
+        FileValues again = store.startFile("Foo.java", 42L);
+
+        values.put(new MyQualifiedName("Foo"), key, 3.0);
+        assertEquals(3.0, again.get(new MyQualifiedName("Foo"), key), 0);
+    }
+
+    @Test
+    public void testChangedClasspathInvalidatesStore() {
+        File file = new File(tempFolder.getRoot(), "metrics.cache");
+        MetricValueStore store = MetricValueStore.load(file, 1L);
+        store.startFile("Foo.java", 42L).put(new MyQualifiedName("Foo"), key, 3.0);
+        store.persist();
+
+        MetricValueStore reloaded = MetricValueStore.load(file, 2L);
+        assertNull(reloaded.startFile("Foo.java", 42L).get(new MyQualifiedName("Foo"), key));
+    }
+
+    @Test
+    public void testSkippedFilesAreKept() {
+        File file = new File(tempFolder.getRoot(), "metrics.cache");
+        MetricValueStore store = MetricValueStore.load(file, 1L);
+        store.startFile("Foo.java", 42L).put(new MyQualifiedName("Foo"), key, 3.0);
+        store.startFile("Bar.java", 43L).put(new MyQualifiedName("Bar"), key, 4.0);
+        store.persist();
+
+        // Foo is cached by the analysis cache, Bar is not part of the run
+        MetricValueStore secondRun = MetricValueStore.load(file, 1L);
+        secondRun.keepFile("Foo.java");
+        secondRun.startFile("Baz.java", 44L).put(new MyQualifiedName("Baz"), key, 5.0);
+        secondRun.persist();
+
+        MetricValueStore thirdRun = MetricValueStore.load(file, 1L);
+        assertEquals(3.0, thirdRun.startFile("Foo.java", 42L).get(new MyQualifiedName("Foo"), key), 0);
+        assertNull(thirdRun.startFile("Bar.java", 43L).get(new MyQualifiedName("Bar"), key));
+    }
+
+    @Test
+    public void testUnchangedStoreIsNotWritten() {
+        File file = new File(tempFolder.getRoot(), "metrics.cache");
+        MetricValueStore.load(file, 1L).persist();
+        assertFalse(file.exists());
+    }
+
+    private static class ZeroMetric implements Metric<Node> {
+
+        @Override
+        public boolean supports(Node node) {
+            return true;
+        }
+
+        @Override
+        public double computeFor(Node node, MetricOptions options) {
+            return 0;
+        }
+    }
+
+    private static class MyQualifiedName implements QualifiedName {
+
+        private final String name;
+
+        MyQualifiedName(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public QualifiedName getClassName() {
+            return this;
+        }
+
+        @Override
+        public boolean isClass() {
+            return true;
+        }
+
+        @Override
+        public boolean isOperation() {
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.symboltable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.lang.ast.DummyNode;
+
+public class AbstractScopeTest {
+
+    private final AbstractScope scope = new AbstractScope() { };
+
+    @Test
+    public void testDeclarationsAreGroupedByClass() {
+        NameDeclaration a = new MyDeclaration("a");
+        NameDeclaration b = new OtherDeclaration("b");
+        NameDeclaration c = new MyDeclaration("c");
+        scope.addDeclaration(a);
+        scope.addDeclaration(b);
+        scope.addDeclaration(c);
+
+        assertEquals(Arrays.asList(a, c, b), new ArrayList<>(scope.getDeclarations().keySet()));
+        assertEquals(3, scope.getDeclarations().size());
+        assertTrue(scope.getDeclarations().containsKey(b));
+        assertFalse(scope.getDeclarations().containsKey(new OtherDeclaration("a")));
+    }
+
+    @Test
+    public void testDeclarationsViewReflectsChanges() {
+        Map<NameDeclaration, List<NameOccurrence>> declarations = scope.getDeclarations();
+        assertTrue(declarations.isEmpty());
+
+        NameDeclaration a = new MyDeclaration("a");
+        scope.addDeclaration(a);
+        assertEquals(Collections.singleton(a), declarations.keySet());
+        assertSame(declarations, scope.getDeclarations());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testDeclarationsViewIsUnmodifiable() {
+        scope.addDeclaration(new MyDeclaration("a"));
+        scope.getDeclarations().clear();
+    }
+
+    @Test
+    public void testDeclarationsByImage() {
+        NameDeclaration a = new MyDeclaration("a");
+        NameDeclaration otherA = new OtherDeclaration("a");
+        scope.addDeclaration(a);
+        scope.addDeclaration(otherA);
+        scope.addDeclaration(new MyDeclaration("b"));
+
+        assertEquals(Collections.singletonList(a), scope.getDeclarations(MyDeclaration.class, "a"));
+        assertEquals(Collections.singletonList(otherA), scope.getDeclarations(OtherDeclaration.class, "a"));
+        assertTrue(scope.getDeclarations(OtherDeclaration.class, "b").isEmpty());
+        assertTrue(scope.getDeclarations(MyDeclaration.class, "c").isEmpty());
+    }
+
+    @Test
+    public void testAddNameOccurrence() {
+        NameDeclaration a = new MyDeclaration("a");
+        NameDeclaration otherA = new OtherDeclaration("a");
+        scope.addDeclaration(a);
+        scope.addDeclaration(otherA);
+        scope.addDeclaration(new MyDeclaration("b"));
+
+        NameOccurrence occurrence = new MyOccurrence("a");
+        assertTrue(scope.contains(occurrence));
+        assertFalse(scope.contains(new MyOccurrence("c")));
+
+        Set<NameDeclaration> found = scope.addNameOccurrence(occurrence);
+        assertEquals(2, found.size());
+        assertEquals(Collections.singletonList(occurrence), scope.getDeclarations().get(a));
+        assertEquals(Collections.singletonList(occurrence), scope.getDeclarations().get(otherA));
+        assertTrue(scope.addNameOccurrence(new MyOccurrence("c")).isEmpty());
+    }
+
+    private static class MyNode extends DummyNode implements ScopedNode {
+        MyNode(String image) {
+            super(0);
+            setImage(image);
+        }
+
+        @Override
+        public Scope getScope() {
+            return null;
+        }
+    }
+
+    private static class MyDeclaration extends AbstractNameDeclaration {
+        MyDeclaration(String image) {
+            super(new MyNode(image));
+        }
+    }
+
+    private static class OtherDeclaration extends AbstractNameDeclaration {
+        OtherDeclaration(String image) {
+            super(new MyNode(image));
+        }
+    }
+
+    private static class MyOccurrence implements NameOccurrence {
+        private final String image;
+
+        MyOccurrence(String image) {
+            this.image = image;
+        }
+
+        @Override
+        public ScopedNode getLocation() {
+            return null;
+        }
+
+        @Override
+        public String getImage() {
+            return image;
+        }
+    }
+}
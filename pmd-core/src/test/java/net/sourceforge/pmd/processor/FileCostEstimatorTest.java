@@ -0,0 +1,78 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.processor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.sourceforge.pmd.cache.AnalysisCache;
+import net.sourceforge.pmd.cache.AnalysisResult;
+import net.sourceforge.pmd.cache.NoopAnalysisCache;
+
+public class FileCostEstimatorTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final List<File> sourceFiles = new ArrayList<>();
+
+    private void newFile(String name, int size) throws IOException {
+        final File file = tempFolder.newFile(name);
+        Files.write(file.toPath(), new byte[size]);
+        sourceFiles.add(file);
+    }
+
+    @Test
+    public void testCostsFromSizeWithoutHistory() throws IOException {
+        newFile("Small.java", 10);
+        newFile("Large.java", 1000);
+        newFile("Medium.java", 100);
+
+        final long[] costs = new FileCostEstimator(new NoopAnalysisCache()).estimateCosts(sourceFiles);
+
+        // rounded down to a power of two
+        assertArrayEquals(new long[] {8, 512, 64}, costs);
+    }
+
+    @Test
+    public void testHistoryTakesPrecedenceOverSize() throws IOException {
+        newFile("Slow.java", 10);
+        newFile("Large.java", 1000);
+        newFile("Fast.java", 10000);
+
+        final AnalysisCache cache = mock(AnalysisCache.class);
+        when(cache.getPreviousAnalysisDuration(any(File.class))).thenReturn(AnalysisResult.UNKNOWN);
+        when(cache.getPreviousAnalysisDuration(sourceFiles.get(0))).thenReturn(1000000L);
+        when(cache.getPreviousAnalysisDuration(sourceFiles.get(2))).thenReturn(1000L);
+
+        // 1001000ns for 10010 bytes, so Large.java is estimated to take 100000ns
+        final long[] costs = new FileCostEstimator(cache).estimateCosts(sourceFiles);
+
+        assertArrayEquals(new long[] {524288, 65536, 512}, costs);
+    }
+
+    @Test
+    public void testSmallDurationChangesKeepTheCost() throws IOException {
+        newFile("File.java", 10);
+
+        final AnalysisCache cache = mock(AnalysisCache.class);
+        when(cache.getPreviousAnalysisDuration(sourceFiles.get(0))).thenReturn(1100L, 1900L);
+
+        final FileCostEstimator estimator = new FileCostEstimator(cache);
+        assertArrayEquals(estimator.estimateCosts(sourceFiles), estimator.estimateCosts(sourceFiles));
+    }
+}
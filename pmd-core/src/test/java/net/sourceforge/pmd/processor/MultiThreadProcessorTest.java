@@ -5,16 +5,22 @@
 package net.sourceforge.pmd.processor;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import net.sourceforge.pmd.PMDConfiguration;
 import net.sourceforge.pmd.Report;
@@ -27,11 +33,15 @@ import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.rule.AbstractRule;
 import net.sourceforge.pmd.renderers.AbstractAccumulatingRenderer;
 import net.sourceforge.pmd.renderers.Renderer;
+import net.sourceforge.pmd.renderers.TextRenderer;
 import net.sourceforge.pmd.stat.Metric;
 import net.sourceforge.pmd.util.datasource.DataSource;
 
 public class MultiThreadProcessorTest {
 
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     private RuleContext ctx;
     private MultiThreadProcessor processor;
     private RuleSetFactory ruleSetFactory;
@@ -85,6 +95,86 @@ public class MultiThreadProcessorTest {
         Assert.assertEquals("Missing violation", 1, reportListener.violations.get());
     }
 
+    @Test
+    public void testAllReportsRenderedWhenMoreFilesThanPendingTasks() throws IOException {
+        setUpForTest("rulesets/MultiThreadProcessorTest/dysfunctional.xml");
+        for (int i = 0; i < 50; i++) {
+            files.add(new StringDataSource("file" + i + ".dummy", "GHI"));
+        }
+        final SimpleRenderer renderer = new SimpleRenderer(null, null);
+        renderer.start();
+        processor.processFiles(ruleSetFactory, files, ctx, Collections.<Renderer>singletonList(renderer));
+        renderer.end();
+
+        // one report per file, plus the base report
+        Assert.assertEquals("Not all reports have been rendered", files.size() + 1, renderer.renderedReports);
+    }
+
+    @Test
+    public void testShardedRenderingFollowsFileOrder() throws IOException {
+        setUpForTest("rulesets/MultiThreadProcessorTest/violation.xml");
+        StringBuilder code = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            code.append("GHI");
+            files.add(new StringDataSource("file" + i + ".dummy", code.toString()));
+        }
+
+        final String rendered = render(processor, files);
+
+        // the same reports rendered on a single thread
+        PMDConfiguration configuration = new PMDConfiguration();
+        configuration.setRuleSets("rulesets/MultiThreadProcessorTest/violation.xml");
+        final String expected = render(new MonoThreadProcessor(configuration), files);
+
+        Assert.assertEquals(files.size(), expected.split("\n").length);
+        Assert.assertEquals(expected, rendered);
+    }
+
+    @Test
+    public void testFinishedReportsWaitingForASlowFileAreBounded() {
+        setUpForTest("rulesets/MultiThreadProcessorTest/slowfile.xml");
+        files.add(0, new StringDataSource("file0-slow.dummy", "ABC"));
+        for (int i = 0; i < 50; i++) {
+            files.add(new StringDataSource("file" + i + ".dummy", "GHI"));
+        }
+        processor.processFiles(ruleSetFactory, files, ctx, Collections.<Renderer>emptyList());
+
+        // 2 threads, 4 tasks per thread: the slow file and 7 others
+        Assert.assertTrue("Too many files analyzed while the first one was running: "
+                + SlowFirstFileRule.analyzedDuringSlowFile, SlowFirstFileRule.analyzedDuringSlowFile <= 7);
+    }
+
+    @Test
+    public void testMostExpensiveFileOfTheWindowIsAnalyzedFirst() throws IOException {
+        PMDConfiguration configuration = new PMDConfiguration();
+        configuration.setRuleSets("rulesets/MultiThreadProcessorTest/order.xml");
+        configuration.setThreads(1);
+        files = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            // the files are estimated from their size on disk
+            File file = tempFolder.newFile("file" + i + ".dummy");
+            Files.write(file.toPath(), new byte[i == 2 ? 1000 : 10]);
+            files.add(new StringDataSource(file.getPath(), "ABC"));
+        }
+
+        new MultiThreadProcessor(configuration).processFiles(new RuleSetFactory(), files, new RuleContext(),
+                Collections.<Renderer>emptyList());
+
+        // a window of 4 files, of which 2 are submitted at a time
+        Assert.assertEquals(Arrays.asList("file2.dummy", "file0.dummy", "file1.dummy", "file3.dummy",
+                "file4.dummy", "file5.dummy", "file6.dummy", "file7.dummy"), OrderRecordingRule.ANALYZED);
+    }
+
+    private String render(AbstractPMDProcessor processor, List<DataSource> files) throws IOException {
+        final StringWriter writer = new StringWriter();
+        final Renderer renderer = new TextRenderer();
+        renderer.setWriter(writer);
+        renderer.start();
+        processor.processFiles(ruleSetFactory, files, new RuleContext(), Collections.singletonList(renderer));
+        renderer.end();
+        return writer.toString();
+    }
+
     private static class StringDataSource implements DataSource {
         private final String data;
         private final String name;
@@ -137,6 +227,42 @@ public class MultiThreadProcessorTest {
         }
     }
     
+    public static class ViolationPerFileRule extends AbstractRule {
+
+        @Override
+        public void apply(List<? extends Node> nodes, RuleContext ctx) {
+            addViolation(ctx, nodes.get(0));
+        }
+    }
+
+    public static class SlowFirstFileRule extends AbstractRule {
+        private static final AtomicInteger ANALYZED = new AtomicInteger(0);
+        private static volatile int analyzedDuringSlowFile;
+
+        @Override
+        public void apply(List<? extends Node> nodes, RuleContext ctx) {
+            if (ctx.getSourceCodeFilename().contains("slow")) {
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    // ignored
+                }
+                analyzedDuringSlowFile = ANALYZED.get();
+            } else {
+                ANALYZED.incrementAndGet();
+            }
+        }
+    }
+
+    public static class OrderRecordingRule extends AbstractRule {
+        private static final List<String> ANALYZED = Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public void apply(List<? extends Node> nodes, RuleContext ctx) {
+            ANALYZED.add(new File(ctx.getSourceCodeFilename()).getName());
+        }
+    }
+
     public static class DysfunctionalRule extends AbstractRule {
 
         public static final String DYSFUNCTIONAL_RULE_REASON = "dysfunctional rule is dysfunctional";
@@ -167,6 +293,8 @@ public class MultiThreadProcessorTest {
     
     private static class SimpleRenderer extends AbstractAccumulatingRenderer {
 
+        private int renderedReports;
+
         /* default */ SimpleRenderer(String name, String description) {
             super(name, description);
         }
@@ -176,6 +304,12 @@ public class MultiThreadProcessorTest {
             return null;
         }
 
+        @Override
+        public void renderFileReport(Report report) throws IOException {
+            super.renderFileReport(report);
+            renderedReports++;
+        }
+
         @Override
         public void end() throws IOException {
         }
@@ -4,9 +4,17 @@
 
 package net.sourceforge.pmd.renderers;
 
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringWriter;
+
+import org.junit.Test;
+
 import net.sourceforge.pmd.PMD;
+import net.sourceforge.pmd.Report;
 import net.sourceforge.pmd.Report.ConfigurationError;
 import net.sourceforge.pmd.Report.ProcessingError;
+import net.sourceforge.pmd.properties.PropertyDescriptor;
 
 public class CSVRendererTest extends AbstractRendererTst {
 
@@ -43,6 +51,27 @@ public class CSVRendererTest extends AbstractRendererTst {
         return getHeader();
     }
     
+    /**
+     * The shards use the columns of the renderer, even when they're created
+     * before it's started.
+     */
+    @Test
+    public void testShardCreatedBeforeStart() throws Exception {
+        CSVRenderer renderer = new CSVRenderer();
+        @SuppressWarnings("unchecked")
+        PropertyDescriptor<Boolean> packageColumn = (PropertyDescriptor<Boolean>) renderer.getPropertyDescriptor("package");
+        renderer.setProperty(packageColumn, false);
+
+        ShardableRenderer shard = renderer.createShard();
+        StringWriter writer = new StringWriter();
+        shard.setWriter(writer);
+        Report report = new Report();
+        report.addRuleViolation(newRuleViolation(1));
+        shard.renderShard(report);
+
+        assertEquals("\"1\",\"n/a\",\"5\",\"1\",\"blah\",\"RuleSet\",\"Foo\"" + PMD.EOL, writer.toString());
+    }
+
     private String getHeader() {
         return "\"Problem\",\"Package\",\"File\",\"Priority\",\"Line\",\"Description\",\"Rule set\",\"Rule\"" + PMD.EOL;
     }
@@ -0,0 +1,111 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers;
+
+import net.sourceforge.pmd.PMD;
+import net.sourceforge.pmd.PMDVersion;
+import net.sourceforge.pmd.Report.ConfigurationError;
+import net.sourceforge.pmd.Report.ProcessingError;
+
+public class JsonRendererTest extends AbstractRendererTst {
+
+    @Override
+    public Renderer getRenderer() {
+        return new JsonRenderer();
+    }
+
+    @Override
+    public String getExpected() {
+        return getHeader()
+                + "  \"files\": [" + PMD.EOL
+                + getFile(getViolation(1))
+                + "  ]," + PMD.EOL
+                + getFooter("[]", "[]", "[]");
+    }
+
+    @Override
+    public String getExpectedEmpty() {
+        return getHeader()
+                + "  \"files\": []," + PMD.EOL
+                + getFooter("[]", "[]", "[]");
+    }
+
+    @Override
+    public String getExpectedMultiple() {
+        return getHeader()
+                + "  \"files\": [" + PMD.EOL
+                + getFile(getViolation(1) + "," + PMD.EOL + getViolation(2))
+                + "  ]," + PMD.EOL
+                + getFooter("[]", "[]", "[]");
+    }
+
+    @Override
+    public String getExpectedError(ProcessingError error) {
+        return getHeader()
+                + "  \"files\": []," + PMD.EOL
+                + getFooter("[]", "[" + PMD.EOL
+                        + "    {" + PMD.EOL
+                        + "      \"filename\": \"file\"," + PMD.EOL
+                        + "      \"message\": \"" + error.getMsg() + "\"," + PMD.EOL
+                        + "      \"detail\": \"\"" + PMD.EOL
+                        + "    }" + PMD.EOL
+                        + "  ]", "[]");
+    }
+
+    @Override
+    public String getExpectedError(ConfigurationError error) {
+        return getHeader()
+                + "  \"files\": []," + PMD.EOL
+                + getFooter("[]", "[]", "[" + PMD.EOL
+                        + "    {" + PMD.EOL
+                        + "      \"rule\": \"Foo\"," + PMD.EOL
+                        + "      \"ruleset\": \"RuleSet\"," + PMD.EOL
+                        + "      \"message\": \"a configuration error\"" + PMD.EOL
+                        + "    }" + PMD.EOL
+                        + "  ]");
+    }
+
+    @Override
+    public String filter(String expected) {
+        return expected.replaceAll("\"timestamp\": \"[^\"]+\"", "\"timestamp\": \"\"")
+                .replaceAll("\"detail\": \"(?:[^\"\\\\]|\\\\.)*\"", "\"detail\": \"\"");
+    }
+
+    private String getHeader() {
+        return "{" + PMD.EOL
+                + "  \"formatVersion\": 0," + PMD.EOL
+                + "  \"pmdVersion\": \"" + PMDVersion.VERSION + "\"," + PMD.EOL
+                + "  \"timestamp\": \"\"," + PMD.EOL;
+    }
+
+    private String getFile(String violations) {
+        return "    {" + PMD.EOL
+                + "      \"filename\": \"n/a\"," + PMD.EOL
+                + "      \"violations\": [" + PMD.EOL
+                + violations + PMD.EOL
+                + "      ]" + PMD.EOL
+                + "    }" + PMD.EOL;
+    }
+
+    private String getViolation(int endColumn) {
+        return "        {" + PMD.EOL
+                + "          \"beginline\": 1," + PMD.EOL
+                + "          \"begincolumn\": 1," + PMD.EOL
+                + "          \"endline\": 1," + PMD.EOL
+                + "          \"endcolumn\": " + endColumn + "," + PMD.EOL
+                + "          \"description\": \"blah\"," + PMD.EOL
+                + "          \"rule\": \"Foo\"," + PMD.EOL
+                + "          \"ruleset\": \"RuleSet\"," + PMD.EOL
+                + "          \"priority\": 5" + PMD.EOL
+                + "        }";
+    }
+
+    private String getFooter(String suppressed, String errors, String configErrors) {
+        return "  \"suppressedViolations\": " + suppressed + "," + PMD.EOL
+                + "  \"processingErrors\": " + errors + "," + PMD.EOL
+                + "  \"configurationErrors\": " + configErrors + PMD.EOL
+                + "}" + PMD.EOL;
+    }
+}
@@ -0,0 +1,228 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+import net.sourceforge.pmd.FooRule;
+import net.sourceforge.pmd.PMD;
+import net.sourceforge.pmd.PMDVersion;
+import net.sourceforge.pmd.Report;
+import net.sourceforge.pmd.Report.ConfigurationError;
+import net.sourceforge.pmd.Report.ProcessingError;
+import net.sourceforge.pmd.ReportTest;
+import net.sourceforge.pmd.Rule;
+import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.MockRule;
+import net.sourceforge.pmd.lang.rule.ParametricRuleViolation;
+
+public class SarifRendererTest extends AbstractRendererTst {
+
+    @Override
+    public Renderer getRenderer() {
+        return new SarifRenderer();
+    }
+
+    @Override
+    public String getExpected() {
+        return getHeader()
+                + "      \"results\": [" + PMD.EOL
+                + getResult(1) + PMD.EOL
+                + "      ]," + PMD.EOL
+                + getTool(true)
+                + getInvocation(true, "[]", "[]");
+    }
+
+    @Override
+    public String getExpectedEmpty() {
+        return getHeader()
+                + "      \"results\": []," + PMD.EOL
+                + getTool(false)
+                + getInvocation(true, "[]", "[]");
+    }
+
+    @Override
+    public String getExpectedMultiple() {
+        return getHeader()
+                + "      \"results\": [" + PMD.EOL
+                + getResult(1) + "," + PMD.EOL
+                + getResult(2) + PMD.EOL
+                + "      ]," + PMD.EOL
+                + getTool(true)
+                + getInvocation(true, "[]", "[]");
+    }
+
+    @Override
+    public String getExpectedError(ProcessingError error) {
+        String message = error.getError().getMessage() == null ? ""
+                : "," + PMD.EOL + "                \"message\": \"" + error.getError().getMessage() + "\"";
+        return getHeader()
+                + "      \"results\": []," + PMD.EOL
+                + getTool(false)
+                + getInvocation(false, "[]", "[" + PMD.EOL
+                        + "            {" + PMD.EOL
+                        + "              \"locations\": [" + PMD.EOL
+                        + "                {" + PMD.EOL
+                        + "                  \"physicalLocation\": {" + PMD.EOL
+                        + "                    \"artifactLocation\": {" + PMD.EOL
+                        + "                      \"uri\": \"file\"," + PMD.EOL
+                        + "                      \"uriBaseId\": \"%SRCROOT%\"" + PMD.EOL
+                        + "                    }" + PMD.EOL
+                        + "                  }" + PMD.EOL
+                        + "                }" + PMD.EOL
+                        + "              ]," + PMD.EOL
+                        + "              \"message\": {" + PMD.EOL
+                        + "                \"text\": \"" + error.getMsg() + "\"" + PMD.EOL
+                        + "              }," + PMD.EOL
+                        + "              \"exception\": {" + PMD.EOL
+                        + "                \"kind\": \"" + error.getError().getClass().getName() + "\""
+                        + message + PMD.EOL
+                        + "              }" + PMD.EOL
+                        + "            }" + PMD.EOL
+                        + "          ]");
+    }
+
+    @Override
+    public String getExpectedError(ConfigurationError error) {
+        return getHeader()
+                + "      \"results\": []," + PMD.EOL
+                + getTool(false)
+                + getInvocation(true, "[" + PMD.EOL
+                        + "            {" + PMD.EOL
+                        + "              \"associatedRule\": {" + PMD.EOL
+                        + "                \"id\": \"Foo\"" + PMD.EOL
+                        + "              }," + PMD.EOL
+                        + "              \"message\": {" + PMD.EOL
+                        + "                \"text\": \"a configuration error\"" + PMD.EOL
+                        + "              }" + PMD.EOL
+                        + "            }" + PMD.EOL
+                        + "          ]", "[]");
+    }
+
+    @Test
+    public void testAbsoluteFileNameIsFileUri() throws Exception {
+        File file = new File("Foo Bar.java").getAbsoluteFile();
+        RuleContext ctx = new RuleContext();
+        ctx.setSourceCodeFilename(file.getPath());
+        Report report = new Report();
+        report.addRuleViolation(new ParametricRuleViolation<Node>(new FooRule(), ctx, createNode(1), "blah"));
+
+        String rendered = ReportTest.render(getRenderer(), report);
+        assertTrue(rendered.contains("\"uri\": \"" + file.toURI() + "\"" + PMD.EOL));
+        assertFalse(rendered.contains("uriBaseId"));
+    }
+
+    @Test
+    public void testRelativeFileNameIsEncoded() throws Exception {
+        RuleContext ctx = new RuleContext();
+        ctx.setSourceCodeFilename("src" + File.separator + "Foo Bar.java");
+        Report report = new Report();
+        report.addRuleViolation(new ParametricRuleViolation<Node>(new FooRule(), ctx, createNode(1), "blah"));
+
+        String rendered = ReportTest.render(getRenderer(), report);
+        assertTrue(rendered.contains("\"uri\": \"src/Foo%20Bar.java\"," + PMD.EOL));
+    }
+
+    @Test
+    public void testRulesWithTheSameNameInDifferentRulesets() throws Exception {
+        RuleContext ctx = new RuleContext();
+        ctx.setSourceCodeFilename(getSourceCodeFilename());
+        Rule first = new MockRule("Foo", "desc", "blah", "first");
+        Rule second = new MockRule("Foo", "desc", null, "second");
+        Report report = new Report();
+        report.addRuleViolation(new ParametricRuleViolation<Node>(first, ctx, createNode(1), "blah"));
+        report.addRuleViolation(new ParametricRuleViolation<Node>(second, ctx, createNode(2), "blah"));
+
+        String rendered = ReportTest.render(getRenderer(), report);
+        assertTrue(rendered.contains("\"ruleIndex\": 0,"));
+        assertTrue(rendered.contains("\"ruleIndex\": 1,"));
+        assertTrue(rendered.contains("\"ruleset\": \"first\","));
+        assertTrue(rendered.contains("\"ruleset\": \"second\","));
+        // the second rule has no message
+        assertEquals(1, StringUtils.countMatches(rendered, "\"shortDescription\""));
+    }
+
+    private String getHeader() {
+        return "{" + PMD.EOL
+                + "  \"$schema\": \"https://schemastore.azurewebsites.net/schemas/json/sarif-2.1.0-rtm.4.json\"," + PMD.EOL
+                + "  \"version\": \"2.1.0\"," + PMD.EOL
+                + "  \"runs\": [" + PMD.EOL
+                + "    {" + PMD.EOL;
+    }
+
+    private String getResult(int endColumn) {
+        return "        {" + PMD.EOL
+                + "          \"ruleId\": \"Foo\"," + PMD.EOL
+                + "          \"ruleIndex\": 0," + PMD.EOL
+                + "          \"level\": \"note\"," + PMD.EOL
+                + "          \"message\": {" + PMD.EOL
+                + "            \"text\": \"blah\"" + PMD.EOL
+                + "          }," + PMD.EOL
+                + "          \"locations\": [" + PMD.EOL
+                + "            {" + PMD.EOL
+                + "              \"physicalLocation\": {" + PMD.EOL
+                + "                \"artifactLocation\": {" + PMD.EOL
+                + "                  \"uri\": \"n/a\"," + PMD.EOL
+                + "                  \"uriBaseId\": \"%SRCROOT%\"" + PMD.EOL
+                + "                }," + PMD.EOL
+                + "                \"region\": {" + PMD.EOL
+                + "                  \"startLine\": 1," + PMD.EOL
+                + "                  \"startColumn\": 1," + PMD.EOL
+                + "                  \"endLine\": 1," + PMD.EOL
+                + "                  \"endColumn\": " + endColumn + PMD.EOL
+                + "                }" + PMD.EOL
+                + "              }" + PMD.EOL
+                + "            }" + PMD.EOL
+                + "          ]" + PMD.EOL
+                + "        }";
+    }
+
+    private String getTool(boolean withRule) {
+        String rules = !withRule ? "[]" : "[" + PMD.EOL
+                + "            {" + PMD.EOL
+                + "              \"id\": \"Foo\"," + PMD.EOL
+                + "              \"shortDescription\": {" + PMD.EOL
+                + "                \"text\": \"blah\"" + PMD.EOL
+                + "              }," + PMD.EOL
+                + "              \"fullDescription\": {" + PMD.EOL
+                + "                \"text\": \"desc\"" + PMD.EOL
+                + "              }," + PMD.EOL
+                + "              \"properties\": {" + PMD.EOL
+                + "                \"ruleset\": \"RuleSet\"," + PMD.EOL
+                + "                \"priority\": 5" + PMD.EOL
+                + "              }" + PMD.EOL
+                + "            }" + PMD.EOL
+                + "          ]";
+        return "      \"tool\": {" + PMD.EOL
+                + "        \"driver\": {" + PMD.EOL
+                + "          \"name\": \"PMD\"," + PMD.EOL
+                + "          \"version\": \"" + PMDVersion.VERSION + "\"," + PMD.EOL
+                + "          \"informationUri\": \"https://pmd.github.io/pmd/\"," + PMD.EOL
+                + "          \"rules\": " + rules + PMD.EOL
+                + "        }" + PMD.EOL
+                + "      }," + PMD.EOL;
+    }
+
+    private String getInvocation(boolean successful, String configurationNotifications, String executionNotifications) {
+        return "      \"invocations\": [" + PMD.EOL
+                + "        {" + PMD.EOL
+                + "          \"executionSuccessful\": " + successful + "," + PMD.EOL
+                + "          \"toolConfigurationNotifications\": " + configurationNotifications + "," + PMD.EOL
+                + "          \"toolExecutionNotifications\": " + executionNotifications + PMD.EOL
+                + "        }" + PMD.EOL
+                + "      ]" + PMD.EOL
+                + "    }" + PMD.EOL
+                + "  ]" + PMD.EOL
+                + "}" + PMD.EOL;
+    }
+}
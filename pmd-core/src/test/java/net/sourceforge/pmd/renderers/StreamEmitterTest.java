@@ -0,0 +1,55 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.util.StringUtil;
+
+public class StreamEmitterTest {
+
+    private static final String TEXT = "a<b>&\"c\" é€ 😀 ~";
+
+    @Test
+    public void testXmlEscapedLikeStringUtil() throws IOException {
+        for (boolean supportUTF8 : new boolean[] {true, false}) {
+            StringBuilder expected = new StringBuilder();
+            StringUtil.appendXmlEscaped(expected, TEXT, supportUTF8);
+
+            StringWriter writer = new StringWriter();
+            StreamEmitter emitter = new StreamEmitter(writer);
+            emitter.appendXmlEscaped(TEXT, supportUTF8).flush();
+            assertEquals(expected.toString(), writer.toString());
+        }
+    }
+
+    @Test
+    public void testJsonString() throws IOException {
+        StringWriter writer = new StringWriter();
+        StreamEmitter emitter = new StreamEmitter(writer);
+        emitter.appendJsonString("a\"b\\c\n\t\u0001 ").append(' ').appendJsonString(null).flush();
+        assertEquals("\"a\\\"b\\\\c\\n\\t\\u0001\\u2028\" null", writer.toString());
+    }
+
+    @Test
+    public void testNumbersAcrossBufferBoundaries() throws IOException {
+        StringWriter writer = new StringWriter();
+        StreamEmitter emitter = new StreamEmitter(writer);
+        StringBuilder expected = new StringBuilder();
+        long[] values = {0, 7, -42, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (int i = 0; i < 5000; i++) {
+            long value = values[i % values.length];
+            emitter.append(value).append(',');
+            expected.append(value).append(',');
+        }
+        emitter.flush();
+        assertEquals(expected.toString(), writer.toString());
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ClassResolutionCacheTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testPersistAndReload() {
+        final File file = new File(tempFolder.getRoot(), "resolution.cache");
+        final ClassResolutionCache cache = ClassResolutionCache.load(file, 42L);
+        cache.addUnresolvable("foo.Missing");
+        cache.putImportedClasses("foo.Bar", Collections.singletonMap("List", "java.util.List"));
+        cache.persist();
+        assertTrue(file.isFile());
+
+        final ClassResolutionCache reloaded = ClassResolutionCache.load(file, 42L);
+        assertTrue(reloaded.isUnresolvable("foo.Missing"));
+        assertFalse(reloaded.isUnresolvable("foo.Bar"));
+        assertEquals(Collections.singletonMap("List", "java.util.List"), reloaded.getImportedClasses("foo.Bar"));
+    }
+
+    @Test
+    public void testChangedClasspathInvalidatesCache() {
+        final File file = new File(tempFolder.getRoot(), "resolution.cache");
+        final ClassResolutionCache cache = ClassResolutionCache.load(file, 42L);
+        cache.addUnresolvable("foo.Missing");
+        cache.persist();
+
+        final ClassResolutionCache reloaded = ClassResolutionCache.load(file, 43L);
+        assertFalse(reloaded.isUnresolvable("foo.Missing"));
+    }
+
+    @Test
+    public void testUnchangedCacheIsNotWritten() {
+        final File file = new File(tempFolder.getRoot(), "resolution.cache");
+        ClassResolutionCache.load(file, 42L).persist();
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void testFileNameDependsOnClasspath() throws IOException {
+        final URL first = tempFolder.newFile("first.jar").toURI().toURL();
+        final URL second = tempFolder.newFile("second.jar").toURI().toURL();
+
+        assertEquals(ClassResolutionCache.fileName(new URL[] {first, second}),
+                ClassResolutionCache.fileName(new URL[] {first, second}));
+        assertNotEquals(ClassResolutionCache.fileName(new URL[] {first}),
+                ClassResolutionCache.fileName(new URL[] {second}));
+        assertNotEquals(ClassResolutionCache.fileName(new URL[] {first, second}),
+                ClassResolutionCache.fileName(new URL[] {second, first}));
+    }
+
+    @Test
+    public void testFirstImportedClassesWin() {
+        final ClassResolutionCache cache = new ClassResolutionCache();
+        assertNull(cache.getImportedClasses("foo.Bar"));
+
+        final Map<String, String> first = cache.putImportedClasses("foo.Bar",
+                Collections.singletonMap("List", "java.util.List"));
+        final Map<String, String> second = cache.putImportedClasses("foo.Bar",
+                Collections.singletonMap("List", "java.awt.List"));
+        assertSame(first, second);
+        assertEquals("java.util.List", cache.getImportedClasses("foo.Bar").get("List"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImportedClassesAreUnmodifiable() {
+        final ClassResolutionCache cache = new ClassResolutionCache();
+        cache.putImportedClasses("foo.Bar", Collections.singletonMap("List", "java.util.List")).clear();
+    }
+}
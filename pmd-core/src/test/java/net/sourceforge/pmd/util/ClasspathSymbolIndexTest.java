@@ -0,0 +1,147 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import net.sourceforge.pmd.util.ClasspathSymbolIndex.ClassSymbol;
+
+public class ClasspathSymbolIndexTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void testClassesOfJar() throws IOException {
+        final ClasspathSymbolIndex index = ClasspathSymbolIndex.create(new URL[] {createJar()}, null);
+
+        final ClassSymbol sample = index.getClassSymbol(Sample.class.getName());
+        assertNotNull(sample);
+        assertEquals(Sample.class.getName(), sample.getName());
+        assertEquals(ArrayList.class.getName(), sample.getSuperName());
+        assertEquals(Collections.singletonList(Marker.class.getName()), sample.getInterfaceNames());
+
+        assertTrue(index.contains(Marker.class.getName()));
+        assertFalse(index.contains(ClasspathSymbolIndexTest.class.getName()));
+        assertNull(index.getClassSymbol("java.lang.String"));
+    }
+
+    @Test
+    public void testSubtypes() throws IOException {
+        final ClasspathSymbolIndex index = ClasspathSymbolIndex.create(new URL[] {createJar()}, null);
+
+        assertTrue(index.isSubtype(Sample.class.getName(), Marker.class.getName()));
+        assertTrue(index.isSubtype(Sample.class.getName(), ArrayList.class.getName()));
+        assertTrue(index.isSubtype(Sample.class.getName(), Sample.class.getName()));
+        assertFalse(index.isSubtype(Marker.class.getName(), Sample.class.getName()));
+        // the hierarchy of ArrayList is not on the indexed classpath
+        assertFalse(index.isSubtype(Sample.class.getName(), List.class.getName()));
+    }
+
+    @Test
+    public void testIndexIsPersistedAndReused() throws IOException {
+        final URL jar = createJar();
+        final File indexDirectory = new File(tempFolder.getRoot(), "index");
+
+        ClasspathSymbolIndex.create(new URL[] {jar}, indexDirectory);
+        final File[] indexFiles = indexDirectory.listFiles();
+        assertNotNull(indexFiles);
+        assertEquals(1, indexFiles.length);
+        final long lastModified = indexFiles[0].lastModified();
+
+        final ClasspathSymbolIndex reused = ClasspathSymbolIndex.create(new URL[] {jar}, indexDirectory);
+        assertEquals(1, indexDirectory.listFiles().length);
+        assertEquals(lastModified, indexFiles[0].lastModified());
+        assertEquals(ArrayList.class.getName(), reused.getClassSymbol(Sample.class.getName()).getSuperName());
+    }
+
+    @Test
+    public void testDirectoryAndMissingEntries() throws IOException {
+        final File classes = tempFolder.newFolder("classes");
+        copyClass(Marker.class, new File(classes, "Marker.class"));
+        final URL missing = new File(tempFolder.getRoot(), "missing.jar").toURI().toURL();
+
+        final ClasspathSymbolIndex index = ClasspathSymbolIndex.create(new URL[] {missing, classes.toURI().toURL()}, null);
+        assertTrue(index.contains(Marker.class.getName()));
+        assertFalse(index.contains(Sample.class.getName()));
+    }
+
+    @Test
+    public void testChecksumOfContents() throws IOException {
+        final File classes = tempFolder.newFolder("classes");
+        copyClass(Marker.class, new File(classes, "Marker.class"));
+        final URL[] classpath = {createJar(), classes.toURI().toURL()};
+
+        final long checksum = ClasspathSymbolIndex.computeChecksum(classpath);
+        assertEquals(ClasspathSymbolIndex.create(classpath, null).getChecksum(), checksum);
+
+        // same path, other contents
+        copyClass(Sample.class, new File(classes, "Marker.class"));
+        assertNotEquals(checksum, ClasspathSymbolIndex.computeChecksum(classpath));
+    }
+
+    private URL createJar() throws IOException {
+        final File jar = tempFolder.newFile("sample.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar.toPath()))) {
+            addClass(out, Sample.class);
+            addClass(out, Marker.class);
+        }
+        return jar.toURI().toURL();
+    }
+
+    private static void addClass(final JarOutputStream out, final Class<?> clazz) throws IOException {
+        out.putNextEntry(new JarEntry(clazz.getName().replace('.', '/') + ".class"));
+        try (InputStream in = openClass(clazz)) {
+            IOUtils.copy(in, out);
+        }
+        out.closeEntry();
+    }
+
+    private static void copyClass(final Class<?> clazz, final File target) throws IOException {
+        try (InputStream in = openClass(clazz); OutputStream out = Files.newOutputStream(target.toPath())) {
+            IOUtils.copy(in, out);
+        }
+    }
+
+    private static InputStream openClass(final Class<?> clazz) {
+        return clazz.getResourceAsStream('/' + clazz.getName().replace('.', '/') + ".class");
+    }
+
+    public interface Marker {
+    }
+
+    public static class Sample extends ArrayList<String> implements Marker {
+        private static final long serialVersionUID = 1L;
+
+        private int count;
+
+        public String first() {
+            count++;
+            return get(0);
+        }
+    }
+}
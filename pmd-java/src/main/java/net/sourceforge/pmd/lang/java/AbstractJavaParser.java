@@ -13,6 +13,7 @@ import net.sourceforge.pmd.lang.TokenManager;
 import net.sourceforge.pmd.lang.ast.AbstractTokenManager;
 import net.sourceforge.pmd.lang.ast.JavaCharStream;
 import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
 import net.sourceforge.pmd.lang.java.ast.JavaParser;
 import net.sourceforge.pmd.lang.java.ast.ParseException;
 
@@ -56,7 +57,9 @@ public abstract class AbstractJavaParser extends AbstractParser {
     @Override
     public Node parse(String fileName, Reader source) throws ParseException {
         AbstractTokenManager.setFileName(fileName);
-        return createJavaParser(source).CompilationUnit();
+        ASTCompilationUnit compilationUnit = createJavaParser(source).CompilationUnit();
+        compilationUnit.setNodeTypeIndex(parser.getNodeTypeIndex().finish(compilationUnit));
+        return compilationUnit;
     }
 
     @Override
@@ -7,15 +7,18 @@ package net.sourceforge.pmd.lang.java.ast;
 
 import java.util.List;
 
+import net.sourceforge.pmd.annotation.InternalApi;
+import net.sourceforge.pmd.lang.ast.IndexedRootNode;
 import net.sourceforge.pmd.lang.ast.Node;
-import net.sourceforge.pmd.lang.ast.RootNode;
+import net.sourceforge.pmd.lang.ast.NodeTypeIndex;
 import net.sourceforge.pmd.lang.java.typeresolution.ClassTypeResolver;
 
 // FUTURE Change this class to extend from SimpleJavaNode, as TypeNode is not appropriate (unless I'm wrong)
-public class ASTCompilationUnit extends AbstractJavaTypeNode implements RootNode {
+public class ASTCompilationUnit extends AbstractJavaTypeNode implements IndexedRootNode {
 
     private ClassTypeResolver classTypeResolver;
     private List<Comment> comments;
+    private NodeTypeIndex nodeTypeIndex;
 
     public ASTCompilationUnit(int id) {
         super(id);
@@ -53,6 +56,16 @@ public class ASTCompilationUnit extends AbstractJavaTypeNode implements RootNode
         return null;
     }
 
+    @Override
+    public NodeTypeIndex getNodeTypeIndex() {
+        return nodeTypeIndex;
+    }
+
+    @InternalApi
+    public void setNodeTypeIndex(NodeTypeIndex nodeTypeIndex) {
+        this.nodeTypeIndex = nodeTypeIndex;
+    }
+
     public ClassTypeResolver getClassTypeResolver() {
         return classTypeResolver;
     }
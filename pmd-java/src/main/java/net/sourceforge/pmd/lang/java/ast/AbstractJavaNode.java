@@ -24,6 +24,7 @@ public abstract class AbstractJavaNode extends AbstractNode implements JavaNode
 
     @Override
     public void jjtOpen() {
+        parser.getNodeTypeIndex().nodeOpened(this);
         if (beginLine == -1 && parser.token.next != null) {
             beginLine = parser.token.next.beginLine;
             beginColumn = parser.token.next.beginColumn;
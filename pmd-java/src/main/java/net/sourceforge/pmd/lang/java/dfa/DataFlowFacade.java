@@ -5,9 +5,13 @@
 package net.sourceforge.pmd.lang.java.dfa;
 
 import net.sourceforge.pmd.lang.DataFlowHandler;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.dfa.DataFlowNode;
+import net.sourceforge.pmd.lang.java.JavaDataFlowHandler;
 import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
 import net.sourceforge.pmd.lang.java.ast.ASTConstructorDeclaration;
 import net.sourceforge.pmd.lang.java.ast.ASTMethodDeclaration;
+import net.sourceforge.pmd.lang.java.ast.ASTMethodOrConstructorDeclaration;
 import net.sourceforge.pmd.lang.java.ast.JavaParserVisitorAdapter;
 
 /**
@@ -40,4 +44,42 @@ public class DataFlowFacade extends JavaParserVisitorAdapter {
         vav.compute(node);
         return data;
     }
+
+
+    /**
+     * Returns the data flow node of the given method or constructor, building
+     * the data flow of the method on the first call. Rules should use this
+     * instead of declaring that they use the data flow analysis, so that only
+     * the methods they actually look at pay for it.
+     *
+     * <p>As with {@link #initializeWith(DataFlowHandler, ASTCompilationUnit)},
+     * the methods of local and anonymous classes are part of the data flow of
+     * the outermost enclosing method. The data flow is kept on the AST, and is
+     * only built once even if several rules ask for it concurrently.
+     *
+     * @param node A method or constructor declaration
+     *
+     * @return The data flow node of the method, see {@link DataFlowNode#getFlow()}
+     *
+     * @since 6.13.0
+     */
+    public static DataFlowNode getDataFlow(ASTMethodOrConstructorDeclaration node) {
+        ASTMethodOrConstructorDeclaration root = node;
+        for (Node parent = node.jjtGetParent(); parent != null; parent = parent.jjtGetParent()) {
+            if (parent instanceof ASTMethodOrConstructorDeclaration) {
+                root = (ASTMethodOrConstructorDeclaration) parent;
+            }
+        }
+
+        synchronized (root) {
+            DataFlowNode flow = root.getDataFlowNode();
+            if (flow == null || flow.getNode() != root) {
+                DataFlowFacade facade = new DataFlowFacade();
+                facade.sbf = new StatementAndBraceFinder(new JavaDataFlowHandler());
+                facade.vav = new VariableAccessVisitor();
+                root.jjtAccept(facade, null);
+            }
+        }
+        return node.getDataFlowNode();
+    }
 }
@@ -11,13 +11,15 @@ import java.util.Map;
 import net.sourceforge.pmd.RuleContext;
 import net.sourceforge.pmd.lang.dfa.DataFlowNode;
 import net.sourceforge.pmd.lang.dfa.VariableAccess;
+import net.sourceforge.pmd.lang.dfa.fixpoint.AccessPairHandler;
+import net.sourceforge.pmd.lang.dfa.fixpoint.ReachingAccesses;
 import net.sourceforge.pmd.lang.dfa.pathfinder.CurrentPath;
-import net.sourceforge.pmd.lang.dfa.pathfinder.DAAPathFinder;
 import net.sourceforge.pmd.lang.dfa.pathfinder.Executable;
 import net.sourceforge.pmd.lang.java.ast.ASTMethodDeclaration;
+import net.sourceforge.pmd.lang.java.dfa.DataFlowFacade;
 
 //FUTURE This is not referenced by any RuleSet?
-public class UselessAssignment extends AbstractJavaRule implements Executable {
+public class UselessAssignment extends AbstractJavaRule implements Executable, AccessPairHandler {
 
     private RuleContext rc;
 
@@ -34,8 +36,7 @@ public class UselessAssignment extends AbstractJavaRule implements Executable {
          * System.out.println(o); } }
          */
 
-        DAAPathFinder a = new DAAPathFinder(node.getDataFlowNode().getFlow().get(0), this);
-        a.run();
+        new ReachingAccesses(DataFlowFacade.getDataFlow(node).getFlow()).visitAccessPairs(this);
 
         return data;
     }
@@ -55,6 +56,19 @@ public class UselessAssignment extends AbstractJavaRule implements Executable {
         }
     }
 
+    @Override
+    public void handlePair(DataFlowNode previousNode, VariableAccess previous, DataFlowNode node, VariableAccess access) {
+        // DD - definition followed by another definition
+        if (access.isDefinition() && access.accessTypeMatches(previous.getAccessType())) {
+            addViolation(rc, previousNode.getNode(), access.getVariableName());
+        }
+    }
+
+    /**
+     * @deprecated The rule doesn't enumerate the paths of the data flow anymore,
+     *     see {@link #handlePair(DataFlowNode, VariableAccess, DataFlowNode, VariableAccess)}
+     */
+    @Deprecated
     @Override
     public void execute(CurrentPath path) {
         Map<String, Usage> hash = new HashMap<>();
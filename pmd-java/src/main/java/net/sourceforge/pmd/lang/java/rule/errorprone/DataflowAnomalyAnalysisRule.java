@@ -21,6 +21,7 @@ import net.sourceforge.pmd.lang.dfa.pathfinder.DAAPathFinder;
 import net.sourceforge.pmd.lang.dfa.pathfinder.Executable;
 import net.sourceforge.pmd.lang.java.ast.ASTClassOrInterfaceDeclaration;
 import net.sourceforge.pmd.lang.java.ast.ASTMethodDeclaration;
+import net.sourceforge.pmd.lang.java.dfa.DataFlowFacade;
 import net.sourceforge.pmd.lang.java.rule.AbstractJavaRule;
 import net.sourceforge.pmd.properties.PropertyDescriptor;
 import net.sourceforge.pmd.properties.PropertyFactory;
@@ -83,7 +84,7 @@ public class DataflowAnomalyAnalysisRule extends AbstractJavaRule implements Exe
         rc = (RuleContext) data;
         daaRuleViolations = new ArrayList<>();
 
-        final DataFlowNode node = methodDeclaration.getDataFlowNode().getFlow().get(0);
+        final DataFlowNode node = DataFlowFacade.getDataFlow(methodDeclaration).getFlow().get(0);
 
         final DAAPathFinder pathFinder = new DAAPathFinder(node, this, getProperty(MAX_PATH_DESCRIPTOR));
         pathFinder.run();
@@ -5,6 +5,7 @@
 package net.sourceforge.pmd.lang.java.symboltable;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
@@ -185,11 +186,11 @@ public class ClassScope extends AbstractJavaScope {
             return Collections.<NameDeclaration>singleton(classDeclaration);
         }
 
-        Map<MethodNameDeclaration, List<NameOccurrence>> methodDeclarations = getMethodDeclarations();
         Set<NameDeclaration> result = new HashSet<>();
         if (occurrence.isMethodOrConstructorInvocation()) {
             final boolean hasAuxclasspath = getEnclosingScope(SourceFileScope.class).hasAuxclasspath();
-            matchMethodDeclaration(occurrence, methodDeclarations.keySet(), hasAuxclasspath, result);
+            matchMethodDeclaration(occurrence, getDeclarations(MethodNameDeclaration.class, occurrence.getImage()),
+                    hasAuxclasspath, result);
 
             if (isEnum && "valueOf".equals(occurrence.getImage())) {
                 result.add(createBuiltInMethodDeclaration("valueOf", "String"));
@@ -203,11 +204,7 @@ public class ClassScope extends AbstractJavaScope {
             return result;
         }
         if (occurrence.isMethodReference()) {
-            for (MethodNameDeclaration mnd : methodDeclarations.keySet()) {
-                if (mnd.getImage().equals(occurrence.getImage())) {
-                    result.add(mnd);
-                }
-            }
+            result.addAll(getDeclarations(MethodNameDeclaration.class, occurrence.getImage()));
             return result;
         }
 
@@ -219,16 +216,18 @@ public class ClassScope extends AbstractJavaScope {
             }
         }
 
-        Map<VariableNameDeclaration, List<NameOccurrence>> variableDeclarations = getVariableDeclarations();
-        ImageFinderFunction finder = new ImageFinderFunction(images);
-        Applier.apply(finder, variableDeclarations.keySet().iterator());
-        if (finder.getDecl() != null) {
-            result.add(finder.getDecl());
+        for (String image : images) {
+            List<VariableNameDeclaration> variables = getDeclarations(VariableNameDeclaration.class, image);
+            if (!variables.isEmpty()) {
+                result.add(variables.get(0));
+                break;
+            }
         }
 
         // search inner classes
         Map<ClassNameDeclaration, List<NameOccurrence>> classDeclarations = getClassDeclarations();
         if (result.isEmpty() && !classDeclarations.isEmpty()) {
+            ImageFinderFunction finder = new ImageFinderFunction(images);
             for (ClassNameDeclaration innerClass : getClassDeclarations().keySet()) {
                 Applier.apply(finder, innerClass.getScope().getDeclarations(VariableNameDeclaration.class).keySet().iterator());
                 if (finder.getDecl() != null) {
@@ -240,7 +239,7 @@ public class ClassScope extends AbstractJavaScope {
     }
 
     private void matchMethodDeclaration(JavaNameOccurrence occurrence,
-            Set<MethodNameDeclaration> methodDeclarations, final boolean hasAuxclasspath,
+            Collection<MethodNameDeclaration> methodDeclarations, final boolean hasAuxclasspath,
             Set<NameDeclaration> result) {
         for (MethodNameDeclaration mnd : methodDeclarations) {
             if (mnd.getImage().equals(occurrence.getImage())) {
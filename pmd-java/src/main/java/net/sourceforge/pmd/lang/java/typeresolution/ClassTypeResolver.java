@@ -1391,6 +1391,9 @@ public class ClassTypeResolver extends JavaParserVisitorAdapter {
      * Check whether the supplied class name exists.
      */
     public boolean classNameExists(String fullyQualifiedClassName) {
+        if (pmdClassLoader.isIndexed(fullyQualifiedClassName)) {
+            return true; // Class found, without loading it
+        }
         try {
             pmdClassLoader.loadClass(fullyQualifiedClassName);
             return true; // Class found
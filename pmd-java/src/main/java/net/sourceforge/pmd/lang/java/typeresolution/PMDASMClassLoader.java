@@ -9,12 +9,13 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
 import org.objectweb.asm.ClassReader;
 
 import net.sourceforge.pmd.lang.java.typeresolution.visitors.PMDASMVisitor;
+import net.sourceforge.pmd.util.ClassResolutionCache;
+import net.sourceforge.pmd.util.ClasspathClassLoader;
+import net.sourceforge.pmd.util.ClasspathSymbolIndex;
 
 /*
  * I've refactored this class to not cache the results any more. This is a
@@ -32,6 +33,11 @@ import net.sourceforge.pmd.lang.java.typeresolution.visitors.PMDASMVisitor;
  * 
  * Note: since git show 46ad3a4700b7a233a177fa77d08110127a85604c the cache is using
  * a concurrent hash map to avoid synchronizing on the class loader instance.
+ *
+ * The imported classes of a class are cached as well, in the same concurrent cache.
+ * They are only asked for the classes of the analyzed files, so their number is bounded.
+ * When the auxclasspath is given through a ClasspathClassLoader, the cache belongs to it,
+ * and is persisted across runs together with the symbol index of the auxclasspath.
  */
 public final class PMDASMClassLoader extends ClassLoader {
 
@@ -39,9 +45,15 @@ public final class PMDASMClassLoader extends ClassLoader {
     private static ClassLoader cachedClassLoader;
 
     /**
-     * Caches the names of the classes that we can't load or that don't exist.
+     * Caches the names of the classes that we can't load or that don't exist,
+     * and the imported classes of the classes that we parsed.
+     */
+    private final ClassResolutionCache dontBother;
+
+    /**
+     * The symbol index of the auxclasspath, if it is enabled.
      */
-    private final ConcurrentMap<String, Boolean> dontBother = new ConcurrentHashMap<>();
+    private final ClasspathSymbolIndex symbolIndex;
 
     static {
         registerAsParallelCapable();
@@ -49,6 +61,13 @@ public final class PMDASMClassLoader extends ClassLoader {
 
     private PMDASMClassLoader(ClassLoader parent) {
         super(parent);
+        if (parent instanceof ClasspathClassLoader) {
+            symbolIndex = ((ClasspathClassLoader) parent).getSymbolIndex();
+            dontBother = ((ClasspathClassLoader) parent).getResolutionCache();
+        } else {
+            symbolIndex = null;
+            dontBother = new ClassResolutionCache();
+        }
     }
 
     /**
@@ -67,17 +86,17 @@ public final class PMDASMClassLoader extends ClassLoader {
 
     @Override
     public Class<?> loadClass(String name) throws ClassNotFoundException {
-        if (dontBother.containsKey(name)) {
+        if (dontBother.isUnresolvable(name)) {
             throw new ClassNotFoundException(name);
         }
 
         try {
             return super.loadClass(name);
         } catch (ClassNotFoundException e) {
-            dontBother.put(name, Boolean.TRUE);
+            dontBother.addUnresolvable(name);
             throw e;
         } catch (NoClassDefFoundError e) {
-            dontBother.put(name, Boolean.TRUE);
+            dontBother.addUnresolvable(name);
             // rethrow as ClassNotFoundException, as the remaining part just
             // deals with that
             // see also: https://sourceforge.net/p/pmd/bugs/1319/
@@ -96,13 +115,31 @@ public final class PMDASMClassLoader extends ClassLoader {
      * @return whether the class can be resolved
      */
     public boolean couldResolve(String name) {
-        return !dontBother.containsKey(name);
+        return !dontBother.isUnresolvable(name);
     }
 
-    public synchronized Map<String, String> getImportedClasses(String name) throws ClassNotFoundException {
-        if (dontBother.containsKey(name)) {
+    /**
+     * Checks if the given class is known to be on the auxclasspath, without
+     * loading it. This is only possible if the symbol index of the auxclasspath
+     * is enabled, see {@link ClasspathClassLoader#enableSymbolIndex(java.io.File)}.
+     *
+     * @param name
+     *            the binary name of the class
+     * @return true if the class is on the auxclasspath, false if it isn't or
+     *            the index is disabled
+     */
+    public boolean isIndexed(String name) {
+        return symbolIndex != null && symbolIndex.contains(name);
+    }
+
+    public Map<String, String> getImportedClasses(String name) throws ClassNotFoundException {
+        if (dontBother.isUnresolvable(name)) {
             throw new ClassNotFoundException(name);
         }
+        final Map<String, String> cached = dontBother.getImportedClasses(name);
+        if (cached != null) {
+            return cached;
+        }
         try (InputStream classResource = getResourceAsStream(name.replace('.', '/') + ".class")) {
             ClassReader reader = new ClassReader(classResource);
             PMDASMVisitor asmVisitor = new PMDASMVisitor(name);
@@ -121,9 +158,9 @@ public final class PMDASMClassLoader extends ClassLoader {
                     }
                 }
             }
-            return asmVisitor.getPackages();
+            return dontBother.putImportedClasses(name, asmVisitor.getPackages());
         } catch (IOException e) {
-            dontBother.put(name, Boolean.TRUE);
+            dontBother.addUnresolvable(name);
             throw new ClassNotFoundException(name, e);
         }
     }
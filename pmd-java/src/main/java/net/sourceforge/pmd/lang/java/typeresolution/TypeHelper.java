@@ -8,6 +8,8 @@ import org.apache.commons.lang3.ClassUtils;
 
 import net.sourceforge.pmd.lang.java.ast.TypeNode;
 import net.sourceforge.pmd.lang.java.symboltable.TypedNameDeclaration;
+import net.sourceforge.pmd.util.ClasspathClassLoader;
+import net.sourceforge.pmd.util.ClasspathSymbolIndex;
 
 public final class TypeHelper {
 
@@ -25,6 +27,10 @@ public final class TypeHelper {
      * @return <code>true</code> if type node n is of type clazzName or a subtype of clazzName
      */
     public static boolean isA(final TypeNode n, final String clazzName) {
+        if (n.getType() != null && isIndexed(n.getType().getClassLoader(), clazzName)) {
+            return isSubtype(n.getType(), clazzName);
+        }
+
         final Class<?> clazz = loadClassWithNodeClassloader(n, clazzName);
 
         if (clazz != null) {
@@ -43,6 +49,10 @@ public final class TypeHelper {
      * @return <code>true</code> if type node n is exactly of type clazzName.
      */
     public static boolean isExactlyA(final TypeNode n, final String clazzName) {
+        if (n.getType() != null && isIndexed(n.getType().getClassLoader(), clazzName)) {
+            return n.getType().getName().equals(clazzName);
+        }
+
         final Class<?> clazz = loadClassWithNodeClassloader(n, clazzName);
 
         if (clazz != null) {
@@ -52,6 +62,34 @@ public final class TypeHelper {
         return clazzName.equals(n.getImage()) || clazzName.endsWith("." + n.getImage());
     }
     
+    /**
+     * Checks whether the symbol index of the auxclasspath knows the given class.
+     * If so, it is on the same classpath as the types loaded by the given class
+     * loader, and can be compared with them by name, without being loaded.
+     */
+    private static boolean isIndexed(final ClassLoader classLoader, final String clazzName) {
+        if (classLoader instanceof ClasspathClassLoader) {
+            final ClasspathSymbolIndex index = ((ClasspathClassLoader) classLoader).getSymbolIndex();
+            return index != null && index.contains(clazzName);
+        }
+        return false;
+    }
+
+    private static boolean isSubtype(final Class<?> type, final String clazzName) {
+        if (type == null) {
+            return false;
+        }
+        if (type.getName().equals(clazzName) || isSubtype(type.getSuperclass(), clazzName)) {
+            return true;
+        }
+        for (final Class<?> itf : type.getInterfaces()) {
+            if (isSubtype(itf, clazzName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static Class<?> loadClassWithNodeClassloader(final TypeNode n, final String clazzName) {
         if (n.getType() != null) {
             return loadClass(n.getType().getClassLoader(), clazzName);
@@ -142,6 +180,9 @@ public final class TypeHelper {
 
     public static boolean isA(TypedNameDeclaration vnd, String className) {
         Class<?> type = vnd.getType();
+        if (type != null && isIndexed(type.getClassLoader(), className)) {
+            return isSubtype(type, className);
+        }
         if (type != null) {
             Class<?> clazz = loadClass(type.getClassLoader(), className);
             if (clazz != null) {
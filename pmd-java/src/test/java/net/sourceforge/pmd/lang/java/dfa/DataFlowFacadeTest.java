@@ -0,0 +1,74 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.dfa;
+
+import static net.sourceforge.pmd.lang.java.ParserTstUtil.parseJava18;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import net.sourceforge.pmd.lang.dfa.DataFlowNode;
+import net.sourceforge.pmd.lang.dfa.VariableAccess;
+import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
+import net.sourceforge.pmd.lang.java.ast.ASTMethodDeclaration;
+
+public class DataFlowFacadeTest {
+
+    private static final String TEST = "class Foo {\n"
+            + "  void bar() {\n"
+            + "    int x = 2;\n"
+            + "    x = 3;\n"
+            + "  }\n"
+            + "  void baz() {\n"
+            + "    new Runnable() {\n"
+            + "      public void run() {\n"
+            + "        int y = 4;\n"
+            + "      }\n"
+            + "    };\n"
+            + "  }\n"
+            + "}";
+
+    @Test
+    public void testOnlyRequestedMethodIsBuilt() {
+        List<ASTMethodDeclaration> methods = parseJava18(TEST).findDescendantsOfType(ASTMethodDeclaration.class, true);
+        ASTMethodDeclaration bar = methods.get(0);
+        ASTMethodDeclaration baz = methods.get(1);
+
+        DataFlowNode flow = DataFlowFacade.getDataFlow(bar);
+        assertSame(bar, flow.getNode());
+        assertNull(baz.getDataFlowNode());
+
+        // start, method, two statements, end
+        assertEquals(5, flow.getFlow().size());
+        List<VariableAccess> undefinitions = flow.getFlow().get(0).getVariableAccess();
+        assertEquals(1, undefinitions.size());
+        assertEquals("x", undefinitions.get(0).getVariableName());
+    }
+
+    @Test
+    public void testDataFlowIsMemoized() {
+        ASTMethodDeclaration bar = parseJava18(TEST).getFirstDescendantOfType(ASTMethodDeclaration.class);
+        DataFlowNode flow = DataFlowFacade.getDataFlow(bar);
+        assertSame(flow, DataFlowFacade.getDataFlow(bar));
+        assertSame(flow.getFlow(), DataFlowFacade.getDataFlow(bar).getFlow());
+    }
+
+    @Test
+    public void testNestedMethodIsPartOfEnclosingFlow() {
+        ASTCompilationUnit acu = parseJava18(TEST);
+        List<ASTMethodDeclaration> methods = acu.findDescendantsOfType(ASTMethodDeclaration.class, true);
+        ASTMethodDeclaration baz = methods.get(1);
+        ASTMethodDeclaration run = methods.get(2);
+
+        DataFlowNode flow = DataFlowFacade.getDataFlow(run);
+        assertNotNull(baz.getDataFlowNode());
+        assertSame(baz.getDataFlowNode().getFlow(), flow.getFlow());
+    }
+}
@@ -13,6 +13,7 @@ import net.sourceforge.pmd.lang.ParserOptions;
 import net.sourceforge.pmd.lang.TokenManager;
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.ParseException;
+import net.sourceforge.pmd.lang.xml.ast.StaxXmlParser;
 
 /**
  * Adapter for the XmlParser.
@@ -35,7 +36,11 @@ public class XmlParser extends AbstractParser {
 
     @Override
     public Node parse(String fileName, Reader source) throws ParseException {
-        return new net.sourceforge.pmd.lang.xml.ast.XmlParser((XmlParserOptions) parserOptions).parse(source);
+        XmlParserOptions xmlParserOptions = (XmlParserOptions) parserOptions;
+        if (xmlParserOptions.isStreaming()) {
+            return new StaxXmlParser(xmlParserOptions).parse(source);
+        }
+        return new net.sourceforge.pmd.lang.xml.ast.XmlParser(xmlParserOptions).parse(source);
     }
 
     @Override
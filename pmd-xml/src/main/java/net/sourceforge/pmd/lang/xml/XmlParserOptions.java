@@ -41,6 +41,14 @@ public class XmlParserOptions extends ParserOptions {
             "Specifies that the XML parser will process XInclude markup.", Boolean.FALSE, 9.0f);
     public static final BooleanProperty LOOKUP_DESCRIPTOR_DTD = new BooleanProperty("xincludeAware",
             "Specifies whether XML parser will attempt to lookup the DTD.", Boolean.FALSE, 10.0f);
+    /**
+     * @since 6.13.0
+     */
+    public static final BooleanProperty STREAMING_DESCRIPTOR = new BooleanProperty("streaming",
+            "Specifies that the XML parser build the tree from a stream of StAX events, without a DOM. "
+                    + "This is faster and uses less memory, but the DOM nodes are not available, "
+                    + "and validating and XInclude are not supported.",
+            Boolean.FALSE, 11.0f);
 
     public static final EntityResolver SILENT_ENTITY_RESOLVER = new EntityResolver() {
         @Override
@@ -57,6 +65,7 @@ public class XmlParserOptions extends ParserOptions {
     private boolean validating;
     private boolean xincludeAware;
     private boolean lookupDescriptorDoc;
+    private boolean streaming;
 
     public XmlParserOptions() {
         this.coalescing = COALESCING_DESCRIPTOR.defaultValue().booleanValue();
@@ -68,6 +77,7 @@ public class XmlParserOptions extends ParserOptions {
         this.validating = VALIDATING_DESCRIPTOR.defaultValue().booleanValue();
         this.xincludeAware = XINCLUDE_AWARE_DESCRIPTOR.defaultValue().booleanValue();
         this.lookupDescriptorDoc = LOOKUP_DESCRIPTOR_DTD.defaultValue().booleanValue();
+        this.streaming = STREAMING_DESCRIPTOR.defaultValue().booleanValue();
     }
 
     public XmlParserOptions(Rule rule) {
@@ -79,6 +89,7 @@ public class XmlParserOptions extends ParserOptions {
         this.validating = rule.getProperty(VALIDATING_DESCRIPTOR);
         this.xincludeAware = rule.getProperty(XINCLUDE_AWARE_DESCRIPTOR);
         this.lookupDescriptorDoc = rule.getProperty(LOOKUP_DESCRIPTOR_DTD);
+        this.streaming = rule.getProperty(STREAMING_DESCRIPTOR);
     }
 
     /**
@@ -159,6 +170,20 @@ public class XmlParserOptions extends ParserOptions {
         this.xincludeAware = xincludeAware;
     }
 
+    /**
+     * @since 6.13.0
+     */
+    public boolean isStreaming() {
+        return this.streaming;
+    }
+
+    /**
+     * @since 6.13.0
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
     @Override
     public int hashCode() {
         final int prime = 31;
@@ -170,6 +195,7 @@ public class XmlParserOptions extends ParserOptions {
         result = prime * result + (namespaceAware ? 1231 : 1237);
         result = prime * result + (validating ? 1231 : 1237);
         result = prime * result + (xincludeAware ? 1231 : 1237);
+        result = prime * result + (streaming ? 1231 : 1237);
         return result;
     }
 
@@ -187,6 +213,6 @@ public class XmlParserOptions extends ParserOptions {
                 && this.ignoringComments == that.ignoringComments
                 && this.ignoringElementContentWhitespace == that.ignoringElementContentWhitespace
                 && this.namespaceAware == that.namespaceAware && this.validating == that.validating
-                && this.xincludeAware == that.xincludeAware;
+                && this.xincludeAware == that.xincludeAware && this.streaming == that.streaming;
     }
 }
@@ -0,0 +1,131 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.xml.ast;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import net.sourceforge.pmd.lang.ast.AbstractNode;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.ast.RootNode;
+import net.sourceforge.pmd.lang.ast.xpath.Attribute;
+
+
+/**
+ * XML node built by the {@link StaxXmlParser}. It has the same name,
+ * attributes and image as the {@link XmlNodeWrapper} of the corresponding
+ * DOM node, but no DOM node.
+ *
+ * @since 6.13.0
+ */
+class StaxXmlNode extends AbstractNode implements XmlNode {
+
+    private static final String[] NO_ATTRIBUTES = new String[0];
+
+    private final String name;
+    private final String[] attributeNames;
+    private final String[] attributeValues;
+    private final boolean text;
+
+
+    /**
+     * Creates a node.
+     *
+     * @param name            The XPath name of the node
+     * @param attributeNames  The names of the attributes, sorted
+     * @param attributeValues The values of the attributes
+     * @param text            Whether the node is a text or CDATA node, which
+     *                        has an image
+     */
+    StaxXmlNode(String name, String[] attributeNames, String[] attributeValues, boolean text) {
+        super(0);
+        this.name = name;
+        this.attributeNames = attributeNames == null ? NO_ATTRIBUTES : attributeNames;
+        this.attributeValues = attributeValues == null ? NO_ATTRIBUTES : attributeValues;
+        this.text = text;
+    }
+
+
+    void setChildren(List<StaxXmlNode> childList) {
+        if (childList.isEmpty()) {
+            return;
+        }
+        children = childList.toArray(new Node[childList.size()]);
+        for (int i = 0; i < children.length; i++) {
+            children[i].jjtSetParent(this);
+            children[i].jjtSetChildIndex(i);
+        }
+    }
+
+
+    void setBegin(int line, int column) {
+        beginLine = line;
+        beginColumn = column;
+    }
+
+
+    void setEnd(int line, int column) {
+        endLine = line;
+        endColumn = column;
+    }
+
+
+    @Override
+    public String getXPathNodeName() {
+        return name;
+    }
+
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+
+    @Override
+    public Iterator<Attribute> getXPathAttributesIterator() {
+        List<Attribute> attributes = new ArrayList<>(attributeNames.length + 1);
+        for (int i = 0; i < attributeNames.length; i++) {
+            attributes.add(new Attribute(this, attributeNames[i], attributeValues[i]));
+        }
+        // Expose Text/CDATA nodes to have an 'Image' attribute like AST Nodes
+        if (text) {
+            attributes.add(new Attribute(this, "Image", getImage()));
+        }
+        return attributes.iterator();
+    }
+
+
+    /**
+     * @deprecated use {@link #getXPathAttributesIterator()}
+     */
+    @Override
+    @Deprecated
+    public Iterator<Attribute> getAttributeIterator() {
+        return getXPathAttributesIterator();
+    }
+
+
+    /**
+     * The DOM nodes are not available in the streaming mode.
+     *
+     * @throws UnsupportedOperationException Always
+     */
+    @Override
+    public org.w3c.dom.Node getNode() {
+        throw new UnsupportedOperationException("The DOM nodes are not available when parsing XML in the streaming mode");
+    }
+
+
+    /**
+     * The root should implement {@link RootNode}.
+     */
+    static class RootStaxXmlNode extends StaxXmlNode implements RootNode {
+        RootStaxXmlNode() {
+            super("document", null, null, false);
+        }
+    }
+}
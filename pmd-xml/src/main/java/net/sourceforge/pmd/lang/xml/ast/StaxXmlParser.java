@@ -0,0 +1,474 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.xml.ast;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.io.IOUtils;
+
+import net.sourceforge.pmd.annotation.Experimental;
+import net.sourceforge.pmd.lang.ast.ParseException;
+import net.sourceforge.pmd.lang.ast.SourceCodePositioner;
+import net.sourceforge.pmd.lang.xml.XmlParserOptions;
+import net.sourceforge.pmd.lang.xml.ast.StaxXmlNode.RootStaxXmlNode;
+
+
+/**
+ * Parses XML into a tree of {@link XmlNode}s built directly from a stream of
+ * StAX events, without a DOM. The nodes have the same names, attributes,
+ * images and positions as the nodes built by {@link XmlParser}, so that
+ * XPath rules work the same, but {@link XmlNode#getNode()} is not supported.
+ *
+ * <p>The positions are computed by a cursor over the source, which each
+ * event advances past its markup. The location reported by a StAX reader
+ * may include the lookahead of the reader, and so can't be used for the
+ * begin of a node. Each character is thus scanned a constant number of
+ * times.
+ *
+ * <p>Validation and XInclude are not supported. Unexpanded entity
+ * references have no replacement text.
+ *
+ * @since 6.13.0
+ */
+@Experimental
+public class StaxXmlParser {
+
+    private static final String CDATA_START = "<![CDATA[";
+    private static final String[] PREDEFINED_ENTITIES = {"amp;", "lt;", "gt;", "quot;", "apos;"};
+    private static final String REPORT_CDATA_EVENT = "http://java.sun.com/xml/stream/properties/report-cdata-event";
+
+    /** The factories are not thread-safe while they're configured, each thread uses its own. */
+    private static final ThreadLocal<XMLInputFactory> FACTORY = new ThreadLocal<XMLInputFactory>() {
+        @Override
+        protected XMLInputFactory initialValue() {
+            return XMLInputFactory.newInstance();
+        }
+    };
+
+    private static final XMLResolver SILENT_RESOLVER = new XMLResolver() {
+        @Override
+        public Object resolveEntity(String publicID, String systemID, String baseURI, String namespace) {
+            return new ByteArrayInputStream(new byte[0]);
+        }
+    };
+
+    private final XmlParserOptions parserOptions;
+
+    private String source;
+    private SourceCodePositioner positioner;
+    private int cursor;
+
+    private final Deque<OpenElement> openElements = new ArrayDeque<>();
+    /** The text or CDATA node to which the next text events are appended. */
+    private StaxXmlNode pendingText;
+    private boolean pendingCData;
+    private final StringBuilder pendingImage = new StringBuilder();
+
+
+    public StaxXmlParser(XmlParserOptions parserOptions) {
+        this.parserOptions = parserOptions;
+    }
+
+
+    public XmlNode parse(Reader reader) throws ParseException {
+        try {
+            source = IOUtils.toString(reader);
+            positioner = new SourceCodePositioner(source);
+            cursor = 0;
+            XMLStreamReader stream = createFactory().createXMLStreamReader(new StringReader(source));
+            try {
+                return buildTree(stream);
+            } finally {
+                stream.close();
+            }
+        } catch (IOException | XMLStreamException e) {
+            throw new ParseException(e);
+        } finally {
+            source = null;
+            positioner = null;
+            openElements.clear();
+            pendingText = null;
+            pendingImage.setLength(0);
+        }
+    }
+
+
+    private XMLInputFactory createFactory() {
+        XMLInputFactory factory = FACTORY.get();
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, parserOptions.isNamespaceAware());
+        factory.setProperty(XMLInputFactory.IS_COALESCING, parserOptions.isCoalescing());
+        factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, parserOptions.isExpandEntityReferences());
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, true);
+        factory.setXMLResolver(parserOptions.isLookupDescriptorDoc() ? null : SILENT_RESOLVER);
+        if (factory.isPropertySupported(REPORT_CDATA_EVENT)) {
+            factory.setProperty(REPORT_CDATA_EVENT, true);
+        }
+        return factory;
+    }
+
+
+    private XmlNode buildTree(XMLStreamReader stream) throws XMLStreamException {
+        RootStaxXmlNode root = new RootStaxXmlNode();
+        setBegin(root, 0);
+        OpenElement document = new OpenElement(root, false);
+        openElements.push(document);
+        skipDeclaration();
+
+        while (stream.hasNext()) {
+            int event = stream.next();
+            boolean topLevel = openElements.size() == 1;
+            if (topLevel) {
+                // whitespace outside the root element is not a node
+                skipWhitespace();
+            }
+
+            switch (event) {
+            case XMLStreamConstants.START_ELEMENT:
+                startElement(stream);
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                endElement();
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.SPACE:
+                if (!topLevel) {
+                    text(stream, event == XMLStreamConstants.SPACE);
+                }
+                break;
+            case XMLStreamConstants.CDATA:
+                cdata(stream.getText());
+                break;
+            case XMLStreamConstants.COMMENT:
+                comment();
+                break;
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                addNode(new StaxXmlNode(stream.getPITarget(), null, null, false), after("?>", cursor));
+                break;
+            case XMLStreamConstants.DTD:
+                addNode(new StaxXmlNode(doctypeName(), null, null, false), endOfDoctype());
+                break;
+            case XMLStreamConstants.ENTITY_REFERENCE:
+                addNode(new StaxXmlNode(stream.getLocalName(), null, null, false), after(";", cursor));
+                break;
+            default:
+                break;
+            }
+        }
+
+        closePendingText();
+        root.setChildren(document.children);
+        if (root.jjtGetNumChildren() > 0) {
+            StaxXmlNode last = (StaxXmlNode) root.jjtGetChild(root.jjtGetNumChildren() - 1);
+            root.setEnd(last.getEndLine(), last.getEndColumn());
+        } else {
+            root.setEnd(root.getBeginLine(), root.getBeginColumn());
+        }
+        return root;
+    }
+
+
+    private void startElement(XMLStreamReader stream) {
+        closePendingText();
+
+        int namespaceCount = parserOptions.isNamespaceAware() ? stream.getNamespaceCount() : 0;
+        int attributeCount = stream.getAttributeCount();
+        String[] names = new String[namespaceCount + attributeCount];
+        String[] values = new String[names.length];
+        for (int i = 0; i < namespaceCount; i++) {
+            // namespace declarations are attributes in the DOM
+            String prefix = stream.getNamespacePrefix(i);
+            names[i] = prefix == null || prefix.isEmpty() ? "xmlns" : "xmlns:" + prefix;
+            values[i] = stream.getNamespaceURI(i);
+        }
+        for (int i = 0; i < attributeCount; i++) {
+            names[namespaceCount + i] = qualifiedName(stream.getAttributePrefix(i), stream.getAttributeLocalName(i));
+            values[namespaceCount + i] = stream.getAttributeValue(i);
+        }
+        sortAttributes(names, values);
+
+        StaxXmlNode node = new StaxXmlNode(qualifiedName(stream.getPrefix(), stream.getLocalName()), names, values, false);
+        setBegin(node, cursor);
+        openElements.peek().children.add(node);
+
+        // the element may come from the replacement text of an entity
+        boolean inSource = startsWith("<");
+        if (inSource) {
+            cursor = endOfTag();
+        }
+        openElements.push(new OpenElement(node, !inSource || source.charAt(cursor - 2) == '/'));
+    }
+
+
+    private void endElement() {
+        closePendingText();
+        OpenElement element = openElements.pop();
+        if (!element.closed) {
+            cursor = after(">", cursor);
+        }
+        setEnd(element.node, cursor);
+        element.node.setChildren(element.children);
+    }
+
+
+    private void text(XMLStreamReader stream, boolean ignorable) {
+        if (!parserOptions.isCoalescing() && startsWith(CDATA_START)) {
+            // the reader doesn't report CDATA events
+            cdata(stream.getText());
+            return;
+        }
+        if (ignorable && parserOptions.isIgnoringElementContentWhitespace()) {
+            cursor = endOfText();
+            return;
+        }
+
+        // the text of a node may be split in several events, or around ignored comments
+        if (pendingText == null || pendingCData) {
+            closePendingText();
+            pendingText = new StaxXmlNode("text", null, null, true);
+            pendingCData = false;
+            setBegin(pendingText, cursor);
+            openElements.peek().children.add(pendingText);
+        }
+        pendingImage.append(stream.getTextCharacters(), stream.getTextStart(), stream.getTextLength());
+        cursor = endOfText();
+        setEnd(pendingText, cursor);
+    }
+
+
+    private void cdata(String text) {
+        if (startsWith(CDATA_START) || pendingText == null || !pendingCData) {
+            closePendingText();
+            pendingText = new StaxXmlNode("cdata-section", null, null, true);
+            pendingCData = true;
+            setBegin(pendingText, cursor);
+            openElements.peek().children.add(pendingText);
+            if (startsWith(CDATA_START)) {
+                cursor = after("]]>", cursor);
+            }
+            setEnd(pendingText, cursor);
+        }
+        pendingImage.append(text);
+    }
+
+
+    private void comment() {
+        int end = after("-->", cursor);
+        if (parserOptions.isIgnoringComments()) {
+            // the text around an ignored comment is a single node
+            cursor = end;
+            return;
+        }
+        addNode(new StaxXmlNode("comment", null, null, false), end);
+    }
+
+
+    private void addNode(StaxXmlNode node, int end) {
+        closePendingText();
+        setBegin(node, cursor);
+        cursor = end;
+        setEnd(node, cursor);
+        openElements.peek().children.add(node);
+    }
+
+
+    private void closePendingText() {
+        if (pendingText != null) {
+            pendingText.setImage(pendingImage.toString());
+            pendingImage.setLength(0);
+            pendingText = null;
+        }
+    }
+
+
+    private void setBegin(StaxXmlNode node, int offset) {
+        int line = positioner.lineNumberFromOffset(offset);
+        node.setBegin(line, positioner.columnFromOffset(line, offset));
+    }
+
+
+    /** Sets the end of the node to the character before the given offset. */
+    private void setEnd(StaxXmlNode node, int offset) {
+        int line = positioner.lineNumberFromOffset(offset - 1);
+        node.setEnd(line, positioner.columnFromOffset(line, offset - 1));
+    }
+
+
+    private boolean startsWith(String prefix) {
+        return source.startsWith(prefix, cursor);
+    }
+
+
+    private int after(String marker, int from) {
+        int index = source.indexOf(marker, from);
+        return index < 0 ? source.length() : index + marker.length();
+    }
+
+
+    private void skipDeclaration() {
+        if (startsWith("\uFEFF")) {
+            cursor++;
+        }
+        if (startsWith("<?xml") && cursor + 5 < source.length()
+                && (isWhitespace(source.charAt(cursor + 5)) || source.charAt(cursor + 5) == '?')) {
+            cursor = after("?>", cursor);
+        }
+    }
+
+
+    private void skipWhitespace() {
+        while (cursor < source.length() && isWhitespace(source.charAt(cursor))) {
+            cursor++;
+        }
+    }
+
+
+    /** Returns the offset after the '&gt;' of the tag at the cursor. */
+    private int endOfTag() {
+        char quote = 0;
+        for (int i = cursor + 1; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i + 1;
+            }
+        }
+        return source.length();
+    }
+
+
+    /** Returns the offset of the markup, or unexpanded entity reference, which ends the text at the cursor. */
+    private int endOfText() {
+        int i = cursor;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (c == '<') {
+                if (parserOptions.isCoalescing() && source.startsWith(CDATA_START, i)) {
+                    i = after("]]>", i);
+                    continue;
+                }
+                return i;
+            } else if (c == '&' && !parserOptions.isExpandEntityReferences() && isEntityReference(i)) {
+                return i;
+            }
+            i++;
+        }
+        return i;
+    }
+
+
+    /** The predefined entities and the character references are always expanded. */
+    private boolean isEntityReference(int ampersand) {
+        if (source.startsWith("#", ampersand + 1)) {
+            return false;
+        }
+        for (String entity : PREDEFINED_ENTITIES) {
+            if (source.startsWith(entity, ampersand + 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private int endOfDoctype() {
+        char quote = 0;
+        int depth = 0;
+        int i = cursor + "<!DOCTYPE".length();
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (source.startsWith("<!--", i)) {
+                i = after("-->", i);
+                continue;
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']') {
+                depth--;
+            } else if (c == '>' && depth == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+
+    /** The DOM name of a document type is the name of its root element. */
+    private String doctypeName() {
+        int begin = Math.min(cursor + "<!DOCTYPE".length(), source.length());
+        while (begin < source.length() && isWhitespace(source.charAt(begin))) {
+            begin++;
+        }
+        int end = begin;
+        while (end < source.length() && !isWhitespace(source.charAt(end))
+                && source.charAt(end) != '[' && source.charAt(end) != '>') {
+            end++;
+        }
+        return source.substring(begin, end);
+    }
+
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+
+    private static String qualifiedName(String prefix, String localName) {
+        return prefix == null || prefix.isEmpty() ? localName : prefix + ':' + localName;
+    }
+
+
+    /** The attributes of a DOM element are sorted by name. */
+    private static void sortAttributes(String[] names, String[] values) {
+        for (int i = 1; i < names.length; i++) {
+            String name = names[i];
+            String value = values[i];
+            int j = i - 1;
+            while (j >= 0 && names[j].compareTo(name) > 0) {
+                names[j + 1] = names[j];
+                values[j + 1] = values[j];
+                j--;
+            }
+            names[j + 1] = name;
+            values[j + 1] = value;
+        }
+    }
+
+
+    private static final class OpenElement {
+        private final StaxXmlNode node;
+        /** Whether the end of the element was already consumed, eg for &lt;a/&gt;. */
+        private final boolean closed;
+        private final List<StaxXmlNode> children = new ArrayList<>();
+
+        OpenElement(StaxXmlNode node, boolean closed) {
+            this.node = node;
+            this.closed = closed;
+        }
+    }
+}
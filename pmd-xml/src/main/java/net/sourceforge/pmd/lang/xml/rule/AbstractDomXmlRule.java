@@ -19,6 +19,8 @@ import org.w3c.dom.ProcessingInstruction;
 import org.w3c.dom.Text;
 
 import net.sourceforge.pmd.RuleContext;
+import net.sourceforge.pmd.lang.ParserOptions;
+import net.sourceforge.pmd.lang.xml.XmlParserOptions;
 import net.sourceforge.pmd.lang.xml.ast.XmlNode;
 
 /**
@@ -28,6 +30,14 @@ import net.sourceforge.pmd.lang.xml.ast.XmlNode;
  */
 public class AbstractDomXmlRule extends AbstractXmlRule {
 
+    @Override
+    public ParserOptions getParserOptions() {
+        XmlParserOptions parserOptions = (XmlParserOptions) super.getParserOptions();
+        // the DOM nodes are not available in the streaming mode
+        parserOptions.setStreaming(false);
+        return parserOptions;
+    }
+
     @Override
     protected void visit(XmlNode node, RuleContext ctx) {
         final Node domNode = node.getNode();
@@ -32,6 +32,7 @@ public class AbstractXmlRule extends AbstractRule implements ImmutableLanguage {
     public static final BooleanProperty NAMESPACE_AWARE_DESCRIPTOR = XmlParserOptions.NAMESPACE_AWARE_DESCRIPTOR;
     public static final BooleanProperty VALIDATING_DESCRIPTOR = XmlParserOptions.VALIDATING_DESCRIPTOR;
     public static final BooleanProperty XINCLUDE_AWARE_DESCRIPTOR = XmlParserOptions.XINCLUDE_AWARE_DESCRIPTOR;
+    public static final BooleanProperty STREAMING_DESCRIPTOR = XmlParserOptions.STREAMING_DESCRIPTOR;
 
     public AbstractXmlRule() {
         super.setLanguage(LanguageRegistry.getLanguage(XmlLanguageModule.NAME));
@@ -51,6 +52,7 @@ public class AbstractXmlRule extends AbstractRule implements ImmutableLanguage {
         definePropertyDescriptor(NAMESPACE_AWARE_DESCRIPTOR);
         definePropertyDescriptor(VALIDATING_DESCRIPTOR);
         definePropertyDescriptor(XINCLUDE_AWARE_DESCRIPTOR);
+        definePropertyDescriptor(STREAMING_DESCRIPTOR);
     }
 
     @Override
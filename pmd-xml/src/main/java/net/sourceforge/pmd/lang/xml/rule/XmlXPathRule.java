@@ -20,6 +20,7 @@ public class XmlXPathRule extends XPathRule {
     public static final BooleanProperty NAMESPACE_AWARE_DESCRIPTOR = XmlParserOptions.NAMESPACE_AWARE_DESCRIPTOR;
     public static final BooleanProperty VALIDATING_DESCRIPTOR = XmlParserOptions.VALIDATING_DESCRIPTOR;
     public static final BooleanProperty XINCLUDE_AWARE_DESCRIPTOR = XmlParserOptions.XINCLUDE_AWARE_DESCRIPTOR;
+    public static final BooleanProperty STREAMING_DESCRIPTOR = XmlParserOptions.STREAMING_DESCRIPTOR;
 
     public XmlXPathRule() {
         super.setLanguage(LanguageRegistry.getLanguage(XmlLanguageModule.NAME));
@@ -30,6 +31,7 @@ public class XmlXPathRule extends XPathRule {
         definePropertyDescriptor(NAMESPACE_AWARE_DESCRIPTOR);
         definePropertyDescriptor(VALIDATING_DESCRIPTOR);
         definePropertyDescriptor(XINCLUDE_AWARE_DESCRIPTOR);
+        definePropertyDescriptor(STREAMING_DESCRIPTOR);
     }
 
     @Override
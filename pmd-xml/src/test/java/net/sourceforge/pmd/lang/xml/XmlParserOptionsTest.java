@@ -28,6 +28,7 @@ public class XmlParserOptionsTest {
         assertTrue(options.isNamespaceAware());
         assertFalse(options.isValidating());
         assertFalse(options.isXincludeAware());
+        assertFalse(options.isStreaming());
 
         MyRule rule = new MyRule();
         options = (XmlParserOptions) rule.getParserOptions();
@@ -38,6 +39,7 @@ public class XmlParserOptionsTest {
         assertTrue(options.isNamespaceAware());
         assertFalse(options.isValidating());
         assertFalse(options.isXincludeAware());
+        assertFalse(options.isStreaming());
     }
 
     @Test
@@ -78,6 +80,11 @@ public class XmlParserOptionsTest {
         assertTrue(((XmlParserOptions) rule.getParserOptions()).isXincludeAware());
         rule.setProperty(XmlParserOptions.XINCLUDE_AWARE_DESCRIPTOR, false);
         assertFalse(((XmlParserOptions) rule.getParserOptions()).isXincludeAware());
+
+        rule.setProperty(XmlParserOptions.STREAMING_DESCRIPTOR, true);
+        assertTrue(((XmlParserOptions) rule.getParserOptions()).isStreaming());
+        rule.setProperty(XmlParserOptions.STREAMING_DESCRIPTOR, false);
+        assertFalse(((XmlParserOptions) rule.getParserOptions()).isStreaming());
     }
 
     @Test
@@ -123,6 +130,11 @@ public class XmlParserOptionsTest {
         assertTrue(options.isXincludeAware());
         options.setXincludeAware(false);
         assertFalse(options.isXincludeAware());
+
+        options.setStreaming(true);
+        assertTrue(options.isStreaming());
+        options.setStreaming(false);
+        assertFalse(options.isStreaming());
     }
 
     @Test
@@ -131,7 +143,7 @@ public class XmlParserOptionsTest {
             XmlParserOptions.EXPAND_ENTITY_REFERENCES_DESCRIPTOR, XmlParserOptions.IGNORING_COMMENTS_DESCRIPTOR,
             XmlParserOptions.IGNORING_ELEMENT_CONTENT_WHITESPACE_DESCRIPTOR,
             XmlParserOptions.NAMESPACE_AWARE_DESCRIPTOR, XmlParserOptions.VALIDATING_DESCRIPTOR,
-            XmlParserOptions.XINCLUDE_AWARE_DESCRIPTOR, };
+            XmlParserOptions.XINCLUDE_AWARE_DESCRIPTOR, XmlParserOptions.STREAMING_DESCRIPTOR, };
 
         for (int i = 0; i < properties.length; i++) {
             BooleanProperty property = properties[i];
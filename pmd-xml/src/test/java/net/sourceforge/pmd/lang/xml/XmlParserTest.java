@@ -384,6 +384,166 @@ public class XmlParserTest {
         assertLineNumbers(parseXml(xml), 1, 1, 1, xml.length());
     }
 
+    /**
+     * Verifies that the streaming mode builds the same tree as the DOM.
+     */
+    @Test
+    public void testStreamingParsing() throws Exception {
+        String pi = "<?xml version=\"1.0\"?><?mypi?><!DOCTYPE testDoc [<!ENTITY myentity \"e\">]><!--Comment--><foo abc=\"abc\"><bar>TEXT</bar><![CDATA[cdata!]]>&gt;&myentity;&lt;</foo>";
+        String bug1518 = IOUtils.toString(XmlParserTest.class.getResourceAsStream("parsertests/bug1518.xml"),
+                StandardCharsets.UTF_8);
+
+        assertSameTreeWhenStreaming(new XmlParserOptions(), XML_TEST);
+        assertSameTreeWhenStreaming(new XmlParserOptions(), XML_NAMESPACE_TEST);
+        assertSameTreeWhenStreaming(new XmlParserOptions(), pi);
+        assertSameTreeWhenStreaming(new XmlParserOptions(), bug1518);
+        assertSameTreeWhenStreaming(new XmlParserOptions(), "<elementName att1='foo' att2='bar' att3='other' />");
+
+        XmlParserOptions options = new XmlParserOptions();
+        options.setNamespaceAware(false);
+        assertSameTreeWhenStreaming(options, XML_NAMESPACE_TEST);
+    }
+
+    /**
+     * Verifies the parsing behavior of the streaming mode with coalescing
+     * enabled. The text nodes span the CDATA sections they include.
+     */
+    @Test
+    public void testStreamingParsingCoalescingEnabled() {
+        XmlParserOptions parserOptions = new XmlParserOptions();
+        parserOptions.setCoalescing(true);
+        parserOptions.setStreaming(true);
+        Node document = parse(parserOptions, XML_TEST);
+
+        assertNode(document, "document", 2);
+        assertLineNumbers(document, 1, 1, 19, 14);
+        Node rootElement = document.jjtGetChild(1);
+        assertNode(rootElement, "rootElement", 7);
+        Node child2 = rootElement.jjtGetChild(5);
+        assertNode(child2, "child2", 1);
+        assertLineNumbers(child2, 16, 5, 18, 13);
+        assertTextNode(child2.jjtGetChild(0), "\\n       cdata section \\n    ");
+        assertLineNumbers(child2.jjtGetChild(0), 16, 13, 18, 4);
+        assertTextNode(rootElement.jjtGetChild(6), "\\n");
+        assertLineNumbers(rootElement.jjtGetChild(6), 18, 14, 18, 14);
+    }
+
+    /**
+     * Verifies the parsing behavior of the streaming mode if ignoring
+     * comments. The text around an ignored comment spans the comment.
+     */
+    @Test
+    public void testStreamingParsingIgnoreComments() {
+        XmlParserOptions parserOptions = new XmlParserOptions();
+        parserOptions.setIgnoringComments(true);
+        parserOptions.setStreaming(true);
+        Node document = parse(parserOptions, XML_TEST);
+
+        assertNode(document, "document", 2);
+        Node rootElement = document.jjtGetChild(1);
+        assertNode(rootElement, "rootElement", 5);
+        assertTextNode(rootElement.jjtGetChild(0), "\\n    \\n    ");
+        assertLineNumbers(rootElement.jjtGetChild(0), 12, 14, 14, 4);
+        assertNode(rootElement.jjtGetChild(1), "child1", 1, "test", "1");
+        assertLineNumbers(rootElement.jjtGetChild(1), 14, 5, 15, 13);
+    }
+
+    /**
+     * Verifies the parsing behavior of the streaming mode if ignoring
+     * whitespaces in elements. The ignored whitespace is still part of the
+     * span of the parent element.
+     */
+    @Test
+    public void testStreamingParsingIgnoreElementContentWhitespace() {
+        XmlParserOptions parserOptions = new XmlParserOptions();
+        parserOptions.setIgnoringElementContentWhitespace(true);
+        parserOptions.setStreaming(true);
+        Node document = parse(parserOptions, XML_TEST);
+
+        assertNode(document, "document", 2);
+        assertLineNumbers(document, 1, 1, 19, 14);
+        Node rootElement = document.jjtGetChild(1);
+        assertNode(rootElement, "rootElement", 3);
+        assertLineNumbers(rootElement, 12, 1, 19, 14);
+        assertNode(rootElement.jjtGetChild(0), "comment", 0);
+        assertLineNumbers(rootElement.jjtGetChild(0), 13, 5, 13, 29);
+        Node child2 = rootElement.jjtGetChild(2);
+        assertNode(child2, "child2", 3);
+        assertLineNumbers(child2, 16, 5, 18, 13);
+        assertTextNode(child2.jjtGetChild(1), " cdata section ", "cdata-section");
+        assertLineNumbers(child2.jjtGetChild(1), 17, 7, 17, 33);
+    }
+
+    /**
+     * Verifies the parsing behavior of the streaming mode if entities are not
+     * expanded: the entity reference has no replacement text.
+     */
+    @Test
+    public void testStreamingParsingDoNotExpandEntities() {
+        XmlParserOptions parserOptions = new XmlParserOptions();
+        parserOptions.setExpandEntityReferences(false);
+        parserOptions.setStreaming(true);
+        Node document = parse(parserOptions, XML_TEST);
+
+        assertNode(document, "document", 2);
+        Node rootElement = document.jjtGetChild(1);
+        assertNode(rootElement, "rootElement", 7);
+        Node child1 = rootElement.jjtGetChild(3);
+        assertNode(child1, "child1", 3, "test", "1");
+        assertTextNode(child1.jjtGetChild(0), "entity: ");
+        assertLineNumbers(child1.jjtGetChild(0), 14, 22, 14, 29);
+        assertNode(child1.jjtGetChild(1), "pmd", 0);
+        assertLineNumbers(child1.jjtGetChild(1), 14, 30, 14, 34);
+        assertTextNode(child1.jjtGetChild(2), "\\n    ");
+        assertLineNumbers(child1.jjtGetChild(2), 14, 35, 15, 4);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testStreamingParsingHasNoDom() {
+        XmlParserOptions parserOptions = new XmlParserOptions();
+        parserOptions.setStreaming(true);
+        ((XmlNode) parse(parserOptions, XML_TEST)).getNode();
+    }
+
+    private Node parse(XmlParserOptions parserOptions, String xml) {
+        LanguageVersionHandler xmlVersionHandler = LanguageRegistry.getLanguage(XmlLanguageModule.NAME)
+                .getDefaultVersion().getLanguageVersionHandler();
+        return xmlVersionHandler.getParser(parserOptions).parse(null, new StringReader(xml));
+    }
+
+    private void assertSameTreeWhenStreaming(XmlParserOptions parserOptions, String xml) {
+        parserOptions.setStreaming(false);
+        Node expected = parse(parserOptions, xml);
+        parserOptions.setStreaming(true);
+        assertSameTree(expected, parse(parserOptions, xml));
+    }
+
+    private void assertSameTree(Node expected, Node actual) {
+        Assert.assertEquals(String.valueOf(expected), String.valueOf(actual));
+        Assert.assertEquals(expected + " image", expected.getImage(), actual.getImage());
+        Assert.assertEquals(expected + " begin line", expected.getBeginLine(), actual.getBeginLine());
+        Assert.assertEquals(expected + " begin column", expected.getBeginColumn(), actual.getBeginColumn());
+        Assert.assertEquals(expected + " end line", expected.getEndLine(), actual.getEndLine());
+        Assert.assertEquals(expected + " end column", expected.getEndColumn(), actual.getEndColumn());
+
+        Iterator<Attribute> expectedAttributes = expected.getXPathAttributesIterator();
+        Iterator<Attribute> actualAttributes = actual.getXPathAttributesIterator();
+        while (expectedAttributes.hasNext()) {
+            Assert.assertTrue(expected + " attributes", actualAttributes.hasNext());
+            Attribute expectedAttribute = expectedAttributes.next();
+            Attribute actualAttribute = actualAttributes.next();
+            Assert.assertEquals(expectedAttribute.getName(), actualAttribute.getName());
+            Assert.assertEquals(expectedAttribute.getValue(), actualAttribute.getValue());
+        }
+        Assert.assertFalse(expected + " attributes", actualAttributes.hasNext());
+
+        Assert.assertEquals(expected + " children", expected.jjtGetNumChildren(), actual.jjtGetNumChildren());
+        for (int i = 0; i < expected.jjtGetNumChildren(); i++) {
+            Assert.assertSame(actual, actual.jjtGetChild(i).jjtGetParent());
+            assertSameTree(expected.jjtGetChild(i), actual.jjtGetChild(i));
+        }
+    }
+
     /**
      * Asserts a single node inclusive attributes.
      * 